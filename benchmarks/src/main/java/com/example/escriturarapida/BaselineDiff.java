@@ -0,0 +1,147 @@
+package com.example.escriturarapida;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compares two JMH result files written with {@code -rf csv}, typically the
+ * committed {@code baseline.csv} and the results of the current build.
+ *
+ * <p>Usage: {@code BaselineDiff <baseline.csv> <results.csv> [thresholdPercent]}.
+ * Prints one line per benchmark and parameter set found in both files and
+ * exits with status 1 if any of them is slower than the baseline by more
+ * than the threshold (10% by default). For time modes a higher score is
+ * slower; for throughput a lower one is.</p>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class BaselineDiff {
+
+    private BaselineDiff() {
+    }
+
+    /**
+     * One row of a JMH CSV file.
+     */
+    private static final class Result {
+        final String mode;
+        final double score;
+        final double error;
+        final String unit;
+
+        Result(String mode, double score, double error, String unit) {
+            this.mode = mode;
+            this.score = score;
+            this.error = error;
+            this.unit = unit;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Uso: BaselineDiff <baseline.csv> <resultados.csv> [umbral%]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, Result> baseline = read(Path.of(args[0]));
+        Map<String, Result> current = read(Path.of(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, Result> entry : current.entrySet()) {
+            Result before = baseline.get(entry.getKey());
+            Result after = entry.getValue();
+            if (before == null || !before.unit.equals(after.unit)) {
+                System.out.printf("%-70s %12.3f %-8s (sin referencia)%n", entry.getKey(), after.score, after.unit);
+                continue;
+            }
+            double change = (after.score - before.score) / before.score * 100.0;
+            double slowdown = "thrpt".equals(after.mode) ? -change : change;
+            boolean regression = slowdown > threshold;
+            if (regression) {
+                regressions++;
+            }
+            System.out.printf(Locale.ROOT, "%-70s %12.3f -> %12.3f +- %.3f %-8s %+7.1f%%%s%n",
+                    entry.getKey(), before.score, after.score, after.error, after.unit, change,
+                    regression ? "  REGRESION" : "");
+        }
+        System.out.printf("[BaselineDiff] %d regresiones por encima del %.1f%%%n", regressions, threshold);
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads a JMH CSV file, keyed by benchmark name and parameter values.
+     *
+     * @param file the CSV file
+     * @return results in file order
+     * @throws IOException if the file cannot be read
+     */
+    private static Map<String, Result> read(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        Map<String, Result> results = new LinkedHashMap<>();
+        if (lines.isEmpty()) {
+            return results;
+        }
+        List<String> header = split(lines.get(0));
+        int benchmark = header.indexOf("Benchmark");
+        int mode = header.indexOf("Mode");
+        int score = header.indexOf("Score");
+        int error = header.indexOf("Score Error (99.9%)");
+        int unit = header.indexOf("Unit");
+
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.isBlank()) {
+                continue;
+            }
+            List<String> cells = split(line);
+            String name = cells.get(benchmark);
+            StringBuilder key = new StringBuilder(name.substring(name.lastIndexOf('.', name.lastIndexOf('.') - 1) + 1));
+            for (int i = unit + 1; i < header.size() && i < cells.size(); i++) {
+                if (!cells.get(i).isEmpty()) {
+                    key.append(' ').append(header.get(i).replace("Param: ", "")).append('=').append(cells.get(i));
+                }
+            }
+            double err = error >= 0 && !cells.get(error).isEmpty() && !"NaN".equals(cells.get(error))
+                    ? Double.parseDouble(cells.get(error)) : 0.0;
+            results.put(key.toString(), new Result(cells.get(mode), Double.parseDouble(cells.get(score)),
+                    err, cells.get(unit)));
+        }
+        return results;
+    }
+
+    /**
+     * Splits a CSV line, honouring double quotes.
+     *
+     * @param line the line
+     * @return the cells, without quotes
+     */
+    private static List<String> split(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        cells.add(cell.toString());
+        return cells;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.escriturarapida;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Synthetic word lists of a given size, used to measure word selection at
+ * corpus sizes far beyond the built-in 15 words per difficulty.
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+final class BenchmarkCorpus {
+
+    private static final String LETTERS = "abcdefghijklmnñopqrstuvwxyzáéíóú";
+
+    private BenchmarkCorpus() {
+    }
+
+    /**
+     * Generates distinct lowercase words. The same size and seed always give
+     * the same list, so runs are comparable.
+     *
+     * @param size number of words
+     * @param seed random seed
+     * @return the words, in generation order
+     */
+    static List<String> words(int size, long seed) {
+        Random random = new Random(seed);
+        Set<String> words = new LinkedHashSet<>(size * 2);
+        StringBuilder sb = new StringBuilder();
+        while (words.size() < size) {
+            sb.setLength(0);
+            int length = 3 + random.nextInt(10);
+            for (int i = 0; i < length; i++) {
+                sb.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+            }
+            words.add(sb.toString());
+        }
+        return new ArrayList<>(words);
+    }
+
+    /**
+     * Builds an in-memory dictionary with {@code size} words per difficulty.
+     *
+     * @param size words per difficulty
+     * @return the dictionary
+     * @throws IOException if the encoded dictionary cannot be read back
+     */
+    static WordDictionary dictionary(int size) throws IOException {
+        DictionaryWriter writer = new DictionaryWriter();
+        for (Difficulty d : Difficulty.values()) {
+            writer.addAll(d, words(size, d.ordinal()));
+        }
+        return WordDictionary.wrap(writer.encode());
+    }
+}
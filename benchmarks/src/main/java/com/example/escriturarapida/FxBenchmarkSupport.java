@@ -0,0 +1,60 @@
+package com.example.escriturarapida;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Starts the JavaFX toolkit once per benchmark fork and runs setup code on
+ * the FX thread. The toolkit needs a display; run under {@code xvfb-run}
+ * on machines without one.
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+final class FxBenchmarkSupport {
+
+    private static boolean started;
+
+    private FxBenchmarkSupport() {
+    }
+
+    /**
+     * Starts the toolkit if it is not running yet.
+     *
+     * @throws InterruptedException if interrupted while waiting for it
+     */
+    static synchronized void startToolkit() throws InterruptedException {
+        if (started) {
+            return;
+        }
+        CountDownLatch latch = new CountDownLatch(1);
+        Platform.setImplicitExit(false);
+        Platform.startup(latch::countDown);
+        latch.await();
+        started = true;
+    }
+
+    /**
+     * Runs a task on the FX thread and waits for it.
+     *
+     * @param task the work to run
+     * @param <T>  result type
+     * @return the task result
+     * @throws Exception whatever the task threw
+     */
+    static <T> T onFxThread(Callable<T> task) throws Exception {
+        FutureTask<T> future = new FutureTask<>(task);
+        Platform.runLater(future);
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw (Exception) e.getCause();
+        }
+    }
+}
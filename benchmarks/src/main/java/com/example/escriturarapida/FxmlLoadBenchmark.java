@@ -0,0 +1,51 @@
+package com.example.escriturarapida;
+
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to load each screen from its FXML file, as {@link SceneRouter} does
+ * once per screen at startup. Images come from the warm {@link ImageCache},
+ * so the figure is the parsing and node construction cost.
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FxmlLoadBenchmark {
+
+    @Param({"MAIN_MENU", "GAME", "GAME_OVER", "STATS", "HELP"})
+    public SceneRouter.Screen screen;
+
+    @Setup
+    public void setup() throws InterruptedException {
+        FxBenchmarkSupport.startToolkit();
+    }
+
+    @Benchmark
+    public Parent load() throws IOException {
+        FXMLLoader loader = new FXMLLoader(SceneRouter.class.getResource(screen.getFxmlFile()));
+        return loader.load();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.escriturarapida;
+
+import javafx.scene.control.Label;
+import javafx.scene.control.TextField;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Label and style update path of the game screen.
+ *
+ * <p>Labels and a text field are bound to a {@link GameViewModel} the way
+ * {@code GameController} binds them, outside any window, so the benchmark
+ * thread is the only one touching them. {@code refreshUnchanged} is the
+ * common frame where only the clock moved within the same tenth;
+ * {@code refreshAfterSubmit} is a frame after an accepted word, where every
+ * text and the countdown colour change.</p>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SceneUpdateBenchmark {
+
+    private GameEngine engine;
+    private GameViewModel view;
+    private long startedAt;
+
+    @Setup
+    public void setup() throws InterruptedException, IOException {
+        FxBenchmarkSupport.startToolkit();
+        engine = new GameEngine(new GameRules(20, 2, 1, 2, 15, 30, Integer.MAX_VALUE - 1));
+        view = new GameViewModel(engine, new TypingMetrics());
+
+        Label level = new Label();
+        Label maxTime = new Label();
+        Label time = new Label();
+        Label word = new Label();
+        Label wpm = new Label();
+        TextField entry = new TextField();
+        level.textProperty().bind(view.levelTextProperty());
+        maxTime.textProperty().bind(view.maxTimeTextProperty());
+        time.textProperty().bind(view.timeTextProperty());
+        word.textProperty().bind(view.wordTextProperty());
+        wpm.textProperty().bind(view.wpmTextProperty());
+        ViewModel.bindPseudoClass(time, view.timeStateProperty());
+        ViewModel.bindPseudoClass(entry, view.entryStateProperty());
+
+        startedAt = System.nanoTime();
+        engine.start(new DeckWordSource(BenchmarkCorpus.dictionary(1000), 42), startedAt);
+        view.refreshNow();
+    }
+
+    @Benchmark
+    public void refreshUnchanged() {
+        view.refreshNow();
+    }
+
+    @Benchmark
+    public void refreshAfterSubmit() {
+        engine.setInput(engine.getCurrentWord());
+        engine.submit(System.nanoTime());
+        view.refreshNow();
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.escriturarapida;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of checking the typed word.
+ *
+ * <p>{@code legacyTrimEquals} is the string handling of the original
+ * {@code wordValidation()}: trim the whole field and compare it on ENTER.
+ * The validator benchmarks measure the per-keystroke path that replaced it,
+ * fed with the successive texts a text field reports while typing the word,
+ * and a full resync as done after a paste. They go through the same
+ * {@code reset(word, form, mode)} call as {@link GameEngine}, once per
+ * {@link MatchMode}.</p>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ValidationBenchmark {
+
+    /** One word of each difficulty in {@link DefaultWords}. */
+    @Param({"casa", "televisión", "otorrinolaringología"})
+    public String word;
+
+    @Param({"EXACT", "NFC", "ACCENT_INSENSITIVE"})
+    public MatchMode mode;
+
+    private String form;
+    private String typed;
+    private String[] keystrokes;
+    private final TypingValidator validator = new TypingValidator();
+
+    @Setup
+    public void setup() {
+        form = mode.form(word);
+        typed = " " + word + " ";
+        keystrokes = new String[word.length() + 1];
+        for (int i = 0; i <= word.length(); i++) {
+            keystrokes[i] = word.substring(0, i);
+        }
+    }
+
+    @Benchmark
+    public boolean legacyTrimEquals() {
+        return typed.trim().equals(word);
+    }
+
+    @Benchmark
+    public boolean validatorPerKeystroke() {
+        validator.reset(word, form, mode);
+        for (int i = 1; i < keystrokes.length; i++) {
+            validator.update(keystrokes[i - 1], keystrokes[i]);
+        }
+        return validator.isComplete();
+    }
+
+    @Benchmark
+    public boolean validatorResync() {
+        validator.reset(word, form, mode);
+        validator.resync(typed);
+        return validator.isComplete();
+    }
+}
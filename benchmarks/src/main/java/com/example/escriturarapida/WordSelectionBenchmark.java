@@ -0,0 +1,79 @@
+package com.example.escriturarapida;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of drawing the next word at several corpus sizes.
+ *
+ * <p>{@code legacyGetRandomWord} is the selection the game used before the
+ * dictionary existed: a shuffled {@code ArrayList} refilled when empty and
+ * drained with {@code remove(randomIndex)}. It is kept here as the reference
+ * the {@link DeckWordSource} is compared against.</p>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WordSelectionBenchmark {
+
+    /** Words per difficulty; 15 is the size of the built-in lists. */
+    @Param({"15", "10000", "1000000"})
+    public int corpusSize;
+
+    private DeckWordSource deck;
+    private List<String> legacyWords;
+    private ArrayList<String> legacyWordsLeft;
+    private Random random;
+
+    @Setup
+    public void setup() throws IOException {
+        deck = new DeckWordSource(BenchmarkCorpus.dictionary(corpusSize), 42);
+        legacyWords = BenchmarkCorpus.words(corpusSize, Difficulty.EASY.ordinal());
+        legacyWordsLeft = new ArrayList<>();
+        random = new Random(42);
+    }
+
+    @Benchmark
+    public int deckNextIndex() {
+        return deck.nextIndex(Difficulty.EASY);
+    }
+
+    @Benchmark
+    public String deckNextWord() {
+        return deck.nextWord(Difficulty.EASY);
+    }
+
+    @Benchmark
+    public String legacyGetRandomWord() {
+        if (legacyWordsLeft.isEmpty()) {
+            legacyWordsLeft.addAll(legacyWords);
+            Collections.shuffle(legacyWordsLeft, random);
+        }
+        int randomIndex = random.nextInt(legacyWordsLeft.size());
+        return legacyWordsLeft.remove(randomIndex);
+    }
+}
@@ -0,0 +1,269 @@
+package com.example.escriturarapida;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * {@link WordSource} that favours long words and the words the player
+ * fails most, instead of drawing uniformly.
+ *
+ * <p>The weight of a word is
+ * {@code (1 + LENGTH_BIAS * length / maxLength) * (1 + ERROR_BIAS * errors / (attempts + PRIOR_ATTEMPTS))},
+ * with the counts taken from the {@link StatsAggregator} once it is loaded
+ * and then updated from {@link #onResult}. Results reported before the
+ * first tables are built are counted too, and weigh in from the start.</p>
+ *
+ * <p>Each difficulty is split into blocks of {@value #BLOCK} words. Every
+ * block has a Vose {@link AliasTable}, and a top-level table picks the
+ * block by its total weight, so a draw is two O(1) samples. When a weight
+ * changes only its block and the top-level table are rebuilt. All building
+ * happens on a background thread, which publishes immutable tables through
+ * a volatile field: the FX thread never waits for it, and draws uniformly
+ * until the first tables are ready. One source is meant to last the whole
+ * run, fed by {@link #onResult} game after game, so the tables are only
+ * built from scratch once.</p>
+ *
+ * <p>Enabled with {@code -Descritura.sampler=adaptive}. Because tables are
+ * swapped in asynchronously, the sequence of words is not reproducible
+ * from the seed alone; replays use the {@link DeckWordSource}.</p>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public class AdaptiveWordSource implements WordSource {
+
+    /** System property that selects the word source. */
+    public static final String SAMPLER_PROPERTY = "escritura.sampler";
+    /** Value of {@link #SAMPLER_PROPERTY} that enables this source. */
+    public static final String ADAPTIVE = "adaptive";
+
+    static final int BLOCK = 1024;
+    private static final double LENGTH_BIAS = 1.0;
+    private static final double ERROR_BIAS = 4.0;
+    private static final int PRIOR_ATTEMPTS = 2;
+
+    private static final ExecutorService BUILDER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "escritura-sampler");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Tables of one difficulty, replaced as a whole on every rebuild.
+     */
+    private static final class Tables {
+        final AliasTable top;
+        final AliasTable[] blocks;
+
+        Tables(AliasTable top, AliasTable[] blocks) {
+            this.top = top;
+            this.blocks = blocks;
+        }
+    }
+
+    /**
+     * State of one difficulty. Weights, totals and counts belong to the
+     * builder thread; {@code last} and {@code lastWord} to the drawing thread.
+     */
+    private static final class Bucket {
+        final Difficulty difficulty;
+        final int size;
+        double[] weights;
+        double[] blockTotals;
+        final Map<Integer, int[]> counts = new HashMap<>();
+        volatile Tables tables;
+        int last = -1;
+        String lastWord;
+
+        Bucket(Difficulty difficulty, int size) {
+            this.difficulty = difficulty;
+            this.size = size;
+        }
+    }
+
+    private final WordDictionary dictionary;
+    private final Random random;
+    private final long seed;
+    private final Bucket[] buckets = new Bucket[Difficulty.values().length];
+
+    /**
+     * Creates the source and starts building its tables in the background.
+     *
+     * @param dictionary the dictionary to draw from
+     * @param seed       seed of the random generator
+     */
+    public AdaptiveWordSource(WordDictionary dictionary, long seed) {
+        this.dictionary = dictionary;
+        this.seed = seed;
+        this.random = new Random(seed);
+        for (Difficulty d : Difficulty.values()) {
+            buckets[d.ordinal()] = new Bucket(d, dictionary.size(d));
+        }
+        StatsAggregator.whenReady(stats -> {
+            // Copied on the stats thread, so it holds none of the results
+            // reported to this source, which the builder counts itself
+            Map<String, int[]> known = new HashMap<>();
+            stats.forEachWord((word, attempts, errors) -> known.put(word, new int[] {attempts, errors}));
+            BUILDER.execute(() -> initialize(known));
+        });
+    }
+
+    /**
+     * ---------- DRAWING ----------
+     */
+
+    @Override
+    public String nextWord(Difficulty difficulty) {
+        Bucket bucket = buckets[difficulty.ordinal()];
+        int index = nextIndex(difficulty);
+        bucket.lastWord = dictionary.word(difficulty, index);
+        return bucket.lastWord;
+    }
+
+    @Override
+    public String form(Difficulty difficulty, String word, MatchMode mode) {
+        Bucket bucket = buckets[difficulty.ordinal()];
+        if (mode == MatchMode.EXACT || !word.equals(bucket.lastWord)) {
+            return WordSource.super.form(difficulty, word, mode);
+        }
+        return dictionary.form(difficulty, bucket.last, mode);
+    }
+
+    /**
+     * Draws the dictionary index of the next word. Never repeats the
+     * previous word of the bucket when it has more than one.
+     *
+     * @param difficulty the bucket to draw from
+     * @return index of the word inside the bucket
+     * @throws IllegalStateException if the bucket has no words
+     */
+    public int nextIndex(Difficulty difficulty) {
+        Bucket bucket = buckets[difficulty.ordinal()];
+        if (bucket.size == 0) {
+            throw new IllegalStateException("No words for difficulty " + difficulty);
+        }
+        int drawn = draw(bucket);
+        while (drawn == bucket.last && bucket.size > 1) {
+            drawn = draw(bucket);
+        }
+        bucket.last = drawn;
+        return drawn;
+    }
+
+    private int draw(Bucket bucket) {
+        Tables tables = bucket.tables;
+        if (tables == null) {
+            return random.nextInt(bucket.size);
+        }
+        int block = tables.top.sample(random);
+        return block * BLOCK + tables.blocks[block].sample(random);
+    }
+
+    /**
+     * Queues a weight update for the word. Returns immediately.
+     */
+    @Override
+    public void onResult(Difficulty difficulty, String word, boolean ok) {
+        Bucket bucket = buckets[difficulty.ordinal()];
+        int index = word.equals(bucket.lastWord) ? bucket.last : dictionary.indexOf(difficulty, word);
+        if (index >= 0) {
+            BUILDER.execute(() -> update(bucket, index, ok));
+        }
+    }
+
+    /** @return the seed this source was created with */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * ---------- BUILDING (background thread) ----------
+     */
+
+    private void initialize(Map<String, int[]> known) {
+        long start = System.nanoTime();
+        for (Bucket bucket : buckets) {
+            if (bucket.size == 0) {
+                continue;
+            }
+            bucket.weights = new double[bucket.size];
+            for (int length = 0; length <= dictionary.getMaxLength(); length++) {
+                int end = dictionary.endIndexOfLength(bucket.difficulty, length);
+                for (int i = dictionary.firstIndexOfLength(bucket.difficulty, length); i < end; i++) {
+                    bucket.weights[i] = lengthWeight(length);
+                }
+            }
+        }
+        known.forEach((word, totals) -> {
+            for (Bucket bucket : buckets) {
+                int index = bucket.size == 0 ? -1 : dictionary.indexOf(bucket.difficulty, word);
+                if (index >= 0) {
+                    int[] count = bucket.counts.computeIfAbsent(index, i -> new int[2]);
+                    count[0] += totals[0];
+                    count[1] += totals[1];
+                }
+            }
+        });
+        for (Bucket bucket : buckets) {
+            if (bucket.size > 0) {
+                // Also covers the results reported while the stats were loading
+                bucket.counts.forEach((index, count) ->
+                        bucket.weights[index] = weight(dictionary.word(bucket.difficulty, index).length(), count));
+                buildAll(bucket);
+            }
+        }
+        Telemetry.debug("[AdaptiveWordSource] tablas listas en %.1f ms%n", (System.nanoTime() - start) / 1_000_000.0);
+    }
+
+    private void update(Bucket bucket, int index, boolean ok) {
+        int[] count = bucket.counts.computeIfAbsent(index, i -> new int[2]);
+        count[0]++;
+        if (!ok) {
+            count[1]++;
+        }
+        if (bucket.tables == null) {
+            // Weighed in by initialize, which runs after this
+            return;
+        }
+        bucket.weights[index] = weight(dictionary.word(bucket.difficulty, index).length(), count);
+
+        int block = index / BLOCK;
+        AliasTable[] blocks = bucket.tables.blocks.clone();
+        blocks[block] = buildBlock(bucket, block);
+        bucket.tables = new Tables(AliasTable.build(bucket.blockTotals, 0, blocks.length), blocks);
+    }
+
+    private void buildAll(Bucket bucket) {
+        int blockCount = (bucket.size + BLOCK - 1) / BLOCK;
+        bucket.blockTotals = new double[blockCount];
+        AliasTable[] blocks = new AliasTable[blockCount];
+        for (int b = 0; b < blockCount; b++) {
+            blocks[b] = buildBlock(bucket, b);
+        }
+        bucket.tables = new Tables(AliasTable.build(bucket.blockTotals, 0, blockCount), blocks);
+    }
+
+    private AliasTable buildBlock(Bucket bucket, int block) {
+        int from = block * BLOCK;
+        int count = Math.min(BLOCK, bucket.size - from);
+        double total = 0;
+        for (int i = from; i < from + count; i++) {
+            total += bucket.weights[i];
+        }
+        bucket.blockTotals[block] = total;
+        return AliasTable.build(bucket.weights, from, count);
+    }
+
+    private double lengthWeight(int length) {
+        return 1 + LENGTH_BIAS * length / Math.max(1, dictionary.getMaxLength());
+    }
+
+    private double weight(int length, int[] count) {
+        return lengthWeight(length) * (1 + ERROR_BIAS * count[1] / (count[0] + PRIOR_ATTEMPTS));
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.escriturarapida;
+
+import java.util.Random;
+
+/**
+ * Vose alias table: draws an index with probability proportional to its
+ * weight in O(1), using one uniform index and one biased coin.
+ *
+ * <p>Building the table is O(n). Tables are immutable, so one can be
+ * built on a background thread and handed to the drawing thread through a
+ * volatile field.</p>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class AliasTable {
+
+    private final float[] probability;
+    private final int[] alias;
+
+    private AliasTable(float[] probability, int[] alias) {
+        this.probability = probability;
+        this.alias = alias;
+    }
+
+    /**
+     * Builds a table with Vose's method.
+     *
+     * @param weights non-negative weights, at least one of them positive
+     * @param from    first weight to use
+     * @param count   number of weights to use
+     * @return the table; index {@code i} stands for {@code weights[from + i]}
+     * @throws IllegalArgumentException if every weight is zero
+     */
+    public static AliasTable build(double[] weights, int from, int count) {
+        double total = 0;
+        for (int i = 0; i < count; i++) {
+            total += weights[from + i];
+        }
+        if (count == 0 || !(total > 0)) {
+            throw new IllegalArgumentException("Weights must add up to a positive value");
+        }
+
+        float[] probability = new float[count];
+        int[] alias = new int[count];
+        double[] scaled = new double[count];
+        int[] small = new int[count];
+        int[] large = new int[count];
+        int smallSize = 0;
+        int largeSize = 0;
+        for (int i = 0; i < count; i++) {
+            scaled[i] = weights[from + i] * count / total;
+            if (scaled[i] < 1.0) {
+                small[smallSize++] = i;
+            } else {
+                large[largeSize++] = i;
+            }
+        }
+
+        while (smallSize > 0 && largeSize > 0) {
+            int s = small[--smallSize];
+            int l = large[--largeSize];
+            probability[s] = (float) scaled[s];
+            alias[s] = l;
+            scaled[l] = scaled[l] + scaled[s] - 1.0;
+            if (scaled[l] < 1.0) {
+                small[smallSize++] = l;
+            } else {
+                large[largeSize++] = l;
+            }
+        }
+        // Whatever is left is 1 up to rounding error
+        while (largeSize > 0) {
+            int l = large[--largeSize];
+            probability[l] = 1f;
+            alias[l] = l;
+        }
+        while (smallSize > 0) {
+            int s = small[--smallSize];
+            probability[s] = 1f;
+            alias[s] = s;
+        }
+        return new AliasTable(probability, alias);
+    }
+
+    /**
+     * @param random the generator to use
+     * @return an index drawn with probability proportional to its weight
+     */
+    public int sample(Random random) {
+        int i = random.nextInt(probability.length);
+        return random.nextFloat() < probability[i] ? i : alias[i];
+    }
+
+    /** @return number of entries */
+    public int size() {
+        return probability.length;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.escriturarapida;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Location of the files the game keeps between runs.
+ *
+ * <p>Files live in {@code ~/.escriturarapida}, or in the directory given
+ * with {@code -Descritura.home}, which is useful to keep test or benchmark
+ * runs apart from the player's data.</p>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class AppData {
+
+    /** System property that overrides the data directory. */
+    public static final String HOME_PROPERTY = "escritura.home";
+
+    private AppData() {
+    }
+
+    /**
+     * @return the data directory, created if needed
+     * @throws IOException if the directory cannot be created
+     */
+    public static Path directory() throws IOException {
+        String home = System.getProperty(HOME_PROPERTY);
+        Path dir = home != null
+                ? Path.of(home)
+                : Path.of(System.getProperty("user.home"), ".escriturarapida");
+        return Files.createDirectories(dir);
+    }
+
+    /**
+     * @param name file name inside the data directory
+     * @return the path of that file
+     * @throws IOException if the directory cannot be created
+     */
+    public static Path file(String name) throws IOException {
+        return directory().resolve(name);
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.escriturarapida;
+
+import java.util.Locale;
+import java.util.random.RandomGenerator;
+
+/**
+ * Simulated player that types against a {@link GameEngine} on a virtual clock.
+ *
+ * <p>The time between two keystrokes follows a log-normal distribution
+ * whose mean gives the configured speed in words per minute (five chars
+ * per word), and every word starts after a log-normal reaction time. Each
+ * keystroke is a typo with a fixed probability. Most typos are noticed and
+ * fixed at once, which costs a backspace and a second keystroke; the rest
+ * go unnoticed, the word is submitted with the typo, rejected, and fixed
+ * after another reaction time.</p>
+ *
+ * <p>The bot drives the engine exactly as the game screen does, with
+ * {@link GameEngine#setInput} and {@link GameEngine#submit}, so timeouts,
+ * levels and the time curve come from the engine and its {@link GameRules}.
+ * No wall-clock time passes: the clock is a number advanced by the sampled
+ * durations.</p>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class BotTypist {
+
+    private static final double CHARS_PER_WORD = 5;
+    private static final double KEY_SIGMA = 0.35;
+    private static final double REACTION_SIGMA = 0.5;
+    private static final long DEFAULT_REACTION_NANOS = 400_000_000L;
+    private static final double DEFAULT_NOTICE_RATE = 0.8;
+
+    private final String name;
+    private final double wpm;
+    private final double typoRate;
+    private final double noticeRate;
+    private final double keyMu;
+    private final double reactionMu;
+
+    /**
+     * @param name          name shown in reports
+     * @param wpm           mean typing speed, in words of five chars per minute
+     * @param typoRate      probability that a keystroke is wrong
+     * @param noticeRate    probability that a typo is fixed before submitting
+     * @param reactionNanos mean time before the first key of a word
+     */
+    public BotTypist(String name, double wpm, double typoRate, double noticeRate, long reactionNanos) {
+        if (wpm <= 0 || typoRate < 0 || typoRate >= 1 || noticeRate < 0 || noticeRate > 1 || reactionNanos <= 0) {
+            throw new IllegalArgumentException("Invalid bot " + name);
+        }
+        this.name = name;
+        this.wpm = wpm;
+        this.typoRate = typoRate;
+        this.noticeRate = noticeRate;
+        double keyNanos = 60e9 / (wpm * CHARS_PER_WORD);
+        // Log-normal with the given mean: mu = ln(mean) - sigma^2 / 2
+        this.keyMu = Math.log(keyNanos) - KEY_SIGMA * KEY_SIGMA / 2;
+        this.reactionMu = Math.log(reactionNanos) - REACTION_SIGMA * REACTION_SIGMA / 2;
+    }
+
+    /**
+     * Parses a bot written as {@code name:wpm[:typo%]}, for example
+     * {@code medio:40:3}. The typo rate defaults to 2 %.
+     *
+     * @param spec the bot description
+     * @return the bot
+     * @throws IllegalArgumentException if the description is malformed
+     */
+    public static BotTypist parse(String spec) {
+        String[] parts = spec.trim().split(":");
+        if (parts.length < 2 || parts.length > 3) {
+            throw new IllegalArgumentException("Expected name:wpm[:typo%], got " + spec);
+        }
+        double typos = parts.length == 3 ? Double.parseDouble(parts[2]) / 100 : 0.02;
+        return new BotTypist(parts[0], Double.parseDouble(parts[1]), typos, DEFAULT_NOTICE_RATE,
+                DEFAULT_REACTION_NANOS);
+    }
+
+    /**
+     * ---------- PLAYING ----------
+     */
+
+    /**
+     * Plays one whole game.
+     *
+     * @param engine the engine to play on; its previous game is discarded
+     * @param words  where the words come from
+     * @param random source of randomness of this bot
+     * @param typed  scratch buffer for the typed text, reused between calls
+     * @return duration of the game on the virtual clock, in nanoseconds
+     */
+    public long play(GameEngine engine, WordSource words, RandomGenerator random, StringBuilder typed) {
+        long now = 0;
+        engine.start(words, now);
+        while (engine.getState() == GameEngine.State.RUNNING) {
+            String word = engine.getCurrentWord();
+            now += reaction(random);
+            int unnoticed = -1;
+            for (int i = 0, n = word.length(); i < n; i++) {
+                now += keystroke(random);
+                if (random.nextDouble() < typoRate) {
+                    if (unnoticed < 0 && random.nextDouble() >= noticeRate) {
+                        unnoticed = i;
+                    } else {
+                        now += keystroke(random) + keystroke(random);
+                    }
+                }
+            }
+
+            if (unnoticed >= 0) {
+                // Submitted with ENTER, rejected, then found and fixed
+                now += keystroke(random);
+                typed.setLength(0);
+                typed.append(word).setCharAt(unnoticed, word.charAt(unnoticed) == '#' ? '*' : '#');
+                engine.setInput(typed);
+                if (engine.submit(now) != GameEngine.Submission.REJECTED) {
+                    break;
+                }
+                now += reaction(random) + 3 * keystroke(random);
+            }
+            engine.setInput(word);
+            engine.submit(now);
+        }
+        return now;
+    }
+
+    private long keystroke(RandomGenerator random) {
+        return (long) Math.exp(keyMu + KEY_SIGMA * random.nextGaussian());
+    }
+
+    private long reaction(RandomGenerator random) {
+        return (long) Math.exp(reactionMu + REACTION_SIGMA * random.nextGaussian());
+    }
+
+    /**
+     * ---------- GETTERS ----------
+     */
+
+    /** @return name shown in reports */
+    public String getName() {
+        return name;
+    }
+
+    /** @return mean typing speed, in words per minute */
+    public double getWpm() {
+        return wpm;
+    }
+
+    /** @return probability that a keystroke is wrong */
+    public double getTypoRate() {
+        return typoRate;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%s:%.0f:%.1f", name, wpm, typoRate * 100);
+    }
+}
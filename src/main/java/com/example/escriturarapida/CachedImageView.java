@@ -0,0 +1,79 @@
+package com.example.escriturarapida;
+
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+import javafx.scene.image.ImageView;
+
+/**
+ * {@link ImageView} whose image comes from the shared {@link ImageCache}.
+ *
+ * <p>Used from FXML in place of a nested {@code <Image url="@Images/...">},
+ * which would decode the full-resolution file again every time the screen
+ * is loaded:</p>
+ *
+ * <pre>{@code
+ * <CachedImageView fitHeight="150.0" fitWidth="150.0" preserveRatio="true" asset="MaderaRustica.png" />
+ * }</pre>
+ *
+ * <p>The {@code asset} attribute should come after the fit attributes so
+ * the image is requested once, at the size it is drawn.</p>
+ *
+ * <p>The view lets go of its image while it is not in a scene, that is
+ * while the {@link SceneRouter} keeps its screen hidden, and asks the cache
+ * again when it is shown, so the memory budget of the cache can free the
+ * images of hidden screens.</p>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public class CachedImageView extends ImageView {
+
+    private final StringProperty asset = new SimpleStringProperty(this, "asset");
+
+    /**
+     * Creates an empty view. The image is requested once {@code asset} is set.
+     */
+    public CachedImageView() {
+        asset.addListener((obs, old, value) -> refresh());
+        fitWidthProperty().addListener((obs, old, value) -> refresh());
+        fitHeightProperty().addListener((obs, old, value) -> refresh());
+        preserveRatioProperty().addListener((obs, old, value) -> refresh());
+        sceneProperty().addListener((obs, old, scene) -> {
+            if (scene == null) {
+                setImage(null);
+            } else if (getImage() == null) {
+                refresh();
+            }
+        });
+    }
+
+    private void refresh() {
+        String name = asset.get();
+        if (name == null || name.isEmpty()) {
+            setImage(null);
+            return;
+        }
+        setImage(ImageCache.get().get(name, getFitWidth(), getFitHeight(), isPreserveRatio()));
+    }
+
+    /**
+     * ---------- PROPERTIES ----------
+     */
+
+    /** @return file name of the image inside the {@code Images} folder */
+    public final String getAsset() {
+        return asset.get();
+    }
+
+    /** @param value file name of the image inside the {@code Images} folder */
+    public final void setAsset(String value) {
+        asset.set(value);
+    }
+
+    /** @return the asset property */
+    public final StringProperty assetProperty() {
+        return asset;
+    }
+}
@@ -0,0 +1,514 @@
+package com.example.escriturarapida;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Builds a graded dictionary from Spanish text, such as books or articles,
+ * of any size.
+ *
+ * <p>The files are read in chunks of {@code --chunk-mb} megabytes, cut at
+ * a separator so no word is split. Every chunk is tokenized by a fork-join
+ * task that splits it down to {@link #LEAF} bytes and counts words into
+ * {@link WordCounter}s, which are merged on the way up. Only a few chunks
+ * are in flight at a time, and the global counter drops its rarest words
+ * when it passes {@code --max-distinct}, so memory stays bounded whatever
+ * the size of the input.</p>
+ *
+ * <p>Tokens are read straight from the UTF-8 bytes: letters are lowercased,
+ * accents written as combining marks are composed (NFC), and a token with
+ * digits or letters outside the Spanish alphabet is skipped as a whole.
+ * The most frequent words are then graded by a score that grows with their
+ * length, their accent density and their rarity, and split into three
+ * equal buckets. The result is written by the {@link DictionaryWriter} and
+ * is played with {@code -Descritura.dictionary=file}. With {@code --trie}
+ * every word counted at least {@code --min-count} times is also written to
+ * a {@link WordTrie}, graded the same way and with its frequency.</p>
+ *
+ * <pre>
+ * java -cp ... com.example.escriturarapida.CorpusIngester --out palabras.dict \
+ *     --words 3000 libros/*.txt
+ * </pre>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class CorpusIngester {
+
+    /** Bytes tokenized by one fork-join task. */
+    static final int LEAF = 1 << 20;
+    /** Shortest word kept. */
+    static final int MIN_LENGTH = 3;
+    /** Longest word kept; longer tokens are skipped. */
+    static final int MAX_LENGTH = 20;
+
+    /** Weight of one accented letter per letter of the word, in the score. */
+    private static final double ACCENT_WEIGHT = 8;
+    /** Weight of one step of rarity on the Zipf scale, in the score. */
+    private static final double RARITY_WEIGHT = 1.5;
+    /** Zipf value of the most common words (once per thousand). */
+    private static final double ZIPF_TOP = 6;
+    private static final String SPANISH_ACCENTED = "áéíóúüñ";
+
+    private final int chunkBytes;
+    private final int maxDistinct;
+    private final ForkJoinPool pool;
+    private final WordCounter words;
+    private long bytesRead;
+    private long pruneThreshold = 1;
+
+    /**
+     * A graded word.
+     */
+    static final class Candidate {
+        final String word;
+        final long count;
+        final double score;
+
+        Candidate(String word, long count, double score) {
+            this.word = word;
+            this.count = count;
+            this.score = score;
+        }
+    }
+
+    /**
+     * Counts the words of {@code bytes[from, to)}, splitting the range at
+     * separators until it fits in one leaf.
+     */
+    private static final class Tokenize extends RecursiveTask<WordCounter> {
+        private final byte[] bytes;
+        private final int from;
+        private final int to;
+
+        Tokenize(byte[] bytes, int from, int to) {
+            this.bytes = bytes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected WordCounter compute() {
+            if (to - from > LEAF) {
+                int mid = nextSeparator(bytes, from + (to - from) / 2, to);
+                if (mid < to) {
+                    Tokenize right = new Tokenize(bytes, mid, to);
+                    right.fork();
+                    WordCounter left = new Tokenize(bytes, from, mid).compute();
+                    WordCounter other = right.join();
+                    if (left.size() < other.size()) {
+                        other.addAll(left);
+                        return other;
+                    }
+                    left.addAll(other);
+                    return left;
+                }
+            }
+            WordCounter counter = new WordCounter(8_192);
+            tokenize(bytes, from, to, counter);
+            return counter;
+        }
+    }
+
+    /**
+     * @param chunkBytes  bytes read at a time from the files
+     * @param maxDistinct most distinct words kept while counting
+     * @param pool        pool the chunks are tokenized on
+     */
+    public CorpusIngester(int chunkBytes, int maxDistinct, ForkJoinPool pool) {
+        this.chunkBytes = chunkBytes;
+        this.maxDistinct = maxDistinct;
+        this.pool = pool;
+        this.words = new WordCounter(Math.min(maxDistinct, 1 << 16));
+    }
+
+    /**
+     * ---------- READING ----------
+     */
+
+    /**
+     * Counts the words of a UTF-8 file, with at most
+     * {@code parallelism + 1} chunks in memory at a time.
+     *
+     * @param file the text file
+     * @throws IOException if the file cannot be read
+     */
+    public void ingest(Path file) throws IOException {
+        Deque<ForkJoinTask<WordCounter>> inFlight = new ArrayDeque<>();
+        int maxInFlight = pool.getParallelism() + 1;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            byte[] carry = new byte[0];
+            while (true) {
+                byte[] chunk = new byte[chunkBytes];
+                System.arraycopy(carry, 0, chunk, 0, carry.length);
+                ByteBuffer buffer = ByteBuffer.wrap(chunk, carry.length, chunk.length - carry.length);
+                int read = 0;
+                while (buffer.hasRemaining() && (read = channel.read(buffer)) >= 0) {
+                    bytesRead += read;
+                }
+                int length = buffer.position();
+                boolean last = read < 0;
+                // Cut after the last separator; the word it ends goes to the next chunk
+                int cut = last ? length : lastSeparator(chunk, length);
+                if (cut <= 0) {
+                    cut = length;
+                }
+                carry = Arrays.copyOfRange(chunk, cut, length);
+
+                if (inFlight.size() == maxInFlight) {
+                    merge(inFlight.removeFirst().join());
+                }
+                inFlight.addLast(pool.submit(new Tokenize(chunk, 0, cut)));
+                if (last) {
+                    break;
+                }
+            }
+        }
+        while (!inFlight.isEmpty()) {
+            merge(inFlight.removeFirst().join());
+        }
+    }
+
+    private void merge(WordCounter chunk) {
+        words.addAll(chunk);
+        if (words.size() > maxDistinct) {
+            pruneThreshold = words.prune(pruneThreshold + 1, maxDistinct / 2);
+        }
+    }
+
+    /**
+     * ---------- TOKENIZING ----------
+     */
+
+    /**
+     * Counts the words of a range of UTF-8 bytes.
+     *
+     * @param bytes   the text
+     * @param from    first byte
+     * @param to      end of the range; must not cut a word or a character
+     * @param counter where to count
+     */
+    static void tokenize(byte[] bytes, int from, int to, WordCounter counter) {
+        char[] word = new char[MAX_LENGTH];
+        int length = 0;
+        boolean skip = false;
+        for (int i = from; i <= to; i++) {
+            int b = i < to ? bytes[i] & 0xFF : ' ';
+            char c = 0;
+            boolean letter = false;
+            if (b < 0x80) {
+                if (b >= 'a' && b <= 'z') {
+                    c = (char) b;
+                } else if (b >= 'A' && b <= 'Z') {
+                    c = (char) (b + 32);
+                } else {
+                    letter = b >= '0' && b <= '9';
+                    skip |= letter;
+                }
+            } else if (b == 0xCC && i + 1 < to) {
+                // Combining acute, tilde or diaeresis after the letter it belongs to
+                int mark = bytes[++i] & 0xFF;
+                char composed = length == 0 ? 0 : compose(word[length - 1], mark);
+                letter = true;
+                if (composed != 0) {
+                    word[length - 1] = composed;
+                } else {
+                    skip = true;
+                }
+            } else {
+                int size = b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : 2;
+                int codePoint = b & (0x3F >> (size - 1));
+                for (int k = 1; k < size && i + 1 < to; k++) {
+                    codePoint = codePoint << 6 | (bytes[++i] & 0x3F);
+                }
+                int lower = Character.toLowerCase(codePoint);
+                if (SPANISH_ACCENTED.indexOf(lower) >= 0) {
+                    c = (char) lower;
+                } else {
+                    letter = Character.isLetterOrDigit(codePoint);
+                    skip |= letter;
+                }
+            }
+
+            if (c != 0) {
+                if (length < MAX_LENGTH) {
+                    word[length++] = c;
+                } else {
+                    skip = true;
+                }
+            } else if (!letter) {
+                if (!skip && length >= MIN_LENGTH) {
+                    counter.add(word, 0, length, WordCounter.hash(word, 0, length), 1);
+                }
+                length = 0;
+                skip = false;
+            }
+        }
+    }
+
+    private static char compose(char base, int mark) {
+        switch (mark) {
+            case 0x81:
+                int vowel = "aeiou".indexOf(base);
+                return vowel < 0 ? 0 : "áéíóú".charAt(vowel);
+            case 0x83:
+                return base == 'n' ? 'ñ' : 0;
+            case 0x88:
+                return base == 'u' ? 'ü' : 0;
+            default:
+                return 0;
+        }
+    }
+
+    /** True for ASCII bytes that cannot be part of a token. */
+    private static boolean isSeparator(byte b) {
+        return b >= 0 && !Character.isLetterOrDigit(b);
+    }
+
+    private static int nextSeparator(byte[] bytes, int from, int to) {
+        int i = from;
+        while (i < to && !isSeparator(bytes[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int lastSeparator(byte[] bytes, int length) {
+        int i = length - 1;
+        while (i >= 0 && !isSeparator(bytes[i])) {
+            i--;
+        }
+        return i + 1;
+    }
+
+    /**
+     * ---------- GRADING ----------
+     */
+
+    /**
+     * Takes the most frequent words and grades them.
+     *
+     * @param limit    most words to keep
+     * @param minCount fewest occurrences of a kept word
+     * @return the words, easiest first
+     */
+    public List<Candidate> grade(int limit, long minCount) {
+        List<Candidate> frequent = new ArrayList<>();
+        long total = Math.max(1, words.getTotal());
+        words.forEach((chars, offset, length, count) -> {
+            if (count >= minCount) {
+                String word = new String(chars, offset, length);
+                frequent.add(new Candidate(word, count, score(word, count, total)));
+            }
+        });
+        frequent.sort(Comparator.comparingLong((Candidate c) -> c.count).reversed().thenComparing(c -> c.word));
+        List<Candidate> kept = new ArrayList<>(frequent.subList(0, Math.min(limit, frequent.size())));
+        kept.sort(Comparator.comparingDouble((Candidate c) -> c.score).thenComparing(c -> c.word));
+        return kept;
+    }
+
+    /**
+     * Difficulty of a word: its length, plus its accent density and how
+     * far below the most common words it is on the Zipf scale (log10 of
+     * occurrences per billion words).
+     *
+     * @param word  the word
+     * @param count its occurrences
+     * @param total occurrences of every word
+     * @return the score; higher is harder
+     */
+    static double score(String word, long count, long total) {
+        int accents = 0;
+        for (int i = 0; i < word.length(); i++) {
+            if (SPANISH_ACCENTED.indexOf(word.charAt(i)) >= 0) {
+                accents++;
+            }
+        }
+        double zipf = zipf(count, total);
+        return word.length() + ACCENT_WEIGHT * accents / word.length()
+                + RARITY_WEIGHT * Math.max(0, ZIPF_TOP - zipf);
+    }
+
+    /**
+     * @param count occurrences of a word
+     * @param total occurrences of every word
+     * @return log10 of the occurrences of the word per billion words
+     */
+    static double zipf(long count, long total) {
+        return Math.log10(count * 1e9 / total);
+    }
+
+    /**
+     * Builds a trie with every word counted at least {@code minCount}
+     * times, not just the graded ones. Each word gets the bucket its score
+     * would fall in among the graded words, and its Zipf frequency.
+     *
+     * @param graded   graded words, easiest first
+     * @param minCount fewest occurrences of a word in the trie
+     * @return a writer holding the lexicon
+     */
+    public WordTrieWriter lexicon(List<Candidate> graded, long minCount) {
+        Difficulty[] difficulties = Difficulty.values();
+        double[] cuts = new double[difficulties.length - 1];
+        for (int d = 1; d < difficulties.length; d++) {
+            cuts[d - 1] = graded.get((d * graded.size() + difficulties.length - 1) / difficulties.length).score;
+        }
+        WordTrieWriter writer = new WordTrieWriter();
+        long total = Math.max(1, words.getTotal());
+        words.forEach((chars, offset, length, count) -> {
+            if (count >= minCount) {
+                String word = new String(chars, offset, length);
+                double score = score(word, count, total);
+                int d = 0;
+                while (d < cuts.length && score >= cuts[d]) {
+                    d++;
+                }
+                writer.add(word, difficulties[d], zipf(count, total));
+            }
+        });
+        return writer;
+    }
+
+    /**
+     * Splits graded words into three equal buckets.
+     *
+     * @param graded words, easiest first
+     * @return a writer holding the buckets
+     */
+    public static DictionaryWriter bucket(List<Candidate> graded) {
+        DictionaryWriter writer = new DictionaryWriter();
+        Difficulty[] difficulties = Difficulty.values();
+        for (int i = 0; i < graded.size(); i++) {
+            writer.add(difficulties[i * difficulties.length / graded.size()], graded.get(i).word);
+        }
+        return writer;
+    }
+
+    /** @return bytes read so far */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /** @return the counted words */
+    public WordCounter getWords() {
+        return words;
+    }
+
+    /**
+     * ---------- COMMAND LINE ----------
+     */
+
+    /**
+     * Ingests text files and writes a graded dictionary.
+     *
+     * @param args {@code --out file [--trie file] [--words n] [--min-count n] [--threads n]
+     *             [--chunk-mb n] [--max-distinct n] file...}
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        Path out = null;
+        Path trie = null;
+        int limit = 3_000;
+        long minCount = 5;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int chunkMb = 16;
+        int maxDistinct = 1_000_000;
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                files.add(Path.of(arg));
+                continue;
+            }
+            if (i + 1 == args.length) {
+                usage();
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--out":
+                    out = Path.of(value);
+                    break;
+                case "--trie":
+                    trie = Path.of(value);
+                    break;
+                case "--words":
+                    limit = Integer.parseInt(value);
+                    break;
+                case "--min-count":
+                    minCount = Long.parseLong(value);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "--chunk-mb":
+                    chunkMb = Integer.parseInt(value);
+                    break;
+                case "--max-distinct":
+                    maxDistinct = Integer.parseInt(value);
+                    break;
+                default:
+                    usage();
+            }
+        }
+        if (out == null || files.isEmpty()) {
+            usage();
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        CorpusIngester ingester = new CorpusIngester(chunkMb << 20, maxDistinct, pool);
+        long start = System.nanoTime();
+        for (Path file : files) {
+            ingester.ingest(file);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+
+        WordCounter counted = ingester.getWords();
+        System.out.printf(Locale.ROOT, "[CorpusIngester] %.1f MB en %.1f s (%.0f MB/s, %d hilos): %d palabras, %d distintas%n",
+                ingester.getBytesRead() / 1e6, seconds, ingester.getBytesRead() / 1e6 / seconds, threads,
+                counted.getTotal(), counted.size());
+
+        List<Candidate> graded = ingester.grade(limit, minCount);
+        if (graded.size() < Difficulty.values().length) {
+            System.err.println("[CorpusIngester] No hay suficientes palabras frecuentes");
+            System.exit(1);
+        }
+        bucket(graded).write(out);
+        Difficulty[] difficulties = Difficulty.values();
+        for (int d = 0; d < difficulties.length; d++) {
+            int first = (d * graded.size() + difficulties.length - 1) / difficulties.length;
+            StringBuilder sample = new StringBuilder();
+            for (int i = first; i < Math.min(graded.size(), first + 6); i++) {
+                sample.append(i == first ? "" : ", ").append(graded.get(i).word);
+            }
+            System.out.printf("%s: %s...%n", difficulties[d].getLabel(), sample);
+        }
+        System.out.printf("[CorpusIngester] %d palabras escritas en %s%n", graded.size(), out);
+        if (trie != null) {
+            WordTrieWriter lexicon = ingester.lexicon(graded, minCount);
+            lexicon.write(trie);
+            System.out.printf("[CorpusIngester] Léxico de %d palabras escrito en %s%n", lexicon.size(), trie);
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Uso: CorpusIngester --out archivo.dict [--trie archivo.trie] [--words n] [--min-count n] [--threads n] "
+                + "[--chunk-mb n] [--max-distinct n] texto.txt...");
+        System.exit(2);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.escriturarapida;
+
+import java.util.Random;
+
+/**
+ * Default {@link WordSource}: one shuffled deck of word indices per difficulty.
+ *
+ * <p>Each deck is an {@code int[]} of dictionary indices shuffled lazily
+ * with Fisher–Yates: every draw swaps one random remaining index into the
+ * drawn prefix, so a draw is O(1), allocates nothing, and no word repeats
+ * until the whole deck has been used. The next round reuses the same array
+ * and never starts with the word that ended the previous one.</p>
+ *
+ * <p>The generator is seedable, so the same seed and dictionary always
+ * produce the same sequence of words.</p>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public class DeckWordSource implements WordSource {
+
+    private final WordDictionary dictionary;
+    private final Random random;
+    private final long seed;
+    private final Deck[] decks = new Deck[Difficulty.values().length];
+
+    /**
+     * Deck state for one difficulty.
+     */
+    private static final class Deck {
+        final int[] indices;
+        int position;
+        int last = -1;
+
+        Deck(int size) {
+            indices = new int[size];
+            for (int i = 0; i < size; i++) {
+                indices[i] = i;
+            }
+        }
+    }
+
+    /**
+     * Creates a deck source with a fixed seed.
+     *
+     * @param dictionary the dictionary to draw from
+     * @param seed       seed of the random generator
+     */
+    public DeckWordSource(WordDictionary dictionary, long seed) {
+        this.dictionary = dictionary;
+        this.seed = seed;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * ---------- DRAWING ----------
+     */
+
+    @Override
+    public String nextWord(Difficulty difficulty) {
+        return dictionary.word(difficulty, nextIndex(difficulty));
+    }
+
+    @Override
+    public String form(Difficulty difficulty, String word, MatchMode mode) {
+        Deck deck = decks[difficulty.ordinal()];
+        if (mode == MatchMode.EXACT || deck == null || deck.last < 0) {
+            return WordSource.super.form(difficulty, word, mode);
+        }
+        return dictionary.form(difficulty, deck.last, mode);
+    }
+
+    /**
+     * Draws the dictionary index of the next word without decoding it.
+     *
+     * @param difficulty the bucket to draw from
+     * @return index of the word inside the bucket
+     * @throws IllegalStateException if the bucket has no words
+     */
+    public int nextIndex(Difficulty difficulty) {
+        Deck deck = deck(difficulty);
+        int[] indices = deck.indices;
+        if (deck.position == indices.length) {
+            deck.position = 0;
+        }
+
+        int remaining = indices.length - deck.position;
+        int pick = deck.position + random.nextInt(remaining);
+        if (indices[pick] == deck.last && remaining > 1) {
+            pick = deck.position + (pick - deck.position + 1 + random.nextInt(remaining - 1)) % remaining;
+        }
+
+        int drawn = indices[pick];
+        indices[pick] = indices[deck.position];
+        indices[deck.position] = drawn;
+        deck.position++;
+        deck.last = drawn;
+        return drawn;
+    }
+
+    private Deck deck(Difficulty difficulty) {
+        Deck deck = decks[difficulty.ordinal()];
+        if (deck == null) {
+            int size = dictionary.size(difficulty);
+            if (size == 0) {
+                throw new IllegalStateException("No words for difficulty " + difficulty);
+            }
+            deck = new Deck(size);
+            decks[difficulty.ordinal()] = deck;
+        }
+        return deck;
+    }
+
+    /** @return the seed this source was created with */
+    public long getSeed() {
+        return seed;
+    }
+}
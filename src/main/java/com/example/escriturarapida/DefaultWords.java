@@ -0,0 +1,51 @@
+package com.example.escriturarapida;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Built-in word lists, used when no external dictionary is configured.
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+final class DefaultWords {
+
+    static final List<String> EASY = Arrays.asList(
+            "casa", "perro", "gato", "agua", "fuego",
+            "libro", "mesa", "silla", "puerta", "ventana",
+            "flores", "cielo", "tierra", "verde", "azul"
+    );
+
+    static final List<String> MEDIUM = Arrays.asList(
+            "computadora", "refrigerador", "bicicleta", "televisión", "automóvil",
+            "supermercado", "restaurante", "biblioteca", "universidad", "hospital",
+            "refrigeradora", "microondas", "lavadora", "aspiradora", "impresora"
+    );
+
+    static final List<String> HARD = Arrays.asList(
+            "electroencefalograma", "otorrinolaringología", "esternocleidomastoideo", "fotoestimulación", "desoxirribonucleico",
+            "neurofibromatosis", "electromiográficos", "anticonstitucionalísimamente", "electrocardiografía", "psiconeuroendocrinología",
+            "cardiotocografía", "neuropsiquiatría", "colangiopancreatografía", "espectrofotofluorometría", "magnetohidrodinámica"
+    );
+
+    private DefaultWords() {
+    }
+
+    /**
+     * @param difficulty the bucket to query
+     * @return the built-in words of that bucket
+     */
+    static List<String> forDifficulty(Difficulty difficulty) {
+        switch (difficulty) {
+            case EASY:
+                return EASY;
+            case MEDIUM:
+                return MEDIUM;
+            default:
+                return HARD;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.escriturarapida;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds binary dictionaries in the format read by {@link WordDictionary}.
+ *
+ * <p>Can be used as a command-line tool to compile a text word list:</p>
+ *
+ * <pre>
+ * java -cp EscrituraRapida.jar com.example.escriturarapida.DictionaryWriter palabras.txt palabras.dict
+ * </pre>
+ *
+ * <p>Each line of the source holds a difficulty and a word separated by
+ * whitespace, for example {@code facil casa} or {@code dificil otorrinolaringología}.
+ * Empty lines and lines starting with {@code #} are ignored, and duplicate
+ * words within a difficulty are stored once.</p>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class DictionaryWriter {
+
+    /** Forms stored for every word, in file order. */
+    private static final MatchMode[] FORMS = {MatchMode.EXACT, MatchMode.NFC, MatchMode.ACCENT_INSENSITIVE};
+
+    private final Map<Difficulty, Set<String>> buckets = new EnumMap<>(Difficulty.class);
+
+    /**
+     * Creates an empty writer.
+     */
+    public DictionaryWriter() {
+        for (Difficulty difficulty : Difficulty.values()) {
+            buckets.put(difficulty, new LinkedHashSet<>());
+        }
+    }
+
+    /**
+     * Adds a word to a difficulty bucket.
+     *
+     * @param difficulty the bucket
+     * @param word       the word, which must not be empty
+     * @return this writer
+     */
+    public DictionaryWriter add(Difficulty difficulty, String word) {
+        if (word.isEmpty()) {
+            throw new IllegalArgumentException("Empty word");
+        }
+        buckets.get(difficulty).add(word);
+        return this;
+    }
+
+    /**
+     * Adds every word of a list to a difficulty bucket.
+     *
+     * @param difficulty the bucket
+     * @param words      the words to add
+     * @return this writer
+     */
+    public DictionaryWriter addAll(Difficulty difficulty, List<String> words) {
+        for (String word : words) {
+            add(difficulty, word);
+        }
+        return this;
+    }
+
+    /**
+     * ---------- ENCODING ----------
+     */
+
+    /**
+     * Encodes the dictionary. Words inside each bucket are ordered by length
+     * and then alphabetically, so every length forms a contiguous range.
+     * The {@link MatchMode#form forms} of every word for the NFC and
+     * accent-insensitive modes are computed here, once.
+     *
+     * @return a buffer positioned at 0 holding the whole dictionary
+     */
+    public ByteBuffer encode() {
+        int bucketCount = Difficulty.values().length;
+        List<List<String>> sorted = new ArrayList<>(bucketCount);
+        // Per bucket: the words, their NFC forms and their accent-insensitive forms
+        List<List<List<byte[]>>> encoded = new ArrayList<>(bucketCount);
+        int maxLength = 0;
+        int blobSize = 0;
+        int wordTotal = 0;
+        for (Difficulty difficulty : Difficulty.values()) {
+            List<String> words = new ArrayList<>(buckets.get(difficulty));
+            words.sort(Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder()));
+            List<List<byte[]>> tables = new ArrayList<>(FORMS.length);
+            for (MatchMode mode : FORMS) {
+                List<byte[]> bytes = new ArrayList<>(words.size());
+                for (String word : words) {
+                    byte[] utf8 = mode.form(word).getBytes(StandardCharsets.UTF_8);
+                    bytes.add(utf8);
+                    blobSize += utf8.length;
+                }
+                tables.add(bytes);
+            }
+            for (String word : words) {
+                maxLength = Math.max(maxLength, word.length());
+            }
+            sorted.add(words);
+            encoded.add(tables);
+            wordTotal += words.size();
+        }
+
+        int headerSize = WordDictionary.HEADER_SIZE + bucketCount * WordDictionary.BUCKET_ENTRY_SIZE + 8;
+        int lengthIndexSize = (maxLength + 2) * Integer.BYTES;
+        int size = headerSize
+                + FORMS.length * (wordTotal + bucketCount) * Integer.BYTES
+                + bucketCount * lengthIndexSize
+                + blobSize;
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+
+        buffer.putInt(WordDictionary.MAGIC);
+        buffer.putShort(WordDictionary.VERSION);
+        buffer.putShort((short) bucketCount);
+        buffer.putInt(maxLength);
+
+        int position = headerSize;
+        int blobPos = size - blobSize;
+        for (int b = 0; b < bucketCount; b++) {
+            int offsetsSize = (sorted.get(b).size() + 1) * Integer.BYTES;
+            int offsetsPos = position;
+            int lengthIndexPos = offsetsPos + offsetsSize;
+            int nfcOffsetsPos = lengthIndexPos + lengthIndexSize;
+            int foldedOffsetsPos = nfcOffsetsPos + offsetsSize;
+            buffer.putInt(sorted.get(b).size()).putInt(offsetsPos).putInt(lengthIndexPos)
+                    .putInt(nfcOffsetsPos).putInt(foldedOffsetsPos);
+            position = foldedOffsetsPos + offsetsSize;
+        }
+        buffer.putInt(blobPos).putInt(blobSize);
+
+        int blobOffset = 0;
+        for (int b = 0; b < bucketCount; b++) {
+            List<String> words = sorted.get(b);
+            for (int form = 0; form < FORMS.length; form++) {
+                for (byte[] utf8 : encoded.get(b).get(form)) {
+                    buffer.putInt(blobOffset);
+                    blobOffset += utf8.length;
+                }
+                buffer.putInt(blobOffset);
+
+                if (form == 0) {
+                    int index = 0;
+                    for (int length = 0; length <= maxLength + 1; length++) {
+                        while (index < words.size() && words.get(index).length() < length) {
+                            index++;
+                        }
+                        buffer.putInt(index);
+                    }
+                }
+            }
+        }
+        for (List<List<byte[]>> tables : encoded) {
+            for (List<byte[]> bytes : tables) {
+                for (byte[] utf8 : bytes) {
+                    buffer.put(utf8);
+                }
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Writes the encoded dictionary to a file, replacing it if it exists.
+     *
+     * @param file the destination file
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path file) throws IOException {
+        ByteBuffer buffer = encode();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * ---------- COMMAND LINE ----------
+     */
+
+    /**
+     * Compiles a text word list into a binary dictionary.
+     *
+     * @param args source text file and destination dictionary file
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: DictionaryWriter <words.txt> <words.dict>");
+            System.exit(2);
+        }
+        DictionaryWriter writer = new DictionaryWriter();
+        try (BufferedReader reader = Files.newBufferedReader(Path.of(args[0]), StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split("\\s+");
+                if (parts.length != 2) {
+                    throw new IOException("Line " + lineNumber + ": expected '<dificultad> <palabra>'");
+                }
+                writer.add(Difficulty.parse(parts[0]), parts[1]);
+            }
+        }
+        writer.write(Path.of(args[1]));
+        for (Difficulty difficulty : Difficulty.values()) {
+            System.out.printf("%s: %d palabras%n", difficulty.getLabel(), writer.buckets.get(difficulty).size());
+        }
+    }
+}
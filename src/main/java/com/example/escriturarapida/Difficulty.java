@@ -0,0 +1,78 @@
+package com.example.escriturarapida;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Difficulty buckets of the game. Each bucket has its own word pool.
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public enum Difficulty {
+    EASY("Fácil"),
+    MEDIUM("Media"),
+    HARD("Difícil");
+
+    private static final Difficulty[] VALUES = values();
+
+    private final String label;
+
+    Difficulty(String label) {
+        this.label = label;
+    }
+
+    /** @return the name shown to the player */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Returns the difficulty used for a level under the default rules:
+     * levels 1-15 are easy, 16-30 medium and 31-45 hard.
+     *
+     * @param level the current level
+     * @return the difficulty bucket for that level
+     * @see GameRules#difficultyFor(int)
+     */
+    public static Difficulty forLevel(int level) {
+        return GameRules.DEFAULT.difficultyFor(level);
+    }
+
+    /**
+     * @param ordinal the bucket index
+     * @return the difficulty with that index
+     */
+    public static Difficulty fromOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    /**
+     * Parses a difficulty name as written in dictionary sources. Accepts the
+     * Spanish labels with or without accents, and the English constant names.
+     *
+     * @param text the name to parse
+     * @return the matching difficulty
+     * @throws IllegalArgumentException if the name is not recognized
+     */
+    public static Difficulty parse(String text) {
+        String key = Normalizer.normalize(text.trim(), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+        switch (key) {
+            case "facil":
+            case "easy":
+                return EASY;
+            case "media":
+            case "medium":
+                return MEDIUM;
+            case "dificil":
+            case "hard":
+                return HARD;
+            default:
+                throw new IllegalArgumentException("Unknown difficulty: " + text);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.escriturarapida;
+
+import java.util.List;
+
+/**
+ * {@link WordSource} that returns a fixed list of words in order, one per
+ * level, whatever the difficulty asked for. Used for races, where every
+ * racer has to type the same sequence. The last word repeats if the list
+ * runs out.
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class FixedWordSource implements WordSource {
+
+    private final List<String> words;
+    private int next;
+
+    /**
+     * @param words the words, in the order they are drawn; must not be empty
+     */
+    public FixedWordSource(List<String> words) {
+        if (words.isEmpty()) {
+            throw new IllegalArgumentException("No words");
+        }
+        this.words = words;
+    }
+
+    @Override
+    public String nextWord(Difficulty difficulty) {
+        return words.get(Math.min(next++, words.size() - 1));
+    }
+}
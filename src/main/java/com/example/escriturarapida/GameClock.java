@@ -0,0 +1,111 @@
+package com.example.escriturarapida;
+
+/**
+ * Monotonic countdown clock for the time allowed per word.
+ *
+ * <p>The clock stores an absolute deadline in nanoseconds instead of a
+ * number of seconds decremented by a timer, so no time is lost to tick
+ * rounding and pausing keeps the exact remaining time. It does not read
+ * the system clock itself: every call receives the current time, taken from
+ * {@link System#nanoTime()} by the game or from a virtual clock in
+ * simulations.</p>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class GameClock {
+
+    private long deadline;
+    private long remainingWhilePaused;
+    private boolean running;
+    private boolean started;
+
+    /**
+     * Starts a new countdown.
+     *
+     * @param durationNanos time allowed, in nanoseconds
+     * @param now           current time, in nanoseconds
+     */
+    public void start(long durationNanos, long now) {
+        deadline = now + durationNanos;
+        running = true;
+        started = true;
+    }
+
+    /**
+     * Freezes the countdown, keeping the exact remaining time.
+     *
+     * @param now current time, in nanoseconds
+     */
+    public void pause(long now) {
+        if (running) {
+            remainingWhilePaused = Math.max(0, deadline - now);
+            running = false;
+        }
+    }
+
+    /**
+     * Continues a paused countdown.
+     *
+     * @param now current time, in nanoseconds
+     */
+    public void resume(long now) {
+        if (started && !running) {
+            deadline = now + remainingWhilePaused;
+            running = true;
+        }
+    }
+
+    /**
+     * Stops the clock. {@link #resume} has no effect until the next {@link #start}.
+     */
+    public void stop() {
+        running = false;
+        started = false;
+        remainingWhilePaused = 0;
+    }
+
+    /**
+     * @param now current time, in nanoseconds
+     * @return time left, never negative
+     */
+    public long remaining(long now) {
+        if (!running) {
+            return remainingWhilePaused;
+        }
+        return Math.max(0, deadline - now);
+    }
+
+    /**
+     * @param now current time, in nanoseconds
+     * @return true if the clock is running and its deadline has passed
+     */
+    public boolean isExpired(long now) {
+        return running && now >= deadline;
+    }
+
+    /**
+     * @param now current time, in nanoseconds
+     * @return how late {@code now} is with respect to the deadline, or 0
+     */
+    public long overrun(long now) {
+        return running ? Math.max(0, now - deadline) : 0;
+    }
+
+    /** @return true while counting down */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** @return true between {@link #start} and {@link #stop} */
+    public boolean isStarted() {
+        return started;
+    }
+
+    /** @return the absolute deadline of the running countdown, in nanoseconds */
+    public long getDeadline() {
+        return deadline;
+    }
+}
@@ -1,39 +1,41 @@
 package com.example.escriturarapida;
 
-import javafx.animation.Timeline;
-import javafx.animation.KeyFrame;
-import javafx.util.Duration;
+import javafx.animation.AnimationTimer;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
-import javafx.stage.Stage;
+import javafx.util.Duration;
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
-import java.util.ArrayList;
 import java.util.Random;
 /**
  * Controller for the typing-speed game UI.
  *
- * <p>This class is responsible for handling the core logic of the
- * typing game: word selection, timer management, user input validation,
- * scoring, difficulty progression, and UI updates. It interacts with
- * the JavaFX UI defined in FXML.</p>
+ * <p>This class adapts the headless {@link GameEngine} to the JavaFX UI
+ * defined in FXML. The engine owns word selection, validation, scoring,
+ * difficulty progression and the countdown; the controller forwards input
+ * and time to it and shows the result.</p>
  *
  * <p>Main responsibilities:</p>
  * <ul>
- *   <li>Randomly selecting words according to difficulty.</li>
- *   <li>Starting, resetting, and stopping the timer.</li>
- *   <li>Validating typed words and updating score.</li>
- *   <li>Increasing difficulty as levels progress.</li>
+ *   <li>Forwarding keystrokes and submissions to the engine.</li>
+ *   <li>Driving the engine clock from a single {@link AnimationTimer}.</li>
+ *   <li>Binding level, time, word and submit feedback to a {@link GameViewModel}.</li>
+ *   <li>Recording typing metrics.</li>
+ *   <li>Handing every finished game to the {@link SessionStore}, the
+ *       {@link StatsAggregator} and the {@link Leaderboard} without
+ *       waiting for any of them.</li>
+ *   <li>Feeding words, games and the mistakes found by a
+ *       {@link TypoAnalyzer} to the {@link StatsAggregator}.</li>
+ *   <li>Recording a replay of every finished game.</li>
+ *   <li>Taking part in races of a {@link RaceServer} when started with
+ *       {@code -Descritura.race=host[:port]}.</li>
+ *   <li>Typing through a long text, one game after another, when started
+ *       with {@code -Descritura.passage=file}.</li>
  *   <li>Handling game over and game completion states.</li>
  * </ul>
  *
@@ -42,7 +44,7 @@ import java.util.Random;
  * @version
  *   1.0
  */
-public class GameController {
+public class GameController implements ScreenLifecycle {
     /**
      * ---------- FXML UI ELEMENTS ----------
      */
@@ -56,154 +58,172 @@ public class GameController {
     private TextField entryTextField;
     @FXML
     private Label maxTimeLabel;
+    @FXML
+    private Label raceLabel;
+    @FXML
+    private Label passageLabel;
+    @FXML
+    private Label wpmLabel;
 
 
     /**
      * ---------- GAME STATE VARIABLES ----------
      */
-    private int level = 1;
-    private int timeLeft = 20;
-    private int maxTime = 20;
-    private String currentWord;
-    private Timeline timer;
-    private boolean gameActive = true;
-    private int success = 0;
-    private int failure = 0;
+    private static final long SUCCESS_FEEDBACK_NANOS = 500_000_000L;
+    private static final long FAILURE_FEEDBACK_NANOS = 1_000_000_000L;
+
+    private final GameEngine engine = new GameEngine(GameRules.DEFAULT, MatchMode.configured());
+    private final TypingMetrics metrics = new TypingMetrics();
+    private final GameViewModel view = new GameViewModel(engine, metrics);
+    private final ReplayRecorder recorder = new ReplayRecorder();
+    /** Only used on the stats thread, where submissions are analyzed. */
+    private final TypoAnalyzer typos = new TypoAnalyzer();
+    private final Runnable renderListener = () -> metrics.onRender(System.nanoTime());
+    private boolean acceptPending = false;
+    private final AnimationTimer ticker = new AnimationTimer() {
+        @Override
+        public void handle(long pulse) {
+            tick(System.nanoTime());
+        }
+    };
+    private long startedAtMillis = 0;
 
     /**
-     * Word pools
+     * Race mode
      */
-    private Random random = new Random();
-    private ArrayList<String> easyWordsLeft;
-    private ArrayList<String> mediumWordsLeft;
-    private ArrayList<String> hardWordsLeft;
-
-    private final List<String> easyWords = Arrays.asList(
-            "casa", "perro", "gato", "agua", "fuego",
-            "libro", "mesa", "silla", "puerta", "ventana",
-            "flores", "cielo", "tierra", "verde", "azul"
-    );
+    private final RaceClient race = RaceClient.configured(new RaceClient.Listener() {
+        @Override
+        public void onStart(RaceClient.Start start) {
+            Platform.runLater(() -> raceStarting(start));
+        }
 
-    private final List<String> mediumWords = Arrays.asList(
-            "computadora", "refrigerador", "bicicleta", "televisión", "automóvil",
-            "supermercado", "restaurante", "biblioteca", "universidad", "hospital",
-            "refrigeradora", "microondas", "lavadora", "aspiradora", "impresora"
-    );
+        @Override
+        public void onChange() {
+            Platform.runLater(view::invalidate);
+        }
+    });
+    private boolean waitingForRace = false;
+    private PauseTransition raceCountdown;
 
-    private final List<String> hardWords = Arrays.asList(
-            "electroencefalograma", "otorrinolaringología", "esternocleidomastoideo", "fotoestimulación", "desoxirribonucleico",
-            "neurofibromatosis", "electromiográficos", "anticonstitucionalísimamente", "electrocardiografía", "psiconeuroendocrinología",
-            "cardiotocografía", "neuropsiquiatría", "colangiopancreatografía", "espectrofotofluorometría", "magnetohidrodinámica"
-    );
+    /**
+     * Word pools
+     */
+    private final Random random = new Random();
+    private final WordDictionary dictionary = WordDictionary.shared();
+    /** Kept for the whole run, so what it learns in one game carries over to the next. */
+    private final AdaptiveWordSource adaptive =
+            AdaptiveWordSource.ADAPTIVE.equals(System.getProperty(AdaptiveWordSource.SAMPLER_PROPERTY))
+                    ? new AdaptiveWordSource(dictionary, Long.getLong("escritura.seed", random.nextLong()))
+                    : null;
+    private PassageSource passage;
     /**
      * ---------- INITIALIZATION ----------
      */
 
     /**
-     * Initializes the word pools for easy, medium, and hard difficulties.
-     * Shuffles them to ensure randomness.
+     * Creates the word pools for a new game.
+     * With {@code -Descritura.passage=file} the words are those of the text,
+     * from its bookmark on; otherwise uses the seed given with {@code -Descritura.seed} when present, so a
+     * session can be reproduced, or a random one otherwise. With
+     * {@code -Descritura.sampler=adaptive} words are weighted by the
+     * player's errors and their length, by one sampler built when the
+     * screen is loaded and reused by every game.
+     *
+     * @return the word source for the game
      */
-    private void iniatilizateWordsLeft() {
-        easyWordsLeft = new ArrayList<>(easyWords);
-        mediumWordsLeft = new ArrayList<>(mediumWords);
-        hardWordsLeft = new ArrayList<>(hardWords);
-
-        Collections.shuffle(easyWordsLeft, random);
-        Collections.shuffle(mediumWordsLeft, random);
-        Collections.shuffle(hardWordsLeft, random);
+    private WordSource iniatilizateWordsLeft() {
+        try {
+            passage = PassageSource.configured(engine.getMatchMode());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        if (passage != null) {
+            return passage;
+        }
+        if (adaptive != null) {
+            return adaptive;
+        }
+        return new DeckWordSource(dictionary, Long.getLong("escritura.seed", random.nextLong()));
     }
 
     /**
      * Called automatically after FXML loading.
-     * Initializes the game state, selects the first word, and starts the timer.
+     * Binds the labels to the view model and registers the input handler.
+     * The game itself is started by {@link #onShow()}, since the screen is
+     * loaded ahead of time.
      */
     @FXML
     private void initialize() {
-
-        iniatilizateWordsLeft();
-
-        selectWord();
-        updateScene();
-        startTimer();
-
+        levelLabel.textProperty().bind(view.levelTextProperty());
+        maxTimeLabel.textProperty().bind(view.maxTimeTextProperty());
+        timeLabel.textProperty().bind(view.timeTextProperty());
+        wordLabel.textProperty().bind(view.wordTextProperty());
+        raceLabel.textProperty().bind(view.raceTextProperty());
+        passageLabel.textProperty().bind(view.passageTextProperty());
+        wpmLabel.textProperty().bind(view.wpmTextProperty());
+        view.setRace(race);
+        ViewModel.bindPseudoClass(timeLabel, view.timeStateProperty());
+        ViewModel.bindPseudoClass(entryTextField, view.entryStateProperty());
 
         entryTextField.setOnKeyPressed(this::keyHandling);
-
-
-        entryTextField.requestFocus();
+        entryTextField.addEventFilter(KeyEvent.KEY_PRESSED, e -> metrics.onKey(System.nanoTime()));
+        entryTextField.textProperty().addListener((obs, oldText, newText) -> textHandling(oldText, newText));
     }
-    /**
-     * ---------- WORD SELECTION ----------
-     */
 
     /**
-     * Selects the next word based on the current level.
+     * Starts a fresh game every time the cached screen is shown.
      */
-    private void selectWord() {
-        if (level <= 15) {
-            currentWord = getRandomWord(easyWordsLeft, easyWords);
-
-        } else if (level <= 30) {
-            currentWord = getRandomWord(mediumWordsLeft, mediumWords);
-
-        } else {
-            currentWord = getRandomWord(hardWordsLeft, hardWords);
-
-        }
-        /**
-         * Returns a random word from the available pool. Replenishes the pool if empty.
-         *
-         * @param wordsLeft the mutable pool of remaining words
-         * @param originalWords  the original full list for this difficulty
-         * @return a random word
-         */
+    @Override
+    public void onShow() {
+        entryTextField.getScene().addPostLayoutPulseListener(renderListener);
+        view.attach(entryTextField.getScene());
+        resetGame();
     }
-    private String getRandomWord(ArrayList<String> wordsLeft, List<String> originalWords) {
-
-        if (wordsLeft.isEmpty()) {
-            wordsLeft.addAll(originalWords);
-            Collections.shuffle(wordsLeft, random);
-        }
 
-
-        int randomIndex = random.nextInt(wordsLeft.size());
-        return wordsLeft.remove(randomIndex);
+    /**
+     * Stops the timer when the player leaves the screen.
+     */
+    @Override
+    public void onHide() {
+        stopTimer();
+        leaveRace();
+        engine.abort();
+        recorder.discard();
+        closePassage();
+        view.detach();
+        entryTextField.getScene().removePostLayoutPulseListener(renderListener);
     }
     /**
      * ---------- TIMER MANAGEMENT ----------
      */
     /**
-     * Starts the countdown timer for the current word.
+     * Starts sampling the engine clock once per frame. The deadline itself
+     * is kept by the engine, so nothing is rebuilt for each word.
      */
     private void startTimer() {
-        stopTimer();
-
-        timer = new Timeline(new KeyFrame(Duration.seconds(1), e -> {
-            timeLeft--;
-            updateScene();
-
-            if (timeLeft <= 0) {
-                gameOver(false);
-            }
-        }));
-
-        timer.setCycleCount(Timeline.INDEFINITE);
-        timer.play();
+        ticker.start();
     }
     /**
-     * Stops the active timer, if any.
+     * Stops sampling the engine clock.
      */
     private void stopTimer() {
-        if (timer != null) {
-            timer.stop();
-        }
+        ticker.stop();
     }
     /**
-     * Resets the timer to the maximum allowed time and restarts it.
+     * Called once per frame while the game runs. Ends the game on timeout,
+     * otherwise lets the view model refresh the countdown and feedback in
+     * this same pulse.
+     *
+     * @param now current time in nanoseconds
      */
-    private void resetTimer() {
-        timeLeft = maxTime;
-        startTimer();
+    private void tick(long now) {
+        long drift = engine.overrun(now);
+        if (engine.tick(now)) {
+            Telemetry.get().onTimerDrift(drift);
+            gameOver(false);
+            return;
+        }
+        view.invalidate();
     }
     /**
      * ---------- INPUT HANDLING ----------
@@ -215,91 +235,129 @@ public class GameController {
      * @param event key event
      */
     private void keyHandling(KeyEvent event) {
-        if (event.getCode() == KeyCode.ENTER && gameActive) {
+        if (event.getCode() == KeyCode.ENTER && isGameActive()) {
             wordValidation();
         }
     }
     /**
-     * Validates the player's typed word against the target word.
-     * Updates score, level, and UI accordingly.
+     * Feeds every change of the text field to the engine, one keystroke
+     * at a time. Marks the field as soon as the input stops being a prefix
+     * of the word, and accepts the word as soon as it is complete, without
+     * waiting for ENTER.
+     *
+     * <p>The change listener is used rather than a raw {@code KEY_TYPED}
+     * handler because it runs after the field has applied the keystroke,
+     * so backspace, paste and caret edits are seen as well.</p>
+     *
+     * @param oldText text before the keystroke
+     * @param newText text after the keystroke
+     */
+    private void textHandling(String oldText, String newText) {
+        recorder.typed(System.nanoTime(), oldText, newText);
+        engine.typed(oldText, newText);
+        view.typed(newText);
+
+        if (isGameActive() && engine.isWordComplete() && !acceptPending) {
+            // Accept after the field has finished processing this change
+            acceptPending = true;
+            Platform.runLater(() -> {
+                acceptPending = false;
+                if (isGameActive() && engine.isWordComplete()) {
+                    wordValidation();
+                }
+            });
+        }
+    }
+    /**
+     * Submits the player's typed word to the engine.
+     * Updates typing metrics and UI accordingly, and analyzes what was
+     * typed against the word.
      */
     private void wordValidation() {
-        String userWord = entryTextField.getText().trim();
+        long now = System.nanoTime();
+        String word = engine.getCurrentWord();
+        Difficulty difficulty = engine.getDifficulty();
+        recorder.submit(now);
+        GameEngine.Submission result = engine.submit(now);
+        if (result == GameEngine.Submission.IGNORED) {
+            if (engine.getState() == GameEngine.State.LOST) {
+                gameOver(false);
+            }
+            return;
+        }
+        boolean accepted = result == GameEngine.Submission.ACCEPTED;
+        metrics.onWord(now, accepted, word.length());
+        Telemetry.get().onWord(accepted);
+        Telemetry.get().setLevel(engine.getLevel());
+        String typed = entryTextField.getText();
+        StatsAggregator.whenReady(stats -> {
+            stats.onWord(difficulty, word, accepted);
+            // Accepted words are analyzed too: the match mode may forgive accents
+            if (typos.analyze(word, TypoAnalyzer.composed(typed.strip())) > 0) {
+                stats.onTypos(typos);
+            }
+        });
+        reportProgress();
 
-        if (userWord.equals(currentWord)) {
+        if (result == GameEngine.Submission.ACCEPTED) {
 
-            success++;
-            level++;
             entryTextField.clear();
 
 
-            int reduccion = ((level - 1) / 5) * 2;
-            maxTime = Math.max(2, 20 - reduccion);
-
-
-            selectWord();
-
-
-            resetTimer();
+            view.showFeedback(GameViewModel.EntryState.ACCEPTED, SUCCESS_FEEDBACK_NANOS);
 
 
-            entryTextField.setStyle("-fx-background-color: #ccffcc; -fx-border-color: green;");
-
-
-
-            Timeline feedback = new Timeline(new KeyFrame(Duration.millis(500), e -> {
-                if (gameActive) {
-                    entryTextField.setStyle("");
-                }
-            }));
-            feedback.play();
-
-
-            if (level > 45) {
+            if (engine.getState() == GameEngine.State.WON) {
                 gameComplete();
+                return;
             }
 
         } else {
 
-            failure++;
-
 
-            entryTextField.setStyle("-fx-background-color: #ffcccc; -fx-border-color: red;");
-
-
-
-            Timeline feedback = new Timeline(new KeyFrame(Duration.seconds(1), e -> {
-                if (gameActive) {
-                    entryTextField.setStyle("");
-                }
-            }));
-            feedback.play();
+            view.showFeedback(GameViewModel.EntryState.REJECTED, FAILURE_FEEDBACK_NANOS);
         }
-
-        updateScene();
     }
     /**
      * ---------- GAME STATE ----------
      */
     /**
-     * Ends the game and loads the Game Over screen.
+     * Ends the game and loads the Game Over screen. The game is appended to
+     * the log, added to the statistics and leaderboard and the passage
+     * bookmark saved on background threads; the FX thread only builds the
+     * record and closes the replay.
      *
      * @param win true if the player won, false otherwise
      */
     private void gameOver(boolean win) {
-        gameActive = false;
         stopTimer();
-
-
-        GameOverController.resultConfiguration(win, level, success, failure);
+        Telemetry.get().onGameOver(win);
+        reportProgress();
+
+        long endedAt = engine.getEndedAt() != 0 ? engine.getEndedAt() : System.nanoTime();
+        SessionRecord session = new SessionRecord(startedAtMillis, System.currentTimeMillis(),
+                endedAt - engine.getStartedAt(), engine.getLevel(), engine.getSuccess(), engine.getFailure(),
+                win, metrics.snapshot());
+        PassageSource finished = passage;
+        if (finished != null) {
+            finished.close();
+            passage = null;
+        }
+        SessionStore.record(session, index -> {
+            StatsAggregator.whenReady(stats -> stats.onSession(session, index));
+            Leaderboard.whenReady(board -> board.onSession(session, index));
+            if (finished != null) {
+                finished.saveBookmark();
+            }
+        });
+        byte[] replay = recorder.finish(endedAt, engine);
+        if (replay != null) {
+            ReplayRecorder.saveAsync(replay);
+        }
 
 
         try {
-            Parent root = FXMLLoader.load(getClass().getResource("GameOver.fxml"));
-            Stage stage = (Stage) entryTextField.getScene().getWindow();
-            Scene scene = new Scene(root, 600, 600);
-            stage.setScene(scene);
-            stage.show();
+            SceneRouter.get().show(SceneRouter.Screen.GAME_OVER);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -314,65 +372,115 @@ public class GameController {
      * Resets the game to its initial state.
      */
     private void resetGame() {
-        level = 1;
-        maxTime = 20;
-        timeLeft = 20;
-        gameActive = true;
-        success = 0;
-        failure = 0;
+        long now = System.nanoTime();
+        view.clearFeedback();
         entryTextField.clear();
-        entryTextField.setStyle("");
-        iniatilizateWordsLeft();
+        if (race != null) {
+            waitForRace();
+            return;
+        }
+        WordSource words = iniatilizateWordsLeft();
+        view.setPassage(passage);
+        engine.start(words, now);
+        Telemetry.get().setLevel(engine.getLevel());
+        if (words instanceof DeckWordSource && ReplayRecorder.isEnabled()) {
+            recorder.start(((DeckWordSource) words).getSeed(), engine.getRules(), engine.getMatchMode(),
+                    dictionary, now);
+        }
+        startedAtMillis = System.currentTimeMillis();
 
-        selectWord();
+        metrics.reset(now);
         startTimer();
-        updateScene();
+        view.invalidate();
         entryTextField.requestFocus();
     }
     /**
-     * ---------- UI UPDATES ----------
+     * Saves where the player stopped in the passage and releases the file.
      */
+    private void closePassage() {
+        if (passage != null) {
+            passage.saveBookmark();
+            passage.close();
+            passage = null;
+        }
+    }
     /**
-     * Updates labels and UI elements (level, time, word).
+     * ---------- RACES ----------
      */
-    private void updateScene() {
-        if (maxTimeLabel != null) {
-            int tiempomaximo = maxTime;
-            maxTimeLabel.setText("Tiempo max: " + tiempomaximo);
+    /**
+     * Joins the next race of the server. The game starts when the server
+     * sends the words.
+     */
+    private void waitForRace() {
+        engine.abort();
+        waitingForRace = true;
+        race.join();
+        view.invalidate();
+        entryTextField.requestFocus();
+    }
+    /**
+     * Called when the server starts a race: takes its match mode and
+     * starts the game once the countdown is over.
+     *
+     * @param start words and settings of the race
+     */
+    private void raceStarting(RaceClient.Start start) {
+        if (!waitingForRace) {
+            return;
+        }
+        waitingForRace = false;
+        engine.setMatchMode(start.getMatchMode());
+        raceCountdown = new PauseTransition(Duration.millis(start.getCountdownMillis()));
+        raceCountdown.setOnFinished(e -> startRace(start));
+        raceCountdown.play();
+        view.invalidate();
+    }
+    /**
+     * Starts the game on the words of the race.
+     *
+     * @param start words and settings of the race
+     */
+    private void startRace(RaceClient.Start start) {
+        raceCountdown = null;
+        long now = System.nanoTime();
+        entryTextField.clear();
+        engine.start(new FixedWordSource(start.getWords()), now);
+        Telemetry.get().setLevel(engine.getLevel());
+        startedAtMillis = System.currentTimeMillis();
+        metrics.reset(now);
+        startTimer();
+        view.invalidate();
+        entryTextField.requestFocus();
+    }
+    /**
+     * Sends the current level to the race server, if racing.
+     */
+    private void reportProgress() {
+        if (race != null && engine.getState() != GameEngine.State.READY) {
+            race.sendProgress(engine.getLevel(), engine.getFailure(), engine.getState());
         }
-        if (levelLabel != null) {
-            String dificultad = getDificulty();
-            levelLabel.setText("Nivel: " + level + " (" + dificultad + ")");
+    }
+    /**
+     * Gives up the current race, if any, when the player leaves the screen.
+     */
+    private void leaveRace() {
+        if (race == null) {
+            return;
         }
-        if (timeLabel != null) {
-            timeLabel.setText(String.valueOf(timeLeft));
-
-            // Cambiar color según el tiempo restante
-            if (timeLeft <= 3) {
-                timeLabel.setStyle("-fx-text-fill: red;");
-            } else if (timeLeft <= 7) {
-                timeLabel.setStyle("-fx-text-fill: orange;");
-            } else {
-                timeLabel.setStyle("-fx-text-fill: white;");
-            }
+        waitingForRace = false;
+        if (raceCountdown != null) {
+            raceCountdown.stop();
+            raceCountdown = null;
         }
-        if (wordLabel != null) {
-            wordLabel.setText(currentWord);
+        if (!engine.getState().isOver() && engine.getState() != GameEngine.State.READY) {
+            race.sendProgress(engine.getLevel(), engine.getFailure(), GameEngine.State.LOST);
         }
     }
     /**
-     * Returns the difficulty label based on the current level.
-     *
-     * @return "Fácil", "Media", or "Difícil"
+     * @return true while the engine accepts input
      */
-    private String getDificulty() {
-        if (level <= 15) {
-            return "Fácil";
-        } else if (level <= 30) {
-            return "Media";
-        } else {
-            return "Difícil";
-        }
+    private boolean isGameActive() {
+        return engine.getState() == GameEngine.State.RUNNING;
     }
     /**
      * ---------- UI BUTTON HANDLERS ----------
@@ -386,34 +494,40 @@ public class GameController {
     private void backToMenu(ActionEvent event) {
         // Detener el timer antes de salir
         stopTimer();
-        gameActive = false;
+        leaveRace();
+        engine.abort();
+        recorder.discard();
+        closePassage();
 
         try {
-            Parent root = FXMLLoader.load(getClass().getResource("MainMenu.fxml"));
-            Stage stage = (Stage)((Node)event.getSource()).getScene().getWindow();
-            Scene scene = new Scene(root, 600, 600);
-            stage.setScene(scene);
-            stage.show();
+            SceneRouter.get().show(SceneRouter.Screen.MAIN_MENU);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
     /**
-     * Toggles pause/resume state of the game.
+     * Toggles pause/resume state of the game. Races cannot be paused.
      *
      * @param event button click event
      */
     @FXML
     private void pauseGame(ActionEvent event) {
-        if (timer != null) {
-            if (gameActive) {
-                stopTimer();
-                gameActive = false;
-            } else {
-                startTimer();
-                gameActive = true;
-            }
+        if (race != null) {
+            // Una carrera no se puede pausar
+            return;
+        }
+        long now = System.nanoTime();
+        if (engine.getState() == GameEngine.State.RUNNING) {
+            recorder.pause(now);
+            engine.pause(now);
+            stopTimer();
+        } else if (engine.getState() == GameEngine.State.PAUSED) {
+            recorder.resume(now);
+            engine.resume(now);
+            startTimer();
+            metrics.restartWord(now);
         }
+        view.invalidate();
     }
     /**
      * ---------- GETTERS ----------
@@ -421,15 +535,15 @@ public class GameController {
 
     /** @return number of successful attempts */
     public int getSuccess() {
-        return success;
+        return engine.getSuccess();
     }
     /** @return number of failed attempts */
     public int getFailure() {
-        return failure;
+        return engine.getFailure();
     }
     /** @return current level */
 
     public int getLevel() {
-        return level;
+        return engine.getLevel();
     }
 }
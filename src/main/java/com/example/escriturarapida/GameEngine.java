@@ -0,0 +1,320 @@
+package com.example.escriturarapida;
+
+/**
+ * Rules of the typing game, without any dependency on JavaFX.
+ *
+ * <p>The engine owns the state machine, the score, the level progression
+ * and the countdown of each word. It never reads the system clock: every
+ * call that depends on time receives the current time in nanoseconds, so
+ * the same code runs in the JavaFX game (driven by {@link System#nanoTime()}),
+ * in replays and in simulations with a virtual clock.</p>
+ *
+ * <p>Main responsibilities:</p>
+ * <ul>
+ *   <li>Drawing words for the current difficulty from a {@link WordSource}.</li>
+ *   <li>Validating typed input through a {@link TypingValidator} under a {@link MatchMode}.</li>
+ *   <li>Updating score, level and time allowed on each submission.</li>
+ *   <li>Detecting timeouts, pauses, wins and losses.</li>
+ * </ul>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class GameEngine {
+
+    /**
+     * States of a game.
+     */
+    public enum State {
+        READY, RUNNING, PAUSED, WON, LOST;
+
+        /** @return true if the game has ended */
+        public boolean isOver() {
+            return this == WON || this == LOST;
+        }
+    }
+
+    /**
+     * Outcome of a submission.
+     */
+    public enum Submission {
+        /** The word was correct and the player advanced a level. */
+        ACCEPTED,
+        /** The word was wrong and a failure was counted. */
+        REJECTED,
+        /** The game was not running, so nothing happened. */
+        IGNORED
+    }
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    /**
+     * ---------- STATE ----------
+     */
+    private final GameRules rules;
+    private MatchMode matchMode;
+    private final TypingValidator validator = new TypingValidator();
+    private final GameClock clock = new GameClock();
+    private WordSource words;
+    private State state = State.READY;
+    private int level;
+    private int maxTime;
+    private int success;
+    private int failure;
+    private String currentWord;
+    private long startedAt;
+    private long endedAt;
+
+    /**
+     * Creates an engine that compares typed text exactly.
+     *
+     * @param rules the rules to play with
+     */
+    public GameEngine(GameRules rules) {
+        this(rules, MatchMode.EXACT);
+    }
+
+    /**
+     * @param rules     the rules to play with
+     * @param matchMode how typed text is compared with the words
+     */
+    public GameEngine(GameRules rules, MatchMode matchMode) {
+        this.rules = rules;
+        this.matchMode = matchMode;
+    }
+
+    /**
+     * ---------- LIFECYCLE ----------
+     */
+
+    /**
+     * Starts a new game, discarding any previous state.
+     *
+     * @param source where the words come from
+     * @param now    current time in nanoseconds
+     */
+    public void start(WordSource source, long now) {
+        words = source;
+        level = 1;
+        maxTime = rules.maxTimeFor(level);
+        success = 0;
+        failure = 0;
+        startedAt = now;
+        endedAt = 0;
+        state = State.RUNNING;
+        nextWord(now);
+    }
+
+    /**
+     * Freezes the countdown. Input is ignored while paused.
+     *
+     * @param now current time in nanoseconds
+     */
+    public void pause(long now) {
+        if (state == State.RUNNING) {
+            clock.pause(now);
+            state = State.PAUSED;
+        }
+    }
+
+    /**
+     * Continues a paused game with the exact time that was left.
+     *
+     * @param now current time in nanoseconds
+     */
+    public void resume(long now) {
+        if (state == State.PAUSED) {
+            clock.resume(now);
+            state = State.RUNNING;
+        }
+    }
+
+    /**
+     * Abandons the game without a result, e.g. when the player leaves the screen.
+     */
+    public void abort() {
+        clock.stop();
+        if (!state.isOver()) {
+            state = State.READY;
+        }
+    }
+
+    /**
+     * Advances time. Ends the game if the current word has run out of time.
+     *
+     * @param now current time in nanoseconds
+     * @return true if this call ended the game
+     */
+    public boolean tick(long now) {
+        if (state == State.RUNNING && clock.isExpired(now)) {
+            end(State.LOST, now);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * ---------- INPUT ----------
+     */
+
+    /**
+     * Applies a change of the typed text to the validator.
+     *
+     * @param oldText text before the change
+     * @param newText text after the change
+     */
+    public void typed(CharSequence oldText, CharSequence newText) {
+        validator.update(oldText, newText);
+    }
+
+    /**
+     * Replaces the typed text, e.g. from a bot or a replay.
+     *
+     * @param text the whole input
+     */
+    public void setInput(CharSequence text) {
+        validator.resync(text);
+    }
+
+    /**
+     * Submits the current input.
+     *
+     * @param now current time in nanoseconds
+     * @return whether the word was accepted, rejected or ignored
+     */
+    public Submission submit(long now) {
+        if (tick(now) || state != State.RUNNING) {
+            return Submission.IGNORED;
+        }
+        Difficulty difficulty = rules.difficultyFor(level);
+        if (!validator.isComplete()) {
+            failure++;
+            words.onResult(difficulty, currentWord, false);
+            return Submission.REJECTED;
+        }
+
+        words.onResult(difficulty, currentWord, true);
+        success++;
+        level++;
+        if (rules.isWon(level)) {
+            end(State.WON, now);
+        } else {
+            maxTime = rules.maxTimeFor(level);
+            nextWord(now);
+        }
+        return Submission.ACCEPTED;
+    }
+
+    private void nextWord(long now) {
+        Difficulty difficulty = rules.difficultyFor(level);
+        currentWord = words.nextWord(difficulty);
+        if (matchMode == MatchMode.EXACT) {
+            validator.reset(currentWord);
+        } else {
+            validator.reset(currentWord, words.form(difficulty, currentWord, matchMode), matchMode);
+        }
+        clock.start(maxTime * NANOS_PER_SECOND, now);
+    }
+
+    private void end(State result, long now) {
+        clock.stop();
+        state = result;
+        endedAt = now;
+    }
+
+    /**
+     * ---------- GETTERS ----------
+     */
+
+    /** @return the current state */
+    public State getState() {
+        return state;
+    }
+
+    /** @return the rules of this engine */
+    public GameRules getRules() {
+        return rules;
+    }
+
+    /**
+     * Changes how typed text is compared, starting with the next word.
+     *
+     * @param matchMode the new match mode
+     */
+    public void setMatchMode(MatchMode matchMode) {
+        this.matchMode = matchMode;
+    }
+
+    /** @return how typed text is compared with the words */
+    public MatchMode getMatchMode() {
+        return matchMode;
+    }
+
+    /** @return current level */
+    public int getLevel() {
+        return level;
+    }
+
+    /** @return seconds allowed for the current word */
+    public int getMaxTime() {
+        return maxTime;
+    }
+
+    /** @return number of accepted words */
+    public int getSuccess() {
+        return success;
+    }
+
+    /** @return number of rejected submissions */
+    public int getFailure() {
+        return failure;
+    }
+
+    /** @return the word the player has to type */
+    public String getCurrentWord() {
+        return currentWord;
+    }
+
+    /** @return difficulty of the current level */
+    public Difficulty getDifficulty() {
+        return rules.difficultyFor(level);
+    }
+
+    /**
+     * @param now current time in nanoseconds
+     * @return time left for the current word, in nanoseconds
+     */
+    public long remaining(long now) {
+        return clock.remaining(now);
+    }
+
+    /**
+     * @param now current time in nanoseconds
+     * @return how late {@code now} is past the current deadline, or 0
+     */
+    public long overrun(long now) {
+        return clock.overrun(now);
+    }
+
+    /** @return the validator of the current word */
+    public TypingValidator getValidator() {
+        return validator;
+    }
+
+    /** @return true if the current input is exactly the current word */
+    public boolean isWordComplete() {
+        return validator.isComplete();
+    }
+
+    /** @return time at which the game started, in nanoseconds */
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    /** @return time at which the game ended, or 0 while it is not over */
+    public long getEndedAt() {
+        return endedAt;
+    }
+}
@@ -2,12 +2,7 @@ package com.example.escriturarapida;
 
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Label;
-import javafx.stage.Stage;
 import java.io.IOException;
 
 /**
@@ -15,12 +10,13 @@ import java.io.IOException;
  *
  * <p>This class handles the display of the game result (victory or defeat),
  * provides options to retry, view statistics, or return to the main menu.
- * It uses static variables to receive the game outcome from the
- * {@link GameController}.</p>
+ * The outcome is the last game recorded in the {@link SessionStore},
+ * shown through a {@link ResultViewModel}.</p>
  *
  * <p>Main responsibilities:</p>
  * <ul>
  *   <li>Displaying whether the player won or lost.</li>
+ *   <li>Displaying the place of the game on the leaderboards.</li>
  *   <li>Allowing the player to restart the game.</li>
  *   <li>Allowing the player to view statistics.</li>
  *   <li>Returning to the main menu.</li>
@@ -32,19 +28,18 @@ import java.io.IOException;
  *   1.0
  */
 
-public class GameOverController {
+public class GameOverController implements ScreenLifecycle {
     /**
      * ---------- FXML UI ELEMENTS ----------
      */
     @FXML
     private Label resultsLabel;
-    /**
-     * ---------- GAME RESULT VARIABLES ----------
-     */
-    private static boolean gameState = false;
-    private static int levelReached = 1;
-    private static int rightWords = 0;
-    private static int errors = 0;
+    @FXML
+    private Label typingLabel;
+    @FXML
+    private Label rankLabel;
+
+    private final ResultViewModel view = new ResultViewModel();
 
     /**
      * ---------- INITIALIZATION ----------
@@ -52,39 +47,24 @@ public class GameOverController {
 
     /**
      * Called automatically after FXML loading.
-     * Updates the result label based on the game outcome.
+     * Binds the labels to the view model; the colour of the result follows
+     * the outcome through the {@code :won} and {@code :lost} pseudo-classes.
      */
     @FXML
     private void initialize() {
-        updateResults();
-    }
-    /**
-     * Configures the game result before showing the Game Over screen.
-     *
-     * @param ganado    true if the game was won
-     * @param nivel     last level reached
-     * @param correctas number of correct words typed
-     * @param fallos    number of incorrect attempts
-     */
-    public static void resultConfiguration(boolean ganado, int nivel, int correctas, int fallos) {
-        gameState = ganado;
-        levelReached = nivel;
-        rightWords = correctas;
-        errors = fallos;
+        resultsLabel.textProperty().bind(view.resultTextProperty());
+        typingLabel.textProperty().bind(view.typingTextProperty());
+        rankLabel.textProperty().bind(view.rankTextProperty());
+        ViewModel.bindPseudoClass(resultsLabel, view.outcomeProperty());
+        view.refreshNow();
     }
+
     /**
-     * Updates the label text and style depending on win or loss.
+     * Refreshes the result every time the cached screen is shown.
      */
-    private void updateResults() {
-        if (resultsLabel != null) {
-            if (gameState) {
-                resultsLabel.setText("¡Ganaste!");
-                resultsLabel.setStyle("-fx-text-fill: #00FF00;");
-            } else {
-                resultsLabel.setText("Perdiste");
-                resultsLabel.setStyle("-fx-text-fill: #FF0000;");
-            }
-        }
+    @Override
+    public void onShow() {
+        view.refreshNow();
     }
     /**
      * ---------- UI BUTTON HANDLERS ----------
@@ -98,30 +78,20 @@ public class GameOverController {
     @FXML
     private void restart(ActionEvent event) {
         try {
-            Parent root = FXMLLoader.load(getClass().getResource("GameMenu.fxml"));
-            Stage stage = (Stage)((Node)event.getSource()).getScene().getWindow();
-            Scene scene = new Scene(root, 600, 600);
-            stage.setScene(scene);
-            stage.show();
+            SceneRouter.get().show(SceneRouter.Screen.GAME);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
     /**
-     * Opens the statistics screen after updating with game data.
+     * Opens the statistics screen.
      *
      * @param event button click event
      */
     @FXML
     private void seeStats(ActionEvent event) {
         try {
-            StatsController.updateStats(rightWords, errors);
-
-            Parent root = FXMLLoader.load(getClass().getResource("StatsMenu.fxml"));
-            Stage stage = (Stage)((Node)event.getSource()).getScene().getWindow();
-            Scene scene = new Scene(root, 600, 600);
-            stage.setScene(scene);
-            stage.show();
+            SceneRouter.get().show(SceneRouter.Screen.STATS);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -134,11 +104,7 @@ public class GameOverController {
     @FXML
     private void exit(ActionEvent event) {
         try {
-            Parent root = FXMLLoader.load(getClass().getResource("MainMenu.fxml"));
-            Stage stage = (Stage)((Node)event.getSource()).getScene().getWindow();
-            Scene scene = new Scene(root, 600, 600);
-            stage.setScene(scene);
-            stage.show();
+            SceneRouter.get().show(SceneRouter.Screen.MAIN_MENU);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -0,0 +1,155 @@
+package com.example.escriturarapida;
+
+/**
+ * Tunable parameters of the game: time curve, difficulty thresholds and goal.
+ *
+ * <p>The time allowed per word starts at {@code initialTime} seconds and
+ * drops by {@code timeStep} seconds every {@code levelsPerStep} levels,
+ * never going below {@code minTime}. Levels up to {@code easyMaxLevel} use
+ * easy words, up to {@code mediumMaxLevel} medium words and hard words
+ * after that. The game is won when {@code finalLevel} is completed.</p>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class GameRules {
+
+    /** Rules of the shipped game: 20 s, -2 s every 5 levels down to 2 s, 15/30/45 levels. */
+    public static final GameRules DEFAULT = new GameRules(20, 2, 5, 2, 15, 30, 45);
+
+    private final int initialTime;
+    private final int timeStep;
+    private final int levelsPerStep;
+    private final int minTime;
+    private final int easyMaxLevel;
+    private final int mediumMaxLevel;
+    private final int finalLevel;
+
+    /**
+     * @param initialTime    seconds allowed on level 1
+     * @param timeStep       seconds removed every {@code levelsPerStep} levels
+     * @param levelsPerStep  levels between two time reductions
+     * @param minTime        lower bound of the time allowed, in seconds
+     * @param easyMaxLevel   last level with easy words
+     * @param mediumMaxLevel last level with medium words
+     * @param finalLevel     level that wins the game once completed
+     */
+    public GameRules(int initialTime, int timeStep, int levelsPerStep, int minTime,
+                     int easyMaxLevel, int mediumMaxLevel, int finalLevel) {
+        if (levelsPerStep <= 0 || minTime <= 0 || initialTime < minTime) {
+            throw new IllegalArgumentException("Invalid time curve");
+        }
+        if (easyMaxLevel > mediumMaxLevel || mediumMaxLevel > finalLevel) {
+            throw new IllegalArgumentException("Invalid difficulty thresholds");
+        }
+        this.initialTime = initialTime;
+        this.timeStep = timeStep;
+        this.levelsPerStep = levelsPerStep;
+        this.minTime = minTime;
+        this.easyMaxLevel = easyMaxLevel;
+        this.mediumMaxLevel = mediumMaxLevel;
+        this.finalLevel = finalLevel;
+    }
+
+    /**
+     * Parses rules written as the seven constructor arguments separated by
+     * commas, for example {@code 20,2,5,2,15,30,45} for the default rules.
+     *
+     * @param text the rules
+     * @return the parsed rules
+     * @throws IllegalArgumentException if the text is malformed or the rules are invalid
+     */
+    public static GameRules parse(String text) {
+        String[] parts = text.trim().split("\\s*,\\s*");
+        if (parts.length != 7) {
+            throw new IllegalArgumentException("Expected 7 comma-separated numbers, got " + text);
+        }
+        int[] v = new int[7];
+        for (int i = 0; i < v.length; i++) {
+            v[i] = Integer.parseInt(parts[i]);
+        }
+        return new GameRules(v[0], v[1], v[2], v[3], v[4], v[5], v[6]);
+    }
+
+    /**
+     * ---------- RULES ----------
+     */
+
+    /**
+     * @param level the current level
+     * @return seconds allowed to type a word on that level
+     */
+    public int maxTimeFor(int level) {
+        int reduccion = ((level - 1) / levelsPerStep) * timeStep;
+        return Math.max(minTime, initialTime - reduccion);
+    }
+
+    /**
+     * @param level the current level
+     * @return the word difficulty used on that level
+     */
+    public Difficulty difficultyFor(int level) {
+        if (level <= easyMaxLevel) {
+            return Difficulty.EASY;
+        } else if (level <= mediumMaxLevel) {
+            return Difficulty.MEDIUM;
+        } else {
+            return Difficulty.HARD;
+        }
+    }
+
+    /**
+     * @param level the level the player has just reached
+     * @return true if reaching that level wins the game
+     */
+    public boolean isWon(int level) {
+        return level > finalLevel;
+    }
+
+    /**
+     * ---------- GETTERS ----------
+     */
+
+    /** @return seconds allowed on level 1 */
+    public int getInitialTime() {
+        return initialTime;
+    }
+
+    /** @return seconds removed at each reduction */
+    public int getTimeStep() {
+        return timeStep;
+    }
+
+    /** @return levels between two time reductions */
+    public int getLevelsPerStep() {
+        return levelsPerStep;
+    }
+
+    /** @return lower bound of the time allowed, in seconds */
+    public int getMinTime() {
+        return minTime;
+    }
+
+    /** @return last level with easy words */
+    public int getEasyMaxLevel() {
+        return easyMaxLevel;
+    }
+
+    /** @return last level with medium words */
+    public int getMediumMaxLevel() {
+        return mediumMaxLevel;
+    }
+
+    /** @return level that wins the game once completed */
+    public int getFinalLevel() {
+        return finalLevel;
+    }
+
+    @Override
+    public String toString() {
+        return "GameRules[" + initialTime + "s -" + timeStep + "s/" + levelsPerStep + " min " + minTime
+                + "s, " + easyMaxLevel + "/" + mediumMaxLevel + "/" + finalLevel + "]";
+    }
+}
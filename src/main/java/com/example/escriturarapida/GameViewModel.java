@@ -0,0 +1,285 @@
+package com.example.escriturarapida;
+
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+
+/**
+ * View model of the game screen.
+ *
+ * <p>Reads the {@link GameEngine} once per pulse at most and only rebuilds
+ * a text when the number behind it changes: the level and time limit
+ * change once per word, and the countdown once per tenth of a second.
+ * The live words per minute of the {@link TypingMetrics} are read once
+ * per second, as they cover the last thirty. In a race, the status line changes when the lobby or the player's
+ * position does. In a passage, the words that follow the current one are
+ * joined again only when the word changes.</p>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class GameViewModel extends ViewModel {
+
+    /**
+     * Colour of the countdown, as pseudo-classes of {@code .time-label}.
+     */
+    public enum TimeState {
+        NORMAL, WARNING, CRITICAL
+    }
+
+    /**
+     * Feedback on the input field, as pseudo-classes of {@code .entry-field}.
+     */
+    public enum EntryState {
+        /** Input is a prefix of the word. */
+        NORMAL,
+        /** Input has stopped matching the word. */
+        TYPO,
+        /** Input has stopped matching the word and starts no word of the lexicon. */
+        UNKNOWN,
+        /** The last submission was accepted. */
+        ACCEPTED,
+        /** The last submission was rejected. */
+        REJECTED
+    }
+
+    private static final long TENTH = 100_000_000L;
+    private static final long SECOND = 1_000_000_000L;
+    private static final long WARNING_TENTHS = 70;
+    private static final long CRITICAL_TENTHS = 30;
+    /** Words of a passage shown after the current one. */
+    private static final int PASSAGE_PREVIEW = 6;
+
+    /**
+     * ---------- PROPERTIES ----------
+     */
+    private final StringProperty levelText = new SimpleStringProperty(this, "levelText", "");
+    private final StringProperty maxTimeText = new SimpleStringProperty(this, "maxTimeText", "");
+    private final StringProperty timeText = new SimpleStringProperty(this, "timeText", "");
+    private final StringProperty wordText = new SimpleStringProperty(this, "wordText", "");
+    private final StringProperty wpmText = new SimpleStringProperty(this, "wpmText", "");
+    private final StringProperty raceText = new SimpleStringProperty(this, "raceText", "");
+    private final StringProperty passageText = new SimpleStringProperty(this, "passageText", "");
+    private final ObjectProperty<TimeState> timeState = new SimpleObjectProperty<>(this, "timeState", TimeState.NORMAL);
+    private final ObjectProperty<EntryState> entryState = new SimpleObjectProperty<>(this, "entryState", EntryState.NORMAL);
+
+    /**
+     * ---------- STATE ----------
+     */
+    private final GameEngine engine;
+    private final TypingMetrics metrics;
+    private int shownLevel = -1;
+    private int shownMaxTime = -1;
+    private long shownTenths = -1;
+    private String shownWord;
+    private long wpmSecond = -1;
+    private long shownWpm = -1;
+    private RaceClient race;
+    private long shownRace = -1;
+    private PassageSource passage;
+    private EntryState feedback;
+    private long feedbackUntil;
+    /** The input is not the start of any word of the {@link WordTrie#shared() lexicon}. */
+    private boolean outsideLexicon;
+
+    /**
+     * @param engine  the engine to show
+     * @param metrics the typing metrics of the game
+     */
+    public GameViewModel(GameEngine engine, TypingMetrics metrics) {
+        this.engine = engine;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Shows the status of a race in {@link #raceTextProperty()}.
+     *
+     * @param race the race connection, or null outside races
+     */
+    public void setRace(RaceClient race) {
+        this.race = race;
+        shownRace = -1;
+        invalidate();
+    }
+
+    /**
+     * Shows the words that follow the current one in
+     * {@link #passageTextProperty()}.
+     *
+     * @param passage the passage being played, or null outside passages
+     */
+    public void setPassage(PassageSource passage) {
+        this.passage = passage;
+        update(passageText, "");
+        invalidate();
+    }
+
+    /**
+     * Shows submit feedback on the field for a while; the state falls back
+     * to {@code NORMAL} or {@code TYPO} once it has passed.
+     *
+     * @param state    {@code ACCEPTED} or {@code REJECTED}
+     * @param duration how long to keep it, in nanoseconds
+     */
+    public void showFeedback(EntryState state, long duration) {
+        feedback = state;
+        feedbackUntil = System.nanoTime() + duration;
+        invalidate();
+    }
+
+    /**
+     * Checks the input against the {@link WordTrie#shared() lexicon}, so a
+     * typo that no word starts with can be told apart from one that is
+     * merely another word. Nothing is checked while the lexicon is loading.
+     *
+     * @param text the whole input
+     */
+    public void typed(String text) {
+        WordTrie lexicon = WordTrie.shared();
+        // strip() returns the same string when there is nothing to strip
+        outsideLexicon = lexicon != null && !lexicon.isPrefix(text.strip());
+        invalidate();
+    }
+
+    /**
+     * Drops any feedback being shown.
+     */
+    public void clearFeedback() {
+        feedback = null;
+        feedbackUntil = 0;
+        invalidate();
+    }
+
+    @Override
+    protected void refresh() {
+        long now = System.nanoTime();
+
+        if (engine.getLevel() != shownLevel) {
+            shownLevel = engine.getLevel();
+            update(levelText, "Nivel: " + shownLevel + " (" + engine.getDifficulty().getLabel() + ")");
+        }
+        if (engine.getMaxTime() != shownMaxTime) {
+            shownMaxTime = engine.getMaxTime();
+            update(maxTimeText, "Tiempo max: " + shownMaxTime);
+        }
+        String word = engine.getCurrentWord();
+        if (word != null && word != shownWord) {
+            // By identity: a passage can repeat a word with the same chars
+            shownWord = word;
+            update(wordText, word);
+            if (passage != null) {
+                update(passageText, passage.upcoming(PASSAGE_PREVIEW));
+            }
+        }
+
+        long tenths = (engine.remaining(now) + TENTH - 1) / TENTH;
+        if (tenths != shownTenths) {
+            shownTenths = tenths;
+            update(timeText, tenths / 10 + "." + tenths % 10);
+            timeState.set(tenths <= CRITICAL_TENTHS ? TimeState.CRITICAL
+                    : tenths <= WARNING_TENTHS ? TimeState.WARNING : TimeState.NORMAL);
+        }
+
+        if (now / SECOND != wpmSecond) {
+            wpmSecond = now / SECOND;
+            long wpm = Math.round(metrics.liveWpm(now));
+            if (wpm != shownWpm) {
+                shownWpm = wpm;
+                update(wpmText, "PPM: " + wpm);
+            }
+        }
+
+        if (race != null) {
+            refreshRace();
+        }
+
+        if (feedback != null && now >= feedbackUntil) {
+            feedback = null;
+        }
+        entryState.set(feedback != null ? feedback
+                : !engine.getValidator().hasError() ? EntryState.NORMAL
+                : outsideLexicon ? EntryState.UNKNOWN : EntryState.TYPO);
+    }
+
+    private void refreshRace() {
+        RaceClient.Status status = race.getStatus();
+        boolean started = engine.getState() != GameEngine.State.READY;
+        int first = status == RaceClient.Status.LOBBY ? race.getLobbyReady() : race.getPosition();
+        int second = status == RaceClient.Status.LOBBY ? race.getLobbyNeeded() : race.getRacers();
+        long key = ((long) status.ordinal() << 60) | (started ? 1L << 59 : 0) | ((long) first << 24) | second;
+        if (key == shownRace) {
+            return;
+        }
+        shownRace = key;
+        switch (status) {
+            case CONNECTING:
+                update(raceText, "Conectando con la carrera...");
+                break;
+            case OFFLINE:
+                update(raceText, "Sin conexión con la carrera");
+                break;
+            case LOBBY:
+                update(raceText, "Esperando corredores (" + first + "/" + second + ")");
+                break;
+            default:
+                update(raceText, started ? "Puesto " + first + " de " + second : "¡Prepárate!");
+        }
+    }
+
+    /**
+     * ---------- GETTERS ----------
+     */
+
+    /** @return "Nivel: n (dificultad)" */
+    public StringProperty levelTextProperty() {
+        return levelText;
+    }
+
+    /** @return "Tiempo max: n" */
+    public StringProperty maxTimeTextProperty() {
+        return maxTimeText;
+    }
+
+    /** @return countdown in seconds with one decimal */
+    public StringProperty timeTextProperty() {
+        return timeText;
+    }
+
+    /** @return the word to type */
+    public StringProperty wordTextProperty() {
+        return wordText;
+    }
+
+    /** @return live words per minute, over the last thirty seconds */
+    public StringProperty wpmTextProperty() {
+        return wpmText;
+    }
+
+    /** @return status of the race, empty outside races */
+    public StringProperty raceTextProperty() {
+        return raceText;
+    }
+
+    /** @return the next words of the passage, empty outside passages */
+    public StringProperty passageTextProperty() {
+        return passageText;
+    }
+
+    /** @return colour state of the countdown */
+    public ObjectProperty<TimeState> timeStateProperty() {
+        return timeState;
+    }
+
+    /** @return feedback state of the input field */
+    public ObjectProperty<EntryState> entryStateProperty() {
+        return entryState;
+    }
+
+    /** @return true while submit feedback is being shown */
+    public boolean isShowingFeedback() {
+        return feedback != null;
+    }
+}
@@ -3,11 +3,6 @@ package com.example.escriturarapida;
 
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
-import javafx.stage.Stage;
 import java.io.IOException;
 
 /**
@@ -37,11 +32,7 @@ public class HelpController {
     @FXML
     private void back(ActionEvent event) {
         try {
-            Parent root = FXMLLoader.load(getClass().getResource("MainMenu.fxml"));
-            Stage stage = (Stage)((Node)event.getSource()).getScene().getWindow();
-            Scene scene = new Scene(root, 600, 600);
-            stage.setScene(scene);
-            stage.show();
+            SceneRouter.get().show(SceneRouter.Screen.MAIN_MENU);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -0,0 +1,253 @@
+package com.example.escriturarapida;
+
+import javafx.scene.image.Image;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Shared cache of decoded images with a memory budget.
+ *
+ * <p>Every asset is decoded once per displayed size and then shared by all
+ * the views that draw it. Decoding happens in the background, off the
+ * JavaFX application thread, using the pre-scaled variant written by
+ * {@link ImageVariantGenerator} when one exists, or asking the decoder to
+ * scale the original while loading otherwise. Entries are kept in
+ * least-recently-used order and evicted once their decoded size exceeds
+ * the budget set with {@code -Descritura.images.budgetMb} (48 MB by default).</p>
+ *
+ * <p>An evicted image is only weakly held from then on. Views drop their
+ * image while their screen is hidden (see {@link CachedImageView}), so an
+ * evicted image that no shown screen draws is left to the garbage
+ * collector, and one that is still on screen is handed back on the next
+ * request instead of being decoded a second time.</p>
+ *
+ * <p>Main responsibilities:</p>
+ * <ul>
+ *   <li>Resolving an asset and display size to a variant or the original file.</li>
+ *   <li>Starting background decodes and sharing the resulting {@link Image}.</li>
+ *   <li>Tracking decoded bytes and evicting the least recently used images.</li>
+ *   <li>Reusing evicted images that are still drawn somewhere.</li>
+ * </ul>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class ImageCache {
+    /**
+     * ---------- CONSTANTS ----------
+     */
+    private static final long DEFAULT_BUDGET_MB = 48;
+    private static final String IMAGE_DIR = "Images/";
+
+    private static final ImageCache INSTANCE = new ImageCache(
+            Long.getLong("escritura.images.budgetMb", DEFAULT_BUDGET_MB) * 1024 * 1024);
+
+    /**
+     * ---------- STATE ----------
+     */
+    private final long budgetBytes;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(32, 0.75f, true);
+    /** Evicted images, until the last view drawing them lets them go. */
+    private final Map<String, Released> released = new HashMap<>();
+    private final ReferenceQueue<Image> collected = new ReferenceQueue<>();
+    private long usedBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    private static final class Entry {
+        final Image image;
+        long bytes;
+
+        Entry(Image image, long bytes) {
+            this.image = image;
+            this.bytes = bytes;
+        }
+    }
+
+    private static final class Released extends WeakReference<Image> {
+        final String key;
+
+        Released(String key, Image image, ReferenceQueue<Image> queue) {
+            super(image, queue);
+            this.key = key;
+        }
+    }
+
+    ImageCache(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    /** @return the application-wide cache */
+    public static ImageCache get() {
+        return INSTANCE;
+    }
+
+    /**
+     * ---------- LOOKUP ----------
+     */
+
+    /**
+     * Returns the image for an asset drawn inside a box of the given size.
+     * The returned image may still be loading in the background.
+     *
+     * @param asset         file name inside the {@code Images} folder
+     * @param fitWidth      width of the box, or 0 for the natural width
+     * @param fitHeight     height of the box, or 0 for the natural height
+     * @param preserveRatio whether the image keeps its aspect ratio inside the box
+     * @return the shared image
+     * @throws IllegalArgumentException if the asset does not exist
+     */
+    public synchronized Image get(String asset, double fitWidth, double fitHeight, boolean preserveRatio) {
+        int boxWidth = (int) Math.round(fitWidth);
+        int boxHeight = (int) Math.round(fitHeight);
+        String key = asset + '@' + boxWidth + 'x' + boxHeight + (preserveRatio ? "" : "!");
+
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            hits++;
+            return entry.image;
+        }
+        purgeCollected();
+        Released evicted = released.remove(key);
+        Image image = evicted != null ? evicted.get() : null;
+        if (image != null) {
+            hits++;
+        } else {
+            misses++;
+            image = load(asset, boxWidth, boxHeight, preserveRatio);
+        }
+        entry = new Entry(image, estimateBytes(image, boxWidth, boxHeight));
+        entries.put(key, entry);
+        usedBytes += entry.bytes;
+        trackLoadedSize(key, entry);
+        evict(key);
+        return image;
+    }
+
+    /**
+     * Starts decoding an image without waiting for it, so it is ready by the
+     * time its screen is shown.
+     *
+     * @param asset         file name inside the {@code Images} folder
+     * @param fitWidth      width of the box, or 0 for the natural width
+     * @param fitHeight     height of the box, or 0 for the natural height
+     * @param preserveRatio whether the image keeps its aspect ratio inside the box
+     */
+    public void prefetch(String asset, double fitWidth, double fitHeight, boolean preserveRatio) {
+        get(asset, fitWidth, fitHeight, preserveRatio);
+    }
+
+    private Image load(String asset, int boxWidth, int boxHeight, boolean preserveRatio) {
+        if (boxWidth > 0 && boxHeight > 0) {
+            URL variant = ImageCache.class.getResource(
+                    IMAGE_DIR + ImageVariantGenerator.variantName(asset, boxWidth, boxHeight, preserveRatio));
+            if (variant != null) {
+                return new Image(variant.toExternalForm(), true);
+            }
+        }
+        URL original = ImageCache.class.getResource(IMAGE_DIR + asset);
+        if (original == null) {
+            throw new IllegalArgumentException("Unknown image asset: " + asset);
+        }
+        return new Image(original.toExternalForm(), boxWidth, boxHeight, preserveRatio, true, true);
+    }
+
+    /**
+     * ---------- MEMORY BUDGET ----------
+     */
+
+    private static long estimateBytes(Image image, int boxWidth, int boxHeight) {
+        if (image.getProgress() >= 1) {
+            return (long) image.getWidth() * (long) image.getHeight() * 4;
+        }
+        return (long) boxWidth * boxHeight * 4;
+    }
+
+    /**
+     * Replaces the estimate with the real decoded size once loading ends.
+     */
+    private void trackLoadedSize(String key, Entry entry) {
+        if (entry.image.getProgress() >= 1) {
+            return;
+        }
+        entry.image.progressProperty().addListener((obs, old, progress) -> {
+            if (progress.doubleValue() >= 1) {
+                synchronized (this) {
+                    if (entries.get(key) == entry) {
+                        long actual = (long) entry.image.getWidth() * (long) entry.image.getHeight() * 4;
+                        usedBytes += actual - entry.bytes;
+                        entry.bytes = actual;
+                        evict(key);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Evicts least recently used entries until the budget is met, never
+     * evicting the entry that was just requested. Evicted images are only
+     * weakly held from then on.
+     */
+    private void evict(String keep) {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (usedBytes > budgetBytes && it.hasNext()) {
+            Map.Entry<String, Entry> eldest = it.next();
+            if (eldest.getKey().equals(keep)) {
+                continue;
+            }
+            usedBytes -= eldest.getValue().bytes;
+            released.put(eldest.getKey(), new Released(eldest.getKey(), eldest.getValue().image, collected));
+            it.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Forgets evicted images the garbage collector has reclaimed.
+     */
+    private void purgeCollected() {
+        Released gone;
+        while ((gone = (Released) collected.poll()) != null) {
+            released.remove(gone.key, gone);
+        }
+    }
+
+    /**
+     * ---------- GETTERS ----------
+     */
+
+    /** @return estimated decoded bytes currently held by the cache */
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /** @return the memory budget in bytes */
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    /** @return number of lookups served from the cache */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /** @return number of lookups that started a decode */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /** @return number of entries evicted to respect the budget */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+}
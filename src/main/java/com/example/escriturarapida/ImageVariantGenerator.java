@@ -0,0 +1,240 @@
+package com.example.escriturarapida;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Build-time step that writes pre-scaled variants of the image assets.
+ *
+ * <p>Runs during the {@code process-classes} phase over the compiled
+ * resources. It scans the FXML files for {@link CachedImageView} elements
+ * and the stylesheet for {@code cover} background images, and for every
+ * size that is actually displayed writes a downscaled copy next to the
+ * original. The source tree is never modified: the copied stylesheet in the
+ * output directory is rewritten to point at the scaled backgrounds, and
+ * {@link ImageCache} picks up the FXML variants by name, falling back to
+ * the original file when a variant is missing.</p>
+ *
+ * <p>This class must not depend on JavaFX, since it runs inside the build.</p>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class ImageVariantGenerator {
+    /**
+     * ---------- CONSTANTS ----------
+     */
+    static final String RESOURCE_DIR = "com/example/escriturarapida";
+    static final int SCENE_WIDTH = 600;
+    static final int SCENE_HEIGHT = 600;
+
+    private static final Pattern VIEW = Pattern.compile("<CachedImageView\\b([^>]*)>");
+    private static final Pattern ASSET = Pattern.compile("\\basset=\"([^\"]+)\"");
+    private static final Pattern FIT_WIDTH = Pattern.compile("\\bfitWidth=\"([\\d.]+)\"");
+    private static final Pattern FIT_HEIGHT = Pattern.compile("\\bfitHeight=\"([\\d.]+)\"");
+    private static final Pattern PRESERVE_RATIO = Pattern.compile("\\bpreserveRatio=\"true\"");
+    private static final Pattern CSS_BLOCK = Pattern.compile("\\{[^}]*}");
+    private static final Pattern CSS_URL = Pattern.compile("url\\(\"\\.\\./Images/([^\"]+)\"\\)");
+    private static final Pattern CSS_COVER = Pattern.compile("-fx-background-size\\s*:\\s*cover");
+
+    private ImageVariantGenerator() {
+    }
+
+    /**
+     * Generates the variants.
+     *
+     * @param args {@code args[0]} is the compiled resources directory (target/classes)
+     * @throws IOException if an asset cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: ImageVariantGenerator <classes-dir>");
+            System.exit(2);
+        }
+        Path root = Path.of(args[0]).resolve(RESOURCE_DIR);
+        Path images = root.resolve("Images");
+        Set<String> written = new HashSet<>();
+
+        List<Path> fxmlFiles;
+        try (Stream<Path> files = Files.list(root)) {
+            fxmlFiles = files.filter(p -> p.toString().endsWith(".fxml")).sorted().collect(Collectors.toList());
+        }
+        for (Path fxml : fxmlFiles) {
+            Matcher view = VIEW.matcher(Files.readString(fxml, StandardCharsets.UTF_8));
+            while (view.find()) {
+                String attributes = view.group(1);
+                String asset = group(ASSET, attributes);
+                String fitWidth = group(FIT_WIDTH, attributes);
+                String fitHeight = group(FIT_HEIGHT, attributes);
+                if (asset == null || fitWidth == null || fitHeight == null) {
+                    continue;
+                }
+                int boxWidth = (int) Math.round(Double.parseDouble(fitWidth));
+                int boxHeight = (int) Math.round(Double.parseDouble(fitHeight));
+                boolean preserveRatio = PRESERVE_RATIO.matcher(attributes).find();
+                String variant = variantName(asset, boxWidth, boxHeight, preserveRatio);
+                if (written.add(variant)) {
+                    writeFitVariant(images.resolve(asset), images.resolve(variant),
+                            boxWidth, boxHeight, preserveRatio);
+                }
+            }
+        }
+
+        Path css = root.resolve("CSS/Style.css");
+        if (Files.exists(css)) {
+            rewriteStylesheet(css, images);
+        }
+    }
+
+    /**
+     * Returns the file name of the variant of an asset scaled to fit a box.
+     * Shared with {@link ImageCache} so both sides agree on the naming. An
+     * image stretched to the box gets {@code -fill} after its size, as it is
+     * not the same variant as one that keeps its ratio.
+     *
+     * @param asset         original file name, e.g. {@code MaderaRustica.png}
+     * @param boxWidth      width of the box the image is drawn in
+     * @param boxHeight     height of the box the image is drawn in
+     * @param preserveRatio whether the image keeps its aspect ratio inside the box
+     * @return the variant file name, e.g. {@code MaderaRustica@150x150.png}
+     *         or {@code MaderaRustica@150x150-fill.png}
+     */
+    static String variantName(String asset, int boxWidth, int boxHeight, boolean preserveRatio) {
+        int dot = asset.lastIndexOf('.');
+        return asset.substring(0, dot) + "@" + boxWidth + "x" + boxHeight + (preserveRatio ? "" : "-fill")
+                + asset.substring(dot);
+    }
+
+    /**
+     * ---------- STYLESHEET ----------
+     */
+
+    /**
+     * Writes a cover-sized variant for every background image drawn with
+     * {@code -fx-background-size: cover} and points the stylesheet at it.
+     */
+    private static void rewriteStylesheet(Path css, Path images) throws IOException {
+        String content = Files.readString(css, StandardCharsets.UTF_8);
+        StringBuilder out = new StringBuilder(content.length());
+        Matcher block = CSS_BLOCK.matcher(content);
+        int last = 0;
+        while (block.find()) {
+            String body = block.group();
+            Matcher url = CSS_URL.matcher(body);
+            if (url.find() && !url.group(1).startsWith("cover-") && CSS_COVER.matcher(body).find()) {
+                String asset = url.group(1);
+                String variant = "cover-" + variantName(asset, SCENE_WIDTH, SCENE_HEIGHT, true);
+                if (writeCoverVariant(images.resolve(asset), images.resolve(variant))) {
+                    body = body.substring(0, url.start(1)) + variant + body.substring(url.end(1));
+                }
+            }
+            out.append(content, last, block.start()).append(body);
+            last = block.end();
+        }
+        out.append(content, last, content.length());
+        Files.writeString(css, out, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * ---------- SCALING ----------
+     */
+
+    private static void writeFitVariant(Path source, Path target, int boxWidth, int boxHeight,
+                                        boolean preserveRatio) throws IOException {
+        if (isUpToDate(source, target)) {
+            return;
+        }
+        BufferedImage image = read(source);
+        double scaleX = boxWidth / (double) image.getWidth();
+        double scaleY = boxHeight / (double) image.getHeight();
+        if (preserveRatio) {
+            scaleX = scaleY = Math.min(scaleX, scaleY);
+        }
+        if (scaleX >= 1 && scaleY >= 1) {
+            return;
+        }
+        write(scale(image, (int) Math.round(image.getWidth() * scaleX),
+                (int) Math.round(image.getHeight() * scaleY)), target);
+    }
+
+    private static boolean writeCoverVariant(Path source, Path target) throws IOException {
+        if (isUpToDate(source, target)) {
+            return true;
+        }
+        BufferedImage image = read(source);
+        double scale = Math.max(SCENE_WIDTH / (double) image.getWidth(),
+                SCENE_HEIGHT / (double) image.getHeight());
+        if (scale >= 1) {
+            return false;
+        }
+        write(scale(image, (int) Math.ceil(image.getWidth() * scale),
+                (int) Math.ceil(image.getHeight() * scale)), target);
+        return true;
+    }
+
+    /**
+     * Downscales in halving steps before the final resize, which keeps
+     * bilinear filtering sharp for large reduction factors.
+     */
+    private static BufferedImage scale(BufferedImage image, int width, int height) {
+        BufferedImage current = image;
+        int w = image.getWidth();
+        int h = image.getHeight();
+        do {
+            w = Math.max(width, w / 2);
+            h = Math.max(height, h / 2);
+            int type = current.getColorModel().hasAlpha()
+                    ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+            BufferedImage step = new BufferedImage(w, h, type);
+            Graphics2D g = step.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(current, 0, 0, w, h, null);
+            g.dispose();
+            current = step;
+        } while (w != width || h != height);
+        return current;
+    }
+
+    private static boolean isUpToDate(Path source, Path target) throws IOException {
+        return Files.exists(target)
+                && Files.getLastModifiedTime(target).compareTo(Files.getLastModifiedTime(source)) >= 0;
+    }
+
+    private static BufferedImage read(Path source) throws IOException {
+        BufferedImage image = ImageIO.read(source.toFile());
+        if (image == null) {
+            throw new IOException("Unsupported image format: " + source);
+        }
+        return image;
+    }
+
+    private static void write(BufferedImage image, Path target) throws IOException {
+        String name = target.getFileName().toString();
+        String format = name.substring(name.lastIndexOf('.') + 1).toLowerCase();
+        if (!ImageIO.write(image, format.equals("jpeg") ? "jpg" : format, target.toFile())) {
+            throw new IOException("No writer for format " + format);
+        }
+        System.out.printf("[ImageVariantGenerator] %s (%dx%d)%n", name, image.getWidth(), image.getHeight());
+    }
+
+    private static String group(Pattern pattern, String text) {
+        Matcher matcher = pattern.matcher(text);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.escriturarapida;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-memory histogram of nanosecond durations with a wide dynamic range.
+ *
+ * <p>Values are counted in log-linear buckets: the first 128 buckets hold
+ * exact values, and every further power of two is split into 64 buckets.
+ * Any value from 1 ns up to {@code Long.MAX_VALUE} is recorded with a
+ * relative error below 1/64, using the same 3,712 counters, so recording
+ * never allocates and percentiles are read in one pass.</p>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class LatencyHistogram {
+    /**
+     * ---------- CONSTANTS ----------
+     */
+    private static final int SUB_BITS = 7;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int HALF_COUNT = SUB_COUNT / 2;
+    private static final int BUCKETS = SUB_COUNT + (63 - SUB_BITS) * HALF_COUNT;
+
+    /**
+     * ---------- STATE ----------
+     */
+    private final long[] counts = new long[BUCKETS];
+    private long total;
+    private long sum;
+    private long max;
+
+    /**
+     * Records one value. Negative values are recorded as 0.
+     *
+     * @param value the duration in nanoseconds
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        counts[indexOf(v)]++;
+        total++;
+        sum += v;
+        if (v > max) {
+            max = v;
+        }
+    }
+
+    /**
+     * Adds every value recorded in another histogram.
+     *
+     * @param other the histogram to merge
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Forgets every recorded value.
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        total = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    /**
+     * ---------- QUERIES ----------
+     */
+
+    /**
+     * Returns the value at a percentile, rounded to the middle of its bucket.
+     *
+     * @param percentile a percentile between 0 and 100
+     * @return the value, or 0 if nothing was recorded
+     */
+    public long percentile(double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, middleOf(i));
+            }
+        }
+        return max;
+    }
+
+    /** @return number of recorded values */
+    public long getCount() {
+        return total;
+    }
+
+    /** @return the largest recorded value */
+    public long getMax() {
+        return max;
+    }
+
+    /** @return the mean of the recorded values, or 0 if empty */
+    public double getMean() {
+        return total == 0 ? 0 : (double) sum / total;
+    }
+
+    /**
+     * ---------- BUCKETS ----------
+     */
+
+    static int indexOf(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int highestBit = 63 - Long.numberOfLeadingZeros(value);
+        int shift = highestBit - (SUB_BITS - 1);
+        int sub = (int) (value >>> shift) - HALF_COUNT;
+        return SUB_COUNT + (shift - 1) * HALF_COUNT + sub;
+    }
+
+    static long lowerBoundOf(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_COUNT) / HALF_COUNT + 1;
+        int sub = (index - SUB_COUNT) % HALF_COUNT;
+        return (long) (sub + HALF_COUNT) << shift;
+    }
+
+    private static long middleOf(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_COUNT) / HALF_COUNT + 1;
+        return lowerBoundOf(index) + (1L << (shift - 1));
+    }
+}
@@ -0,0 +1,478 @@
+package com.example.escriturarapida;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Global and per-difficulty leaderboards of every game played, ranked by
+ * level reached, then accuracy, then time.
+ *
+ * <p>Each game becomes one {@code long} {@link #key key} whose natural
+ * order is the ranking, so a board is just a {@link RankedIndex}: adding a
+ * game, the player's rank and the top of the board are all logarithmic or
+ * better, with ten million games or more. A game is placed on the global
+ * board and on the board of the difficulty of the level it ended on.</p>
+ *
+ * <p>The boards are saved to {@code leaderboard.idx} as sorted keys
+ * written as variable-length differences, which takes a few bytes per game
+ * once a board is crowded. The {@link SessionStore} is the log of the games
+ * played since: on start-up the file is loaded and only the sessions
+ * appended after it are added. The file is rewritten on exit, and on
+ * start-up when many sessions had to be added, so nothing is written
+ * during play.</p>
+ *
+ * <p>The shared boards live on their own thread: they are loaded there at
+ * start-up, and games and queries are handed to it through
+ * {@link #whenReady}, which runs them in order once the boards are loaded.
+ * The FX thread never waits for a large index.</p>
+ *
+ * <p>Main responsibilities:</p>
+ * <ul>
+ *   <li>Packing the level, accuracy and duration of a game into a key.</li>
+ *   <li>Adding finished games to the global and difficulty boards.</li>
+ *   <li>Answering the rank of a game and the best games of a board.</li>
+ *   <li>Saving and loading the boards.</li>
+ * </ul>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class Leaderboard {
+
+    /** Name of the index inside the data directory. */
+    public static final String FILE_NAME = "leaderboard.idx";
+    /** Games shown from the top of a board. */
+    public static final int TOP = 3;
+
+    private static final int MAGIC = 0x45524c42;
+    private static final int VERSION = 1;
+    private static final int DIFFICULTIES = Difficulty.values().length;
+    /** Sessions added at start-up after which the file is rewritten. */
+    private static final long REWRITE_AFTER = 1_024;
+    private static final long MAX_MILLIS = 0xFFFF_FFFFL;
+
+    private static final ExecutorService WORKER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "escritura-leaderboard");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static volatile Leaderboard shared;
+
+    /**
+     * ---------- STATE ----------
+     */
+    private final RankedIndex global = new RankedIndex();
+    private final RankedIndex[] byDifficulty = new RankedIndex[DIFFICULTIES];
+    /** Sessions of the log covered by the boards. */
+    private long sessions;
+    private Path file;
+
+    /**
+     * Creates empty boards that are not saved anywhere.
+     */
+    public Leaderboard() {
+        for (int d = 0; d < DIFFICULTIES; d++) {
+            byDifficulty[d] = new RankedIndex();
+        }
+    }
+
+    /**
+     * Returns the boards of the player, loading the index and catching up
+     * with the session log on first use. Only runs on the leaderboard thread.
+     *
+     * @return the shared leaderboard
+     */
+    private static Leaderboard load() {
+        if (shared == null) {
+            Leaderboard board = new Leaderboard();
+            try {
+                Path file = AppData.file(FILE_NAME);
+                if (Files.exists(file)) {
+                    try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+                        board.read(in);
+                    } catch (IOException e) {
+                        Telemetry.debug("[Leaderboard] índice no válido (%s); se reconstruye%n", e.getMessage());
+                        board = new Leaderboard();
+                    }
+                }
+                board.file = file;
+                // Games still queued for the log would otherwise be skipped
+                SessionStore store = SessionStore.shared();
+                try {
+                    store.flush();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (board.catchUp(store) >= REWRITE_AFTER) {
+                    board.save();
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+                board = new Leaderboard();
+            }
+            shared = board;
+        }
+        return shared;
+    }
+
+    /**
+     * Starts loading the shared boards on the leaderboard thread, so the
+     * first screen that shows them does not have to wait for a large index.
+     */
+    public static void loadInBackground() {
+        WORKER.execute(Leaderboard::load);
+    }
+
+    /**
+     * Runs an action on the shared boards, on the leaderboard thread, once
+     * they are loaded and every action handed over before it has run.
+     * Returns immediately.
+     *
+     * @param action what to do with the boards
+     */
+    public static void whenReady(Consumer<Leaderboard> action) {
+        WORKER.execute(() -> action.accept(load()));
+    }
+
+    /**
+     * Waits for the games handed over so far and saves the boards. Called
+     * on exit. Boards still loading are not saved; the next start-up
+     * catches up with the log instead.
+     */
+    public static void closeShared() {
+        WORKER.shutdown();
+        try {
+            if (!WORKER.awaitTermination(5, TimeUnit.SECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        Leaderboard board = shared;
+        if (board != null && board.file != null) {
+            board.save();
+        }
+        shared = null;
+    }
+
+    /**
+     * Adds the sessions the index does not cover yet, merging them in one
+     * pass when there are many.
+     *
+     * @param store the session log
+     * @return number of sessions added
+     * @throws IOException if a session cannot be read
+     */
+    private synchronized long catchUp(SessionStore store) throws IOException {
+        long available = store.getWrittenCount();
+        if (sessions > available) {
+            Telemetry.debug("[Leaderboard] índice de %d partidas, registro de %d; se reinicia%n",
+                    sessions, available);
+            clear();
+        }
+        int count = Math.toIntExact(available - sessions);
+        long[] keys = new long[count];
+        long[][] difficultyKeys = new long[DIFFICULTIES][16];
+        int[] difficultyCounts = new int[DIFFICULTIES];
+        int added = 0;
+        for (int i = 0; i < count; i++) {
+            SessionRecord session = store.read(sessions + i);
+            if (session == null) {
+                continue;
+            }
+            long key = key(session);
+            keys[added++] = key;
+            int d = difficultyOf(key).ordinal();
+            if (difficultyCounts[d] == difficultyKeys[d].length) {
+                difficultyKeys[d] = Arrays.copyOf(difficultyKeys[d], difficultyCounts[d] * 2);
+            }
+            difficultyKeys[d][difficultyCounts[d]++] = key;
+        }
+        global.addAll(keys, added);
+        for (int d = 0; d < DIFFICULTIES; d++) {
+            byDifficulty[d].addAll(difficultyKeys[d], difficultyCounts[d]);
+        }
+        sessions = available;
+        return count;
+    }
+
+    private void clear() {
+        global.load(new long[0], 0);
+        for (RankedIndex board : byDifficulty) {
+            board.load(new long[0], 0);
+        }
+        sessions = 0;
+    }
+
+    /**
+     * ---------- KEYS ----------
+     */
+
+    /**
+     * Packs a game into its ranking key: level in bits 48-62, accuracy in
+     * hundredths of a percent in bits 32-47 and the duration in
+     * milliseconds, inverted so that faster is higher, in bits 0-31.
+     *
+     * @param session the game
+     * @return a non-negative key; a higher key is a better game
+     */
+    public static long key(SessionRecord session) {
+        return key(session.getLevel(), session.getSuccesses(), session.getFailures(), session.getDurationNanos());
+    }
+
+    /**
+     * @param level         last level reached; a won game is one past the final level
+     * @param successes     accepted words
+     * @param failures      rejected submissions
+     * @param durationNanos duration of the game
+     * @return the ranking key of the game
+     */
+    public static long key(int level, int successes, int failures, long durationNanos) {
+        int attempts = successes + failures;
+        long accuracy = attempts == 0 ? 0 : 10_000L * successes / attempts;
+        long millis = Math.min(MAX_MILLIS, Math.max(0, durationNanos / 1_000_000));
+        return (long) Math.min(Math.max(level, 0), 0x7FFF) << 48 | accuracy << 32 | (MAX_MILLIS - millis);
+    }
+
+    /**
+     * @param key a ranking key
+     * @return level of the game
+     */
+    public static int levelOf(long key) {
+        return (int) (key >>> 48);
+    }
+
+    /**
+     * @param key a ranking key
+     * @return accuracy of the game, from 0 to 1
+     */
+    public static double accuracyOf(long key) {
+        return ((key >>> 32) & 0xFFFF) / 10_000.0;
+    }
+
+    /**
+     * @param key a ranking key
+     * @return duration of the game, in milliseconds
+     */
+    public static long millisOf(long key) {
+        return MAX_MILLIS - (key & MAX_MILLIS);
+    }
+
+    /**
+     * @param key a ranking key
+     * @return difficulty of the level the game ended on
+     */
+    public static Difficulty difficultyOf(long key) {
+        return Difficulty.forLevel(Math.max(1, levelOf(key)));
+    }
+
+    /**
+     * Describes one game of a board.
+     *
+     * @param key a ranking key
+     * @return "Nivel 23 · 95% · 1:07", or "Ganada" instead of the level
+     */
+    public static String format(long key) {
+        int level = levelOf(key);
+        long seconds = millisOf(key) / 1_000;
+        String reached = GameRules.DEFAULT.isWon(level) ? "Ganada" : "Nivel " + level;
+        return String.format("%s · %.0f%% · %d:%02d", reached, accuracyOf(key) * 100, seconds / 60, seconds % 60);
+    }
+
+    /**
+     * ---------- UPDATES AND QUERIES ----------
+     */
+
+    /**
+     * Places a finished game on its boards, unless the boards already
+     * cover it because they caught up with the log after it was appended.
+     *
+     * @param session the game
+     * @param index   position of the game in the {@link SessionStore}
+     */
+    public synchronized void onSession(SessionRecord session, long index) {
+        if (index < sessions) {
+            return;
+        }
+        long key = key(session);
+        global.add(key);
+        byDifficulty[difficultyOf(key).ordinal()].add(key);
+        sessions = index + 1;
+    }
+
+    /**
+     * @param key a ranking key
+     * @return rank of that key on the global board, from 1
+     */
+    public synchronized long rank(long key) {
+        return global.countAbove(key) + 1;
+    }
+
+    /**
+     * @param key a ranking key
+     * @return rank of that key on the board of its difficulty, from 1
+     */
+    public synchronized long difficultyRank(long key) {
+        return byDifficulty[difficultyOf(key).ordinal()].countAbove(key) + 1;
+    }
+
+    /**
+     * @param k maximum number of games
+     * @return keys of the best games overall, best first
+     */
+    public synchronized long[] top(int k) {
+        return global.top(k);
+    }
+
+    /**
+     * @param difficulty a difficulty
+     * @param k          maximum number of games
+     * @return keys of the best games ended on that difficulty, best first
+     */
+    public synchronized long[] top(Difficulty difficulty, int k) {
+        return byDifficulty[difficulty.ordinal()].top(k);
+    }
+
+    /** @return games on the global board */
+    public synchronized long size() {
+        return global.size();
+    }
+
+    /**
+     * @param difficulty a difficulty
+     * @return games on the board of that difficulty
+     */
+    public synchronized long size(Difficulty difficulty) {
+        return byDifficulty[difficulty.ordinal()].size();
+    }
+
+    /**
+     * ---------- FILE ----------
+     */
+
+    /**
+     * Writes the index next to its file and moves it into place, so a
+     * crash never leaves a half-written file.
+     */
+    private synchronized void save() {
+        try {
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16)) {
+                write(out);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes the header and every board. Keys are sorted, so each one is
+     * stored as its difference with the previous one.
+     *
+     * @param stream where to write
+     * @throws IOException if writing fails
+     */
+    synchronized void write(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(sessions);
+        out.writeInt(1 + DIFFICULTIES);
+        writeBoard(out, global);
+        for (RankedIndex board : byDifficulty) {
+            writeBoard(out, board);
+        }
+        out.flush();
+    }
+
+    private static void writeBoard(DataOutputStream out, RankedIndex board) throws IOException {
+        long[] keys = board.toArray();
+        out.writeInt(keys.length);
+        long previous = keys.length > 0 ? keys[0] : 0;
+        out.writeLong(previous);
+        for (int i = 1; i < keys.length; i++) {
+            writeVarLong(out, previous - keys[i]);
+            previous = keys[i];
+        }
+    }
+
+    /**
+     * Replaces the boards with the ones in the stream.
+     *
+     * @param stream bytes written by {@link #write(OutputStream)}
+     * @throws IOException if the index is not valid
+     */
+    synchronized void read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not a leaderboard index");
+        }
+        long covered = in.readLong();
+        if (in.readInt() != 1 + DIFFICULTIES) {
+            throw new IOException("Unexpected number of boards");
+        }
+        readBoard(in, global);
+        for (RankedIndex board : byDifficulty) {
+            readBoard(in, board);
+        }
+        sessions = covered;
+    }
+
+    private static void readBoard(DataInputStream in, RankedIndex board) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Negative board size");
+        }
+        long[] keys = new long[count];
+        long previous = in.readLong();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                long delta = readVarLong(in);
+                if (delta < 0 || delta > previous) {
+                    throw new IOException("Keys out of order");
+                }
+                previous -= delta;
+            }
+            keys[i] = previous;
+        }
+        board.load(keys, count);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed length");
+    }
+}
@@ -1,8 +1,6 @@
 package com.example.escriturarapida;
 
 import javafx.application.Application;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Scene;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
 
@@ -17,8 +15,10 @@ import java.io.IOException;
  * <p>Main responsibilities:</p>
  * <ul>
  *   <li>Initialize the primary {@link Stage}.</li>
- *   <li>Load and display the Main Menu scene.</li>
+ *   <li>Display the Main Menu scene.</li>
+ *   <li>Load the other screens through the {@link SceneRouter} after the first frame.</li>
  *   <li>Configure window properties (size, style, resizability).</li>
+ *   <li>Close the session log on exit.</li>
  * </ul>
  *
  * @author
@@ -38,18 +38,43 @@ public class Main extends Application {
         launch(args);
     }
     /**
-     * Starts the application by loading the Main Menu scene.
+     * Starts the application by showing the Main Menu. Only that screen is
+     * loaded before the first frame; the rest are built on a background
+     * thread right after it, and the time to the first frame is reported by
+     * the {@link StartupMonitor}. The session log, the leaderboard, which
+     * can hold millions of games, the statistics and the lexicon start
+     * loading on their own threads at the same time, the {@link Telemetry}
+     * is published and the {@link PulseWatchdog} starts if configured.
      *
      * @param stage the primary stage for this application
-     * @throws IOException if the FXML file cannot be loaded
+     * @throws IOException if an FXML file cannot be loaded
      */
     @Override
     public void start(Stage stage) throws IOException {
-        FXMLLoader fxmlLoader = new FXMLLoader(Main.class.getResource("MainMenu.fxml"));
-        Scene scene = new Scene(fxmlLoader.load(), 600, 600);
+        SessionStore.openInBackground();
+        Leaderboard.loadInBackground();
+        StatsAggregator.loadInBackground();
+        WordTrie.loadInBackground();
+        Telemetry.start();
+        PulseWatchdog.startIfConfigured();
+        SceneRouter router = SceneRouter.initialize(stage);
         stage.setResizable(false);
         stage.initStyle(StageStyle.TRANSPARENT);
-        stage.setScene(scene);
+        router.show(SceneRouter.Screen.MAIN_MENU);
+        StartupMonitor.onFirstFrame(stage.getScene(),
+                () -> router.preloadLater(StartupMonitor::startupComplete));
         stage.show();
     }
+    /**
+     * Writes the games still pending in the session log, the last
+     * statistics snapshot and the leaderboard before exiting.
+     */
+    @Override
+    public void stop() {
+        SessionStore.finishRecording();
+        StatsAggregator.closeShared();
+        Leaderboard.closeShared();
+        Telemetry.stop();
+        SessionStore.closeShared();
+    }
 }
@@ -0,0 +1,183 @@
+package com.example.escriturarapida;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * How typed text is compared with the word to type.
+ *
+ * <p>Every mode defines a <em>form</em> of the word, computed once when the
+ * dictionary is built, and a mapping of typed chars into that same form,
+ * which only reads precomputed tables. {@link java.text.Normalizer} is used
+ * to compute forms and tables, never while the player types.</p>
+ *
+ * <ul>
+ *   <li>{@link #EXACT}: chars must be identical.</li>
+ *   <li>{@link #NFC}: canonically equivalent text matches, so an accent
+ *       typed as a precomposed char ({@code ó}) or as a base char followed by
+ *       a combining mark ({@code o} + U+0301) is the same. The form is the
+ *       canonical decomposition of the NFC word, which lets a decomposed
+ *       accent be checked one char at a time.</li>
+ *   <li>{@link #ACCENT_INSENSITIVE}: accents and other combining marks are
+ *       ignored, so {@code television} matches {@code televisión}.</li>
+ * </ul>
+ *
+ * <p>Decompositions are tabulated for chars below U+2000, which covers the
+ * Latin, Greek and Cyrillic letters of the word lists; other chars are
+ * compared as they are. Each typed char is decomposed on its own, without
+ * canonical reordering, so a letter carrying two marks of different classes
+ * only matches when they are typed in the order of the word.</p>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public enum MatchMode {
+    EXACT,
+    NFC,
+    ACCENT_INSENSITIVE;
+
+    /** System property selecting the mode: {@code exact}, {@code nfc} or {@code accent-insensitive}. */
+    public static final String MATCH_PROPERTY = "escritura.match";
+
+    private static final MatchMode[] VALUES = values();
+    private static final int TABLE_SIZE = 0x2000;
+
+    /**
+     * ---------- CONFIGURATION ----------
+     */
+
+    /**
+     * Returns the mode named by the {@code escritura.match} system property,
+     * or {@link #NFC} if it is not set or not recognized.
+     *
+     * @return the configured mode
+     */
+    public static MatchMode configured() {
+        String value = System.getProperty(MATCH_PROPERTY);
+        if (value != null) {
+            try {
+                return parse(value);
+            } catch (IllegalArgumentException e) {
+                Telemetry.debug("[MatchMode] Modo desconocido '%s', se usa NFC%n", value);
+            }
+        }
+        return NFC;
+    }
+
+    /**
+     * @param text {@code exact}, {@code nfc} or {@code accent-insensitive}, in any case
+     * @return the matching mode
+     * @throws IllegalArgumentException if the name is not recognized
+     */
+    public static MatchMode parse(String text) {
+        return valueOf(text.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * @param ordinal the mode index
+     * @return the mode with that index
+     */
+    public static MatchMode fromOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    /**
+     * ---------- FORMS ----------
+     */
+
+    /**
+     * Computes the form of a word that typed text is compared against.
+     * Uses {@link Normalizer}, so it belongs to dictionary building, not to
+     * input handling.
+     *
+     * @param word the word
+     * @return the form of the word under this mode
+     */
+    public String form(String word) {
+        if (this == EXACT) {
+            return word;
+        }
+        String composed = Normalizer.normalize(word, Normalizer.Form.NFC);
+        StringBuilder form = new StringBuilder(composed.length() + 4);
+        for (int i = 0, n = composed.length(); i < n; i++) {
+            char c = composed.charAt(i);
+            if (this == ACCENT_INSENSITIVE) {
+                char folded = fold(c);
+                if (folded != 0) {
+                    form.append(folded);
+                }
+            } else {
+                char[] decomposed = decompose(c);
+                if (decomposed == null) {
+                    form.append(c);
+                } else {
+                    form.append(decomposed);
+                }
+            }
+        }
+        return form.toString();
+    }
+
+    /**
+     * ---------- TYPED CHARS ----------
+     */
+
+    /**
+     * Canonical decomposition of a char, used by {@link #NFC}.
+     *
+     * @param c a typed char
+     * @return its decomposition, or null if it has none
+     */
+    static char[] decompose(char c) {
+        return c < TABLE_SIZE ? Tables.DECOMPOSED[c] : null;
+    }
+
+    /**
+     * Char without accents, used by {@link #ACCENT_INSENSITIVE}.
+     *
+     * @param c a typed char
+     * @return the base char, or 0 if {@code c} is a combining mark to be ignored
+     */
+    static char fold(char c) {
+        if (c < TABLE_SIZE) {
+            return Tables.FOLDED[c];
+        }
+        return Character.getType(c) == Character.NON_SPACING_MARK ? 0 : c;
+    }
+
+    /**
+     * Tables built on first use, so the exact mode never pays for them.
+     */
+    private static final class Tables {
+        static final char[][] DECOMPOSED = new char[TABLE_SIZE][];
+        static final char[] FOLDED = new char[TABLE_SIZE];
+
+        static {
+            for (int c = 0; c < TABLE_SIZE; c++) {
+                String single = String.valueOf((char) c);
+                String decomposed = Normalizer.normalize(single, Normalizer.Form.NFD);
+                if (!decomposed.equals(single)) {
+                    DECOMPOSED[c] = decomposed.toCharArray();
+                }
+                if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                    FOLDED[c] = 0;
+                } else if (DECOMPOSED[c] != null && isMarks(decomposed, 1)) {
+                    FOLDED[c] = decomposed.charAt(0);
+                } else {
+                    FOLDED[c] = (char) c;
+                }
+            }
+        }
+
+        private static boolean isMarks(String text, int from) {
+            for (int i = from; i < text.length(); i++) {
+                if (Character.getType(text.charAt(i)) != Character.NON_SPACING_MARK) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -3,12 +3,7 @@ package com.example.escriturarapida;
 import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Button;
-import javafx.stage.Stage;
 import java.io.IOException;
 
 /**
@@ -43,7 +38,7 @@ public class MenuController {
     @FXML
     private void play(ActionEvent event) {
         try {
-            switchScene(event, "GameMenu.fxml","");
+            switchScene(SceneRouter.Screen.GAME, "");
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -56,7 +51,7 @@ public class MenuController {
     @FXML
     private void help(ActionEvent event) {
         try {
-            switchScene(event, "HelpMenu.fxml", "");
+            switchScene(SceneRouter.Screen.HELP, "");
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -79,17 +74,13 @@ public class MenuController {
     /**
      * Utility method to change the current scene.
      *
-     * @param event    the event that triggered the scene change
-     * @param fxmlFile the FXML file to load
-     * @param titulo   the window title to set
+     * @param screen the screen to show
+     * @param titulo the window title to set
      * @throws IOException if the FXML file cannot be loaded
      */
-    private void switchScene(ActionEvent event, String fxmlFile, String titulo) throws IOException {
-        Parent root = FXMLLoader.load(getClass().getResource(fxmlFile));
-        Stage stage = (Stage)((Node)event.getSource()).getScene().getWindow();
-        Scene scene = new Scene(root, 600, 600);
-        stage.setTitle(titulo);
-        stage.setScene(scene);
-        stage.show();
+    private void switchScene(SceneRouter.Screen screen, String titulo) throws IOException {
+        SceneRouter router = SceneRouter.get();
+        router.getStage().setTitle(titulo);
+        router.show(screen);
     }
 }
\ No newline at end of file
@@ -0,0 +1,413 @@
+package com.example.escriturarapida;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * {@link WordSource} that walks through a long text, such as a whole
+ * novel, one word per level, whatever the difficulty asked for.
+ *
+ * <p>The text is read through a memory-mapped region of {@link #REGION}
+ * bytes that moves forward as the words are read, so opening a file costs
+ * the same whatever its size and only the pages under the region become
+ * resident. A daemon thread cuts the text at whitespace and keeps a window
+ * of the next {@link #WINDOW} words, with their forms for the
+ * {@link MatchMode}, refilling it whenever the player has typed half of
+ * it. Only that window is ever held as {@code String}s, so the heap stays
+ * the same from the first page to the last. Words keep their case and
+ * punctuation; tokens longer than {@link #MAX_WORD_BYTES} bytes are
+ * skipped, and the text starts over when it ends.</p>
+ *
+ * <p>Started with {@code -Descritura.passage=file}, a UTF-8 text file. The
+ * position after the last accepted word is saved as a bookmark, so the
+ * next game carries on where the last one stopped.</p>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class PassageSource implements WordSource, AutoCloseable {
+
+    /** System property holding the path of the text to type. */
+    public static final String PASSAGE_PROPERTY = "escritura.passage";
+
+    /** Bytes of the file mapped at a time. */
+    static final int REGION = 16 << 20;
+    /** Words kept ready ahead of the player. */
+    static final int WINDOW = 128;
+    /** Longest token taken as a word, in UTF-8 bytes. */
+    static final int MAX_WORD_BYTES = 48;
+
+    private static final String BOOKMARK_FILE = "passage.pos";
+
+    /**
+     * ---------- STATE ----------
+     */
+    private final Path file;
+    private final FileChannel channel;
+    private final long size;
+    private final MatchMode mode;
+
+    /** Window of upcoming words, a ring guarded by {@code this}. */
+    private final String[] words = new String[WINDOW];
+    private final String[] forms = new String[WINDOW];
+    private final long[] starts = new long[WINDOW];
+    private final long[] ends = new long[WINDOW];
+    private int head;
+    private int count;
+    private volatile boolean closed;
+
+    /** Word being typed; only touched by the thread playing. */
+    private String current;
+    private String currentForm;
+    private long currentStart;
+    private long currentEnd;
+    private long resumeAt;
+
+    /** Reading state; only touched by the prefetch thread once it has started. */
+    private MappedByteBuffer region;
+    private long regionStart;
+    private long position;
+    /** Offset of the text after any byte order mark. */
+    private long textStart;
+    private final byte[] token = new byte[MAX_WORD_BYTES];
+
+    private PassageSource(Path file, FileChannel channel, MatchMode mode, long start) throws IOException {
+        this.file = file;
+        this.channel = channel;
+        this.size = channel.size();
+        this.mode = mode;
+        this.position = start;
+        this.resumeAt = start;
+        this.currentStart = start;
+        this.currentEnd = start;
+    }
+
+    /**
+     * ---------- LOADING ----------
+     */
+
+    /**
+     * Opens a text at a byte offset and starts prefetching its words.
+     * An offset inside a word moves to the start of the next one.
+     *
+     * @param file  the UTF-8 text
+     * @param mode  match mode whose forms are computed ahead
+     * @param start byte offset to start from; 0 if out of range
+     * @return the source, to be {@link #close closed} after the game
+     * @throws IOException if the file cannot be read or holds no word
+     */
+    public static PassageSource open(Path file, MatchMode mode, long start) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            PassageSource source = new PassageSource(file, channel, mode, start);
+            source.begin();
+            return source;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the text named by {@code escritura.passage} at its bookmark.
+     *
+     * @param mode match mode whose forms are computed ahead
+     * @return the source, or null if the property is not set
+     * @throws IOException if the file cannot be read or holds no word
+     */
+    public static PassageSource configured(MatchMode mode) throws IOException {
+        String path = System.getProperty(PASSAGE_PROPERTY);
+        if (path == null) {
+            return null;
+        }
+        Path file = Path.of(path).toAbsolutePath();
+        return open(file, mode, loadBookmark(file));
+    }
+
+    private void begin() throws IOException {
+        if (size > 0) {
+            map(0);
+            if (size >= 3 && (region.get(0) & 0xFF) == 0xEF && (region.get(1) & 0xFF) == 0xBB
+                    && (region.get(2) & 0xFF) == 0xBF) {
+                textStart = 3;
+            }
+        }
+        if (position < textStart || position >= size) {
+            position = textStart;
+        } else if (position > textStart) {
+            map(position - 1);
+            if (!isSeparator(region.get(0))) {
+                // Started inside a word: skip to the next one
+                while (position < size && !isSeparator(byteAt(position))) {
+                    position++;
+                }
+            }
+        }
+        // The first words are read here, so a text without words fails now
+        // and the first word already has a few others to show after it
+        long from = position;
+        boolean found = readWord(true);
+        if (!found && from > textStart) {
+            position = textStart;
+            found = readWord(true);
+        }
+        if (!found) {
+            throw new IOException("No words in " + file);
+        }
+        resumeAt = starts[0];
+        currentStart = resumeAt;
+        currentEnd = resumeAt;
+        // At the end of the text this stops early; the prefetch thread starts over
+        for (int i = 1; i < WINDOW / 8; i++) {
+            if (!readWord(true)) {
+                break;
+            }
+        }
+        Thread prefetch = new Thread(this::prefetch, "escritura-passage");
+        prefetch.setDaemon(true);
+        prefetch.start();
+    }
+
+    /**
+     * ---------- PREFETCH THREAD ----------
+     */
+
+    private void prefetch() {
+        try {
+            while (!closed) {
+                readWord(false);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Reads the next word into the window, starting over at the end of the
+     * text. Waits while the window is full.
+     *
+     * @param once true to give up at the end of the text instead of starting over
+     * @return false if {@code once} and no word was left
+     */
+    private boolean readWord(boolean once) throws IOException {
+        while (true) {
+            while (position < size && isSeparator(byteAt(position))) {
+                position++;
+            }
+            if (position >= size) {
+                if (once) {
+                    return false;
+                }
+                position = textStart;
+                continue;
+            }
+            long start = position;
+            int length = 0;
+            while (position < size) {
+                byte b = byteAt(position);
+                if (isSeparator(b)) {
+                    break;
+                }
+                if (length < MAX_WORD_BYTES) {
+                    token[length] = b;
+                }
+                length++;
+                position++;
+            }
+            if (length > MAX_WORD_BYTES) {
+                continue;
+            }
+            String word = new String(token, 0, length, StandardCharsets.UTF_8);
+            String form = mode == MatchMode.EXACT ? word : mode.form(word);
+            return publish(word, form, start, position);
+        }
+    }
+
+    private synchronized boolean publish(String word, String form, long start, long end) {
+        while (count == WINDOW && !closed) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }
+        if (closed) {
+            return false;
+        }
+        int slot = (head + count) % WINDOW;
+        words[slot] = word;
+        forms[slot] = form;
+        starts[slot] = start;
+        ends[slot] = end;
+        count++;
+        notifyAll();
+        return true;
+    }
+
+    private byte byteAt(long offset) throws IOException {
+        if (offset < regionStart || offset >= regionStart + region.limit()) {
+            map(offset);
+        }
+        return region.get((int) (offset - regionStart));
+    }
+
+    private void map(long offset) throws IOException {
+        regionStart = offset;
+        region = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(REGION, size - offset));
+    }
+
+    private static boolean isSeparator(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f';
+    }
+
+    /**
+     * ---------- WORD SOURCE ----------
+     */
+
+    /**
+     * Takes the next word of the window, waiting for the prefetch thread
+     * only if the player has caught up with it.
+     */
+    @Override
+    public synchronized String nextWord(Difficulty difficulty) {
+        while (count == 0) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return current;
+            }
+        }
+        current = words[head];
+        currentForm = forms[head];
+        currentStart = starts[head];
+        currentEnd = ends[head];
+        words[head] = null;
+        forms[head] = null;
+        head = (head + 1) % WINDOW;
+        count--;
+        if (count <= WINDOW / 2) {
+            notifyAll();
+        }
+        return current;
+    }
+
+    @Override
+    public String form(Difficulty difficulty, String word, MatchMode mode) {
+        return mode == this.mode && word == current ? currentForm : mode.form(word);
+    }
+
+    /**
+     * Moves the bookmark past every accepted word.
+     */
+    @Override
+    public void onResult(Difficulty difficulty, String word, boolean ok) {
+        if (ok && word == current) {
+            resumeAt = currentEnd;
+        }
+    }
+
+    /**
+     * Joins the words after the current one, to show what comes next.
+     *
+     * @param limit most words to join
+     * @return the words separated by spaces; fewer if the window is short
+     */
+    public synchronized String upcoming(int limit) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < Math.min(limit, count); i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(words[(head + i) % WINDOW]);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Stops the prefetch thread, which then closes the file.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    /**
+     * ---------- BOOKMARK ----------
+     */
+
+    /**
+     * @return byte offset after the last accepted word, or of the first
+     *         word if none was accepted
+     */
+    public long getResumeOffset() {
+        return resumeAt;
+    }
+
+    /** @return byte offset of the word being typed */
+    public long getCurrentOffset() {
+        return currentStart;
+    }
+
+    /** @return size of the text, in bytes */
+    public long getSize() {
+        return size;
+    }
+
+    /** @return the text file */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Saves {@link #getResumeOffset()} as the bookmark of the text.
+     */
+    public void saveBookmark() {
+        try (OutputStream stream = Files.newOutputStream(AppData.file(BOOKMARK_FILE));
+             DataOutputStream out = new DataOutputStream(stream)) {
+            out.writeUTF(file.toString());
+            out.writeLong(size);
+            out.writeLong(resumeAt);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @param file a text file, as an absolute path
+     * @return the saved offset for that text, or 0 if there is none or the
+     *         text has changed size since
+     */
+    static long loadBookmark(Path file) {
+        try (InputStream stream = Files.newInputStream(AppData.file(BOOKMARK_FILE));
+             DataInputStream in = new DataInputStream(stream)) {
+            String path = in.readUTF();
+            long size = in.readLong();
+            long offset = in.readLong();
+            return path.equals(file.toString()) && size == Files.size(file) ? offset : 0;
+        } catch (NoSuchFileException e) {
+            return 0;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
+}
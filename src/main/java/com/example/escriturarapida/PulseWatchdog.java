@@ -0,0 +1,120 @@
+package com.example.escriturarapida;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Reports every time the JavaFX thread is busy for longer than a frame
+ * budget, and what it was running.
+ *
+ * <p>A daemon thread keeps one {@link Platform#runLater} ping in flight.
+ * A ping that takes longer than the budget to run means the JavaFX thread
+ * was stuck in a handler, a {@code runLater} task or a pulse (CSS, layout,
+ * animations). While the ping is overdue the watchdog samples the stack of
+ * the JavaFX thread once, and the first frame of the game's own code in
+ * that stack is reported as the culprit. The reported time is a lower
+ * bound: a stall can start up to one budget before the ping is posted.</p>
+ *
+ * <p>Started with {@code -Descritura.pulseBudgetMs=16}, one frame at 60 Hz;
+ * without the property no thread is started. Each stall is logged and
+ * counted by the {@link Telemetry}.</p>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class PulseWatchdog {
+
+    /** System property with the budget, in milliseconds. */
+    public static final String BUDGET_PROPERTY = "escritura.pulseBudgetMs";
+
+    private static final String OWN_PACKAGE = PulseWatchdog.class.getPackageName() + ".";
+
+    private final long budgetNanos;
+    private final Thread fxThread;
+    /** When the ping in flight was posted, or 0 once it has run. */
+    private volatile long pingPostedAt;
+    /** Where the JavaFX thread was when the ping became overdue. */
+    private volatile String culprit;
+
+    private PulseWatchdog(long budgetNanos, Thread fxThread) {
+        this.budgetNanos = budgetNanos;
+        this.fxThread = fxThread;
+    }
+
+    /**
+     * Starts the watchdog if {@code escritura.pulseBudgetMs} is set. Must be
+     * called on the JavaFX thread.
+     */
+    public static void startIfConfigured() {
+        Integer budget = Integer.getInteger(BUDGET_PROPERTY);
+        if (budget == null || budget <= 0) {
+            return;
+        }
+        PulseWatchdog watchdog = new PulseWatchdog(budget * 1_000_000L, Thread.currentThread());
+        Thread thread = new Thread(watchdog::run, "escritura-watchdog");
+        thread.setDaemon(true);
+        thread.start();
+        System.out.printf("[PulseWatchdog] Presupuesto por pulso: %d ms%n", budget);
+    }
+
+    /**
+     * ---------- WATCHDOG THREAD ----------
+     */
+
+    private void run() {
+        while (true) {
+            long posted = System.nanoTime();
+            culprit = null;
+            pingPostedAt = posted;
+            Platform.runLater(this::pong);
+            while (pingPostedAt == posted) {
+                LockSupport.parkNanos(budgetNanos / 4);
+                if (culprit == null && pingPostedAt == posted && System.nanoTime() - posted > budgetNanos) {
+                    culprit = describe(fxThread.getStackTrace());
+                }
+            }
+            LockSupport.parkNanos(budgetNanos);
+        }
+    }
+
+    /**
+     * Describes a stack of the JavaFX thread: the innermost frame of the
+     * game's code, and whether it was inside a pulse.
+     */
+    static String describe(StackTraceElement[] stack) {
+        String where = null;
+        boolean pulse = false;
+        for (StackTraceElement frame : stack) {
+            String type = frame.getClassName();
+            if (where == null && type.startsWith(OWN_PACKAGE)) {
+                where = type.substring(OWN_PACKAGE.length()) + "." + frame.getMethodName()
+                        + "(" + frame.getFileName() + ":" + frame.getLineNumber() + ")";
+            }
+            if (frame.getMethodName().equals("pulse") && type.startsWith("com.sun.javafx.tk")) {
+                pulse = true;
+            }
+        }
+        if (where == null) {
+            where = stack.length > 0 ? stack[0].getClassName() + "." + stack[0].getMethodName() : "desconocido";
+        }
+        return pulse ? where + " durante un pulso" : where;
+    }
+
+    /**
+     * ---------- JAVAFX THREAD ----------
+     */
+
+    private void pong() {
+        long delay = System.nanoTime() - pingPostedAt;
+        String where = culprit;
+        pingPostedAt = 0;
+        if (delay > budgetNanos) {
+            Telemetry.get().onStall(delay);
+            System.out.printf("[PulseWatchdog] Hilo FX ocupado %.1f ms (presupuesto %.0f ms) en %s%n",
+                    delay / 1e6, budgetNanos / 1e6, where != null ? where : "desconocido");
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package com.example.escriturarapida;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Connection of one player to a {@link RaceServer}.
+ *
+ * <p>A daemon thread reads the frames of the server and keeps the
+ * standings: the latest level of every racer and the player's position.
+ * The {@link Listener} is called on that thread, so a JavaFX client has to
+ * move to the application thread itself. Frames to the server are queued
+ * and written by a sender thread, so the caller never blocks on the
+ * network; a progress frame not sent yet is replaced by the next one,
+ * since each carries the whole state of the player.</p>
+ *
+ * <p>The game becomes a race client when started with
+ * {@code -Descritura.race=host[:port]}; {@code -Descritura.raceName}
+ * sets the name shown by the server.</p>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class RaceClient implements Closeable {
+
+    /** System property with the server address, {@code host[:port]}. */
+    public static final String RACE_PROPERTY = "escritura.race";
+    /** System property with the name of the player. */
+    public static final String NAME_PROPERTY = "escritura.raceName";
+
+    /**
+     * Where the client is in the race cycle.
+     */
+    public enum Status {
+        CONNECTING, OFFLINE, LOBBY, RACING
+    }
+
+    /**
+     * Receives the events of the race, on the reader thread.
+     */
+    public interface Listener {
+        /**
+         * A race was started with the player in it.
+         *
+         * @param start the words and settings of the race
+         */
+        void onStart(Start start);
+
+        /**
+         * The status, the lobby or the standings changed.
+         */
+        void onChange();
+    }
+
+    /**
+     * Contents of a {@code START} frame.
+     */
+    public static final class Start {
+        private final int raceId;
+        private final int countdownMillis;
+        private final MatchMode matchMode;
+        private final int racers;
+        private final List<String> words;
+
+        Start(int raceId, int countdownMillis, MatchMode matchMode, int racers, List<String> words) {
+            this.raceId = raceId;
+            this.countdownMillis = countdownMillis;
+            this.matchMode = matchMode;
+            this.racers = racers;
+            this.words = Collections.unmodifiableList(words);
+        }
+
+        /** @return number of the race on the server */
+        public int getRaceId() {
+            return raceId;
+        }
+
+        /** @return time until the race starts, in milliseconds */
+        public int getCountdownMillis() {
+            return countdownMillis;
+        }
+
+        /** @return match mode every racer uses */
+        public MatchMode getMatchMode() {
+            return matchMode;
+        }
+
+        /** @return racers taking part */
+        public int getRacers() {
+            return racers;
+        }
+
+        /** @return the word of every level, in order */
+        public List<String> getWords() {
+            return words;
+        }
+    }
+
+    /** Stands for the latest progress in the outbox. */
+    private static final ByteBuffer PROGRESS = ByteBuffer.allocate(0);
+    /** Tells the sender thread the connection is over. */
+    private static final ByteBuffer DISCONNECT = ByteBuffer.allocate(0);
+
+    /**
+     * ---------- STATE ----------
+     */
+    private final InetSocketAddress address;
+    private final String name;
+    private final Listener listener;
+    private SocketChannel channel;
+    private Thread reader;
+    /** Frames for the sender thread of the current connection. */
+    private LinkedBlockingQueue<ByteBuffer> outbox;
+    private final AtomicReference<ByteBuffer> progress = new AtomicReference<>();
+
+    private volatile Status status = Status.CONNECTING;
+    private volatile int racerId = -1;
+    private volatile int lobbyReady;
+    private volatile int lobbyNeeded;
+    private volatile int racers;
+    private volatile int position;
+    private volatile int ownLevel;
+
+    /** Latest level of every racer, by id (reader thread only). */
+    private int[] levels = new int[64];
+
+    /**
+     * @param address  address of the server
+     * @param name     name of the player
+     * @param listener receiver of the race events
+     */
+    public RaceClient(InetSocketAddress address, String name, Listener listener) {
+        this.address = address;
+        this.name = name;
+        this.listener = listener;
+    }
+
+    /**
+     * Creates a client for the server named by the {@code escritura.race}
+     * system property.
+     *
+     * @param listener receiver of the race events
+     * @return the client, not yet connected, or null if the property is not set
+     */
+    public static RaceClient configured(Listener listener) {
+        String value = System.getProperty(RACE_PROPERTY);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String host = value.trim();
+        int port = RaceProtocol.DEFAULT_PORT;
+        int colon = host.lastIndexOf(':');
+        if (colon > 0) {
+            port = Integer.parseInt(host.substring(colon + 1));
+            host = host.substring(0, colon);
+        }
+        String name = System.getProperty(NAME_PROPERTY, System.getProperty("user.name", ""));
+        return new RaceClient(InetSocketAddress.createUnresolved(host, port), name, listener);
+    }
+
+    /**
+     * ---------- COMMANDS ----------
+     */
+
+    /**
+     * Asks to take part in the next race, connecting first if needed.
+     * Connecting happens on the reader thread, so this never blocks on the
+     * network for long.
+     */
+    public synchronized void join() {
+        if (reader != null && reader.isAlive()) {
+            // While connecting, the reader sends JOIN itself
+            if (channel != null && channel.isOpen()) {
+                status = Status.LOBBY;
+                outbox.add(RaceProtocol.join(name));
+            }
+            return;
+        }
+        status = Status.CONNECTING;
+        channel = null;
+        reader = new Thread(this::run, "escritura-race-client");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Reports the player's progress to the server. Returns immediately.
+     *
+     * @param level    current level
+     * @param failures rejected submissions so far
+     * @param state    state of the player's engine
+     */
+    public synchronized void sendProgress(int level, int failures, GameEngine.State state) {
+        ownLevel = state == GameEngine.State.WON ? level + 1 : level;
+        if (channel != null && channel.isOpen() && progress.getAndSet(RaceProtocol.progress(level, failures, state)) == null) {
+            outbox.add(PROGRESS);
+        }
+    }
+
+    /**
+     * Closes the connection.
+     */
+    @Override
+    public synchronized void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * ---------- SENDER THREAD ----------
+     */
+
+    /**
+     * Writes the queued frames until the connection is over. A write that
+     * fails closes the connection, which ends the reader as well.
+     */
+    private void send(SocketChannel connection, LinkedBlockingQueue<ByteBuffer> frames) {
+        try {
+            while (true) {
+                ByteBuffer frame = frames.take();
+                if (frame == DISCONNECT) {
+                    return;
+                }
+                if (frame == PROGRESS) {
+                    frame = progress.getAndSet(null);
+                    if (frame == null) {
+                        continue;
+                    }
+                }
+                while (frame.hasRemaining()) {
+                    connection.write(frame);
+                }
+            }
+        } catch (IOException e) {
+            try {
+                connection.close();
+            } catch (IOException ignored) {
+                // Already failing; the reader reports the lost connection
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * ---------- READER THREAD ----------
+     */
+
+    private void run() {
+        SocketChannel connection = null;
+        LinkedBlockingQueue<ByteBuffer> queue = null;
+        try {
+            connection = SocketChannel.open(new InetSocketAddress(address.getHostString(), address.getPort()));
+            connection.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            queue = new LinkedBlockingQueue<>();
+            synchronized (this) {
+                channel = connection;
+                outbox = queue;
+                progress.set(null);
+                queue.add(RaceProtocol.join(name));
+            }
+            SocketChannel sending = connection;
+            LinkedBlockingQueue<ByteBuffer> sendQueue = queue;
+            Thread sender = new Thread(() -> send(sending, sendQueue), "escritura-race-sender");
+            sender.setDaemon(true);
+            sender.start();
+            RaceProtocol.FrameReader frames = new RaceProtocol.FrameReader();
+            while (frames.read(connection) >= 0) {
+                ByteBuffer frame;
+                while ((frame = frames.next()) != null) {
+                    handle(frame);
+                }
+            }
+        } catch (IOException e) {
+            Telemetry.debug("[RaceClient] Conexión con %s perdida: %s%n", address, e.getMessage());
+        } finally {
+            if (queue != null) {
+                queue.add(DISCONNECT);
+            }
+            if (connection != null) {
+                try {
+                    connection.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            status = Status.OFFLINE;
+            listener.onChange();
+        }
+    }
+
+    private void handle(ByteBuffer frame) throws IOException {
+        switch (frame.get()) {
+            case RaceProtocol.WELCOME:
+                racerId = frame.getShort() & 0xFFFF;
+                break;
+            case RaceProtocol.LOBBY:
+                lobbyReady = frame.getShort() & 0xFFFF;
+                lobbyNeeded = frame.getShort() & 0xFFFF;
+                status = Status.LOBBY;
+                listener.onChange();
+                break;
+            case RaceProtocol.START: {
+                int raceId = frame.getInt();
+                int countdown = frame.getInt();
+                MatchMode mode = MatchMode.fromOrdinal(frame.get());
+                int count = frame.getShort() & 0xFFFF;
+                int wordCount = frame.getShort() & 0xFFFF;
+                List<String> words = new ArrayList<>(wordCount);
+                for (int i = 0; i < wordCount; i++) {
+                    words.add(RaceProtocol.getString(frame));
+                }
+                Arrays.fill(levels, 0);
+                racers = count;
+                ownLevel = 1;
+                position = 1;
+                status = Status.RACING;
+                listener.onStart(new Start(raceId, countdown, mode, count, words));
+                listener.onChange();
+                break;
+            }
+            case RaceProtocol.BATCH: {
+                frame.getLong();
+                int entries = frame.getShort() & 0xFFFF;
+                for (int i = 0; i < entries; i++) {
+                    int id = frame.getShort() & 0xFFFF;
+                    int level = frame.getShort() & 0xFFFF;
+                    int state = frame.get();
+                    if (id >= levels.length) {
+                        levels = Arrays.copyOf(levels, Math.max(id + 1, levels.length * 2));
+                    }
+                    levels[id] = state == GameEngine.State.WON.ordinal() ? level + 1 : level;
+                }
+                updatePosition();
+                listener.onChange();
+                break;
+            }
+            default:
+                throw new IOException("Unexpected frame");
+        }
+    }
+
+    private void updatePosition() {
+        int own = ownLevel;
+        int ahead = 0;
+        for (int id = 0; id < levels.length; id++) {
+            if (id != racerId && levels[id] > own) {
+                ahead++;
+            }
+        }
+        position = ahead + 1;
+    }
+
+    /**
+     * ---------- GETTERS ----------
+     */
+
+    /** @return where the client is in the race cycle */
+    public Status getStatus() {
+        return status;
+    }
+
+    /** @return racers ready in the lobby */
+    public int getLobbyReady() {
+        return lobbyReady;
+    }
+
+    /** @return racers needed for the server to start a race */
+    public int getLobbyNeeded() {
+        return lobbyNeeded;
+    }
+
+    /** @return racers in the current race */
+    public int getRacers() {
+        return racers;
+    }
+
+    /** @return position of the player in the current race, from 1 */
+    public int getPosition() {
+        return position;
+    }
+}
@@ -0,0 +1,303 @@
+package com.example.escriturarapida;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * Load test of the {@link RaceServer} with simulated racers over loopback.
+ *
+ * <p>All racers are driven from one selector thread, so a thousand of them
+ * need a thousand sockets but no thousand threads. Each racer joins,
+ * waits for the words, and then "types" one word every
+ * {@code --interval} milliseconds on average, reporting its level like
+ * the game does. Two latencies are recorded:</p>
+ * <ul>
+ *   <li>broadcast: from the server stamping a {@code BATCH} frame to a
+ *       racer reading it, for every racer and every batch;</li>
+ *   <li>progress: from a racer sending its level to that level coming back
+ *       in a batch, which adds the batching interval.</li>
+ * </ul>
+ *
+ * <pre>
+ * java -cp ... com.example.escriturarapida.RaceLoadTest --racers 1000 --races 2
+ * </pre>
+ *
+ * <p>By default the server runs in the same process on a free port; with
+ * {@code --port} the racers connect to an external server instead, which
+ * must have been started with the same {@code --racers}. Raise the open
+ * file limit ({@code ulimit -n}) above twice the number of racers.</p>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class RaceLoadTest {
+
+    private static final long TIMEOUT_NANOS = 300_000_000_000L;
+
+    /**
+     * One simulated racer.
+     */
+    private static final class SimRacer {
+        final int index;
+        final SocketChannel channel;
+        final RaceProtocol.FrameReader reader = new RaceProtocol.FrameReader();
+        int id = -1;
+        int words;
+        int level;
+        boolean typing;
+        long nextAt;
+        int awaitedLevel;
+        long sentAt;
+        int races;
+
+        SimRacer(int index, SocketChannel channel) {
+            this.index = index;
+            this.channel = channel;
+        }
+    }
+
+    private final int racerCount;
+    private final int raceCount;
+    private final long intervalNanos;
+    private final Random random = new Random(1);
+    private final LatencyHistogram broadcast = new LatencyHistogram();
+    private final LatencyHistogram progress = new LatencyHistogram();
+    private long batches;
+    private long entries;
+    private long sent;
+    private int finished;
+
+    private RaceLoadTest(int racerCount, int raceCount, long intervalMillis) {
+        this.racerCount = racerCount;
+        this.raceCount = raceCount;
+        this.intervalNanos = intervalMillis * 1_000_000L;
+    }
+
+    /**
+     * ---------- SIMULATION ----------
+     */
+
+    private boolean run(InetSocketAddress address) throws IOException {
+        SimRacer[] racers = new SimRacer[racerCount];
+        try (Selector selector = Selector.open()) {
+            for (int i = 0; i < racerCount; i++) {
+                SocketChannel channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                racers[i] = new SimRacer(i, channel);
+                channel.connect(address);
+                channel.register(selector, SelectionKey.OP_CONNECT, racers[i]);
+            }
+
+            long start = System.nanoTime();
+            while (finished < racerCount && System.nanoTime() - start < TIMEOUT_NANOS) {
+                long now = System.nanoTime();
+                long next = Long.MAX_VALUE;
+                for (SimRacer racer : racers) {
+                    if (racer.typing) {
+                        if (racer.nextAt <= now) {
+                            type(racer, now);
+                        }
+                        if (racer.typing) {
+                            next = Math.min(next, racer.nextAt);
+                        }
+                    }
+                }
+                long wait = next == Long.MAX_VALUE ? 100 : Math.max(0, (next - System.nanoTime()) / 1_000_000);
+                if (wait == 0) {
+                    selector.selectNow();
+                } else {
+                    selector.select(wait);
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    SimRacer racer = (SimRacer) key.attachment();
+                    if (key.isConnectable()) {
+                        racer.channel.finishConnect();
+                        key.interestOps(SelectionKey.OP_READ);
+                        send(racer, RaceProtocol.join("bot" + racer.index));
+                    } else if (key.isReadable()) {
+                        if (racer.reader.read(racer.channel) < 0) {
+                            throw new IOException("Server closed a connection");
+                        }
+                        ByteBuffer frame;
+                        while ((frame = racer.reader.next()) != null) {
+                            handle(racer, frame);
+                        }
+                    }
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            report(seconds);
+        } finally {
+            for (SimRacer racer : racers) {
+                if (racer != null) {
+                    racer.channel.close();
+                }
+            }
+        }
+        return finished == racerCount;
+    }
+
+    private void type(SimRacer racer, long now) throws IOException {
+        racer.level++;
+        GameEngine.State state = racer.level > racer.words ? GameEngine.State.WON : GameEngine.State.RUNNING;
+        send(racer, RaceProtocol.progress(racer.level, 0, state));
+        racer.awaitedLevel = racer.level;
+        racer.sentAt = now;
+        racer.typing = state == GameEngine.State.RUNNING;
+        racer.nextAt = now + nextInterval();
+    }
+
+    private void handle(SimRacer racer, ByteBuffer frame) throws IOException {
+        long now = System.nanoTime();
+        switch (frame.get()) {
+            case RaceProtocol.WELCOME:
+                racer.id = frame.getShort() & 0xFFFF;
+                break;
+            case RaceProtocol.LOBBY:
+                break;
+            case RaceProtocol.START: {
+                frame.getInt();
+                int countdown = frame.getInt();
+                frame.get();
+                frame.getShort();
+                racer.words = frame.getShort() & 0xFFFF;
+                racer.level = 1;
+                racer.typing = true;
+                racer.nextAt = now + countdown * 1_000_000L + nextInterval();
+                break;
+            }
+            case RaceProtocol.BATCH: {
+                broadcast.record(now - frame.getLong());
+                int count = frame.getShort() & 0xFFFF;
+                batches++;
+                entries += count;
+                for (int i = 0; i < count; i++) {
+                    int id = frame.getShort() & 0xFFFF;
+                    int level = frame.getShort() & 0xFFFF;
+                    int state = frame.get();
+                    if (id == racer.id && level == racer.awaitedLevel) {
+                        progress.record(now - racer.sentAt);
+                        racer.awaitedLevel = 0;
+                        if (state == GameEngine.State.WON.ordinal()) {
+                            finishRace(racer);
+                        }
+                    }
+                }
+                break;
+            }
+            default:
+                throw new IOException("Unexpected frame");
+        }
+    }
+
+    private void finishRace(SimRacer racer) throws IOException {
+        racer.races++;
+        if (racer.races < raceCount) {
+            send(racer, RaceProtocol.join("bot" + racer.index));
+        } else {
+            finished++;
+        }
+    }
+
+    private void send(SimRacer racer, ByteBuffer frame) throws IOException {
+        // Frames are a few bytes and the socket buffer is never full here
+        while (frame.hasRemaining()) {
+            racer.channel.write(frame);
+        }
+        sent++;
+    }
+
+    private long nextInterval() {
+        return intervalNanos / 2 + (long) (random.nextDouble() * intervalNanos);
+    }
+
+    private void report(double seconds) {
+        System.out.printf("[RaceLoadTest] %d corredores, %d carreras, %d/%d terminaron en %.1f s%n",
+                racerCount, raceCount, finished, racerCount, seconds);
+        System.out.printf("[RaceLoadTest] %d mensajes enviados, %d lotes recibidos (%.0f/s), %.1f entradas por lote%n",
+                sent, batches, batches / seconds, batches == 0 ? 0.0 : (double) entries / batches);
+        print("difusión", broadcast);
+        print("progreso", progress);
+    }
+
+    private static void print(String label, LatencyHistogram histogram) {
+        System.out.printf("[RaceLoadTest] latencia de %-9s p50 %.2f ms  p99 %.2f ms  p99.9 %.2f ms  máx %.2f ms%n",
+                label, histogram.percentile(50) / 1e6, histogram.percentile(99) / 1e6,
+                histogram.percentile(99.9) / 1e6, histogram.getMax() / 1e6);
+    }
+
+    /**
+     * ---------- COMMAND LINE ----------
+     */
+
+    /**
+     * Runs the load test and exits with status 1 if some racer did not finish.
+     *
+     * @param args {@code [--racers n] [--races n] [--interval ms] [--host h] [--port n]}
+     * @throws IOException if a connection fails
+     */
+    public static void main(String[] args) throws IOException {
+        int racers = 1_000;
+        int races = 1;
+        long interval = 200;
+        String host = null;
+        int port = 0;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--racers":
+                    racers = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--races":
+                    races = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--interval":
+                    interval = Long.parseLong(args[i + 1]);
+                    break;
+                case "--host":
+                    host = args[i + 1];
+                    break;
+                case "--port":
+                    port = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    System.err.println("Uso: RaceLoadTest [--racers n] [--races n] [--interval ms] "
+                            + "[--host h] [--port n]");
+                    System.exit(2);
+            }
+        }
+
+        RaceServer server = null;
+        InetSocketAddress address;
+        if (port == 0) {
+            server = RaceServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                    WordDictionary.shared(), MatchMode.NFC, racers, 1);
+            address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+        } else {
+            address = new InetSocketAddress(host != null ? host : "localhost", port);
+        }
+        boolean ok;
+        try {
+            ok = new RaceLoadTest(racers, races, interval).run(address);
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+        System.exit(ok ? 0 : 1);
+    }
+}
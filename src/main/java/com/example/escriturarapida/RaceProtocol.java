@@ -0,0 +1,255 @@
+package com.example.escriturarapida;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Binary protocol between {@link RaceServer} and {@link RaceClient}.
+ *
+ * <p>Every message is a frame: an {@code int} with the size of the rest of
+ * the frame, a type byte and the payload (big-endian). Strings are an
+ * unsigned {@code short} byte count followed by UTF-8.</p>
+ *
+ * <pre>
+ * client to server
+ *   JOIN      short version, string name
+ *   PROGRESS  short level, short failures, byte state ({@link GameEngine.State} ordinal)
+ * server to client
+ *   WELCOME   short racer id
+ *   LOBBY     short racers connected, short racers needed to start
+ *   START     int race id, int countdown millis, byte match mode, short racer count,
+ *             short word count, string[word count] words (one per level)
+ *   BATCH     long server nanoTime, short entry count,
+ *             entry[count] (short racer id, short level, byte state)
+ * </pre>
+ *
+ * <p>Progress is not forwarded one message at a time: the server keeps the
+ * latest level of every racer and broadcasts the ones that changed in one
+ * {@code BATCH} frame per interval, encoded once and written to every
+ * connection.</p>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class RaceProtocol {
+
+    /** Version sent in {@code JOIN}; the server refuses other versions. */
+    public static final int VERSION = 1;
+    /** Port used when none is given. */
+    public static final int DEFAULT_PORT = 47_470;
+
+    static final byte JOIN = 1;
+    static final byte PROGRESS = 2;
+    static final byte WELCOME = 10;
+    static final byte LOBBY = 11;
+    static final byte START = 12;
+    static final byte BATCH = 13;
+
+    /** Bytes before the payload: frame size and type. */
+    static final int FRAME_HEADER = 5;
+    /** Bytes of one {@code BATCH} entry. */
+    static final int ENTRY_SIZE = 5;
+    /** Largest frame accepted, to reject garbage before allocating. */
+    static final int MAX_FRAME = 1 << 20;
+
+    private RaceProtocol() {
+    }
+
+    /**
+     * ---------- ENCODING ----------
+     */
+
+    /**
+     * @param name name of the player
+     * @return a {@code JOIN} frame
+     */
+    static ByteBuffer join(String name) {
+        byte[] utf8 = truncate(name);
+        ByteBuffer frame = begin(JOIN, 2 + 2 + utf8.length);
+        frame.putShort((short) VERSION);
+        frame.putShort((short) utf8.length).put(utf8);
+        return frame.flip();
+    }
+
+    /**
+     * @param level    current level
+     * @param failures rejected submissions so far
+     * @param state    state of the player's engine
+     * @return a {@code PROGRESS} frame
+     */
+    static ByteBuffer progress(int level, int failures, GameEngine.State state) {
+        ByteBuffer frame = begin(PROGRESS, 5);
+        frame.putShort((short) level).putShort((short) failures).put((byte) state.ordinal());
+        return frame.flip();
+    }
+
+    /**
+     * @param racerId id assigned to the connection
+     * @return a {@code WELCOME} frame
+     */
+    static ByteBuffer welcome(int racerId) {
+        ByteBuffer frame = begin(WELCOME, 2);
+        frame.putShort((short) racerId);
+        return frame.flip();
+    }
+
+    /**
+     * @param connected racers waiting
+     * @param needed    racers needed to start
+     * @return a {@code LOBBY} frame
+     */
+    static ByteBuffer lobby(int connected, int needed) {
+        ByteBuffer frame = begin(LOBBY, 4);
+        frame.putShort((short) connected).putShort((short) needed);
+        return frame.flip();
+    }
+
+    /**
+     * @param raceId          number of the race
+     * @param countdownMillis time between this frame and the start
+     * @param matchMode       match mode every racer uses
+     * @param racers          racers taking part
+     * @param words           the word of every level, in order
+     * @return a {@code START} frame
+     */
+    static ByteBuffer start(int raceId, int countdownMillis, MatchMode matchMode, int racers, List<String> words) {
+        byte[][] encoded = new byte[words.size()][];
+        int size = 4 + 4 + 1 + 2 + 2;
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = truncate(words.get(i));
+            size += 2 + encoded[i].length;
+        }
+        ByteBuffer frame = begin(START, size);
+        frame.putInt(raceId).putInt(countdownMillis).put((byte) matchMode.ordinal())
+                .putShort((short) racers).putShort((short) encoded.length);
+        for (byte[] utf8 : encoded) {
+            frame.putShort((short) utf8.length).put(utf8);
+        }
+        return frame.flip();
+    }
+
+    /**
+     * Starts a {@code BATCH} frame. Entries are added with
+     * {@link #putEntry} and the frame is closed with {@link #endBatch}.
+     *
+     * @param buffer     destination, large enough for every entry
+     * @param sentNanos  {@link System#nanoTime()} of the server
+     */
+    static void beginBatch(ByteBuffer buffer, long sentNanos) {
+        buffer.clear();
+        buffer.putInt(0).put(BATCH).putLong(sentNanos).putShort((short) 0);
+    }
+
+    static void putEntry(ByteBuffer buffer, int racerId, int level, int state) {
+        buffer.putShort((short) racerId).putShort((short) level).put((byte) state);
+    }
+
+    static void endBatch(ByteBuffer buffer, int entries) {
+        buffer.putInt(0, buffer.position() - 4);
+        buffer.putShort(FRAME_HEADER + 8, (short) entries);
+        buffer.flip();
+    }
+
+    /**
+     * @param racers most entries a batch can hold
+     * @return size of a {@code BATCH} frame with that many entries
+     */
+    static int batchCapacity(int racers) {
+        return FRAME_HEADER + 8 + 2 + racers * ENTRY_SIZE;
+    }
+
+    private static ByteBuffer begin(byte type, int payload) {
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER + payload);
+        frame.putInt(1 + payload).put(type);
+        return frame;
+    }
+
+    private static byte[] truncate(String text) {
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        return utf8.length <= 0xFFFF ? utf8 : Arrays.copyOf(utf8, 0xFFFF);
+    }
+
+    /**
+     * ---------- DECODING ----------
+     */
+
+    /**
+     * @param payload buffer positioned at a string
+     * @return the string, with the buffer advanced past it
+     */
+    static String getString(ByteBuffer payload) {
+        int length = payload.getShort() & 0xFFFF;
+        byte[] utf8 = new byte[length];
+        payload.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Splits the bytes read from a connection into frames, without copying
+     * them. A frame returned by {@link #next} is only valid until the next
+     * call to {@link #next} or {@link #read}.
+     */
+    static final class FrameReader {
+        private ByteBuffer buffer = ByteBuffer.allocate(8192);
+        private int start;
+
+        /**
+         * Reads whatever the channel has available.
+         *
+         * @param channel the connection
+         * @return bytes read, or -1 at end of stream
+         * @throws IOException if the read fails
+         */
+        int read(ReadableByteChannel channel) throws IOException {
+            if (!buffer.hasRemaining()) {
+                compact(start > 0 ? buffer.capacity() : buffer.capacity() * 2);
+            }
+            return channel.read(buffer);
+        }
+
+        /**
+         * @return the next complete frame, positioned at its type byte, or
+         *         null if more bytes are needed
+         * @throws IOException if the frame size is invalid
+         */
+        ByteBuffer next() throws IOException {
+            int available = buffer.position() - start;
+            if (available >= 4) {
+                int length = buffer.getInt(start);
+                if (length <= 0 || length > MAX_FRAME) {
+                    throw new IOException("Invalid frame size " + length);
+                }
+                if (available >= 4 + length) {
+                    ByteBuffer frame = buffer.duplicate();
+                    frame.limit(start + 4 + length).position(start + 4);
+                    start += 4 + length;
+                    return frame;
+                }
+                if (4 + length > buffer.capacity()) {
+                    compact(4 + length);
+                    return null;
+                }
+            }
+            compact(buffer.capacity());
+            return null;
+        }
+
+        private void compact(int capacity) {
+            if (capacity > buffer.capacity()) {
+                ByteBuffer larger = ByteBuffer.allocate(capacity);
+                larger.put(buffer.flip().position(start));
+                buffer = larger;
+            } else if (start > 0) {
+                buffer.flip().position(start);
+                buffer.compact();
+            }
+            start = 0;
+        }
+    }
+}
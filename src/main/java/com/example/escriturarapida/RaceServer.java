@@ -0,0 +1,559 @@
+package com.example.escriturarapida;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Typing race server for a local network.
+ *
+ * <p>All racers type the same words: when enough racers are ready the
+ * server draws one word per level from a {@link DeckWordSource} with a
+ * fresh seed and sends the whole list in the {@code START} frame. Racers
+ * then report their level after every submission, and the server
+ * broadcasts the levels that changed in one {@code BATCH} frame every
+ * {@link #BATCH_INTERVAL_NANOS} at most. The frame is encoded once and the
+ * same bytes are queued on every connection, so broadcasting costs one
+ * write per racer per interval whatever the number of updates.</p>
+ *
+ * <p>Main responsibilities:</p>
+ * <ul>
+ *   <li>Accepting connections and reading frames on a single selector thread.</li>
+ *   <li>Starting a race when the required number of racers is ready.</li>
+ *   <li>Coalescing progress updates into periodic batches.</li>
+ *   <li>Queuing writes per connection and dropping racers that fall too far behind.</li>
+ * </ul>
+ *
+ * <p>Races use {@link GameRules#DEFAULT}. See {@link RaceProtocol} for the
+ * frames and {@link RaceLoadTest} to measure the server with simulated racers.</p>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class RaceServer implements Closeable {
+
+    /** Longest time a progress update waits before being broadcast. */
+    public static final long BATCH_INTERVAL_NANOS = 20_000_000L;
+    /** Time between the {@code START} frame and the first word. */
+    public static final int COUNTDOWN_MILLIS = 3_000;
+    /** Most connections served at once. */
+    public static final int MAX_RACERS = 4_096;
+    /** Bytes queued on a connection before it is considered stalled and dropped. */
+    static final int MAX_PENDING_BYTES = 1 << 20;
+
+    private static final int WON = GameEngine.State.WON.ordinal();
+    private static final int LOST = GameEngine.State.LOST.ordinal();
+    private static final int RUNNING = GameEngine.State.RUNNING.ordinal();
+
+    /**
+     * State of one connection.
+     */
+    private static final class Racer {
+        final int id;
+        final SocketChannel channel;
+        final RaceProtocol.FrameReader reader = new RaceProtocol.FrameReader();
+        final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+        SelectionKey key;
+        int pendingBytes;
+        String name = "";
+        boolean ready;
+        boolean racing;
+        boolean dirty;
+        boolean gone;
+        int level;
+        int failures;
+        int state;
+        int finishOrder;
+
+        Racer(int id, SocketChannel channel) {
+            this.id = id;
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * ---------- STATE (selector thread only) ----------
+     */
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final Thread loop;
+    private final WordDictionary dictionary;
+    private final MatchMode matchMode;
+    private final int minRacers;
+    private final Random seeds;
+    private final Racer[] racers = new Racer[MAX_RACERS];
+    private final int[] dirty = new int[MAX_RACERS];
+    private int dirtyCount;
+    private int connected;
+    private int ready;
+    private int raceId;
+    private int racing;
+    private int finished;
+    private long lastBatchAt;
+    private boolean lobbyDirty;
+    private volatile boolean startRequested;
+    private volatile boolean closed;
+
+    private RaceServer(InetSocketAddress address, WordDictionary dictionary, MatchMode matchMode,
+                       int minRacers, long seed) throws IOException {
+        this.dictionary = dictionary;
+        this.matchMode = matchMode;
+        this.minRacers = Math.max(1, minRacers);
+        this.seeds = new Random(seed);
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(address, MAX_RACERS);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        loop = new Thread(this::run, "escritura-race-server");
+        loop.setDaemon(true);
+    }
+
+    /**
+     * Binds the server and starts its selector thread.
+     *
+     * @param address    address to listen on; port 0 picks a free port
+     * @param dictionary dictionary the words are drawn from
+     * @param matchMode  match mode racers have to use
+     * @param minRacers  ready racers needed to start a race automatically
+     * @param seed       seed of the seeds of every race
+     * @return the running server
+     * @throws IOException if the address cannot be bound
+     */
+    public static RaceServer start(InetSocketAddress address, WordDictionary dictionary, MatchMode matchMode,
+                                   int minRacers, long seed) throws IOException {
+        RaceServer raceServer = new RaceServer(address, dictionary, matchMode, minRacers, seed);
+        raceServer.loop.start();
+        return raceServer;
+    }
+
+    /**
+     * Starts a race with the racers that are ready, without waiting for
+     * the minimum. Can be called from any thread.
+     */
+    public void startNow() {
+        startRequested = true;
+        selector.wakeup();
+    }
+
+    /** @return the port the server listens on */
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    /**
+     * Stops the server and closes every connection.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        selector.wakeup();
+        try {
+            loop.join(1_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * ---------- SELECTOR LOOP ----------
+     */
+
+    private void run() {
+        try {
+            while (!closed) {
+                if (dirtyCount == 0 && !lobbyDirty) {
+                    selector.select();
+                } else {
+                    long wait = lastBatchAt + BATCH_INTERVAL_NANOS - System.nanoTime();
+                    if (wait > 0) {
+                        selector.select((wait + 999_999) / 1_000_000);
+                    } else {
+                        selector.selectNow();
+                    }
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        Racer racer = (Racer) key.attachment();
+                        if (key.isReadable()) {
+                            read(racer);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            flush(racer);
+                        }
+                    }
+                }
+
+                if (startRequested) {
+                    startRequested = false;
+                    if (ready > 0 && racing == 0) {
+                        startRace();
+                    }
+                }
+                if ((dirtyCount > 0 || lobbyDirty) && System.nanoTime() - lastBatchAt >= BATCH_INTERVAL_NANOS) {
+                    broadcastBatch();
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (!closed) {
+                e.printStackTrace();
+            }
+        } finally {
+            shutdown();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            int id = freeId();
+            if (id < 0) {
+                channel.close();
+                continue;
+            }
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Racer racer = new Racer(id, channel);
+            racer.key = channel.register(selector, SelectionKey.OP_READ, racer);
+            racers[id] = racer;
+            connected++;
+        }
+    }
+
+    private int freeId() {
+        for (int i = 0; i < MAX_RACERS; i++) {
+            if (racers[i] == null) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void read(Racer racer) {
+        try {
+            if (racer.reader.read(racer.channel) < 0) {
+                drop(racer);
+                return;
+            }
+            ByteBuffer frame;
+            while (!racer.gone && (frame = racer.reader.next()) != null) {
+                handle(racer, frame);
+            }
+        } catch (IOException | RuntimeException e) {
+            drop(racer);
+        }
+    }
+
+    private void handle(Racer racer, ByteBuffer frame) throws IOException {
+        switch (frame.get()) {
+            case RaceProtocol.JOIN:
+                if (frame.getShort() != RaceProtocol.VERSION) {
+                    throw new IOException("Unsupported protocol version");
+                }
+                racer.name = RaceProtocol.getString(frame);
+                send(racer, RaceProtocol.welcome(racer.id));
+                // A racer that has finished may join the next race before this one ends
+                if (!racer.ready && (!racer.racing || racer.state != RUNNING)) {
+                    racer.ready = true;
+                    ready++;
+                }
+                lobbyChanged();
+                break;
+            case RaceProtocol.PROGRESS:
+                if (racer.racing) {
+                    racer.level = frame.getShort() & 0xFFFF;
+                    racer.failures = frame.getShort() & 0xFFFF;
+                    int state = frame.get();
+                    if (state != RUNNING && racer.state == RUNNING) {
+                        racer.finishOrder = ++finished;
+                    }
+                    racer.state = state;
+                    markDirty(racer);
+                }
+                break;
+            default:
+                throw new IOException("Unexpected frame");
+        }
+    }
+
+    /**
+     * ---------- RACES ----------
+     */
+
+    private void lobbyChanged() {
+        if (racing == 0 && ready >= minRacers) {
+            startRace();
+            return;
+        }
+        // Sent with the next batch, so a burst of joins costs one frame per racer
+        lobbyDirty = true;
+    }
+
+    private void broadcastLobby() {
+        lobbyDirty = false;
+        ByteBuffer frame = RaceProtocol.lobby(ready, minRacers);
+        for (Racer racer : racers) {
+            if (racer != null && racer.ready) {
+                send(racer, frame.duplicate());
+            }
+        }
+    }
+
+    private void startRace() {
+        lobbyDirty = false;
+        raceId++;
+        finished = 0;
+        GameRules rules = GameRules.DEFAULT;
+        DeckWordSource deck = new DeckWordSource(dictionary, seeds.nextLong());
+        List<String> words = new ArrayList<>(rules.getFinalLevel());
+        for (int level = 1; level <= rules.getFinalLevel(); level++) {
+            words.add(deck.nextWord(rules.difficultyFor(level)));
+        }
+
+        ByteBuffer frame = RaceProtocol.start(raceId, COUNTDOWN_MILLIS, matchMode, ready, words);
+        for (Racer racer : racers) {
+            if (racer != null && racer.ready) {
+                racer.ready = false;
+                racer.racing = true;
+                racer.level = 1;
+                racer.failures = 0;
+                racer.state = RUNNING;
+                racer.finishOrder = 0;
+                racing++;
+                send(racer, frame.duplicate());
+            }
+        }
+        ready = 0;
+        System.out.printf("[RaceServer] Carrera %d: %d corredores de %d conectados%n", raceId, racing, connected);
+    }
+
+    private void markDirty(Racer racer) {
+        if (!racer.dirty) {
+            racer.dirty = true;
+            dirty[dirtyCount++] = racer.id;
+        }
+    }
+
+    private void broadcastBatch() {
+        if (lobbyDirty) {
+            broadcastLobby();
+        }
+        if (dirtyCount == 0) {
+            lastBatchAt = System.nanoTime();
+            return;
+        }
+        ByteBuffer batch = ByteBuffer.allocate(RaceProtocol.batchCapacity(dirtyCount));
+        RaceProtocol.beginBatch(batch, System.nanoTime());
+        int entries = 0;
+        for (int i = 0; i < dirtyCount; i++) {
+            Racer racer = racers[dirty[i]];
+            if (racer != null && racer.dirty) {
+                racer.dirty = false;
+                RaceProtocol.putEntry(batch, racer.id, racer.level, racer.state);
+                entries++;
+            }
+        }
+        RaceProtocol.endBatch(batch, entries);
+        dirtyCount = 0;
+        lastBatchAt = System.nanoTime();
+
+        boolean over = racing > 0;
+        for (Racer racer : racers) {
+            if (racer != null && racer.racing) {
+                send(racer, batch.duplicate());
+                over &= racer.state != RUNNING;
+            }
+        }
+        if (over) {
+            endRace();
+        }
+    }
+
+    private void endRace() {
+        Racer winner = null;
+        for (Racer racer : racers) {
+            if (racer != null && racer.racing) {
+                racer.racing = false;
+                if (racer.gone) {
+                    racers[racer.id] = null;
+                }
+                if (racer.state == WON && (winner == null || racer.finishOrder < winner.finishOrder)) {
+                    winner = racer;
+                }
+            }
+        }
+        System.out.printf("[RaceServer] Carrera %d terminada, ganador: %s%n", raceId,
+                winner == null ? "nadie" : winner.name.isEmpty() ? "#" + winner.id : winner.name);
+        racing = 0;
+        if (ready >= minRacers) {
+            startRace();
+        }
+    }
+
+    /**
+     * ---------- WRITING ----------
+     */
+
+    /**
+     * Writes a frame now if nothing is queued, otherwise queues it and
+     * waits for the connection to become writable.
+     */
+    private void send(Racer racer, ByteBuffer frame) {
+        if (racer.gone) {
+            return;
+        }
+        try {
+            if (racer.out.isEmpty()) {
+                racer.channel.write(frame);
+                if (!frame.hasRemaining()) {
+                    return;
+                }
+                racer.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+            racer.out.add(frame);
+            racer.pendingBytes += frame.remaining();
+            if (racer.pendingBytes > MAX_PENDING_BYTES) {
+                drop(racer);
+            }
+        } catch (IOException e) {
+            drop(racer);
+        }
+    }
+
+    private void flush(Racer racer) {
+        try {
+            ByteBuffer frame;
+            while ((frame = racer.out.peek()) != null) {
+                int before = frame.remaining();
+                racer.channel.write(frame);
+                racer.pendingBytes -= before - frame.remaining();
+                if (frame.hasRemaining()) {
+                    return;
+                }
+                racer.out.poll();
+            }
+            racer.key.interestOps(SelectionKey.OP_READ);
+        } catch (IOException e) {
+            drop(racer);
+        }
+    }
+
+    private void drop(Racer racer) {
+        if (racer.gone) {
+            return;
+        }
+        racer.gone = true;
+        racer.out.clear();
+        connected--;
+        try {
+            racer.channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        boolean wasReady = racer.ready;
+        if (wasReady) {
+            racer.ready = false;
+            ready--;
+        }
+        if (racer.racing) {
+            // The slot is kept until the race ends, so the others see the racer lose
+            if (racer.state == RUNNING) {
+                racer.state = LOST;
+                racer.finishOrder = ++finished;
+            }
+            markDirty(racer);
+        } else {
+            racers[racer.id] = null;
+        }
+        if (wasReady) {
+            lobbyChanged();
+        }
+    }
+
+    private void shutdown() {
+        for (Racer racer : racers) {
+            if (racer != null) {
+                try {
+                    racer.channel.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        try {
+            server.close();
+            selector.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * ---------- COMMAND LINE ----------
+     */
+
+    /**
+     * Runs a server until the process is stopped. Writing a line on the
+     * standard input starts a race with the racers that are ready.
+     *
+     * @param args {@code [--port n] [--racers n] [--match modo]}
+     * @throws IOException          if the port cannot be bound
+     * @throws InterruptedException if interrupted while waiting for the server
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = RaceProtocol.DEFAULT_PORT;
+        int minRacers = 2;
+        MatchMode mode = MatchMode.configured();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--port":
+                    port = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--racers":
+                    minRacers = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--match":
+                    mode = MatchMode.parse(args[i + 1]);
+                    break;
+                default:
+                    System.err.println("Uso: RaceServer [--port n] [--racers n] [--match exact|nfc|accent-insensitive]");
+                    System.exit(2);
+            }
+        }
+
+        RaceServer raceServer = start(new InetSocketAddress(port), WordDictionary.shared(), mode,
+                minRacers, System.nanoTime());
+        System.out.printf("[RaceServer] Escuchando en el puerto %d; empieza con %d corredores "
+                + "o al pulsar Enter%n", raceServer.getPort(), minRacers);
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+        while (in.readLine() != null) {
+            raceServer.startNow();
+        }
+        raceServer.loop.join();
+    }
+}
@@ -0,0 +1,280 @@
+package com.example.escriturarapida;
+
+import java.util.Arrays;
+
+/**
+ * Multiset of {@code long} keys kept in descending order, answering "how
+ * many keys are above this one" and "the k best keys" in logarithmic time.
+ *
+ * <p>The keys live in sorted blocks of at most {@link #MAX_BLOCK} entries,
+ * and a Fenwick tree over the block sizes gives the number of keys before
+ * any block. Inserting is a binary search over the blocks, a binary search
+ * and a short copy inside one block, and a Fenwick update; a block that
+ * fills up is split in two, which rebuilds the tree once every
+ * {@link #MAX_BLOCK} / 2 inserts at most. Reading the k best keys walks
+ * the first blocks in order.</p>
+ *
+ * <p>Compared with a balanced tree of nodes, a block costs eight bytes per
+ * key and no pointers, so ten million keys take about 80 MB and are
+ * scanned at memory speed. The index is not thread-safe.</p>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class RankedIndex {
+
+    /** Largest block; a full block is split in two halves. */
+    static final int MAX_BLOCK = 2_048;
+    /** Size of the blocks built by {@link #load}, leaving room to insert. */
+    static final int LOAD_BLOCK = MAX_BLOCK * 3 / 4;
+
+    private long[][] blocks = new long[8][];
+    private int[] sizes = new int[8];
+    /** Fenwick tree over {@link #sizes}, 1-based. */
+    private long[] tree = new long[9];
+    private int blockCount;
+    private long size;
+
+    /**
+     * ---------- UPDATES ----------
+     */
+
+    /**
+     * Adds a key. Equal keys are all kept and share a rank.
+     *
+     * @param key the key; higher keys rank first
+     */
+    public void add(long key) {
+        if (blockCount == 0) {
+            blocks[0] = new long[16];
+            blockCount = 1;
+        }
+        int b = blockFor(key);
+        long[] block = blocks[b];
+        int n = sizes[b];
+        int at = countAtLeast(block, n, key);
+        if (n == block.length) {
+            block = Arrays.copyOf(block, Math.min(MAX_BLOCK, n * 2));
+            blocks[b] = block;
+        }
+        System.arraycopy(block, at, block, at + 1, n - at);
+        block[at] = key;
+        sizes[b] = n + 1;
+        size++;
+        if (n + 1 == MAX_BLOCK) {
+            split(b);
+        } else {
+            for (int i = b + 1; i <= blockCount; i += i & -i) {
+                tree[i]++;
+            }
+        }
+    }
+
+    /**
+     * Replaces the contents with keys that are already sorted.
+     *
+     * @param sorted keys in descending order
+     * @param count  number of keys to take from the array
+     */
+    public void load(long[] sorted, int count) {
+        int needed = (count + LOAD_BLOCK - 1) / LOAD_BLOCK;
+        blocks = new long[Math.max(8, needed * 2)][];
+        sizes = new int[blocks.length];
+        blockCount = needed;
+        for (int b = 0; b < needed; b++) {
+            int from = b * LOAD_BLOCK;
+            int n = Math.min(LOAD_BLOCK, count - from);
+            blocks[b] = Arrays.copyOfRange(sorted, from, from + LOAD_BLOCK);
+            sizes[b] = n;
+        }
+        size = count;
+        rebuildTree();
+    }
+
+    /**
+     * Adds many keys at once by merging them with the current ones, which
+     * is O(n) instead of O(m log n) for large batches.
+     *
+     * @param keys  keys in any order; the array is sorted in place
+     * @param count number of keys to take from the array
+     */
+    public void addAll(long[] keys, int count) {
+        if (count < size / MAX_BLOCK + 64) {
+            for (int i = 0; i < count; i++) {
+                add(keys[i]);
+            }
+            return;
+        }
+        Arrays.sort(keys, 0, count);
+        long[] current = toArray();
+        long[] merged = new long[Math.toIntExact(size + count)];
+        int i = 0;
+        int j = count - 1;
+        for (int k = 0; k < merged.length; k++) {
+            // Ascending array read backwards; current keys first on ties
+            if (j < 0 || (i < current.length && current[i] >= keys[j])) {
+                merged[k] = current[i++];
+            } else {
+                merged[k] = keys[j--];
+            }
+        }
+        load(merged, merged.length);
+    }
+
+    private void split(int b) {
+        if (blockCount == blocks.length) {
+            blocks = Arrays.copyOf(blocks, blockCount * 2);
+            sizes = Arrays.copyOf(sizes, blockCount * 2);
+        }
+        System.arraycopy(blocks, b + 1, blocks, b + 2, blockCount - b - 1);
+        System.arraycopy(sizes, b + 1, sizes, b + 2, blockCount - b - 1);
+        long[] full = blocks[b];
+        int half = MAX_BLOCK / 2;
+        blocks[b + 1] = Arrays.copyOfRange(full, half, MAX_BLOCK);
+        sizes[b + 1] = MAX_BLOCK - half;
+        sizes[b] = half;
+        blockCount++;
+        rebuildTree();
+    }
+
+    private void rebuildTree() {
+        tree = new long[blocks.length + 1];
+        for (int i = 1; i <= blockCount; i++) {
+            tree[i] += sizes[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= blockCount) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    /**
+     * ---------- QUERIES ----------
+     */
+
+    /**
+     * @param key a key, stored or not
+     * @return number of stored keys strictly above it, so its rank is this plus one
+     */
+    public long countAbove(long key) {
+        if (blockCount == 0) {
+            return 0;
+        }
+        int b = blockFor(key);
+        return keysBefore(b) + countAbove(blocks[b], sizes[b], key);
+    }
+
+    /**
+     * Copies the best keys.
+     *
+     * @param k maximum number of keys
+     * @return up to {@code k} keys in descending order
+     */
+    public long[] top(int k) {
+        long[] out = new long[(int) Math.min(k, size)];
+        int filled = 0;
+        for (int b = 0; b < blockCount && filled < out.length; b++) {
+            int n = Math.min(sizes[b], out.length - filled);
+            System.arraycopy(blocks[b], 0, out, filled, n);
+            filled += n;
+        }
+        return out;
+    }
+
+    /**
+     * @param rank position from 0, below {@link #size()}
+     * @return the key at that position
+     */
+    public long get(long rank) {
+        if (rank < 0 || rank >= size) {
+            throw new IndexOutOfBoundsException("Rank " + rank + " of " + size);
+        }
+        // Fenwick descent: the last block whose preceding keys are <= rank
+        int b = 0;
+        long remaining = rank;
+        for (int step = Integer.highestOneBit(blockCount); step > 0; step >>= 1) {
+            if (b + step <= blockCount && tree[b + step] <= remaining) {
+                b += step;
+                remaining -= tree[b];
+            }
+        }
+        return blocks[b][(int) remaining];
+    }
+
+    /**
+     * @return all keys in descending order
+     */
+    public long[] toArray() {
+        long[] out = new long[Math.toIntExact(size)];
+        int filled = 0;
+        for (int b = 0; b < blockCount; b++) {
+            System.arraycopy(blocks[b], 0, out, filled, sizes[b]);
+            filled += sizes[b];
+        }
+        return out;
+    }
+
+    /** @return number of keys */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * First block whose smallest key is not above {@code key}, or the last
+     * block. Blocks before it hold only keys above {@code key}.
+     */
+    private int blockFor(long key) {
+        int lo = 0;
+        int hi = blockCount - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int n = sizes[mid];
+            if (n > 0 && blocks[mid][n - 1] > key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private long keysBefore(int b) {
+        long sum = 0;
+        for (int i = b; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /** Keys of a descending block strictly above {@code key}. */
+    private static int countAbove(long[] block, int n, long key) {
+        int lo = 0;
+        int hi = n;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (block[mid] > key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /** Keys of a descending block at or above {@code key}: where a new equal key goes. */
+    private static int countAtLeast(long[] block, int n, long key) {
+        int lo = 0;
+        int hi = n;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (block[mid] >= key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
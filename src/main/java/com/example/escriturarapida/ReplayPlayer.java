@@ -0,0 +1,318 @@
+package com.example.escriturarapida;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a game recorded by {@link ReplayRecorder} again on a fresh
+ * {@link GameEngine}.
+ *
+ * <p>The engine gets the same rules and match mode, a {@link DeckWordSource} with the same
+ * seed and every input at its recorded time on a virtual clock, so the game
+ * unfolds exactly as it did for the player. Playback is either as fast as
+ * possible or paced to the recorded timing. The outcome stored in the
+ * replay is compared with the one obtained, which makes a folder of
+ * replays usable as a regression and performance corpus.</p>
+ *
+ * <p>Usage: {@code ReplayPlayer [--realtime] <file or folder>...}; exits
+ * with status 1 if any replay does not reproduce its outcome.</p>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class ReplayPlayer {
+
+    /** Extension of replay files. */
+    public static final String EXTENSION = ".erp";
+
+    /**
+     * Outcome of a playback.
+     */
+    public static final class Result {
+        private final GameEngine engine;
+        private final int events;
+        private final boolean dictionaryMatches;
+        private final int[] expected;
+
+        private Result(GameEngine engine, int events, boolean dictionaryMatches, int[] expected) {
+            this.engine = engine;
+            this.events = events;
+            this.dictionaryMatches = dictionaryMatches;
+            this.expected = expected;
+        }
+
+        /** @return the engine after the last event */
+        public GameEngine getEngine() {
+            return engine;
+        }
+
+        /** @return number of events played */
+        public int getEvents() {
+            return events;
+        }
+
+        /**
+         * @return true if the dictionary is the one used to record and the
+         *         final state, level, successes and failures match the recording
+         */
+        public boolean matches() {
+            return dictionaryMatches && expected != null
+                    && expected[0] == engine.getState().ordinal()
+                    && expected[1] == engine.getLevel()
+                    && expected[2] == engine.getSuccess()
+                    && expected[3] == engine.getFailure();
+        }
+
+        @Override
+        public String toString() {
+            String got = engine.getState() + " nivel " + engine.getLevel() + " " + engine.getSuccess()
+                    + "/" + engine.getFailure();
+            if (!dictionaryMatches) {
+                return got + " (diccionario distinto)";
+            }
+            if (expected == null) {
+                return got + " (sin resultado grabado)";
+            }
+            return matches() ? got : got + " (esperado " + GameEngine.State.values()[expected[0]] + " nivel "
+                    + expected[1] + " " + expected[2] + "/" + expected[3] + ")";
+        }
+    }
+
+    private final byte[] data;
+    private final long recordedAt;
+    private final long seed;
+    private final GameRules rules;
+    private final MatchMode matchMode;
+    private final int[] dictionarySizes = new int[Difficulty.values().length];
+    private final int bodyStart;
+    private int pos;
+
+    /**
+     * Parses the header of a replay.
+     *
+     * @param data bytes of the replay
+     * @throws IOException if it is not a replay of a known version
+     */
+    public ReplayPlayer(byte[] data) throws IOException {
+        this.data = data;
+        if (data.length < 4 || getFixedInt() != ReplayRecorder.MAGIC) {
+            throw new IOException("Not a replay");
+        }
+        long version = getVarLong();
+        if (version < 1 || version > ReplayRecorder.VERSION) {
+            throw new IOException("Unsupported replay version " + version);
+        }
+        recordedAt = getVarLong();
+        seed = ((long) getFixedInt() << 32) | (getFixedInt() & 0xFFFFFFFFL);
+        rules = new GameRules(getVarInt(), getVarInt(), getVarInt(), getVarInt(),
+                getVarInt(), getVarInt(), getVarInt());
+        // Version 1 replays predate match modes and were compared exactly
+        matchMode = version >= 2 ? MatchMode.fromOrdinal(getVarInt()) : MatchMode.EXACT;
+        for (int i = 0; i < dictionarySizes.length; i++) {
+            dictionarySizes[i] = getVarInt();
+        }
+        bodyStart = pos;
+    }
+
+    /**
+     * @param file a replay file
+     * @return a player for it
+     * @throws IOException if the file cannot be read or is not a replay
+     */
+    public static ReplayPlayer read(Path file) throws IOException {
+        return new ReplayPlayer(Files.readAllBytes(file));
+    }
+
+    /**
+     * ---------- PLAYBACK ----------
+     */
+
+    /**
+     * Plays the replay from the start.
+     *
+     * @param dictionary dictionary to draw words from; must be the one
+     *                   used when recording
+     * @param realTime   true to wait for the recorded time between events,
+     *                   false to run as fast as possible
+     * @return the outcome
+     */
+    public Result play(WordDictionary dictionary, boolean realTime) {
+        boolean sameDictionary = true;
+        for (Difficulty d : Difficulty.values()) {
+            sameDictionary &= dictionary.size(d) == dictionarySizes[d.ordinal()];
+        }
+
+        pos = bodyStart;
+        GameEngine engine = new GameEngine(rules, matchMode);
+        engine.start(new DeckWordSource(dictionary, seed), 0);
+        String text = "";
+        long micros = 0;
+        int events = 0;
+        int[] expected = null;
+        long wallStart = System.nanoTime();
+
+        while (pos < data.length && expected == null) {
+            long tag = getVarLong();
+            micros += tag >>> ReplayRecorder.TYPE_BITS;
+            long now = micros * 1_000;
+            if (realTime) {
+                long wait = wallStart + now - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            }
+            events++;
+
+            switch ((int) (tag & ((1 << ReplayRecorder.TYPE_BITS) - 1))) {
+                case ReplayRecorder.APPEND: {
+                    String next = text + (char) getVarInt();
+                    engine.typed(text, next);
+                    text = next;
+                    break;
+                }
+                case ReplayRecorder.DELETE: {
+                    String next = text.isEmpty() ? text : text.substring(0, text.length() - 1);
+                    engine.typed(text, next);
+                    text = next;
+                    break;
+                }
+                case ReplayRecorder.SET: {
+                    char[] chars = new char[getVarInt()];
+                    for (int i = 0; i < chars.length; i++) {
+                        chars[i] = (char) getVarInt();
+                    }
+                    String next = new String(chars);
+                    engine.typed(text, next);
+                    text = next;
+                    break;
+                }
+                case ReplayRecorder.SUBMIT:
+                    engine.submit(now);
+                    break;
+                case ReplayRecorder.PAUSE:
+                    engine.pause(now);
+                    break;
+                case ReplayRecorder.RESUME:
+                    engine.resume(now);
+                    break;
+                case ReplayRecorder.END:
+                    engine.tick(now);
+                    expected = new int[] {getVarInt(), getVarInt(), getVarInt(), getVarInt()};
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown replay event at byte " + pos);
+            }
+        }
+        return new Result(engine, events, sameDictionary, expected);
+    }
+
+    /**
+     * ---------- GETTERS ----------
+     */
+
+    /** @return wall-clock time the game was recorded, in epoch milliseconds */
+    public long getRecordedAt() {
+        return recordedAt;
+    }
+
+    /** @return seed of the word deck */
+    public long getSeed() {
+        return seed;
+    }
+
+    /** @return rules the game was played with */
+    public GameRules getRules() {
+        return rules;
+    }
+
+    /** @return how typed text was compared in the game */
+    public MatchMode getMatchMode() {
+        return matchMode;
+    }
+
+    /**
+     * ---------- DECODING ----------
+     */
+
+    private long getVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = data[pos++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint at byte " + pos);
+    }
+
+    private int getVarInt() {
+        return (int) getVarLong();
+    }
+
+    private int getFixedInt() {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = (value << 8) | (data[pos++] & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * ---------- COMMAND LINE ----------
+     */
+
+    /**
+     * Plays replay files, or every replay in the given folders, and checks
+     * their outcomes.
+     *
+     * @param args {@code [--realtime]} followed by files or folders
+     * @throws IOException if a replay cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        boolean realTime = false;
+        List<Path> files = new ArrayList<>();
+        for (String arg : args) {
+            if ("--realtime".equals(arg)) {
+                realTime = true;
+            } else if (Files.isDirectory(Path.of(arg))) {
+                try (DirectoryStream<Path> dir = Files.newDirectoryStream(Path.of(arg), "*" + EXTENSION)) {
+                    dir.forEach(files::add);
+                }
+            } else {
+                files.add(Path.of(arg));
+            }
+        }
+        if (files.isEmpty()) {
+            System.err.println("Uso: ReplayPlayer [--realtime] <archivo o carpeta>...");
+            System.exit(2);
+        }
+        files.sort(null);
+
+        WordDictionary dictionary = WordDictionary.shared();
+        int failed = 0;
+        long events = 0;
+        long start = System.nanoTime();
+        for (Path file : files) {
+            Result result = read(file).play(dictionary, realTime);
+            events += result.getEvents();
+            if (!result.matches()) {
+                failed++;
+            }
+            System.out.printf("%s %-4s %s%n", file.getFileName(), result.matches() ? "OK" : "DIFF", result);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("[ReplayPlayer] %d partidas, %d eventos en %.2f s (%.0f eventos/s), %d distintas%n",
+                files.size(), events, seconds, events / seconds, failed);
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.example.escriturarapida;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Records the input of a game so that {@link ReplayPlayer} can run it again.
+ *
+ * <p>A replay is the seed of the {@link DeckWordSource}, the
+ * {@link GameRules}, the {@link MatchMode}, the dictionary sizes and then one event per engine
+ * input. Every value is a varint. An event starts with
+ * {@code deltaMicros << 3 | type}, where the delta is the time since the
+ * previous event, followed by the event payload:</p>
+ * <ul>
+ *   <li>{@code APPEND}: the typed char.</li>
+ *   <li>{@code DELETE}: nothing; the last char was removed.</li>
+ *   <li>{@code SET}: length and chars of the new text, for any other edit.</li>
+ *   <li>{@code SUBMIT}, {@code PAUSE}, {@code RESUME}: nothing.</li>
+ *   <li>{@code END}: final state, level, successes and failures, so a
+ *       replay can check that it reproduced the game.</li>
+ * </ul>
+ * <p>A keystroke typically takes 4 bytes.</p>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class ReplayRecorder {
+
+    /** System property that turns recording off when set to {@code false}. */
+    public static final String REPLAYS_PROPERTY = "escritura.replays";
+    /** Folder of the data directory where replays are saved. */
+    public static final String REPLAYS_FOLDER = "replays";
+
+    static final int MAGIC = 0x45525250;
+    static final int VERSION = 2;
+
+    static final int APPEND = 0;
+    static final int DELETE = 1;
+    static final int SET = 2;
+    static final int SUBMIT = 3;
+    static final int PAUSE = 4;
+    static final int RESUME = 5;
+    static final int END = 6;
+    static final int TYPE_BITS = 3;
+
+    private static ExecutorService saver;
+
+    private byte[] bytes = new byte[1024];
+    private int size;
+    private boolean active;
+    private long lastMicros;
+    private long startNanos;
+    private int events;
+
+    /**
+     * ---------- RECORDING ----------
+     */
+
+    /**
+     * Starts a new replay, discarding the previous one. Call right after
+     * {@link GameEngine#start}.
+     *
+     * @param seed       seed of the deck the engine draws from
+     * @param rules      rules of the engine
+     * @param matchMode  match mode of the engine
+     * @param dictionary dictionary of the deck
+     * @param now        start time of the game, in nanoseconds
+     */
+    public void start(long seed, GameRules rules, MatchMode matchMode, WordDictionary dictionary, long now) {
+        size = 0;
+        events = 0;
+        lastMicros = 0;
+        startNanos = now;
+        active = true;
+
+        putFixedInt(MAGIC);
+        putVarLong(VERSION);
+        putVarLong(System.currentTimeMillis());
+        putFixedLong(seed);
+        putVarLong(rules.getInitialTime());
+        putVarLong(rules.getTimeStep());
+        putVarLong(rules.getLevelsPerStep());
+        putVarLong(rules.getMinTime());
+        putVarLong(rules.getEasyMaxLevel());
+        putVarLong(rules.getMediumMaxLevel());
+        putVarLong(rules.getFinalLevel());
+        putVarLong(matchMode.ordinal());
+        for (Difficulty d : Difficulty.values()) {
+            putVarLong(dictionary.size(d));
+        }
+    }
+
+    /**
+     * Records a change of the typed text.
+     *
+     * @param now     time of the change, in nanoseconds
+     * @param oldText text before the change
+     * @param newText text after the change
+     */
+    public void typed(long now, CharSequence oldText, CharSequence newText) {
+        if (!active) {
+            return;
+        }
+        int oldLength = oldText.length();
+        int newLength = newText.length();
+        if (newLength == oldLength + 1 && startsWith(newText, oldText)) {
+            event(now, APPEND);
+            putVarLong(newText.charAt(oldLength));
+        } else if (newLength == oldLength - 1 && startsWith(oldText, newText)) {
+            event(now, DELETE);
+        } else {
+            event(now, SET);
+            putVarLong(newLength);
+            for (int i = 0; i < newLength; i++) {
+                putVarLong(newText.charAt(i));
+            }
+        }
+    }
+
+    /**
+     * @param now time of the submission, in nanoseconds
+     */
+    public void submit(long now) {
+        if (active) {
+            event(now, SUBMIT);
+        }
+    }
+
+    /**
+     * @param now time of the pause, in nanoseconds
+     */
+    public void pause(long now) {
+        if (active) {
+            event(now, PAUSE);
+        }
+    }
+
+    /**
+     * @param now time of the resume, in nanoseconds
+     */
+    public void resume(long now) {
+        if (active) {
+            event(now, RESUME);
+        }
+    }
+
+    /**
+     * Closes the replay with the outcome of the game.
+     *
+     * @param now    time the game ended, in nanoseconds
+     * @param engine the finished engine
+     * @return the replay, or null if none was being recorded
+     */
+    public byte[] finish(long now, GameEngine engine) {
+        if (!active) {
+            return null;
+        }
+        event(now, END);
+        putVarLong(engine.getState().ordinal());
+        putVarLong(engine.getLevel());
+        putVarLong(engine.getSuccess());
+        putVarLong(engine.getFailure());
+        active = false;
+        return Arrays.copyOf(bytes, size);
+    }
+
+    /**
+     * Drops the replay in progress, e.g. when the player leaves the game.
+     */
+    public void discard() {
+        active = false;
+    }
+
+    /** @return true while a game is being recorded */
+    public boolean isActive() {
+        return active;
+    }
+
+    /** @return events recorded in the current replay */
+    public int getEventCount() {
+        return events;
+    }
+
+    /** @return bytes used by the current replay */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return false if recording was turned off with {@code -Descritura.replays=false}
+     */
+    public static boolean isEnabled() {
+        return !"false".equals(System.getProperty(REPLAYS_PROPERTY));
+    }
+
+    /**
+     * Saves a finished replay in the {@code replays} folder of the data
+     * directory. The file is written from a background thread.
+     *
+     * @param replay bytes returned by {@link #finish}
+     */
+    public static synchronized void saveAsync(byte[] replay) {
+        if (saver == null) {
+            saver = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "escritura-replays");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        saver.execute(() -> {
+            try {
+                Path dir = Files.createDirectories(AppData.file(REPLAYS_FOLDER));
+                Files.write(dir.resolve("partida-" + System.currentTimeMillis() + ReplayPlayer.EXTENSION), replay);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * ---------- ENCODING ----------
+     */
+
+    private void event(long now, int type) {
+        long micros = Math.max(lastMicros, (now - startNanos) / 1_000);
+        putVarLong((micros - lastMicros) << TYPE_BITS | type);
+        lastMicros = micros;
+        events++;
+    }
+
+    private static boolean startsWith(CharSequence text, CharSequence prefix) {
+        for (int i = 0; i < prefix.length(); i++) {
+            if (text.charAt(i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void putVarLong(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[size++] = (byte) value;
+    }
+
+    private void putFixedInt(int value) {
+        ensure(4);
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            bytes[size++] = (byte) (value >>> shift);
+        }
+    }
+
+    private void putFixedLong(long value) {
+        putFixedInt((int) (value >>> 32));
+        putFixedInt((int) value);
+    }
+
+    private void ensure(int extra) {
+        if (size + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+        }
+    }
+}
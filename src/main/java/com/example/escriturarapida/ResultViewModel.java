@@ -0,0 +1,95 @@
+package com.example.escriturarapida;
+
+import javafx.application.Platform;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+
+/**
+ * View model of the Game Over screen: the outcome of the last game
+ * handed to the {@link SessionStore} and its place on the
+ * {@link Leaderboard}. The rank is worked out on the leaderboard thread
+ * and shown when it arrives.
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class ResultViewModel extends ViewModel {
+
+    /**
+     * Outcome, as pseudo-classes of {@code .result-label}.
+     */
+    public enum Outcome {
+        NONE, WON, LOST
+    }
+
+    private final StringProperty resultText = new SimpleStringProperty(this, "resultText", "");
+    private final StringProperty typingText = new SimpleStringProperty(this, "typingText", "");
+    private final StringProperty rankText = new SimpleStringProperty(this, "rankText", "");
+    private final ObjectProperty<Outcome> outcome = new SimpleObjectProperty<>(this, "outcome", Outcome.NONE);
+    private SessionRecord shown;
+
+    @Override
+    protected void refresh() {
+        SessionRecord last = SessionStore.lastRecorded();
+        if (last == null || last == shown) {
+            return;
+        }
+        shown = last;
+        outcome.set(last.isWon() ? Outcome.WON : Outcome.LOST);
+        update(resultText, last.isWon() ? "¡Ganaste!" : "Perdiste");
+        TypingStats typing = last.getTyping();
+        update(typingText, typing.formatWpm() + "\n" + typing.formatInterKey() + "\n" + typing.formatWordTime());
+        update(rankText, "Calculando puesto…");
+        long key = Leaderboard.key(last);
+        // Queued behind the game itself, so the board already holds it
+        SessionStore.whenRecorded(() -> Leaderboard.whenReady(board -> {
+            String text = formatRank(board, key);
+            Platform.runLater(() -> {
+                if (shown == last) {
+                    update(rankText, text);
+                }
+            });
+        }));
+    }
+
+    /**
+     * Builds the place of the game on the global board and on the board of
+     * its difficulty, and the best game so far.
+     *
+     * @param board the leaderboards
+     * @param key   ranking key of the game
+     * @return the text of the rank label
+     */
+    private static String formatRank(Leaderboard board, long key) {
+        Difficulty difficulty = Leaderboard.difficultyOf(key);
+        long[] best = board.top(1);
+        return String.format("Puesto %,d de %,d · %s: %,d de %,d%nRécord: %s",
+                board.rank(key), board.size(), difficulty.getLabel(),
+                board.difficultyRank(key), board.size(difficulty),
+                best.length > 0 ? Leaderboard.format(best[0]) : "-");
+    }
+
+    /** @return "¡Ganaste!" or "Perdiste" */
+    public StringProperty resultTextProperty() {
+        return resultText;
+    }
+
+    /** @return typing speed, inter-key latency and time per word */
+    public StringProperty typingTextProperty() {
+        return typingText;
+    }
+
+    /** @return place on the leaderboards and the best game */
+    public StringProperty rankTextProperty() {
+        return rankText;
+    }
+
+    /** @return outcome of the game shown */
+    public ObjectProperty<Outcome> outcomeProperty() {
+        return outcome;
+    }
+}
@@ -0,0 +1,376 @@
+package com.example.escriturarapida;
+
+import javafx.concurrent.Task;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Central registry and router for every screen of the application.
+ *
+ * <p>Each FXML file is parsed once and its root node and controller are
+ * kept in memory. Navigating between screens swaps the root of a single
+ * {@link Scene} instead of building a new scene graph on every click, so
+ * XML parsing, controller reflection, CSS resolution and image decoding
+ * only happen the first time a screen is loaded.</p>
+ *
+ * <p>Apart from the first screen, that loading happens on a background
+ * thread: a {@link Task} builds the scene graph and the JavaFX thread only
+ * stores the result and swaps it in, so the countdown, input and rendering
+ * never wait for a screen to be parsed.</p>
+ *
+ * <p>Main responsibilities:</p>
+ * <ul>
+ *   <li>Building screens off the JavaFX thread and caching their root and controller.</li>
+ *   <li>Swapping roots on the shared scene of the primary stage.</li>
+ *   <li>Calling the {@link ScreenLifecycle} hooks of stateful controllers.</li>
+ *   <li>Measuring load and switch times per screen and handing them to {@link Telemetry}.</li>
+ * </ul>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class SceneRouter {
+
+    /**
+     * Screens known by the router, each backed by one FXML file.
+     */
+    public enum Screen {
+        MAIN_MENU("MainMenu.fxml"),
+        GAME("GameMenu.fxml"),
+        GAME_OVER("GameOver.fxml"),
+        STATS("StatsMenu.fxml"),
+        HELP("HelpMenu.fxml");
+
+        private final String fxmlFile;
+
+        Screen(String fxmlFile) {
+            this.fxmlFile = fxmlFile;
+        }
+
+        /** @return the FXML file that defines this screen */
+        public String getFxmlFile() {
+            return fxmlFile;
+        }
+    }
+
+    /**
+     * ---------- CONSTANTS ----------
+     */
+    private static final double WIDTH = 600;
+    private static final double HEIGHT = 600;
+    private static final ScreenLifecycle NO_LIFECYCLE = new ScreenLifecycle() {
+    };
+
+    private static SceneRouter instance;
+
+    /**
+     * A screen built off the JavaFX thread, waiting to be cached.
+     */
+    private static final class Built {
+        final Parent root;
+        final Object controller;
+        final long nanos;
+
+        Built(Parent root, Object controller, long nanos) {
+            this.root = root;
+            this.controller = controller;
+            this.nanos = nanos;
+        }
+    }
+
+    /**
+     * ---------- STATE ----------
+     */
+    private final Stage stage;
+    private Scene scene;
+    private Screen current;
+
+    private final Map<Screen, Parent> roots = new EnumMap<>(Screen.class);
+    private final Map<Screen, Object> controllers = new EnumMap<>(Screen.class);
+    private final long[] loadTimes = new long[Screen.values().length];
+    private final long[] switchTimes = new long[Screen.values().length];
+    /** Screens being built, with what to run once each is cached (FX thread only). */
+    private final Map<Screen, List<Runnable>> preparing = new EnumMap<>(Screen.class);
+    private final Set<Screen> failed = EnumSet.noneOf(Screen.class);
+    private final ExecutorService builder = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "escritura-scenes");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private Screen requested;
+    private Screen pendingScreen;
+    private long pendingSwitchStart;
+    private long pulseStart;
+
+    private SceneRouter(Stage stage) {
+        this.stage = stage;
+    }
+
+    /**
+     * ---------- INITIALIZATION ----------
+     */
+
+    /**
+     * Creates the router for the primary stage. Must be called once, on the
+     * JavaFX application thread, before any screen is shown.
+     *
+     * @param stage the primary stage
+     * @return the router instance
+     */
+    public static SceneRouter initialize(Stage stage) {
+        instance = new SceneRouter(stage);
+        return instance;
+    }
+
+    /**
+     * @return the router created by {@link #initialize(Stage)}
+     */
+    public static SceneRouter get() {
+        if (instance == null) {
+            throw new IllegalStateException("SceneRouter has not been initialized");
+        }
+        return instance;
+    }
+
+    /**
+     * Loads every screen that is not cached yet.
+     *
+     * @throws IOException if an FXML file cannot be loaded
+     */
+    public void preloadAll() throws IOException {
+        for (Screen screen : Screen.values()) {
+            load(screen);
+        }
+    }
+
+    /**
+     * Builds the screens that are not cached yet one at a time on the
+     * background thread, so pulses and input keep being handled while they
+     * load. Meant to be called once the first frame is up.
+     *
+     * @param whenDone run on the JavaFX thread after the last screen has been cached
+     */
+    public void preloadLater(Runnable whenDone) {
+        for (Screen screen : Screen.values()) {
+            if (!roots.containsKey(screen) && !failed.contains(screen)) {
+                prepare(screen, () -> preloadLater(whenDone));
+                return;
+            }
+        }
+        whenDone.run();
+    }
+
+    /**
+     * Loads a screen on the calling thread and caches its root and
+     * controller. Does nothing if the screen is already cached. Only the
+     * first screen, which has nothing to show meanwhile, should be loaded
+     * this way on the JavaFX thread; the rest go through {@link #prepare}.
+     *
+     * @param screen the screen to load
+     * @throws IOException if the FXML file cannot be loaded
+     */
+    public void load(Screen screen) throws IOException {
+        if (roots.containsKey(screen)) {
+            return;
+        }
+        commit(screen, build(screen));
+    }
+
+    /**
+     * Builds a screen on the background thread and caches it on the JavaFX
+     * thread. FXML parsing, controller initialization and image decoding
+     * all happen off the JavaFX thread; only storing the result runs on it.
+     * Must be called on the JavaFX thread.
+     *
+     * @param screen  the screen to build
+     * @param onReady run on the JavaFX thread once the screen is cached, or
+     *                once building it has failed; may be null
+     */
+    public void prepare(Screen screen, Runnable onReady) {
+        if (roots.containsKey(screen)) {
+            if (onReady != null) {
+                onReady.run();
+            }
+            return;
+        }
+        List<Runnable> waiting = preparing.get(screen);
+        if (waiting == null) {
+            waiting = new ArrayList<>();
+            preparing.put(screen, waiting);
+            Task<Built> task = new Task<>() {
+                @Override
+                protected Built call() throws IOException {
+                    return build(screen);
+                }
+            };
+            task.setOnSucceeded(e -> {
+                commit(screen, task.getValue());
+                ready(screen);
+            });
+            task.setOnFailed(e -> {
+                Telemetry.debug("[SceneRouter] No se pudo construir %s%n", screen.getFxmlFile());
+                task.getException().printStackTrace();
+                failed.add(screen);
+                ready(screen);
+            });
+            builder.execute(task);
+        }
+        if (onReady != null) {
+            waiting.add(onReady);
+        }
+    }
+
+    /**
+     * Parses the FXML of a screen. Runs on any thread: the nodes are not
+     * attached to a live scene yet.
+     */
+    private static Built build(Screen screen) throws IOException {
+        long start = System.nanoTime();
+        FXMLLoader loader = new FXMLLoader(SceneRouter.class.getResource(screen.getFxmlFile()));
+        Parent root = loader.load();
+        return new Built(root, loader.getController(), System.nanoTime() - start);
+    }
+
+    private void commit(Screen screen, Built built) {
+        loadTimes[screen.ordinal()] = built.nanos;
+        Telemetry.get().onFxmlLoad(screen, built.nanos);
+        roots.put(screen, built.root);
+        controllers.put(screen, built.controller);
+    }
+
+    private void ready(Screen screen) {
+        List<Runnable> waiting = preparing.remove(screen);
+        if (waiting != null) {
+            for (Runnable onReady : waiting) {
+                onReady.run();
+            }
+        }
+    }
+
+    /**
+     * ---------- NAVIGATION ----------
+     */
+
+    /**
+     * Shows a screen on the primary stage. A cached screen is swapped in at
+     * once; any other is built in the background first and shown when
+     * ready, unless another screen has been asked for in the meantime.
+     * Only the very first screen is loaded on the calling thread.
+     *
+     * @param screen the screen to show
+     * @throws IOException if the first screen cannot be loaded
+     */
+    public void show(Screen screen) throws IOException {
+        long start = System.nanoTime();
+        requested = screen;
+        if (scene != null && !roots.containsKey(screen)) {
+            prepare(screen, () -> {
+                if (requested == screen && roots.containsKey(screen)) {
+                    swap(screen, start);
+                }
+            });
+            return;
+        }
+        load(screen);
+        swap(screen, start);
+    }
+
+    private void swap(Screen screen, long start) {
+        if (current != null && current != screen) {
+            lifecycle(current).onHide();
+        }
+
+        Parent root = roots.get(screen);
+        if (scene == null) {
+            scene = new Scene(root, WIDTH, HEIGHT);
+            scene.addPreLayoutPulseListener(() -> pulseStart = System.nanoTime());
+            scene.addPostLayoutPulseListener(this::recordPulse);
+            stage.setScene(scene);
+        } else if (scene.getRoot() != root) {
+            scene.setRoot(root);
+        }
+        current = screen;
+        lifecycle(screen).onShow();
+
+        pendingScreen = screen;
+        pendingSwitchStart = start;
+    }
+
+    /**
+     * Reports the CSS and layout time of every pulse of the scene, and
+     * the switch time once the new root has gone through its first layout
+     * pass, so CSS and layout costs are included in the figure.
+     */
+    private void recordPulse() {
+        long now = System.nanoTime();
+        Telemetry.get().onPulse(now - pulseStart);
+        if (pendingScreen == null) {
+            return;
+        }
+        long elapsed = now - pendingSwitchStart;
+        switchTimes[pendingScreen.ordinal()] = elapsed;
+        Telemetry.get().onSceneSwitch(pendingScreen, elapsed);
+        pendingScreen = null;
+    }
+
+    private ScreenLifecycle lifecycle(Screen screen) {
+        Object controller = controllers.get(screen);
+        if (controller instanceof ScreenLifecycle) {
+            return (ScreenLifecycle) controller;
+        }
+        return NO_LIFECYCLE;
+    }
+
+    /**
+     * ---------- GETTERS ----------
+     */
+
+    /** @return the primary stage */
+    public Stage getStage() {
+        return stage;
+    }
+
+    /** @return the screen currently shown, or {@code null} before the first {@link #show} */
+    public Screen getCurrent() {
+        return current;
+    }
+
+    /**
+     * @param screen the screen to query
+     * @return the controller of a cached screen, or {@code null} if not loaded
+     */
+    public Object getController(Screen screen) {
+        return controllers.get(screen);
+    }
+
+    /**
+     * @param screen the screen to query
+     * @return FXML load time in nanoseconds, or 0 if not loaded yet
+     */
+    public long getLoadTimeNanos(Screen screen) {
+        return loadTimes[screen.ordinal()];
+    }
+
+    /**
+     * @param screen the screen to query
+     * @return duration of the last switch to this screen in nanoseconds, or 0
+     */
+    public long getSwitchTimeNanos(Screen screen) {
+        return switchTimes[screen.ordinal()];
+    }
+}
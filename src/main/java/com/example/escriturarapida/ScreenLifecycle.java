@@ -0,0 +1,29 @@
+package com.example.escriturarapida;
+
+/**
+ * Lifecycle hooks for controllers whose screen is cached by the {@link SceneRouter}.
+ *
+ * <p>Because each FXML file is loaded only once, {@code initialize()} runs a
+ * single time per application run. Controllers that keep per-visit state
+ * implement these hooks to reset or refresh it every time their screen is
+ * shown or hidden.</p>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public interface ScreenLifecycle {
+
+    /**
+     * Called right after the screen's root has been attached to the scene.
+     */
+    default void onShow() {
+    }
+
+    /**
+     * Called right before the screen's root is replaced by another screen.
+     */
+    default void onHide() {
+    }
+}
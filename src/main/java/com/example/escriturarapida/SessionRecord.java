@@ -0,0 +1,178 @@
+package com.example.escriturarapida;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32C;
+
+/**
+ * Result of one finished game, as stored in the {@link SessionStore}.
+ *
+ * <p>Every record takes exactly {@link #SIZE} bytes, so the n-th session of
+ * the log is found by multiplication instead of a scan:</p>
+ * <pre>
+ *   0  long  start, epoch millis        36  float wpm
+ *   8  long  end, epoch millis          40  int[6] percentiles, micros
+ *  16  long  duration, nanos                  (inter-key, word, key-to-render;
+ *  24  int   level reached                     p50 and p99 each)
+ *  28  int   successes                  64  byte flags (bit 0: won)
+ *  32  int   failures                   68  int  CRC32C of bytes 0-67
+ * </pre>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class SessionRecord {
+
+    /** Bytes per record. */
+    public static final int SIZE = 72;
+
+    private static final int FLAGS_OFFSET = 64;
+    private static final int CRC_OFFSET = 68;
+    private static final byte WON = 1;
+
+    private final long startedAt;
+    private final long endedAt;
+    private final long durationNanos;
+    private final int level;
+    private final int successes;
+    private final int failures;
+    private final boolean won;
+    private final TypingStats typing;
+
+    /**
+     * @param startedAt     wall-clock start, in epoch milliseconds
+     * @param endedAt       wall-clock end, in epoch milliseconds
+     * @param durationNanos monotonic duration of the game, in nanoseconds
+     * @param level         last level reached
+     * @param successes     accepted words
+     * @param failures      rejected submissions
+     * @param won           true if the game was won
+     * @param typing        typing speed and latency of the game
+     */
+    public SessionRecord(long startedAt, long endedAt, long durationNanos, int level, int successes,
+                         int failures, boolean won, TypingStats typing) {
+        this.startedAt = startedAt;
+        this.endedAt = endedAt;
+        this.durationNanos = durationNanos;
+        this.level = level;
+        this.successes = successes;
+        this.failures = failures;
+        this.won = won;
+        this.typing = typing;
+    }
+
+    /**
+     * ---------- ENCODING ----------
+     */
+
+    /**
+     * Writes the record at the position of the buffer and advances it by {@link #SIZE}.
+     *
+     * @param out the buffer to write into
+     */
+    public void writeTo(ByteBuffer out) {
+        int start = out.position();
+        out.putLong(startedAt);
+        out.putLong(endedAt);
+        out.putLong(durationNanos);
+        out.putInt(level);
+        out.putInt(successes);
+        out.putInt(failures);
+        out.putFloat((float) typing.getWpm());
+        out.putInt(micros(typing.getInterKeyP50()));
+        out.putInt(micros(typing.getInterKeyP99()));
+        out.putInt(micros(typing.getWordTimeP50()));
+        out.putInt(micros(typing.getWordTimeP99()));
+        out.putInt(micros(typing.getKeyToRenderP50()));
+        out.putInt(micros(typing.getKeyToRenderP99()));
+        out.put(won ? WON : 0);
+        out.put((byte) 0).put((byte) 0).put((byte) 0);
+        out.putInt(checksum(out, start));
+    }
+
+    /**
+     * Reads a record at the position of the buffer and advances it by {@link #SIZE}.
+     *
+     * @param in the buffer to read from
+     * @return the record, or null if its checksum does not match (torn write)
+     */
+    public static SessionRecord readFrom(ByteBuffer in) {
+        int start = in.position();
+        int expected = checksum(in, start);
+        if (in.getInt(start + CRC_OFFSET) != expected) {
+            in.position(start + SIZE);
+            return null;
+        }
+        long startedAt = in.getLong();
+        long endedAt = in.getLong();
+        long duration = in.getLong();
+        int level = in.getInt();
+        int successes = in.getInt();
+        int failures = in.getInt();
+        float wpm = in.getFloat();
+        TypingStats typing = new TypingStats(wpm, nanos(in.getInt()), nanos(in.getInt()), nanos(in.getInt()),
+                nanos(in.getInt()), nanos(in.getInt()), nanos(in.getInt()));
+        boolean won = (in.get(start + FLAGS_OFFSET) & WON) != 0;
+        in.position(start + SIZE);
+        return new SessionRecord(startedAt, endedAt, duration, level, successes, failures, won, typing);
+    }
+
+    private static int checksum(ByteBuffer buffer, int start) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate().position(start).limit(start + CRC_OFFSET));
+        return (int) crc.getValue();
+    }
+
+    private static int micros(long nanos) {
+        return (int) Math.min(Integer.MAX_VALUE, nanos / 1_000);
+    }
+
+    private static long nanos(int micros) {
+        return micros * 1_000L;
+    }
+
+    /**
+     * ---------- GETTERS ----------
+     */
+
+    /** @return wall-clock start, in epoch milliseconds */
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    /** @return wall-clock end, in epoch milliseconds */
+    public long getEndedAt() {
+        return endedAt;
+    }
+
+    /** @return duration of the game, in nanoseconds */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /** @return last level reached */
+    public int getLevel() {
+        return level;
+    }
+
+    /** @return accepted words */
+    public int getSuccesses() {
+        return successes;
+    }
+
+    /** @return rejected submissions */
+    public int getFailures() {
+        return failures;
+    }
+
+    /** @return true if the game was won */
+    public boolean isWon() {
+        return won;
+    }
+
+    /** @return typing speed and latency, at microsecond precision once stored */
+    public TypingStats getTyping() {
+        return typing;
+    }
+}
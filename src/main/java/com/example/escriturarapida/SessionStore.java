@@ -0,0 +1,458 @@
+package com.example.escriturarapida;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongConsumer;
+
+/**
+ * Append-only log of every finished game.
+ *
+ * <p>The file is a 16-byte header ({@code 'ERSS'}, version, record size)
+ * followed by fixed-size {@link SessionRecord}s. Opening it only reads the
+ * header and the last record, so it takes the same time for 10 sessions as
+ * for millions; a record left half-written by a crash is cut off.</p>
+ *
+ * <p>{@link #append} only updates memory and queues the record, so it is
+ * O(1) and safe to call from the FX thread. A background writer drains the
+ * queue, writes everything pending with one positional write and then calls
+ * {@code force} once for the whole batch. A batch that cannot be written
+ * is kept and retried a few times; if the disk keeps failing the store
+ * stops writing and carries on in memory, like {@link #inMemory()}: games
+ * still get increasing positions, only the log stops growing.</p>
+ *
+ * <p>The game hands finished games to the shared log through
+ * {@link #record}, which returns at once: the log is opened and the game
+ * appended on a records thread, and the screens read the game from
+ * {@link #lastRecorded()} meanwhile.</p>
+ *
+ * <p>Main responsibilities:</p>
+ * <ul>
+ *   <li>Recording each game without blocking the UI.</li>
+ *   <li>Giving the screens the last game through {@link #latest()}.</li>
+ *   <li>Reading any past session by index.</li>
+ * </ul>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class SessionStore implements Closeable {
+
+    /** Name of the log inside the data directory. */
+    public static final String FILE_NAME = "sessions.log";
+
+    private static final int MAGIC = 0x45525353;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    /** Attempts at writing a batch before giving up on the file. */
+    private static final int WRITE_ATTEMPTS = 5;
+    private static final long RETRY_DELAY_MS = 200;
+    private static final SessionRecord STOP = new SessionRecord(0, 0, 0, 0, 0, 0, false, TypingStats.EMPTY);
+
+    private static final ExecutorService RECORDER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "escritura-records");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static SessionStore shared;
+    private static final AtomicReference<SessionRecord> lastRecorded = new AtomicReference<>();
+
+    /**
+     * ---------- STATE ----------
+     */
+    private final FileChannel channel;
+    private final LinkedBlockingQueue<SessionRecord> pending = new LinkedBlockingQueue<>();
+    private final AtomicLong count;
+    private final Object flushLock = new Object();
+    private final Thread writer;
+    private volatile SessionRecord latest;
+    private volatile long written;
+    private volatile boolean closed;
+    private volatile boolean failed;
+
+    private SessionStore(FileChannel channel, long records, SessionRecord latest) {
+        this.channel = channel;
+        this.count = new AtomicLong(records);
+        this.written = records;
+        this.latest = latest;
+        this.writer = new Thread(this::writeLoop, "escritura-sessions");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * ---------- OPENING ----------
+     */
+
+    /**
+     * Opens a log, creating it if it does not exist.
+     *
+     * @param file the log file
+     * @return the store
+     * @throws IOException if the file cannot be opened or is not a session log
+     */
+    public static SessionStore open(Path file) throws IOException {
+        return open(FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE), file);
+    }
+
+    /**
+     * Opens a log on a channel that is already open; closes it if the log
+     * cannot be opened.
+     *
+     * @param channel the log, open for reading and writing
+     * @param file    the log file, for messages
+     * @return the store
+     * @throws IOException if the channel cannot be read or is not a session log
+     */
+    static SessionStore open(FileChannel channel, Path file) throws IOException {
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            if (channel.size() < HEADER_SIZE) {
+                header.putInt(MAGIC).putInt(VERSION).putInt(SessionRecord.SIZE).putInt(0).flip();
+                writeFully(channel, header, 0);
+                channel.truncate(HEADER_SIZE);
+                channel.force(true);
+            } else {
+                readFully(channel, header, 0);
+                if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION
+                        || header.getInt(8) != SessionRecord.SIZE) {
+                    throw new IOException("Not a session log: " + file);
+                }
+            }
+
+            long records = (channel.size() - HEADER_SIZE) / SessionRecord.SIZE;
+            SessionRecord last = null;
+            while (records > 0 && (last = read(channel, records - 1)) == null) {
+                records--;
+            }
+            if (channel.size() != offsetOf(records)) {
+                Telemetry.debug("[SessionStore] %s: descartados %d bytes incompletos%n",
+                        file, channel.size() - offsetOf(records));
+                channel.truncate(offsetOf(records));
+            }
+            return new SessionStore(channel, records, last);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return a store that keeps sessions in memory only, used when the data
+     *         directory cannot be written
+     */
+    public static SessionStore inMemory() {
+        return new SessionStore(null, 0, null);
+    }
+
+    /**
+     * Returns the log of the player, opening it on first use. Falls back to
+     * memory if the file cannot be opened, so the game still works.
+     *
+     * @return the shared store
+     */
+    public static synchronized SessionStore shared() {
+        if (shared == null) {
+            try {
+                shared = open(AppData.file(FILE_NAME));
+            } catch (IOException e) {
+                e.printStackTrace();
+                shared = inMemory();
+            }
+            lastRecorded.compareAndSet(null, shared.latest());
+        }
+        return shared;
+    }
+
+    /**
+     * Starts opening the shared log on the records thread, so the screens
+     * can show the last game of a previous run.
+     */
+    public static void openInBackground() {
+        RECORDER.execute(SessionStore::shared);
+    }
+
+    /**
+     * Hands a finished game to the shared log. Returns immediately; the
+     * log is opened if needed and the game appended on the records thread.
+     *
+     * @param session      the game
+     * @param whenAppended receives the position of the game in the log, on
+     *                     the records thread
+     */
+    public static void record(SessionRecord session, LongConsumer whenAppended) {
+        lastRecorded.set(session);
+        RECORDER.execute(() -> whenAppended.accept(shared().append(session)));
+    }
+
+    /**
+     * Runs an action on the records thread once every game handed to
+     * {@link #record} before it has been appended, and its follow-up run.
+     *
+     * @param action what to run
+     */
+    public static void whenRecorded(Runnable action) {
+        RECORDER.execute(action);
+    }
+
+    /**
+     * @return the last game handed to {@link #record}, or the last game of
+     *         the shared log once it is open; null if there is none yet
+     */
+    public static SessionRecord lastRecorded() {
+        return lastRecorded.get();
+    }
+
+    /**
+     * Waits for the games handed to {@link #record} so far to be appended.
+     * Called on exit, before the statistics and leaderboard are closed.
+     */
+    public static void finishRecording() {
+        RECORDER.shutdown();
+        try {
+            RECORDER.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes pending sessions and closes the shared store, if it was opened.
+     */
+    public static synchronized void closeShared() {
+        if (shared != null) {
+            shared.close();
+            shared = null;
+        }
+    }
+
+    /**
+     * ---------- WRITING ----------
+     */
+
+    /**
+     * Records a finished game. Returns immediately; the record becomes
+     * durable when the background writer syncs its batch. Meant to be
+     * called from a single thread, the FX thread in the game.
+     *
+     * @param record the game to record
+     * @return position of the game in the log
+     */
+    public long append(SessionRecord record) {
+        if (closed) {
+            throw new IllegalStateException("SessionStore is closed");
+        }
+        latest = record;
+        long index = count.getAndIncrement();
+        if (channel != null && !failed) {
+            pending.add(record);
+        }
+        return index;
+    }
+
+    /**
+     * Blocks until every session appended so far is on disk, or until the
+     * writer has given up on the file.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void flush() throws InterruptedException {
+        if (channel == null) {
+            return;
+        }
+        long target = count.get();
+        synchronized (flushLock) {
+            while (written < target && writer.isAlive() && !failed) {
+                flushLock.wait(100);
+            }
+        }
+    }
+
+    /**
+     * Writes pending sessions and closes the file.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        pending.add(STOP);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Body of the writer thread: waits for a record, takes everything else
+     * already queued and writes the batch with a single sync.
+     */
+    private void writeLoop() {
+        List<SessionRecord> batch = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(SessionRecord.SIZE * 16);
+        boolean running = channel != null;
+        while (running) {
+            try {
+                batch.add(pending.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            pending.drainTo(batch);
+            if (batch.remove(STOP)) {
+                running = false;
+            }
+            if (batch.isEmpty()) {
+                continue;
+            }
+
+            if (buffer.capacity() < batch.size() * SessionRecord.SIZE) {
+                buffer = ByteBuffer.allocate(batch.size() * SessionRecord.SIZE);
+            }
+            buffer.clear();
+            for (SessionRecord record : batch) {
+                record.writeTo(buffer);
+            }
+            buffer.flip();
+            if (!writeBatch(buffer, batch.size())) {
+                // The count is left alone, so later games still get new
+                // positions; flush() returns once it sees the failure
+                pending.clear();
+                synchronized (flushLock) {
+                    failed = true;
+                    flushLock.notifyAll();
+                }
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Writes and syncs one batch after the last written record, retrying
+     * with a growing delay. A half-written attempt is overwritten by the
+     * next one, since every attempt starts at the same offset.
+     *
+     * @return false if every attempt failed
+     */
+    private boolean writeBatch(ByteBuffer buffer, int records) {
+        long delay = RETRY_DELAY_MS;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                buffer.rewind();
+                writeFully(channel, buffer, offsetOf(written));
+                channel.force(false);
+                synchronized (flushLock) {
+                    written += records;
+                    flushLock.notifyAll();
+                }
+                return true;
+            } catch (IOException e) {
+                e.printStackTrace();
+                if (attempt == WRITE_ATTEMPTS || closed) {
+                    return false;
+                }
+            }
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                return false;
+            }
+            delay *= 2;
+        }
+    }
+
+    /**
+     * ---------- READING ----------
+     */
+
+    /**
+     * @return the last game recorded, or null if there is none
+     */
+    public SessionRecord latest() {
+        return latest;
+    }
+
+    /**
+     * @return number of games recorded, including those not yet on disk
+     */
+    public long size() {
+        return count.get();
+    }
+
+    /**
+     * @return number of games already on disk; stays behind {@link #size()}
+     *         once the writer has given up on the file
+     */
+    public long getWrittenCount() {
+        return written;
+    }
+
+    /**
+     * Reads one session from disk.
+     *
+     * @param index position in the log, below {@link #getWrittenCount()}
+     * @return the session
+     * @throws IOException if it cannot be read or is corrupt
+     */
+    public SessionRecord read(long index) throws IOException {
+        if (channel == null || index < 0 || index >= written) {
+            throw new IndexOutOfBoundsException("Session " + index + " of " + written);
+        }
+        SessionRecord record = read(channel, index);
+        if (record == null) {
+            throw new IOException("Corrupt session " + index);
+        }
+        return record;
+    }
+
+    private static SessionRecord read(FileChannel channel, long index) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SessionRecord.SIZE);
+        readFully(channel, buffer, offsetOf(index));
+        return SessionRecord.readFrom(buffer);
+    }
+
+    private static long offsetOf(long index) {
+        return HEADER_SIZE + index * SessionRecord.SIZE;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n < 0) {
+                throw new IOException("Unexpected end of session log");
+            }
+            position += n;
+        }
+        buffer.flip();
+    }
+}
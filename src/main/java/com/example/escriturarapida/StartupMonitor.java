@@ -0,0 +1,118 @@
+package com.example.escriturarapida;
+
+import javafx.application.Platform;
+import javafx.scene.Scene;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Measures the time from the start of the JVM process to the first frame.
+ *
+ * <p>The start is the process start time reported by the operating system,
+ * so JVM boot, class loading and FXML loading are all included. The first
+ * frame is the first layout pass of the scene after the stage is shown.</p>
+ *
+ * <p>Used by the {@code fast-start} build profile through three system
+ * properties:</p>
+ * <ul>
+ *   <li>{@code escritura.startupReport}: file that gets one line per run,
+ *       {@code label ms}.</li>
+ *   <li>{@code escritura.startupLabel}: label of that line.</li>
+ *   <li>{@code escritura.exitAfterStartup=true}: quit once every screen has
+ *       been loaded, for training and measurement runs.</li>
+ * </ul>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class StartupMonitor {
+
+    private StartupMonitor() {
+    }
+
+    /**
+     * Runs an action right after the first frame of a scene.
+     *
+     * @param scene           the scene about to be shown
+     * @param afterFirstFrame what to do once it has been laid out
+     */
+    public static void onFirstFrame(Scene scene, Runnable afterFirstFrame) {
+        Runnable[] listener = new Runnable[1];
+        listener[0] = () -> {
+            scene.removePostLayoutPulseListener(listener[0]);
+            report(System.currentTimeMillis());
+            Platform.runLater(afterFirstFrame);
+        };
+        scene.addPostLayoutPulseListener(listener[0]);
+    }
+
+    /**
+     * Called when start-up work deferred after the first frame is done.
+     * Quits if the run was only meant to measure or train start-up.
+     */
+    public static void startupComplete() {
+        if (Boolean.getBoolean("escritura.exitAfterStartup")) {
+            Platform.exit();
+        }
+    }
+
+    /**
+     * Prints a start-up report written by previous runs: the latest time of
+     * each label and its gain against the first label. Run by the
+     * {@code fast-start} profile.
+     *
+     * @param args path of the report file
+     * @throws IOException if the report cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        Map<String, Long> latest = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(Path.of(args[0]), StandardCharsets.UTF_8)) {
+            String[] parts = line.trim().split(" ");
+            if (parts.length == 2) {
+                latest.put(parts[0], Long.parseLong(parts[1]));
+            }
+        }
+        System.out.println("[StartupMonitor] tiempo hasta el primer frame:");
+        long first = -1;
+        for (Map.Entry<String, Long> entry : latest.entrySet()) {
+            long millis = entry.getValue();
+            if (first < 0) {
+                first = millis;
+                System.out.printf("  %-10s %6d ms%n", entry.getKey(), millis);
+            } else {
+                System.out.printf("  %-10s %6d ms (%+.1f%%)%n", entry.getKey(), millis, (millis - first) * 100.0 / first);
+            }
+        }
+    }
+
+    private static void report(long nowMillis) {
+        Instant start = ProcessHandle.current().info().startInstant().orElse(null);
+        if (start == null) {
+            System.out.println("[StartupMonitor] hora de arranque del proceso no disponible");
+            return;
+        }
+        long millis = Duration.between(start, Instant.ofEpochMilli(nowMillis)).toMillis();
+        String label = System.getProperty("escritura.startupLabel", "arranque");
+        System.out.printf("[StartupMonitor] %s: primer frame a los %d ms%n", label, millis);
+
+        String report = System.getProperty("escritura.startupReport");
+        if (report != null) {
+            try {
+                Files.writeString(Path.of(report), label + " " + millis + System.lineSeparator(),
+                        StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,738 @@
+package com.example.escriturarapida;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Lifetime and recent statistics of the player, kept up to date one event
+ * at a time.
+ *
+ * <p>Nothing here rescans the history: every finished word and every
+ * finished game updates running sums, so reading any figure is O(1) no
+ * matter how many games have been played. The recent figures use a ring of
+ * the last {@code 2 * WINDOW} games split into two halves, which gives both
+ * the rolling averages and the accuracy trend (newest half against the one
+ * before it).</p>
+ *
+ * <p>The state is saved to {@code stats.snapshot} every few games and on
+ * exit, together with the number of sessions it covers, so a game does not
+ * rewrite every word count. On start-up the snapshot is loaded and only the
+ * sessions appended to the {@link SessionStore} after it are replayed. The
+ * log only holds game figures, so the word counts and the typing mistakes
+ * exist in the snapshot alone: those of the games after the last snapshot
+ * are lost if the game does not exit normally, and all of them start again
+ * from zero if the snapshot is lost or cannot be read, while the game
+ * figures are rebuilt in full.</p>
+ *
+ * <p>The shared statistics live on their own thread: they are loaded there
+ * at start-up, and words, games and queries are handed to it through
+ * {@link #whenReady}, which runs them in order once the snapshot is loaded.
+ * The FX thread never loads, replays or saves anything.</p>
+ *
+ * <p>Main responsibilities:</p>
+ * <ul>
+ *   <li>Average and best level, lifetime and over the last games.</li>
+ *   <li>Accuracy, lifetime, recent and its trend.</li>
+ *   <li>Success rate per difficulty.</li>
+ *   <li>Error rate per word and the most failed words.</li>
+ *   <li>Typing mistakes by {@link TypoAnalyzer.Kind kind}, and the chars
+ *       most often typed in place of others.</li>
+ * </ul>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class StatsAggregator {
+
+    /** Name of the snapshot inside the data directory. */
+    public static final String FILE_NAME = "stats.snapshot";
+    /** Games in each half of the recent window. */
+    public static final int WINDOW = 20;
+    /** Number of most failed words kept. */
+    public static final int TOP_WORDS = 3;
+    /** Number of most frequent confusions kept. */
+    public static final int TOP_CONFUSIONS = 3;
+
+    private static final int MAGIC = 0x45525354;
+    private static final int VERSION = 2;
+    private static final int DIFFICULTIES = Difficulty.values().length;
+    private static final int TYPO_KINDS = TypoAnalyzer.Kind.values().length;
+    /** Games between snapshots during play; the rest are saved on exit. */
+    private static final int SAVE_EVERY = 10;
+
+    private static final ExecutorService WORKER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "escritura-stats");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static volatile StatsAggregator shared;
+
+    /**
+     * Receives the counts of one word.
+     */
+    @FunctionalInterface
+    public interface WordVisitor {
+        /**
+         * @param word     the word
+         * @param attempts submissions of the word
+         * @param errors   rejected submissions of the word
+         */
+        void visit(String word, int attempts, int errors);
+    }
+
+    /**
+     * Attempts and errors of one word. Only the stats thread writes them;
+     * they are volatile so other threads see recent values.
+     */
+    private static final class WordCount {
+        volatile int attempts;
+        volatile int errors;
+    }
+
+    /**
+     * ---------- LIFETIME ----------
+     */
+    private long sessions;
+    private long wins;
+    private long levelSum;
+    private int bestLevel;
+    private long successes;
+    private long failures;
+    private long durationNanos;
+
+    /**
+     * ---------- RECENT GAMES ----------
+     */
+    private final int[] ringLevel = new int[2 * WINDOW];
+    private final int[] ringSuccess = new int[2 * WINDOW];
+    private final int[] ringFailure = new int[2 * WINDOW];
+    private int ringSize;
+    private int ringHead;
+    private long recentLevel;
+    private long recentSuccess;
+    private long recentFailure;
+    private long olderSuccess;
+    private long olderFailure;
+    private int recentBest;
+
+    /**
+     * ---------- WORDS ----------
+     */
+    private final long[] difficultyAttempts = new long[DIFFICULTIES];
+    private final long[] difficultySuccesses = new long[DIFFICULTIES];
+    private final Map<String, WordCount> words = new ConcurrentHashMap<>();
+    private final String[] topWords = new String[TOP_WORDS];
+
+    /**
+     * ---------- TYPOS ----------
+     */
+    private final long[] typoKinds = new long[TYPO_KINDS];
+    /** Times each {@link #confusion} was made. */
+    private final Map<Integer, Integer> confusions = new ConcurrentHashMap<>();
+    private final int[] topConfusions = new int[TOP_CONFUSIONS];
+    private int topConfusionCount;
+
+    private Path snapshotFile;
+    /** Games added since the snapshot was last written. */
+    private int unsaved;
+
+    /**
+     * Creates empty statistics that are not saved anywhere.
+     */
+    public StatsAggregator() {
+    }
+
+    /**
+     * Returns the statistics of the player, loading the snapshot and
+     * catching up with the session log on first use. Only runs on the
+     * stats thread.
+     *
+     * @return the shared aggregator
+     */
+    private static StatsAggregator load() {
+        if (shared == null) {
+            StatsAggregator stats = new StatsAggregator();
+            try {
+                Path file = AppData.file(FILE_NAME);
+                if (Files.exists(file)) {
+                    stats.decode(Files.readAllBytes(file));
+                }
+                stats.catchUp(SessionStore.shared());
+                stats.snapshotFile = file;
+            } catch (IOException e) {
+                e.printStackTrace();
+                stats = new StatsAggregator();
+            }
+            shared = stats;
+        }
+        return shared;
+    }
+
+    /**
+     * Starts loading the shared statistics on the stats thread, so the
+     * first word of the first game does not have to wait for them.
+     */
+    public static void loadInBackground() {
+        WORKER.execute(StatsAggregator::load);
+    }
+
+    /**
+     * Runs an action on the shared statistics, on the stats thread, once
+     * they are loaded and every action handed over before it has run.
+     * Returns immediately.
+     *
+     * @param action what to do with the statistics
+     */
+    public static void whenReady(Consumer<StatsAggregator> action) {
+        WORKER.execute(() -> action.accept(load()));
+    }
+
+    /**
+     * Waits for the words and games handed over so far and writes the
+     * snapshot. Called on exit. Statistics still loading are not saved;
+     * the next start-up catches up with the log instead.
+     */
+    public static void closeShared() {
+        WORKER.shutdown();
+        try {
+            if (!WORKER.awaitTermination(2, TimeUnit.SECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        StatsAggregator stats = shared;
+        if (stats != null && stats.snapshotFile != null) {
+            stats.save();
+        }
+        shared = null;
+    }
+
+    /**
+     * Adds the sessions the snapshot does not cover yet. Only the game
+     * figures can be rebuilt from the log; word counts and typing mistakes
+     * come from the snapshot alone, and those of games it does not cover
+     * are lost.
+     *
+     * @param store the session log
+     * @throws IOException if a session cannot be read
+     */
+    void catchUp(SessionStore store) throws IOException {
+        long available = store.getWrittenCount();
+        if (sessions > available) {
+            Telemetry.debug("[StatsAggregator] instantánea de %d partidas, registro de %d; se reinicia%n",
+                    sessions, available);
+            clearSessions();
+        }
+        for (long i = sessions; i < available; i++) {
+            addSession(store.read(i));
+        }
+    }
+
+    /**
+     * ---------- UPDATES ----------
+     */
+
+    /**
+     * Records one submission of a word.
+     *
+     * @param difficulty bucket the word was drawn from
+     * @param word       the word to type
+     * @param ok         true if the submission was accepted
+     */
+    public void onWord(Difficulty difficulty, String word, boolean ok) {
+        difficultyAttempts[difficulty.ordinal()]++;
+        if (ok) {
+            difficultySuccesses[difficulty.ordinal()]++;
+        }
+        WordCount count = words.computeIfAbsent(word, w -> new WordCount());
+        count.attempts++;
+        if (!ok) {
+            count.errors++;
+            updateTopWords(word, count);
+        }
+    }
+
+    /**
+     * Records the edits of an analyzed submission. Every replaced,
+     * missing or extra char counts as a {@link #confusion}; a swap counts
+     * as its own kind only.
+     *
+     * @param typos the analyzer, after {@link TypoAnalyzer#analyze}
+     */
+    public void onTypos(TypoAnalyzer typos) {
+        for (int i = 0; i < typos.getEditCount(); i++) {
+            TypoAnalyzer.Kind kind = typos.getKind(i);
+            typoKinds[kind.ordinal()]++;
+            if (kind != TypoAnalyzer.Kind.TRANSPOSITION) {
+                int key = confusion(typos.getExpected(i), typos.getTyped(i));
+                updateTopConfusions(key, confusions.merge(key, 1, Integer::sum));
+            }
+        }
+    }
+
+    /**
+     * Records a finished game, unless the statistics already cover it
+     * because they caught up with the log after it was appended. The
+     * shared statistics save a snapshot every few games.
+     *
+     * @param session the game
+     * @param index   position of the game in the {@link SessionStore}
+     */
+    public void onSession(SessionRecord session, long index) {
+        if (index < sessions) {
+            return;
+        }
+        addSession(session);
+        if (snapshotFile != null && ++unsaved >= SAVE_EVERY) {
+            save();
+        }
+    }
+
+    private void addSession(SessionRecord session) {
+        sessions++;
+        if (session.isWon()) {
+            wins++;
+        }
+        levelSum += session.getLevel();
+        bestLevel = Math.max(bestLevel, session.getLevel());
+        successes += session.getSuccesses();
+        failures += session.getFailures();
+        durationNanos += session.getDurationNanos();
+        pushRecent(session.getLevel(), session.getSuccesses(), session.getFailures());
+    }
+
+    /**
+     * Adds a game to the ring. The game leaving the newest half moves to
+     * the older half, and the one leaving the older half is dropped.
+     */
+    private void pushRecent(int level, int success, int failure) {
+        int capacity = ringLevel.length;
+        if (ringSize >= WINDOW) {
+            int moving = Math.floorMod(ringHead - WINDOW, capacity);
+            recentLevel -= ringLevel[moving];
+            recentSuccess -= ringSuccess[moving];
+            recentFailure -= ringFailure[moving];
+            olderSuccess += ringSuccess[moving];
+            olderFailure += ringFailure[moving];
+        }
+        if (ringSize == capacity) {
+            olderSuccess -= ringSuccess[ringHead];
+            olderFailure -= ringFailure[ringHead];
+        } else {
+            ringSize++;
+        }
+        ringLevel[ringHead] = level;
+        ringSuccess[ringHead] = success;
+        ringFailure[ringHead] = failure;
+        ringHead = (ringHead + 1) % capacity;
+        recentLevel += level;
+        recentSuccess += success;
+        recentFailure += failure;
+        if (level >= recentBest) {
+            recentBest = level;
+        } else if (ringSize > WINDOW) {
+            recentBest = recentBestScan();
+        }
+    }
+
+    /**
+     * @return best level of the newest half; at most {@link #WINDOW} entries
+     */
+    private int recentBestScan() {
+        int best = 0;
+        int n = Math.min(ringSize, WINDOW);
+        for (int i = 1; i <= n; i++) {
+            best = Math.max(best, ringLevel[Math.floorMod(ringHead - i, ringLevel.length)]);
+        }
+        return best;
+    }
+
+    /**
+     * Keeps the words with most errors. Error counts only grow, so a word
+     * can only enter the list on its own update.
+     */
+    private void updateTopWords(String word, WordCount count) {
+        int pos = TOP_WORDS - 1;
+        for (int i = 0; i < TOP_WORDS; i++) {
+            if (word.equals(topWords[i])) {
+                pos = i;
+                break;
+            }
+        }
+        if (topWords[pos] != null && !word.equals(topWords[pos]) && words.get(topWords[pos]).errors >= count.errors) {
+            return;
+        }
+        topWords[pos] = word;
+        while (pos > 0 && (topWords[pos - 1] == null || words.get(topWords[pos - 1]).errors < count.errors)) {
+            topWords[pos] = topWords[pos - 1];
+            topWords[pos - 1] = word;
+            pos--;
+        }
+    }
+
+    /**
+     * Keeps the confusions made most often, like {@link #updateTopWords}.
+     */
+    private void updateTopConfusions(int key, int count) {
+        int pos = -1;
+        for (int i = 0; i < topConfusionCount; i++) {
+            if (topConfusions[i] == key) {
+                pos = i;
+                break;
+            }
+        }
+        if (pos < 0) {
+            if (topConfusionCount < TOP_CONFUSIONS) {
+                pos = topConfusionCount++;
+            } else if (confusions.get(topConfusions[TOP_CONFUSIONS - 1]) < count) {
+                pos = TOP_CONFUSIONS - 1;
+            } else {
+                return;
+            }
+            topConfusions[pos] = key;
+        }
+        while (pos > 0 && confusions.get(topConfusions[pos - 1]) < count) {
+            topConfusions[pos] = topConfusions[pos - 1];
+            topConfusions[pos - 1] = key;
+            pos--;
+        }
+    }
+
+    private void clearSessions() {
+        sessions = 0;
+        wins = 0;
+        levelSum = 0;
+        bestLevel = 0;
+        successes = 0;
+        failures = 0;
+        durationNanos = 0;
+        ringSize = 0;
+        ringHead = 0;
+        recentLevel = 0;
+        recentSuccess = 0;
+        recentFailure = 0;
+        olderSuccess = 0;
+        olderFailure = 0;
+        recentBest = 0;
+    }
+
+    /**
+     * ---------- QUERIES ----------
+     */
+
+    /** @return games played */
+    public long getSessions() {
+        return sessions;
+    }
+
+    /** @return games won */
+    public long getWins() {
+        return wins;
+    }
+
+    /** @return average level reached, lifetime */
+    public double getAverageLevel() {
+        return sessions == 0 ? 0 : (double) levelSum / sessions;
+    }
+
+    /** @return best level reached, lifetime */
+    public int getBestLevel() {
+        return bestLevel;
+    }
+
+    /** @return accepted submissions over all submissions, lifetime */
+    public double getAccuracy() {
+        return ratio(successes, failures);
+    }
+
+    /** @return total time played, in nanoseconds */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /** @return average level of the last {@link #WINDOW} games */
+    public double getRecentAverageLevel() {
+        int n = Math.min(ringSize, WINDOW);
+        return n == 0 ? 0 : (double) recentLevel / n;
+    }
+
+    /** @return best level of the last {@link #WINDOW} games */
+    public int getRecentBestLevel() {
+        return recentBest;
+    }
+
+    /** @return accuracy of the last {@link #WINDOW} games */
+    public double getRecentAccuracy() {
+        return ratio(recentSuccess, recentFailure);
+    }
+
+    /**
+     * @return recent accuracy minus the accuracy of the {@link #WINDOW}
+     *         games before them, or 0 until there are enough games
+     */
+    public double getAccuracyTrend() {
+        if (ringSize <= WINDOW || olderSuccess + olderFailure == 0) {
+            return 0;
+        }
+        return getRecentAccuracy() - ratio(olderSuccess, olderFailure);
+    }
+
+    /**
+     * @param difficulty the bucket
+     * @return accepted submissions over all submissions of that bucket
+     */
+    public double getSuccessRate(Difficulty difficulty) {
+        long attempts = difficultyAttempts[difficulty.ordinal()];
+        return attempts == 0 ? 0 : (double) difficultySuccesses[difficulty.ordinal()] / attempts;
+    }
+
+    /**
+     * @param word the word
+     * @return rejected submissions of the word over all its submissions
+     */
+    public double getErrorRate(String word) {
+        WordCount count = words.get(word);
+        return count == null || count.attempts == 0 ? 0 : (double) count.errors / count.attempts;
+    }
+
+    /**
+     * @param word the word
+     * @return number of rejected submissions of the word
+     */
+    public int getErrors(String word) {
+        WordCount count = words.get(word);
+        return count == null ? 0 : count.errors;
+    }
+
+    /**
+     * @return up to {@link #TOP_WORDS} words with most errors, most failed first
+     */
+    public String[] getMostFailedWords() {
+        int n = 0;
+        while (n < TOP_WORDS && topWords[n] != null) {
+            n++;
+        }
+        return Arrays.copyOf(topWords, n);
+    }
+
+    /**
+     * Passes the counts of every word submitted at least once. Safe to call
+     * from any thread, though counts may lag a few submissions behind.
+     *
+     * @param visitor receives each word
+     */
+    public void forEachWord(WordVisitor visitor) {
+        words.forEach((word, count) -> visitor.visit(word, count.attempts, count.errors));
+    }
+
+    /**
+     * @param kind a kind of mistake
+     * @return mistakes of that kind, lifetime
+     */
+    public long getTypos(TypoAnalyzer.Kind kind) {
+        return typoKinds[kind.ordinal()];
+    }
+
+    /**
+     * @return up to {@link #TOP_CONFUSIONS} {@link #confusion confusions},
+     *         most frequent first
+     */
+    public int[] getMostFrequentConfusions() {
+        return Arrays.copyOf(topConfusions, topConfusionCount);
+    }
+
+    /**
+     * @param confusion a key made by {@link #confusion}
+     * @return times that confusion was made
+     */
+    public int getConfusions(int confusion) {
+        return confusions.getOrDefault(confusion, 0);
+    }
+
+    /**
+     * Packs one cell of the confusion matrix.
+     *
+     * @param expected char of the word, or {@code '\0'} for an extra char
+     * @param typed    char typed, or {@code '\0'} for a missing char
+     * @return the key of the cell
+     */
+    public static int confusion(char expected, char typed) {
+        return expected << 16 | typed;
+    }
+
+    /**
+     * @param confusion a key made by {@link #confusion}
+     * @return the char of the word
+     */
+    public static char confusionExpected(int confusion) {
+        return (char) (confusion >>> 16);
+    }
+
+    /**
+     * @param confusion a key made by {@link #confusion}
+     * @return the char typed
+     */
+    public static char confusionTyped(int confusion) {
+        return (char) confusion;
+    }
+
+    private static double ratio(long ok, long wrong) {
+        return ok + wrong == 0 ? 0 : (double) ok / (ok + wrong);
+    }
+
+    /**
+     * ---------- SNAPSHOT ----------
+     */
+
+    /**
+     * @return the whole state, in the snapshot format
+     */
+    byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 + words.size() * 16);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(sessions);
+            out.writeLong(wins);
+            out.writeLong(levelSum);
+            out.writeInt(bestLevel);
+            out.writeLong(successes);
+            out.writeLong(failures);
+            out.writeLong(durationNanos);
+
+            out.writeInt(ringSize);
+            for (int i = ringSize; i > 0; i--) {
+                int slot = Math.floorMod(ringHead - i, ringLevel.length);
+                out.writeInt(ringLevel[slot]);
+                out.writeInt(ringSuccess[slot]);
+                out.writeInt(ringFailure[slot]);
+            }
+
+            for (int d = 0; d < DIFFICULTIES; d++) {
+                out.writeLong(difficultyAttempts[d]);
+                out.writeLong(difficultySuccesses[d]);
+            }
+            out.writeInt(words.size());
+            for (Map.Entry<String, WordCount> entry : words.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().attempts);
+                out.writeInt(entry.getValue().errors);
+            }
+
+            for (long count : typoKinds) {
+                out.writeLong(count);
+            }
+            out.writeInt(confusions.size());
+            for (Map.Entry<Integer, Integer> entry : confusions.entrySet()) {
+                out.writeInt(entry.getKey());
+                out.writeInt(entry.getValue());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Replaces the state with a snapshot. Snapshots of version 1, written
+     * before mistakes were analyzed, load with no mistakes.
+     *
+     * @param snapshot bytes written by {@link #encode()}
+     * @throws IOException if the snapshot is not valid
+     */
+    void decode(byte[] snapshot) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(snapshot))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a stats snapshot");
+            }
+            int version = in.readInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported stats snapshot version " + version);
+            }
+            clearSessions();
+            sessions = in.readLong();
+            wins = in.readLong();
+            levelSum = in.readLong();
+            bestLevel = in.readInt();
+            successes = in.readLong();
+            failures = in.readLong();
+            durationNanos = in.readLong();
+
+            int ring = in.readInt();
+            for (int i = 0; i < ring; i++) {
+                pushRecent(in.readInt(), in.readInt(), in.readInt());
+            }
+
+            for (int d = 0; d < DIFFICULTIES; d++) {
+                difficultyAttempts[d] = in.readLong();
+                difficultySuccesses[d] = in.readLong();
+            }
+            words.clear();
+            Arrays.fill(topWords, null);
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                String word = in.readUTF();
+                WordCount count = new WordCount();
+                count.attempts = in.readInt();
+                count.errors = in.readInt();
+                words.put(word, count);
+                if (count.errors > 0) {
+                    updateTopWords(word, count);
+                }
+            }
+
+            Arrays.fill(typoKinds, 0);
+            confusions.clear();
+            topConfusionCount = 0;
+            if (version >= 2) {
+                for (int k = 0; k < TYPO_KINDS; k++) {
+                    typoKinds[k] = in.readLong();
+                }
+                int cells = in.readInt();
+                for (int i = 0; i < cells; i++) {
+                    int key = in.readInt();
+                    int count = in.readInt();
+                    confusions.put(key, count);
+                    updateTopConfusions(key, count);
+                }
+            }
+        }
+    }
+
+    private void save() {
+        write(snapshotFile, encode());
+        unsaved = 0;
+    }
+
+    /**
+     * Writes a snapshot next to the target and moves it into place, so a
+     * crash never leaves a half-written file.
+     */
+    private static void write(Path file, byte[] bytes) {
+        try {
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(tmp, bytes);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
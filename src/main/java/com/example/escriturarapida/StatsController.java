@@ -2,12 +2,7 @@ package com.example.escriturarapida;
 
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Label;
-import javafx.stage.Stage;
 import java.io.IOException;
 
 
@@ -15,11 +10,17 @@ import java.io.IOException;
  * Controller for the Statistics screen.
  *
  * <p>This class displays the player's performance after a game,
- * showing the number of correct words typed and mistakes made.</p>
+ * showing the number of correct words typed and mistakes made in the last
+ * game recorded in the {@link SessionStore}, along with the lifetime and
+ * recent figures kept by the {@link StatsAggregator}.</p>
  *
  * <p>Main responsibilities:</p>
  * <ul>
- *   <li>Display updated statistics passed from the {@link GameController}.</li>
+ *   <li>Display the statistics of the last game.</li>
+ *   <li>Display lifetime, recent and per-difficulty statistics.</li>
+ *   <li>Display the best games on the leaderboards.</li>
+ *   <li>Display the typing mistakes by kind and the most frequent confusions.</li>
+ *   <li>Binding the labels to a {@link StatsViewModel}.</li>
  *   <li>Provide navigation back to the Main Menu.</li>
  * </ul>
  *
@@ -29,7 +30,7 @@ import java.io.IOException;
  *   1.0
  */
 
-public class StatsController {
+public class StatsController implements ScreenLifecycle {
     /**
      * ---------- FXML UI ELEMENTS ----------
      */
@@ -38,51 +39,49 @@ public class StatsController {
 
     @FXML
     private Label errorsLabel;
-    /**
-     * ---------- STATIC DATA FIELDS ----------
-     */
-    private static int rightWords = 0;
-    private static int errors = 0;
+
+    @FXML
+    private Label wpmLabel;
+
+    @FXML
+    private Label latencyLabel;
+
+    @FXML
+    private Label historyLabel;
+
+    @FXML
+    private Label leaderboardLabel;
+
+    @FXML
+    private Label typoLabel;
+
+    private final StatsViewModel view = new StatsViewModel();
     /**
      * ---------- INITIALIZATION ----------
      */
 
 
     /**
-     * Initializes the statistics screen and updates the labels.
+     * Binds the labels to the view model.
      */
     @FXML
     private void initialize() {
-        updateStats();
-    }
-    /**
-     * ---------- STATIC METHODS ----------
-     */
-
-    /**
-     * Updates the statistics with data passed from the game.
-     *
-     * @param correctas number of correctly typed words
-     * @param fallos    number of mistakes made
-     */
-    public static void updateStats(int correctas, int fallos) {
-        rightWords = correctas;
-        errors = fallos;
+        rightWordsLabel.textProperty().bind(view.rightWordsTextProperty());
+        errorsLabel.textProperty().bind(view.errorsTextProperty());
+        wpmLabel.textProperty().bind(view.wpmTextProperty());
+        latencyLabel.textProperty().bind(view.latencyTextProperty());
+        historyLabel.textProperty().bind(view.historyTextProperty());
+        leaderboardLabel.textProperty().bind(view.leaderboardTextProperty());
+        typoLabel.textProperty().bind(view.typoTextProperty());
+        view.refreshNow();
     }
-    /**
-     * ---------- PRIVATE METHODS ----------
-     */
 
     /**
-     * Refreshes the statistics labels displayed on screen.
+     * Refreshes the labels every time the cached screen is shown.
      */
-    private void updateStats() {
-        if (rightWordsLabel != null) {
-            rightWordsLabel.setText("Palabras Correctas: " + rightWords);
-        }
-        if (errorsLabel != null) {
-            errorsLabel.setText("Errores: " + errors);
-        }
+    @Override
+    public void onShow() {
+        view.refreshNow();
     }
     /**
      * ---------- BUTTON HANDLERS ----------
@@ -96,11 +95,7 @@ public class StatsController {
     @FXML
     private void exit(ActionEvent event) {
         try {
-            Parent root = FXMLLoader.load(getClass().getResource("MainMenu.fxml"));
-            Stage stage = (Stage)((Node)event.getSource()).getScene().getWindow();
-            Scene scene = new Scene(root, 600, 600);
-            stage.setScene(scene);
-            stage.show();
+            SceneRouter.get().show(SceneRouter.Screen.MAIN_MENU);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -0,0 +1,192 @@
+package com.example.escriturarapida;
+
+import javafx.application.Platform;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+
+/**
+ * View model of the Statistics screen: the last game handed to the
+ * {@link SessionStore}, the history and the typing mistakes from the
+ * {@link StatsAggregator} and the best games from the {@link Leaderboard}. Every figure is read in
+ * constant or logarithmic time; the history, typo and leaderboard texts
+ * are built on the threads of the statistics and the leaderboard and shown
+ * when they arrive.
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class StatsViewModel extends ViewModel {
+
+    private final StringProperty rightWordsText = new SimpleStringProperty(this, "rightWordsText", "");
+    private final StringProperty errorsText = new SimpleStringProperty(this, "errorsText", "");
+    private final StringProperty wpmText = new SimpleStringProperty(this, "wpmText", "");
+    private final StringProperty latencyText = new SimpleStringProperty(this, "latencyText", "");
+    private final StringProperty historyText = new SimpleStringProperty(this, "historyText", "");
+    private final StringProperty leaderboardText = new SimpleStringProperty(this, "leaderboardText", "");
+    private final StringProperty typoText = new SimpleStringProperty(this, "typoText", "");
+
+    @Override
+    protected void refresh() {
+        SessionRecord last = SessionStore.lastRecorded();
+        int rightWords = last != null ? last.getSuccesses() : 0;
+        int errors = last != null ? last.getFailures() : 0;
+        TypingStats typingStats = last != null ? last.getTyping() : TypingStats.EMPTY;
+
+        update(rightWordsText, "Palabras Correctas: " + rightWords);
+        update(errorsText, "Errores: " + errors);
+        update(wpmText, typingStats.formatWpm());
+        update(latencyText, typingStats.formatInterKey() + "\n" + typingStats.formatWordTime()
+                + "\n" + typingStats.formatKeyToRender());
+        if (historyText.get().isEmpty()) {
+            update(historyText, "Cargando historial…");
+        }
+        if (leaderboardText.get().isEmpty()) {
+            update(leaderboardText, "Cargando clasificación…");
+        }
+        // Queued behind the last game, so both already hold it
+        SessionStore.whenRecorded(() -> {
+            StatsAggregator.whenReady(stats -> {
+                String history = formatHistory(stats);
+                String typos = formatTypos(stats);
+                Platform.runLater(() -> {
+                    update(historyText, history);
+                    update(typoText, typos);
+                });
+            });
+            Leaderboard.whenReady(board -> {
+                String text = formatLeaderboard(board, last);
+                Platform.runLater(() -> update(leaderboardText, text));
+            });
+        });
+    }
+
+    /**
+     * Builds the lifetime and recent summary.
+     *
+     * @param stats the player's statistics
+     * @return the text of the history label
+     */
+    private static String formatHistory(StatsAggregator stats) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Partidas: %d · Victorias: %d · Nivel medio %.1f · Mejor %d%n",
+                stats.getSessions(), stats.getWins(), stats.getAverageLevel(), stats.getBestLevel()));
+        sb.append(String.format("Últimas %d: nivel medio %.1f · mejor %d · precisión %.0f%% (%+.1f)%n",
+                StatsAggregator.WINDOW, stats.getRecentAverageLevel(), stats.getRecentBestLevel(),
+                stats.getRecentAccuracy() * 100, stats.getAccuracyTrend() * 100));
+        for (Difficulty d : Difficulty.values()) {
+            sb.append(d == Difficulty.EASY ? "" : " · ")
+                    .append(String.format("%s %.0f%%", d.getLabel(), stats.getSuccessRate(d) * 100));
+        }
+        String[] failed = stats.getMostFailedWords();
+        if (failed.length > 0) {
+            sb.append("\nMás falladas:");
+            for (int i = 0; i < failed.length; i++) {
+                sb.append(i == 0 ? " " : " · ").append(failed[i])
+                        .append(" (").append(stats.getErrors(failed[i])).append(')');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Builds the top of the global board, the best game of every
+     * difficulty and the place of the last game.
+     *
+     * @param board the leaderboards
+     * @param last  the last game, or null
+     * @return the text of the leaderboard label
+     */
+    private static String formatLeaderboard(Leaderboard board, SessionRecord last) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Clasificación (%,d partidas)", board.size()));
+        long[] top = board.top(Leaderboard.TOP);
+        for (int i = 0; i < top.length; i++) {
+            sb.append(String.format("%n%d. %s", i + 1, Leaderboard.format(top[i])));
+        }
+        sb.append('\n');
+        for (Difficulty d : Difficulty.values()) {
+            long[] best = board.top(d, 1);
+            sb.append(d == Difficulty.EASY ? "" : " · ").append(d.getLabel()).append(": ")
+                    .append(best.length > 0 ? Leaderboard.format(best[0]) : "-");
+        }
+        if (last != null) {
+            sb.append(String.format("%nÚltima: puesto %,d", board.rank(Leaderboard.key(last))));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Builds the mistakes by kind and the most frequent confusions, such
+     * as "ó→o" for an accent left out or "s→_" for a missing s.
+     *
+     * @param stats the player's statistics
+     * @return the text of the typo label
+     */
+    private static String formatTypos(StatsAggregator stats) {
+        StringBuilder sb = new StringBuilder("Fallos:");
+        boolean any = false;
+        for (TypoAnalyzer.Kind kind : TypoAnalyzer.Kind.values()) {
+            long count = stats.getTypos(kind);
+            if (count > 0) {
+                sb.append(any ? " · " : " ").append(kind.getLabel()).append(' ').append(count);
+                any = true;
+            }
+        }
+        if (!any) {
+            return sb.append(" ninguno analizado").toString();
+        }
+        int[] confused = stats.getMostFrequentConfusions();
+        for (int i = 0; i < confused.length; i++) {
+            sb.append(i == 0 ? "\nConfusiones: " : " · ")
+                    .append(formatChar(StatsAggregator.confusionExpected(confused[i]))).append('→')
+                    .append(formatChar(StatsAggregator.confusionTyped(confused[i])))
+                    .append(" (").append(stats.getConfusions(confused[i])).append(')');
+        }
+        return sb.toString();
+    }
+
+    private static String formatChar(char c) {
+        if (c == '\0') {
+            return "_";
+        }
+        // A lone combining accent is shown on a dotted circle
+        return Character.getType(c) == Character.NON_SPACING_MARK ? "\u25CC" + c : String.valueOf(c);
+    }
+
+    /** @return "Palabras Correctas: n" */
+    public StringProperty rightWordsTextProperty() {
+        return rightWordsText;
+    }
+
+    /** @return "Errores: n" */
+    public StringProperty errorsTextProperty() {
+        return errorsText;
+    }
+
+    /** @return typing speed of the last game */
+    public StringProperty wpmTextProperty() {
+        return wpmText;
+    }
+
+    /** @return inter-key, per-word and key-to-render percentiles of the last game */
+    public StringProperty latencyTextProperty() {
+        return latencyText;
+    }
+
+    /** @return lifetime, recent and per-difficulty summary */
+    public StringProperty historyTextProperty() {
+        return historyText;
+    }
+
+    /** @return best games and the place of the last one */
+    public StringProperty leaderboardTextProperty() {
+        return leaderboardText;
+    }
+
+    /** @return mistakes by kind and the most frequent confusions */
+    public StringProperty typoTextProperty() {
+        return typoText;
+    }
+}
@@ -0,0 +1,457 @@
+package com.example.escriturarapida;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live counters and gauges of a running game, published as a JMX MBean
+ * and as a Prometheus text endpoint on localhost.
+ *
+ * <p>The FX thread only ever adds to {@link LongAdder}s or writes a
+ * volatile field, so recording costs a few nanoseconds and never waits on
+ * a reader. Everything else, including reading the heap, happens on the
+ * thread that asks: a JMX client or the HTTP thread.</p>
+ *
+ * <p>The MBean is always registered as {@value #OBJECT_NAME}. The HTTP
+ * endpoint is only started with {@code -Descritura.metricsPort=n}; it
+ * listens on the loopback address and answers {@code GET /metrics}.
+ * Diagnostics that are not figures, such as a repaired file, are only
+ * printed with {@code -Descritura.debug=true}.</p>
+ *
+ * <p>Main responsibilities:</p>
+ * <ul>
+ *   <li>Counting words and games, and keeping the level being played.</li>
+ *   <li>Keeping FXML load and scene switch times per screen.</li>
+ *   <li>Histograms of the FX pulse time, the timer drift and the stalls
+ *       found by the {@link PulseWatchdog}.</li>
+ *   <li>Writing every figure in the Prometheus text format.</li>
+ * </ul>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class Telemetry implements TelemetryMXBean {
+
+    /** System property with the port of the metrics endpoint. */
+    public static final String PORT_PROPERTY = "escritura.metricsPort";
+    /** System property that prints diagnostics to standard output. */
+    public static final String DEBUG_PROPERTY = "escritura.debug";
+    /** Name the MBean is registered under. */
+    public static final String OBJECT_NAME = "com.example.escriturarapida:type=Telemetry";
+
+    /** Upper bounds of the histogram buckets, in milliseconds. */
+    private static final double[] BUCKETS_MILLIS = {1, 2, 4, 8, 16, 33, 66, 125, 250, 500, 1000};
+    private static final int SCREENS = SceneRouter.Screen.values().length;
+
+    private static final Telemetry INSTANCE = new Telemetry();
+    private static final boolean DEBUG = Boolean.getBoolean(DEBUG_PROPERTY);
+
+    /**
+     * Cumulative histogram of durations with fixed buckets.
+     */
+    static final class Histogram {
+        private final long[] bounds = new long[BUCKETS_MILLIS.length];
+        private final LongAdder[] buckets = new LongAdder[BUCKETS_MILLIS.length + 1];
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        Histogram() {
+            for (int i = 0; i < bounds.length; i++) {
+                bounds[i] = (long) (BUCKETS_MILLIS[i] * 1_000_000);
+            }
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(long nanos) {
+            int i = 0;
+            while (i < bounds.length && nanos > bounds[i]) {
+                i++;
+            }
+            buckets[i].increment();
+            sum.add(nanos);
+            max.accumulate(nanos);
+        }
+
+        long count() {
+            long count = 0;
+            for (LongAdder bucket : buckets) {
+                count += bucket.sum();
+            }
+            return count;
+        }
+
+        double meanMillis() {
+            long count = count();
+            return count == 0 ? 0 : sum.sum() / 1e6 / count;
+        }
+
+        double maxMillis() {
+            return max.get() / 1e6;
+        }
+
+        void write(StringBuilder out, String name, String help) {
+            header(out, name + "_seconds", help, "histogram");
+            long cumulative = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                cumulative += buckets[i].sum();
+                String le = i < bounds.length ? String.format(Locale.ROOT, "%.3f", BUCKETS_MILLIS[i] / 1000) : "+Inf";
+                out.append(name).append("_seconds_bucket{le=\"").append(le).append("\"} ").append(cumulative).append('\n');
+            }
+            sample(out, name + "_seconds_sum", sum.sum() / 1e9);
+            out.append(name).append("_seconds_count ").append(cumulative).append('\n');
+            header(out, name + "_max_seconds", help + " (máximo)", "gauge");
+            sample(out, name + "_max_seconds", max.get() / 1e9);
+        }
+    }
+
+    /**
+     * ---------- FIGURES ----------
+     */
+    private volatile int level;
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder gamesWon = new LongAdder();
+    private final LongAdder gamesLost = new LongAdder();
+    private final AtomicLongArray fxmlLoadNanos = new AtomicLongArray(SCREENS);
+    private final AtomicLongArray sceneSwitchNanos = new AtomicLongArray(SCREENS);
+    private final Histogram pulses = new Histogram();
+    private final Histogram timerDrift = new Histogram();
+    private final Histogram stalls = new Histogram();
+
+    /**
+     * ---------- PUBLISHING ----------
+     */
+    private HttpServer server;
+    private ExecutorService serverThread;
+
+    private Telemetry() {
+    }
+
+    /**
+     * @return the telemetry of this process
+     */
+    public static Telemetry get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers the MBean and, if {@code escritura.metricsPort} is set,
+     * starts the HTTP endpoint. Failures are reported and ignored: the
+     * game runs the same without telemetry.
+     */
+    public static synchronized void start() {
+        Telemetry telemetry = INSTANCE;
+        try {
+            MBeanServer mbeans = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!mbeans.isRegistered(name)) {
+                mbeans.registerMBean(telemetry, name);
+            }
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+
+        Integer port = Integer.getInteger(PORT_PROPERTY);
+        if (port == null || telemetry.server != null) {
+            return;
+        }
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+            server.createContext("/metrics", telemetry::serve);
+            telemetry.serverThread = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "escritura-metrics");
+                t.setDaemon(true);
+                return t;
+            });
+            server.setExecutor(telemetry.serverThread);
+            server.start();
+            telemetry.server = server;
+            System.out.printf("[Telemetry] Métricas en http://%s:%d/metrics%n",
+                    server.getAddress().getHostString(), server.getAddress().getPort());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Stops the HTTP endpoint. Called on exit.
+     */
+    public static synchronized void stop() {
+        Telemetry telemetry = INSTANCE;
+        if (telemetry.server != null) {
+            telemetry.server.stop(0);
+            telemetry.serverThread.shutdownNow();
+            telemetry.server = null;
+        }
+    }
+
+    /**
+     * @return port of the HTTP endpoint, or -1 if it is not running
+     */
+    public static synchronized int getPort() {
+        return INSTANCE.server != null ? INSTANCE.server.getAddress().getPort() : -1;
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Prints a diagnostic line if {@code escritura.debug} is set.
+     *
+     * @param format a {@link String#format} pattern, ending in {@code %n}
+     * @param args   its arguments
+     */
+    public static void debug(String format, Object... args) {
+        if (DEBUG) {
+            System.out.printf(format, args);
+        }
+    }
+
+    /**
+     * ---------- RECORDING (FX THREAD) ----------
+     */
+
+    /**
+     * @param level level being played, or 0 when no game is running
+     */
+    public void setLevel(int level) {
+        this.level = level;
+    }
+
+    /**
+     * @param accepted true if the submission was accepted
+     */
+    public void onWord(boolean accepted) {
+        (accepted ? successes : failures).increment();
+    }
+
+    /**
+     * @param won true if the game was won
+     */
+    public void onGameOver(boolean won) {
+        (won ? gamesWon : gamesLost).increment();
+        level = 0;
+    }
+
+    /**
+     * @param screen the screen loaded
+     * @param nanos  time spent loading its FXML
+     */
+    public void onFxmlLoad(SceneRouter.Screen screen, long nanos) {
+        fxmlLoadNanos.set(screen.ordinal(), nanos);
+    }
+
+    /**
+     * @param screen the screen shown
+     * @param nanos  time from the request to its first layout pass
+     */
+    public void onSceneSwitch(SceneRouter.Screen screen, long nanos) {
+        sceneSwitchNanos.set(screen.ordinal(), nanos);
+    }
+
+    /**
+     * @param nanos CSS and layout time of one pulse of the scene
+     */
+    public void onPulse(long nanos) {
+        pulses.record(nanos);
+    }
+
+    /**
+     * @param nanos time between the deadline of a word and the tick that
+     *              noticed it
+     */
+    public void onTimerDrift(long nanos) {
+        timerDrift.record(nanos);
+    }
+
+    /**
+     * @param nanos time the JavaFX thread was busy past the budget of the
+     *              {@link PulseWatchdog}
+     */
+    public void onStall(long nanos) {
+        stalls.record(nanos);
+    }
+
+    /**
+     * ---------- PROMETHEUS ----------
+     */
+
+    /**
+     * @return every figure in the Prometheus text exposition format
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        header(out, "escritura_level", "Nivel de la partida en curso, 0 fuera de partida", "gauge");
+        sample(out, "escritura_level", level);
+        header(out, "escritura_words_success_total", "Palabras aceptadas", "counter");
+        sample(out, "escritura_words_success_total", successes.sum());
+        header(out, "escritura_words_failure_total", "Envíos rechazados", "counter");
+        sample(out, "escritura_words_failure_total", failures.sum());
+        header(out, "escritura_games_total", "Partidas terminadas", "counter");
+        out.append("escritura_games_total{result=\"won\"} ").append(gamesWon.sum()).append('\n');
+        out.append("escritura_games_total{result=\"lost\"} ").append(gamesLost.sum()).append('\n');
+
+        perScreen(out, "escritura_fxml_load_seconds", "Duración de la última carga del FXML", fxmlLoadNanos);
+        perScreen(out, "escritura_scene_switch_seconds", "Duración del último cambio de pantalla",
+                sceneSwitchNanos);
+        pulses.write(out, "escritura_fx_pulse", "CSS y layout de cada pulso de la escena");
+        timerDrift.write(out, "escritura_timer_drift", "Retraso entre el fin del tiempo y su detección");
+        stalls.write(out, "escritura_fx_stall", "Bloqueos del hilo FX por encima del presupuesto");
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        header(out, "escritura_heap_used_bytes", "Memoria del heap en uso", "gauge");
+        sample(out, "escritura_heap_used_bytes", heap.getUsed());
+        header(out, "escritura_heap_committed_bytes", "Memoria del heap reservada", "gauge");
+        sample(out, "escritura_heap_committed_bytes", heap.getCommitted());
+        header(out, "escritura_heap_max_bytes", "Tamaño máximo del heap", "gauge");
+        sample(out, "escritura_heap_max_bytes", heap.getMax());
+        return out.toString();
+    }
+
+    private static void perScreen(StringBuilder out, String name, String help, AtomicLongArray nanos) {
+        header(out, name, help, "gauge");
+        for (SceneRouter.Screen screen : SceneRouter.Screen.values()) {
+            out.append(name).append("{screen=\"").append(screen.name().toLowerCase(Locale.ROOT)).append("\"} ")
+                    .append(String.format(Locale.ROOT, "%.6f", nanos.get(screen.ordinal()) / 1e9)).append('\n');
+        }
+    }
+
+    private static void header(StringBuilder out, String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, double value) {
+        out.append(name).append(' ').append(String.format(Locale.ROOT, "%.6f", value)).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, long value) {
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    /**
+     * ---------- MBEAN ----------
+     */
+
+    @Override
+    public int getLevel() {
+        return level;
+    }
+
+    @Override
+    public long getSuccesses() {
+        return successes.sum();
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public long getGamesWon() {
+        return gamesWon.sum();
+    }
+
+    @Override
+    public long getGamesLost() {
+        return gamesLost.sum();
+    }
+
+    @Override
+    public Map<String, Double> getFxmlLoadMillis() {
+        return millisPerScreen(fxmlLoadNanos);
+    }
+
+    @Override
+    public Map<String, Double> getSceneSwitchMillis() {
+        return millisPerScreen(sceneSwitchNanos);
+    }
+
+    private static Map<String, Double> millisPerScreen(AtomicLongArray nanos) {
+        Map<String, Double> millis = new LinkedHashMap<>();
+        for (SceneRouter.Screen screen : SceneRouter.Screen.values()) {
+            millis.put(screen.getFxmlFile(), nanos.get(screen.ordinal()) / 1e6);
+        }
+        return millis;
+    }
+
+    @Override
+    public long getPulseCount() {
+        return pulses.count();
+    }
+
+    @Override
+    public double getPulseMeanMillis() {
+        return pulses.meanMillis();
+    }
+
+    @Override
+    public double getPulseMaxMillis() {
+        return pulses.maxMillis();
+    }
+
+    @Override
+    public double getTimerDriftMeanMillis() {
+        return timerDrift.meanMillis();
+    }
+
+    @Override
+    public double getTimerDriftMaxMillis() {
+        return timerDrift.maxMillis();
+    }
+
+    @Override
+    public long getStallCount() {
+        return stalls.count();
+    }
+
+    @Override
+    public long getHeapUsedBytes() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    @Override
+    public void resetMaxima() {
+        pulses.max.reset();
+        timerDrift.max.reset();
+        stalls.max.reset();
+    }
+}
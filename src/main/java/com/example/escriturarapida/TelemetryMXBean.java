@@ -0,0 +1,63 @@
+package com.example.escriturarapida;
+
+import java.util.Map;
+
+/**
+ * Management interface of the {@link Telemetry}, registered as
+ * {@value Telemetry#OBJECT_NAME} so the figures of a running game can be
+ * read with JConsole, VisualVM or any JMX client.
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public interface TelemetryMXBean {
+
+    /** @return level of the game being played, or 0 outside a game */
+    int getLevel();
+
+    /** @return accepted words since start-up */
+    long getSuccesses();
+
+    /** @return rejected submissions since start-up */
+    long getFailures();
+
+    /** @return games won since start-up */
+    long getGamesWon();
+
+    /** @return games lost since start-up */
+    long getGamesLost();
+
+    /** @return duration of the last load of each screen, in milliseconds */
+    Map<String, Double> getFxmlLoadMillis();
+
+    /** @return duration of the last switch to each screen, in milliseconds */
+    Map<String, Double> getSceneSwitchMillis();
+
+    /** @return pulses measured since start-up */
+    long getPulseCount();
+
+    /** @return mean CSS and layout time of a pulse, in milliseconds */
+    double getPulseMeanMillis();
+
+    /** @return longest CSS and layout time of a pulse, in milliseconds */
+    double getPulseMaxMillis();
+
+    /** @return mean delay between a word timing out and the game noticing, in milliseconds */
+    double getTimerDriftMeanMillis();
+
+    /** @return longest delay between a word timing out and the game noticing, in milliseconds */
+    double getTimerDriftMaxMillis();
+
+    /** @return times the JavaFX thread was busy past the budget of the {@link PulseWatchdog} */
+    long getStallCount();
+
+    /** @return heap in use, in bytes */
+    long getHeapUsedBytes();
+
+    /**
+     * Clears the maxima, so the next reads show the worst case from now on.
+     */
+    void resetMaxima();
+}
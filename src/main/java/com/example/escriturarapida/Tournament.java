@@ -0,0 +1,352 @@
+package com.example.escriturarapida;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Headless tournament of {@link BotTypist bots} against sets of
+ * {@link GameRules}, used to tune the time curve and the difficulty
+ * thresholds.
+ *
+ * <p>Every game runs on a {@link GameEngine} with a virtual clock, so a
+ * game takes microseconds instead of minutes. Games are split into chunks
+ * of {@link #CHUNK} that run as fork-join tasks on every core; each chunk
+ * reuses one engine and one word deck and gets its own random generator
+ * derived from the seed and the chunk position, so results do not depend
+ * on the number of threads or on scheduling.</p>
+ *
+ * <p>Main responsibilities:</p>
+ * <ul>
+ *   <li>Running many games per bot and rule set in parallel.</li>
+ *   <li>Counting wins and the level every game ended on.</li>
+ *   <li>Printing win rates and level distributions, and optionally writing
+ *       the full distributions as CSV.</li>
+ * </ul>
+ *
+ * <pre>
+ * java -cp ... com.example.escriturarapida.Tournament --games 250000 \
+ *     --bots lento:25:4,medio:40:3,rapido:60:2,experto:90:1 \
+ *     --rules 20,2,5,2,15,30,45 --rules 25,2,5,3,15,30,45 --csv torneo.csv
+ * </pre>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class Tournament {
+
+    /** Games run by one fork-join task. */
+    static final int CHUNK = 2_048;
+
+    /**
+     * Outcome of the games of one bot under one set of rules.
+     */
+    public static final class Result {
+        private final BotTypist bot;
+        private final GameRules rules;
+        /** Games by the level they ended on; index {@code finalLevel + 1} is a win. */
+        private final long[] levels;
+        private long games;
+        private long wins;
+        private long virtualNanos;
+
+        Result(BotTypist bot, GameRules rules) {
+            this.bot = bot;
+            this.rules = rules;
+            this.levels = new long[rules.getFinalLevel() + 2];
+        }
+
+        void record(GameEngine engine, long duration) {
+            games++;
+            virtualNanos += duration;
+            if (engine.getState() == GameEngine.State.WON) {
+                wins++;
+                levels[rules.getFinalLevel() + 1]++;
+            } else {
+                levels[engine.getLevel()]++;
+            }
+        }
+
+        Result merge(Result other) {
+            games += other.games;
+            wins += other.wins;
+            virtualNanos += other.virtualNanos;
+            for (int i = 0; i < levels.length; i++) {
+                levels[i] += other.levels[i];
+            }
+            return this;
+        }
+
+        /** @return the bot that played */
+        public BotTypist getBot() {
+            return bot;
+        }
+
+        /** @return the rules played with */
+        public GameRules getRules() {
+            return rules;
+        }
+
+        /** @return games played */
+        public long getGames() {
+            return games;
+        }
+
+        /** @return fraction of games won */
+        public double getWinRate() {
+            return games == 0 ? 0 : (double) wins / games;
+        }
+
+        /** @return mean level reached; a win counts as {@code finalLevel + 1} */
+        public double getMeanLevel() {
+            double sum = 0;
+            for (int i = 0; i < levels.length; i++) {
+                sum += (double) i * levels[i];
+            }
+            return games == 0 ? 0 : sum / games;
+        }
+
+        /**
+         * @param percentile from 0 to 100
+         * @return level reached by that percentile of the games
+         */
+        public int levelPercentile(double percentile) {
+            long rank = (long) Math.ceil(percentile / 100 * games);
+            long seen = 0;
+            for (int i = 0; i < levels.length; i++) {
+                seen += levels[i];
+                if (seen >= Math.max(1, rank)) {
+                    return i;
+                }
+            }
+            return levels.length - 1;
+        }
+
+        /**
+         * @param difficulty a difficulty
+         * @return fraction of the games lost on a level of that difficulty
+         */
+        public double lostOn(Difficulty difficulty) {
+            long count = 0;
+            for (int level = 1; level <= rules.getFinalLevel(); level++) {
+                if (rules.difficultyFor(level) == difficulty) {
+                    count += levels[level];
+                }
+            }
+            return games == 0 ? 0 : (double) count / games;
+        }
+
+        /**
+         * @param level a level, or {@code finalLevel + 1} for wins
+         * @return games that ended on that level
+         */
+        public long gamesEndedOn(int level) {
+            return levels[level];
+        }
+
+        /** @return mean duration of a game on the virtual clock, in seconds */
+        public double getMeanSeconds() {
+            return games == 0 ? 0 : virtualNanos / 1e9 / games;
+        }
+    }
+
+    /**
+     * Plays the games {@code [from, to)} of one bot, splitting the range
+     * until it fits in one chunk.
+     */
+    private static final class Games extends RecursiveTask<Result> {
+        private final BotTypist bot;
+        private final GameRules rules;
+        private final WordDictionary dictionary;
+        private final long seed;
+        private final long from;
+        private final long to;
+
+        Games(BotTypist bot, GameRules rules, WordDictionary dictionary, long seed, long from, long to) {
+            this.bot = bot;
+            this.rules = rules;
+            this.dictionary = dictionary;
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Result compute() {
+            if (to - from > CHUNK) {
+                long chunks = (to - from + CHUNK - 1) / CHUNK;
+                long mid = from + chunks / 2 * CHUNK;
+                Games right = new Games(bot, rules, dictionary, seed, mid, to);
+                right.fork();
+                Result left = new Games(bot, rules, dictionary, seed, from, mid).compute();
+                return left.merge(right.join());
+            }
+            // One generator per chunk, derived from its position: same results on any number of cores
+            SplittableRandom random = new SplittableRandom(seed ^ (from / CHUNK) * 0x9E3779B97F4A7C15L);
+            DeckWordSource words = new DeckWordSource(dictionary, random.nextLong());
+            GameEngine engine = new GameEngine(rules);
+            StringBuilder typed = new StringBuilder();
+            Result result = new Result(bot, rules);
+            for (long game = from; game < to; game++) {
+                long duration = bot.play(engine, words, random, typed);
+                result.record(engine, duration);
+            }
+            return result;
+        }
+    }
+
+    private Tournament() {
+    }
+
+    /**
+     * ---------- RUNNING ----------
+     */
+
+    /**
+     * Plays every bot under every set of rules.
+     *
+     * @param rules      rule sets to compare
+     * @param bots       the players
+     * @param games      games per bot and rule set
+     * @param dictionary dictionary the words are drawn from
+     * @param seed       seed of the whole tournament
+     * @param pool       pool the games run on
+     * @return one result per rule set and bot, rule sets first
+     */
+    public static List<Result> run(List<GameRules> rules, List<BotTypist> bots, long games,
+                                   WordDictionary dictionary, long seed, ForkJoinPool pool) {
+        List<Games> tasks = new ArrayList<>();
+        for (int r = 0; r < rules.size(); r++) {
+            for (int b = 0; b < bots.size(); b++) {
+                long taskSeed = new SplittableRandom(seed + 31L * r + b).nextLong();
+                tasks.add(new Games(bots.get(b), rules.get(r), dictionary, taskSeed, 0, games));
+            }
+        }
+        List<Result> results = new ArrayList<>(tasks.size());
+        for (Games task : tasks) {
+            pool.execute(task);
+        }
+        for (Games task : tasks) {
+            results.add(task.join());
+        }
+        return results;
+    }
+
+    /**
+     * ---------- REPORTS ----------
+     */
+
+    private static void print(List<Result> results, int threads, double seconds) {
+        long total = 0;
+        GameRules current = null;
+        for (Result result : results) {
+            total += result.getGames();
+            if (result.getRules() != current) {
+                current = result.getRules();
+                System.out.printf("%nReglas %s%n", current);
+                System.out.printf("%-10s %5s %10s %9s %7s %4s %4s %4s %8s %8s %8s %9s%n",
+                        "bot", "ppm", "partidas", "victorias", "nivel", "p10", "p50", "p90",
+                        "pierde F", "pierde M", "pierde D", "duración");
+            }
+            System.out.printf(Locale.ROOT, "%-10s %5.0f %10d %8.1f%% %7.1f %4d %4d %4d %7.1f%% %7.1f%% %7.1f%% %8.1fs%n",
+                    result.getBot().getName(), result.getBot().getWpm(), result.getGames(),
+                    result.getWinRate() * 100, result.getMeanLevel(),
+                    result.levelPercentile(10), result.levelPercentile(50), result.levelPercentile(90),
+                    result.lostOn(Difficulty.EASY) * 100, result.lostOn(Difficulty.MEDIUM) * 100,
+                    result.lostOn(Difficulty.HARD) * 100, result.getMeanSeconds());
+        }
+        System.out.printf(Locale.ROOT, "%n[Tournament] %d partidas en %.1f s (%.0f partidas/s, %d hilos)%n",
+                total, seconds, total / seconds, threads);
+    }
+
+    private static void writeCsv(Path file, List<Result> results) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            out.println("rules,bot,wpm,typo,games,wins,level,ended");
+            for (Result result : results) {
+                GameRules r = result.getRules();
+                String rules = r.getInitialTime() + " " + r.getTimeStep() + " " + r.getLevelsPerStep() + " "
+                        + r.getMinTime() + " " + r.getEasyMaxLevel() + " " + r.getMediumMaxLevel() + " "
+                        + r.getFinalLevel();
+                for (int level = 1; level <= r.getFinalLevel() + 1; level++) {
+                    out.printf(Locale.ROOT, "%s,%s,%.1f,%.4f,%d,%d,%d,%d%n", rules, result.getBot().getName(),
+                            result.getBot().getWpm(), result.getBot().getTypoRate(), result.getGames(),
+                            Math.round(result.getWinRate() * result.getGames()), level, result.gamesEndedOn(level));
+                }
+            }
+        }
+    }
+
+    /**
+     * ---------- COMMAND LINE ----------
+     */
+
+    /**
+     * Runs a tournament and prints the results.
+     *
+     * @param args {@code [--games n] [--bots spec,...] [--rules r]... [--seed n] [--threads n] [--csv file]}
+     * @throws IOException if the CSV file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        long games = 250_000;
+        String bots = "lento:25:4,medio:40:3,rapido:60:2,experto:90:1";
+        List<GameRules> rules = new ArrayList<>();
+        long seed = 1;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path csv = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--games":
+                    games = Long.parseLong(args[i + 1]);
+                    break;
+                case "--bots":
+                    bots = args[i + 1];
+                    break;
+                case "--rules":
+                    rules.add(GameRules.parse(args[i + 1]));
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[i + 1]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--csv":
+                    csv = Path.of(args[i + 1]);
+                    break;
+                default:
+                    System.err.println("Uso: Tournament [--games n] [--bots nombre:ppm[:errores%],...] "
+                            + "[--rules 20,2,5,2,15,30,45]... [--seed n] [--threads n] [--csv archivo]");
+                    System.exit(2);
+            }
+        }
+        if (rules.isEmpty()) {
+            rules.add(GameRules.DEFAULT);
+        }
+        List<BotTypist> players = new ArrayList<>();
+        for (String spec : bots.split(",")) {
+            players.add(BotTypist.parse(spec));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        List<Result> results = run(rules, players, games, WordDictionary.shared(), seed, pool);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+
+        print(results, threads, seconds);
+        if (csv != null) {
+            writeCsv(csv, results);
+            System.out.printf("[Tournament] Distribuciones escritas en %s%n", csv);
+        }
+    }
+}
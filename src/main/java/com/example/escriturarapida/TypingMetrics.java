@@ -0,0 +1,215 @@
+package com.example.escriturarapida;
+
+/**
+ * Records keystroke timing for one game and derives typing statistics.
+ *
+ * <p>Every event is stored as a {@link System#nanoTime()} timestamp in a
+ * fixed-size ring buffer of primitives, and at the same time fed into three
+ * {@link LatencyHistogram}s: interval between keys of the same word, time
+ * to complete each word, and latency from a key press to the next layout
+ * pulse that shows its effect. Recording never allocates, so it can run
+ * inside the key handlers on the JavaFX thread.</p>
+ *
+ * <p>Main responsibilities:</p>
+ * <ul>
+ *   <li>Keeping the latest events in a ring buffer.</li>
+ *   <li>Recording inter-key, per-word and key-to-render histograms.</li>
+ *   <li>Computing live and whole-game words per minute.</li>
+ *   <li>Producing an immutable {@link TypingStats} snapshot.</li>
+ * </ul>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class TypingMetrics {
+    /**
+     * ---------- CONSTANTS ----------
+     */
+    public static final byte KEY = 0;
+    public static final byte WORD_OK = 1;
+    public static final byte WORD_FAIL = 2;
+
+    private static final int CAPACITY = 4096;
+    private static final int MASK = CAPACITY - 1;
+    private static final long LIVE_WINDOW_NANOS = 30_000_000_000L;
+    private static final double CHARS_PER_WORD = 5.0;
+    private static final double NANOS_PER_MINUTE = 60_000_000_000.0;
+
+    /**
+     * ---------- RING BUFFER ----------
+     */
+    private final long[] timestamps = new long[CAPACITY];
+    private final byte[] kinds = new byte[CAPACITY];
+    private final int[] values = new int[CAPACITY];
+    private long written;
+
+    /**
+     * ---------- AGGREGATES ----------
+     */
+    private final LatencyHistogram interKey = new LatencyHistogram();
+    private final LatencyHistogram wordTime = new LatencyHistogram();
+    private final LatencyHistogram keyToRender = new LatencyHistogram();
+    private long firstKey;
+    private long lastKey;
+    private long wordStart;
+    private long pendingRender;
+    private long correctChars;
+
+    /**
+     * Clears everything for a new game.
+     *
+     * @param now timestamp at which the first word is shown
+     */
+    public void reset(long now) {
+        written = 0;
+        interKey.reset();
+        wordTime.reset();
+        keyToRender.reset();
+        firstKey = 0;
+        lastKey = 0;
+        pendingRender = 0;
+        correctChars = 0;
+        wordStart = now;
+    }
+
+    /**
+     * ---------- RECORDING ----------
+     */
+
+    /**
+     * Records a key event that reached the input field.
+     *
+     * @param now event timestamp
+     */
+    public void onKey(long now) {
+        append(now, KEY, 0);
+        if (firstKey == 0) {
+            firstKey = now;
+        }
+        if (lastKey > wordStart) {
+            interKey.record(now - lastKey);
+        }
+        lastKey = now;
+        if (pendingRender == 0) {
+            pendingRender = now;
+        }
+    }
+
+    /**
+     * Records the result of a word validation.
+     *
+     * @param now    validation timestamp
+     * @param ok     whether the word was accepted
+     * @param length length of the word in chars
+     */
+    public void onWord(long now, boolean ok, int length) {
+        append(now, ok ? WORD_OK : WORD_FAIL, length);
+        if (ok) {
+            wordTime.record(now - wordStart);
+            correctChars += length;
+            wordStart = now;
+        }
+    }
+
+    /**
+     * Records a layout pulse. The oldest key press not yet shown on screen
+     * gets its key-to-render latency.
+     *
+     * @param now pulse timestamp
+     */
+    public void onRender(long now) {
+        if (pendingRender != 0) {
+            keyToRender.record(now - pendingRender);
+            pendingRender = 0;
+        }
+    }
+
+    /**
+     * Restarts the per-word clock, e.g. after resuming from pause.
+     *
+     * @param now timestamp at which input resumes
+     */
+    public void restartWord(long now) {
+        wordStart = now;
+        lastKey = 0;
+    }
+
+    private void append(long now, byte kind, int value) {
+        int slot = (int) (written++ & MASK);
+        timestamps[slot] = now;
+        kinds[slot] = kind;
+        values[slot] = value;
+    }
+
+    /**
+     * ---------- QUERIES ----------
+     */
+
+    /**
+     * Words per minute over the last 30 seconds, computed from the ring buffer.
+     *
+     * @param now current timestamp
+     * @return live words per minute, counting five chars per word
+     */
+    public double liveWpm(long now) {
+        long from = now - LIVE_WINDOW_NANOS;
+        long chars = 0;
+        long oldest = now;
+        long available = Math.min(written, CAPACITY);
+        for (long i = written - 1; i >= written - available; i--) {
+            int slot = (int) (i & MASK);
+            if (timestamps[slot] < from) {
+                break;
+            }
+            oldest = timestamps[slot];
+            if (kinds[slot] == WORD_OK) {
+                chars += values[slot];
+            }
+        }
+        long span = Math.max(now - oldest, 1);
+        return chars / CHARS_PER_WORD / (span / NANOS_PER_MINUTE);
+    }
+
+    /**
+     * @return words per minute from the first key press to the last one
+     */
+    public double averageWpm() {
+        if (firstKey == 0 || lastKey <= firstKey) {
+            return 0;
+        }
+        return correctChars / CHARS_PER_WORD / ((lastKey - firstKey) / NANOS_PER_MINUTE);
+    }
+
+    /** @return the number of events recorded since the last reset */
+    public long getEventCount() {
+        return written;
+    }
+
+    /** @return histogram of intervals between keys of the same word */
+    public LatencyHistogram getInterKey() {
+        return interKey;
+    }
+
+    /** @return histogram of time taken to complete each word */
+    public LatencyHistogram getWordTime() {
+        return wordTime;
+    }
+
+    /** @return histogram of key press to layout pulse latency */
+    public LatencyHistogram getKeyToRender() {
+        return keyToRender;
+    }
+
+    /**
+     * @return an immutable snapshot of the current figures
+     */
+    public TypingStats snapshot() {
+        return new TypingStats(
+                averageWpm(),
+                interKey.percentile(50), interKey.percentile(99),
+                wordTime.percentile(50), wordTime.percentile(99),
+                keyToRender.percentile(50), keyToRender.percentile(99));
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.escriturarapida;
+
+/**
+ * Immutable summary of the typing speed and latency of one game.
+ *
+ * <p>Durations are in nanoseconds. Produced by {@link TypingMetrics#snapshot()}
+ * and shown on the Game Over and Statistics screens.</p>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class TypingStats {
+
+    /** Statistics of a game in which nothing was typed. */
+    public static final TypingStats EMPTY = new TypingStats(0, 0, 0, 0, 0, 0, 0);
+
+    private final double wpm;
+    private final long interKeyP50;
+    private final long interKeyP99;
+    private final long wordTimeP50;
+    private final long wordTimeP99;
+    private final long keyToRenderP50;
+    private final long keyToRenderP99;
+
+    /**
+     * @param wpm            average words per minute
+     * @param interKeyP50    median interval between keys
+     * @param interKeyP99    99th percentile interval between keys
+     * @param wordTimeP50    median time to complete a word
+     * @param wordTimeP99    99th percentile time to complete a word
+     * @param keyToRenderP50 median key-to-render latency
+     * @param keyToRenderP99 99th percentile key-to-render latency
+     */
+    public TypingStats(double wpm, long interKeyP50, long interKeyP99, long wordTimeP50, long wordTimeP99,
+                       long keyToRenderP50, long keyToRenderP99) {
+        this.wpm = wpm;
+        this.interKeyP50 = interKeyP50;
+        this.interKeyP99 = interKeyP99;
+        this.wordTimeP50 = wordTimeP50;
+        this.wordTimeP99 = wordTimeP99;
+        this.keyToRenderP50 = keyToRenderP50;
+        this.keyToRenderP99 = keyToRenderP99;
+    }
+
+    /**
+     * ---------- FORMATTING ----------
+     */
+
+    /** @return words per minute, e.g. {@code "PPM: 42.5"} */
+    public String formatWpm() {
+        return String.format("PPM: %.1f", wpm);
+    }
+
+    /** @return inter-key percentiles, e.g. {@code "Entre teclas: p50 180 ms · p99 420 ms"} */
+    public String formatInterKey() {
+        return String.format("Entre teclas: p50 %d ms · p99 %d ms", millis(interKeyP50), millis(interKeyP99));
+    }
+
+    /** @return word completion percentiles, e.g. {@code "Por palabra: p50 1450 ms · p99 3200 ms"} */
+    public String formatWordTime() {
+        return String.format("Por palabra: p50 %d ms · p99 %d ms", millis(wordTimeP50), millis(wordTimeP99));
+    }
+
+    /** @return key-to-render percentiles in milliseconds */
+    public String formatKeyToRender() {
+        return String.format("Tecla a pantalla: p50 %d ms · p99 %d ms",
+                millis(keyToRenderP50), millis(keyToRenderP99));
+    }
+
+    private static long millis(long nanos) {
+        return Math.round(nanos / 1_000_000.0);
+    }
+
+    /**
+     * ---------- GETTERS ----------
+     */
+
+    /** @return average words per minute */
+    public double getWpm() {
+        return wpm;
+    }
+
+    /** @return median interval between keys, in nanoseconds */
+    public long getInterKeyP50() {
+        return interKeyP50;
+    }
+
+    /** @return 99th percentile interval between keys, in nanoseconds */
+    public long getInterKeyP99() {
+        return interKeyP99;
+    }
+
+    /** @return median time to complete a word, in nanoseconds */
+    public long getWordTimeP50() {
+        return wordTimeP50;
+    }
+
+    /** @return 99th percentile time to complete a word, in nanoseconds */
+    public long getWordTimeP99() {
+        return wordTimeP99;
+    }
+
+    /** @return median key-to-render latency, in nanoseconds */
+    public long getKeyToRenderP50() {
+        return keyToRenderP50;
+    }
+
+    /** @return 99th percentile key-to-render latency, in nanoseconds */
+    public long getKeyToRenderP99() {
+        return keyToRenderP99;
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.escriturarapida;
+
+/**
+ * Incremental validator of the text typed against the current word.
+ *
+ * <p>Characters are consumed one at a time as the player types. The
+ * validator tracks how many characters typed so far match the beginning
+ * of the target and where the first wrong character is, without copying
+ * or trimming the field contents and without allocating. Whitespace typed
+ * before the word or after a complete match is ignored, like the old
+ * trimmed comparison did.</p>
+ *
+ * <p>Typed chars are compared with the form of the word for a
+ * {@link MatchMode}, which the dictionary computes in advance. Mapping a
+ * typed char into that form only reads the tables of {@link MatchMode}, so
+ * no normalization happens per keystroke.</p>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class TypingValidator {
+
+    private String target = "";
+    private String form = "";
+    private MatchMode mode = MatchMode.EXACT;
+    private int typed;
+    private int matched;
+    private int firstError = -1;
+
+    /**
+     * Starts validating against a new word, comparing chars exactly, and
+     * clears all progress.
+     *
+     * @param word the word the player has to type
+     */
+    public void reset(String word) {
+        reset(word, word, MatchMode.EXACT);
+    }
+
+    /**
+     * Starts validating against a new word and clears all progress.
+     *
+     * @param word the word the player has to type
+     * @param form the form of the word under {@code mode}, as returned by
+     *             {@link MatchMode#form}
+     * @param mode how typed chars are compared
+     */
+    public void reset(String word, String form, MatchMode mode) {
+        this.target = word;
+        this.form = form;
+        this.mode = mode;
+        clear();
+    }
+
+    private void clear() {
+        typed = 0;
+        matched = 0;
+        firstError = -1;
+    }
+
+    /**
+     * ---------- INPUT ----------
+     */
+
+    /**
+     * Consumes one typed character appended at the end of the input.
+     *
+     * @param c the character
+     */
+    public void accept(char c) {
+        if (Character.isWhitespace(c) && (typed == 0 || isComplete())) {
+            return;
+        }
+        int position = typed++;
+        if (firstError >= 0) {
+            return;
+        }
+        switch (mode) {
+            case NFC: {
+                char[] decomposed = MatchMode.decompose(c);
+                if (decomposed == null) {
+                    match(c, position);
+                } else {
+                    for (int i = 0; i < decomposed.length && firstError < 0; i++) {
+                        match(decomposed[i], position);
+                    }
+                }
+                break;
+            }
+            case ACCENT_INSENSITIVE: {
+                char folded = MatchMode.fold(c);
+                if (folded != 0) {
+                    match(folded, position);
+                }
+                break;
+            }
+            default:
+                match(c, position);
+        }
+    }
+
+    private void match(char c, int position) {
+        if (matched < form.length() && form.charAt(matched) == c) {
+            matched++;
+        } else {
+            firstError = position;
+        }
+    }
+
+    /**
+     * Recomputes the state from the whole input. Used for edits other than
+     * appending one character, such as deletions, pastes or edits in the middle.
+     *
+     * @param text the current input
+     */
+    public void resync(CharSequence text) {
+        clear();
+        for (int i = 0, n = text.length(); i < n; i++) {
+            accept(text.charAt(i));
+        }
+    }
+
+    /**
+     * Applies a change of the input field. Appending one character at the
+     * end is handled incrementally; any other edit falls back to {@link #resync}.
+     *
+     * @param oldText the previous input
+     * @param newText the new input
+     */
+    public void update(CharSequence oldText, CharSequence newText) {
+        int oldLength = oldText.length();
+        if (newText.length() == oldLength + 1 && startsWith(newText, oldText)) {
+            accept(newText.charAt(oldLength));
+        } else {
+            resync(newText);
+        }
+    }
+
+    private static boolean startsWith(CharSequence text, CharSequence prefix) {
+        for (int i = prefix.length() - 1; i >= 0; i--) {
+            if (text.charAt(i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * ---------- STATE ----------
+     */
+
+    /** @return true if the input matches the whole target word */
+    public boolean isComplete() {
+        return firstError < 0 && matched == form.length();
+    }
+
+    /** @return true if the input is no longer a prefix of the target word */
+    public boolean hasError() {
+        return firstError >= 0;
+    }
+
+    /** @return number of leading characters of the word form that match the input */
+    public int getMatchedLength() {
+        return matched;
+    }
+
+    /** @return position of the first wrong character, or -1 if there is none */
+    public int getFirstErrorIndex() {
+        return firstError;
+    }
+
+    /** @return number of characters consumed, ignoring leading whitespace */
+    public int getTypedLength() {
+        return typed;
+    }
+
+    /** @return the word being validated */
+    public String getTarget() {
+        return target;
+    }
+
+    /** @return the form of the word the input is compared with */
+    public String getForm() {
+        return form;
+    }
+
+    /** @return how typed chars are compared */
+    public MatchMode getMode() {
+        return mode;
+    }
+}
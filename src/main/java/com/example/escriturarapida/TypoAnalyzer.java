@@ -0,0 +1,437 @@
+package com.example.escriturarapida;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+
+/**
+ * Finds out what went wrong in a typed word: which chars were left out,
+ * added, swapped or replaced, and why.
+ *
+ * <p>The edit distance between the word and the input is computed with
+ * the bit-parallel algorithm of Myers, in the form given by Hyyrö, which
+ * also counts a swap of two adjacent chars as one edit (optimal string
+ * alignment). The word is the pattern, so it must fit in one {@code long}:
+ * {@value #MAX_LENGTH} chars, twice the longest Spanish word. Every column
+ * of the matrix costs a few word operations, and its vertical differences
+ * are kept so that any cell can be recovered with two popcounts; the
+ * alignment is then traced back from the last cell.</p>
+ *
+ * <p>Each edit of the alignment gets a {@link Kind}. A replaced char
+ * that only differs in its accent is an accent mistake, and one next to
+ * the right key on a Spanish keyboard is a neighbouring-key mistake.</p>
+ *
+ * <p>An analyzer is reused from one submission to the next and allocates
+ * nothing, so it is cheap enough to run on every keystroke. It is not
+ * thread-safe.</p>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class TypoAnalyzer {
+
+    /**
+     * Kind of an edit between the word and the input.
+     */
+    public enum Kind {
+        /** A char typed without, with a wrong or with an extra accent. */
+        ACCENT("Acentos"),
+        /** A char replaced by one of the keys around it. */
+        NEIGHBOR_KEY("Teclas vecinas"),
+        /** Any other replaced char. */
+        SUBSTITUTION("Cambios"),
+        /** A char of the word that was not typed. */
+        OMISSION("Omisiones"),
+        /** A typed char that is not in the word. */
+        INSERTION("Sobrantes"),
+        /** Two adjacent chars typed in the wrong order. */
+        TRANSPOSITION("Transposiciones");
+
+        private static final Kind[] VALUES = values();
+
+        private final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+
+        /** @return the name shown to the player */
+        public String getLabel() {
+            return label;
+        }
+
+        /**
+         * @param ordinal the kind index
+         * @return the kind with that index
+         */
+        public static Kind fromOrdinal(int ordinal) {
+            return VALUES[ordinal];
+        }
+    }
+
+    /** Longest word that can be analyzed, and longest input considered. */
+    public static final int MAX_LENGTH = 64;
+
+    /** Rows of a Spanish keyboard, lower case, as typed without modifiers. */
+    private static final String[] KEYBOARD = {
+            "1234567890'¡",
+            "qwertyuiop`+",
+            "asdfghjklñ´ç",
+            "<zxcvbnm,.-"
+    };
+    /**
+     * Left edge of the first key of each row, in quarters of a key: the
+     * rows step right down to the home row, and the bottom row starts with
+     * the {@code <} key, further left.
+     */
+    private static final int[] ROW_OFFSET = {4, 6, 7, 5};
+    /** Row of each key below U+0100, or -1. */
+    private static final int[] KEY_ROW = new int[0x100];
+    /** Left edge of each key below U+0100, in quarters of a key. */
+    private static final int[] KEY_X = new int[0x100];
+
+    static {
+        Arrays.fill(KEY_ROW, -1);
+        for (int row = 0; row < KEYBOARD.length; row++) {
+            for (int column = 0; column < KEYBOARD[row].length(); column++) {
+                char key = KEYBOARD[row].charAt(column);
+                KEY_ROW[key] = row;
+                KEY_X[key] = ROW_OFFSET[row] + 4 * column;
+            }
+        }
+    }
+
+    /**
+     * ---------- MATCH VECTORS ----------
+     */
+    /** Positions of each char below U+0100 in the word. */
+    private final long[] latinMasks = new long[0x100];
+    /** Other chars of the word and their positions. */
+    private final char[] otherChars = new char[MAX_LENGTH];
+    private final long[] otherMasks = new long[MAX_LENGTH];
+    private int otherCount;
+
+    /**
+     * ---------- MATRIX ----------
+     */
+    /** Vertical differences of every column: +1 and -1 bits. */
+    private final long[] plus = new long[MAX_LENGTH + 1];
+    private final long[] minus = new long[MAX_LENGTH + 1];
+
+    /**
+     * ---------- ALIGNMENT ----------
+     */
+    private final Kind[] kinds = new Kind[2 * MAX_LENGTH];
+    private final char[] expected = new char[2 * MAX_LENGTH];
+    private final char[] typed = new char[2 * MAX_LENGTH];
+    private final int[] positions = new int[2 * MAX_LENGTH];
+    private int edits;
+    private int distance;
+
+    /**
+     * ---------- ANALYSIS ----------
+     */
+
+    /**
+     * Computes the distance and the edits between a word and an input.
+     * Input past {@link #MAX_LENGTH} chars is ignored.
+     *
+     * @param word  the word to type
+     * @param input what was typed
+     * @return the number of edits, or -1 if the word is too long to analyze
+     */
+    public int analyze(CharSequence word, CharSequence input) {
+        edits = 0;
+        distance = compute(word, input);
+        if (distance > 0) {
+            traceBack(word, input);
+        }
+        return distance;
+    }
+
+    /**
+     * Computes only the distance, counting a swap of adjacent chars as one
+     * edit.
+     *
+     * @param word  the word to type
+     * @param input what was typed
+     * @return the number of edits, or -1 if the word is too long to analyze
+     */
+    public int distance(CharSequence word, CharSequence input) {
+        edits = 0;
+        distance = compute(word, input);
+        return distance;
+    }
+
+    /**
+     * Runs the bit-parallel algorithm. Bit {@code i} of the vectors stands
+     * for row {@code i + 1}, and the top row grows by one per column, as the
+     * whole word is compared with the whole input.
+     */
+    private int compute(CharSequence word, CharSequence input) {
+        int m = word.length();
+        int n = Math.min(input.length(), MAX_LENGTH);
+        if (m > MAX_LENGTH) {
+            return -1;
+        }
+        if (m == 0) {
+            return n;
+        }
+        setMasks(word, m);
+        long last = 1L << (m - 1);
+        long vp = ~0L;
+        long vn = 0;
+        long d0 = 0;
+        long previousEq = 0;
+        int score = m;
+        plus[0] = vp;
+        minus[0] = 0;
+        for (int j = 0; j < n; j++) {
+            long eq = mask(input.charAt(j));
+            long swapped = ((~d0 & eq) << 1) & previousEq;
+            d0 = (((eq & vp) + vp) ^ vp) | eq | vn | swapped;
+            long hp = vn | ~(d0 | vp);
+            long hn = d0 & vp;
+            if ((hp & last) != 0) {
+                score++;
+            } else if ((hn & last) != 0) {
+                score--;
+            }
+            hp = (hp << 1) | 1;
+            hn <<= 1;
+            vp = hn | ~(d0 | hp);
+            vn = d0 & hp;
+            plus[j + 1] = vp;
+            minus[j + 1] = vn;
+            previousEq = eq;
+        }
+        clearMasks(word, m);
+        return score;
+    }
+
+    private void setMasks(CharSequence word, int m) {
+        otherCount = 0;
+        for (int i = 0; i < m; i++) {
+            char c = word.charAt(i);
+            if (c < 0x100) {
+                latinMasks[c] |= 1L << i;
+                continue;
+            }
+            int k = 0;
+            while (k < otherCount && otherChars[k] != c) {
+                k++;
+            }
+            if (k == otherCount) {
+                otherChars[k] = c;
+                otherMasks[k] = 0;
+                otherCount++;
+            }
+            otherMasks[k] |= 1L << i;
+        }
+    }
+
+    private void clearMasks(CharSequence word, int m) {
+        for (int i = 0; i < m; i++) {
+            char c = word.charAt(i);
+            if (c < 0x100) {
+                latinMasks[c] = 0;
+            }
+        }
+    }
+
+    private long mask(char c) {
+        if (c < 0x100) {
+            return latinMasks[c];
+        }
+        for (int k = 0; k < otherCount; k++) {
+            if (otherChars[k] == c) {
+                return otherMasks[k];
+            }
+        }
+        return 0;
+    }
+
+    /** Distance between the first {@code i} chars of the word and the first {@code j} typed. */
+    private int cell(int i, int j) {
+        if (j == 0) {
+            return i;
+        }
+        long rows = i == 64 ? ~0L : (1L << i) - 1;
+        return j + Long.bitCount(plus[j] & rows) - Long.bitCount(minus[j] & rows);
+    }
+
+    /**
+     * Walks back from the last cell, preferring matches, then swaps,
+     * replacements, omissions and insertions, and records every edit in
+     * word order.
+     */
+    private void traceBack(CharSequence word, CharSequence input) {
+        int i = word.length();
+        int j = Math.min(input.length(), MAX_LENGTH);
+        while (i > 0 || j > 0) {
+            int here = cell(i, j);
+            if (i > 0 && j > 0 && word.charAt(i - 1) == input.charAt(j - 1) && cell(i - 1, j - 1) == here) {
+                i--;
+                j--;
+            } else if (i > 1 && j > 1 && word.charAt(i - 1) == input.charAt(j - 2)
+                    && word.charAt(i - 2) == input.charAt(j - 1) && cell(i - 2, j - 2) + 1 == here) {
+                record(Kind.TRANSPOSITION, word.charAt(i - 2), input.charAt(j - 2), i - 2);
+                i -= 2;
+                j -= 2;
+            } else if (i > 0 && j > 0 && cell(i - 1, j - 1) + 1 == here) {
+                char want = word.charAt(i - 1);
+                char got = input.charAt(j - 1);
+                record(classify(want, got), want, got, i - 1);
+                i--;
+                j--;
+            } else if (i > 0 && cell(i - 1, j) + 1 == here) {
+                char want = word.charAt(i - 1);
+                record(isMark(want) ? Kind.ACCENT : Kind.OMISSION, want, '\0', i - 1);
+                i--;
+            } else {
+                char got = input.charAt(j - 1);
+                record(isMark(got) ? Kind.ACCENT : Kind.INSERTION, '\0', got, i);
+                j--;
+            }
+        }
+        // Recorded from the end of the word
+        for (int a = 0, b = edits - 1; a < b; a++, b--) {
+            swap(a, b);
+        }
+    }
+
+    private void record(Kind kind, char want, char got, int position) {
+        kinds[edits] = kind;
+        expected[edits] = want;
+        typed[edits] = got;
+        positions[edits] = position;
+        edits++;
+    }
+
+    private void swap(int a, int b) {
+        Kind kind = kinds[a];
+        kinds[a] = kinds[b];
+        kinds[b] = kind;
+        char c = expected[a];
+        expected[a] = expected[b];
+        expected[b] = c;
+        c = typed[a];
+        typed[a] = typed[b];
+        typed[b] = c;
+        int p = positions[a];
+        positions[a] = positions[b];
+        positions[b] = p;
+    }
+
+    /**
+     * ---------- CLASSIFICATION ----------
+     */
+
+    /**
+     * Tells why one char was typed instead of another.
+     *
+     * @param want the char of the word
+     * @param got  the char typed instead
+     * @return {@link Kind#ACCENT}, {@link Kind#NEIGHBOR_KEY} or {@link Kind#SUBSTITUTION}
+     */
+    public static Kind classify(char want, char got) {
+        char a = Character.toLowerCase(MatchMode.fold(want));
+        char b = Character.toLowerCase(MatchMode.fold(got));
+        if (a == b && a != 0) {
+            return Kind.ACCENT;
+        }
+        return isNeighbor(Character.toLowerCase(want), Character.toLowerCase(got))
+                ? Kind.NEIGHBOR_KEY : Kind.SUBSTITUTION;
+    }
+
+    /**
+     * @param a a key, in lower case
+     * @param b another key, in lower case
+     * @return true if the keys touch on a Spanish keyboard, in the same row
+     *         or in the row above or below
+     */
+    public static boolean isNeighbor(char a, char b) {
+        if (a >= KEY_ROW.length || b >= KEY_ROW.length || KEY_ROW[a] < 0 || KEY_ROW[b] < 0 || a == b) {
+            return false;
+        }
+        int distance = Math.abs(KEY_X[b] - KEY_X[a]);
+        switch (Math.abs(KEY_ROW[b] - KEY_ROW[a])) {
+            case 0:
+                return distance == 4;
+            case 1:
+                // Keys of adjacent rows touch if they overlap at all
+                return distance < 4;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isMark(char c) {
+        return Character.getType(c) == Character.NON_SPACING_MARK;
+    }
+
+    /**
+     * Composes accents typed as separate combining marks, so that the input
+     * is compared char by char with the word as it is shown. Returns the
+     * input itself when it has no combining mark, which is the usual case.
+     *
+     * @param input what was typed
+     * @return the input in NFC
+     */
+    public static String composed(String input) {
+        for (int i = 0; i < input.length(); i++) {
+            if (isMark(input.charAt(i))) {
+                return Normalizer.normalize(input, Normalizer.Form.NFC);
+            }
+        }
+        return input;
+    }
+
+    /**
+     * ---------- RESULTS ----------
+     */
+
+    /** @return edits found by the last call; 0 if the input was right */
+    public int getDistance() {
+        return distance;
+    }
+
+    /** @return edits of the alignment found by the last {@link #analyze} */
+    public int getEditCount() {
+        return edits;
+    }
+
+    /**
+     * @param edit index of the edit, in word order
+     * @return its kind
+     */
+    public Kind getKind(int edit) {
+        return kinds[edit];
+    }
+
+    /**
+     * @param edit index of the edit, in word order
+     * @return char of the word, the first of the pair for a transposition,
+     *         or {@code '\0'} for an insertion
+     */
+    public char getExpected(int edit) {
+        return expected[edit];
+    }
+
+    /**
+     * @param edit index of the edit, in word order
+     * @return char typed, or {@code '\0'} for an omission
+     */
+    public char getTyped(int edit) {
+        return typed[edit];
+    }
+
+    /**
+     * @param edit index of the edit, in word order
+     * @return position in the word where the edit happens
+     */
+    public int getPosition(int edit) {
+        return positions[edit];
+    }
+}
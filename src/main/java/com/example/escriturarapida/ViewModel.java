@@ -0,0 +1,142 @@
+package com.example.escriturarapida;
+
+import javafx.application.Platform;
+import javafx.beans.property.StringProperty;
+import javafx.beans.value.ObservableValue;
+import javafx.css.PseudoClass;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Base of the view models the controllers bind their nodes to.
+ *
+ * <p>A view model exposes observable properties and computes them from the
+ * game state in {@link #refresh()}. Three rules keep the UI work per frame
+ * low:</p>
+ * <ul>
+ *   <li>Changes are coalesced: {@link #invalidate()} only marks the model
+ *       dirty, and the refresh runs once, in the pre-layout phase of the
+ *       next pulse, however many times it was invalidated.</li>
+ *   <li>Unchanged values are skipped, so no listener, layout or CSS pass is
+ *       triggered by writing the same text again.</li>
+ *   <li>State colours are CSS pseudo-classes defined in {@code Style.css},
+ *       toggled with {@link #bindPseudoClass}, instead of inline styles
+ *       that have to be parsed on every change.</li>
+ * </ul>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public abstract class ViewModel {
+
+    private final Runnable pulseListener = this::flush;
+    private Scene scene;
+    private boolean dirty;
+
+    /**
+     * ---------- LIFECYCLE ----------
+     */
+
+    /**
+     * Starts refreshing on the pulses of a scene.
+     *
+     * @param scene the scene showing the bound nodes
+     */
+    public void attach(Scene scene) {
+        detach();
+        this.scene = scene;
+        scene.addPreLayoutPulseListener(pulseListener);
+        invalidate();
+    }
+
+    /**
+     * Stops refreshing; pending changes are dropped.
+     */
+    public void detach() {
+        if (scene != null) {
+            scene.removePreLayoutPulseListener(pulseListener);
+            scene = null;
+        }
+        dirty = false;
+    }
+
+    /**
+     * Schedules a refresh on the next pulse. Cheap to call many times per frame.
+     */
+    public void invalidate() {
+        if (!dirty) {
+            dirty = true;
+            if (scene != null) {
+                Platform.requestNextPulse();
+            }
+        }
+    }
+
+    /**
+     * Refreshes right away, for screens that only change when shown.
+     */
+    public void refreshNow() {
+        dirty = false;
+        refresh();
+    }
+
+    private void flush() {
+        if (dirty) {
+            dirty = false;
+            refresh();
+        }
+    }
+
+    /**
+     * Recomputes the properties from the current state.
+     */
+    protected abstract void refresh();
+
+    /**
+     * ---------- HELPERS ----------
+     */
+
+    /**
+     * Sets a text property only if the value is different.
+     *
+     * @param property the property
+     * @param value    the new value
+     */
+    protected static void update(StringProperty property, String value) {
+        if (!Objects.equals(property.get(), value)) {
+            property.set(value);
+        }
+    }
+
+    /**
+     * Mirrors an enum state on a node as the pseudo-class named after the
+     * constant in lower case, e.g. {@code WARNING} as {@code :warning}.
+     * Only one of them is active at a time.
+     *
+     * @param node  the styled node
+     * @param state the state to follow
+     * @param <E>   the state type
+     */
+    public static <E extends Enum<E>> void bindPseudoClass(Node node, ObservableValue<E> state) {
+        toggle(node, null, state.getValue());
+        state.addListener((obs, oldState, newState) -> toggle(node, oldState, newState));
+    }
+
+    private static void toggle(Node node, Enum<?> oldState, Enum<?> newState) {
+        if (oldState != null) {
+            node.pseudoClassStateChanged(pseudoClass(oldState), false);
+        }
+        if (newState != null) {
+            node.pseudoClassStateChanged(pseudoClass(newState), true);
+        }
+    }
+
+    private static PseudoClass pseudoClass(Enum<?> state) {
+        return PseudoClass.getPseudoClass(state.name().toLowerCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.escriturarapida;
+
+import java.util.Arrays;
+
+/**
+ * Counts words with an open-addressing hash table over primitive arrays.
+ *
+ * <p>The characters of every distinct word are stored once, back to back,
+ * in one {@code char[]}; an entry is an offset, a length, a hash and a
+ * count in parallel arrays, and the table holds entry numbers. Counting a
+ * word that is already known allocates nothing, which is what makes
+ * counting billions of tokens cheap.</p>
+ *
+ * <p>{@link #prune} drops the rarest words when the table grows past a
+ * limit, so a counter fed with an unbounded stream stays bounded; counts
+ * of the words that survive are exact from the moment they were last
+ * kept. The counter is not thread-safe: each thread counts into its own
+ * and the results are {@link #addAll merged}.</p>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class WordCounter {
+
+    /**
+     * Receives one counted word.
+     */
+    @FunctionalInterface
+    public interface Visitor {
+        /**
+         * @param chars  array holding the word
+         * @param offset first char of the word
+         * @param length chars in the word
+         * @param count  times the word was counted
+         */
+        void visit(char[] chars, int offset, int length, long count);
+    }
+
+    private static final int EMPTY = -1;
+
+    private int[] table;
+    private int mask;
+    private char[] chars;
+    private int charsUsed;
+    private int[] offsets;
+    private int[] lengths;
+    private int[] hashes;
+    private long[] counts;
+    private int size;
+    private long total;
+
+    /**
+     * @param expected distinct words expected; the table grows past it
+     */
+    public WordCounter(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+        table = new int[capacity];
+        Arrays.fill(table, EMPTY);
+        mask = capacity - 1;
+        chars = new char[Math.max(64, expected * 8)];
+        offsets = new int[Math.max(16, expected)];
+        lengths = new int[offsets.length];
+        hashes = new int[offsets.length];
+        counts = new long[offsets.length];
+    }
+
+    /**
+     * ---------- COUNTING ----------
+     */
+
+    /**
+     * Hash of a word, as expected by {@link #add}.
+     *
+     * @param word   array holding the word
+     * @param offset first char of the word
+     * @param length chars in the word
+     * @return the hash
+     */
+    public static int hash(char[] word, int offset, int length) {
+        int h = 0x811C9DC5;
+        for (int i = 0; i < length; i++) {
+            h = (h ^ word[offset + i]) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Adds occurrences of a word, copying its chars if it is new.
+     *
+     * @param word   array holding the word
+     * @param offset first char of the word
+     * @param length chars in the word
+     * @param hash   {@link #hash} of the word
+     * @param count  occurrences to add
+     */
+    public void add(char[] word, int offset, int length, int hash, long count) {
+        total += count;
+        int slot = hash & mask;
+        while (true) {
+            int entry = table[slot];
+            if (entry == EMPTY) {
+                break;
+            }
+            if (hashes[entry] == hash && lengths[entry] == length
+                    && Arrays.equals(chars, offsets[entry], offsets[entry] + length, word, offset, offset + length)) {
+                counts[entry] += count;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (size == offsets.length) {
+            int grown = size * 2;
+            offsets = Arrays.copyOf(offsets, grown);
+            lengths = Arrays.copyOf(lengths, grown);
+            hashes = Arrays.copyOf(hashes, grown);
+            counts = Arrays.copyOf(counts, grown);
+        }
+        if (charsUsed + length > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(chars.length * 2, charsUsed + length));
+        }
+        System.arraycopy(word, offset, chars, charsUsed, length);
+        offsets[size] = charsUsed;
+        lengths[size] = length;
+        hashes[size] = hash;
+        counts[size] = count;
+        charsUsed += length;
+        table[slot] = size++;
+        if (size * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+    }
+
+    /**
+     * Adds every word of another counter.
+     *
+     * @param other the counter to merge into this one
+     */
+    public void addAll(WordCounter other) {
+        for (int i = 0; i < other.size; i++) {
+            add(other.chars, other.offsets[i], other.lengths[i], other.hashes[i], other.counts[i]);
+        }
+        // Occurrences of words the other counter already pruned still count
+        total += other.total - other.counted();
+    }
+
+    private long counted() {
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += counts[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Drops the words counted fewer than {@code minCount} times, raising
+     * the threshold until at most {@code keep} words are left.
+     *
+     * @param minCount first threshold to try
+     * @param keep     most words to keep
+     * @return the threshold finally used
+     */
+    public long prune(long minCount, int keep) {
+        long threshold = Math.max(1, minCount);
+        while (true) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (counts[i] >= threshold) {
+                    kept++;
+                }
+            }
+            if (kept <= keep) {
+                break;
+            }
+            threshold *= 2;
+        }
+
+        int kept = 0;
+        int used = 0;
+        for (int i = 0; i < size; i++) {
+            if (counts[i] >= threshold) {
+                System.arraycopy(chars, offsets[i], chars, used, lengths[i]);
+                offsets[kept] = used;
+                lengths[kept] = lengths[i];
+                hashes[kept] = hashes[i];
+                counts[kept] = counts[i];
+                used += lengths[i];
+                kept++;
+            }
+        }
+        size = kept;
+        charsUsed = used;
+        rehash(table.length);
+        return threshold;
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        Arrays.fill(table, EMPTY);
+        mask = capacity - 1;
+        for (int entry = 0; entry < size; entry++) {
+            int slot = hashes[entry] & mask;
+            while (table[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = entry;
+        }
+    }
+
+    /**
+     * ---------- READING ----------
+     */
+
+    /**
+     * Visits every word, in the order they were first counted.
+     *
+     * @param visitor receiver of the words
+     */
+    public void forEach(Visitor visitor) {
+        for (int i = 0; i < size; i++) {
+            visitor.visit(chars, offsets[i], lengths[i], counts[i]);
+        }
+    }
+
+    /** @return distinct words */
+    public int size() {
+        return size;
+    }
+
+    /** @return occurrences counted, including those of pruned words */
+    public long getTotal() {
+        return total;
+    }
+
+    /** @return approximate heap used by the counter, in bytes */
+    public long getBytes() {
+        return 4L * table.length + 2L * chars.length + 20L * offsets.length;
+    }
+}
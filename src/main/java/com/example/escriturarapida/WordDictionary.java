@@ -0,0 +1,294 @@
+package com.example.escriturarapida;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only word dictionary indexed by difficulty and word length.
+ *
+ * <p>The dictionary is a single binary file that is memory-mapped, so
+ * opening it costs the same whatever the number of words, and only the
+ * pages that are actually read become resident. Words are stored as UTF-8
+ * in one byte blob and located through offset tables; a {@code String} is
+ * only created for the word that is requested.</p>
+ *
+ * <p>File layout (big-endian):</p>
+ * <pre>
+ * int    magic 'ERDC'
+ * short  version
+ * short  bucket count (one per {@link Difficulty})
+ * int    maximum word length, in chars
+ * per bucket:
+ *   int  word count
+ *   int  position of the offset table
+ *   int  position of the length index
+ *   int  position of the offset table of the NFC forms
+ *   int  position of the offset table of the accent-insensitive forms
+ * int    position of the blob
+ * int    size of the blob
+ * per bucket:
+ *   int[count + 1]      offset of each word inside the blob
+ *   int[maxLength + 2]  index of the first word with at least that length
+ *   int[count + 1]      offset of each NFC form inside the blob
+ *   int[count + 1]      offset of each accent-insensitive form inside the blob
+ * byte[] UTF-8 blob
+ * </pre>
+ *
+ * <p>Words inside a bucket are ordered by length, so the words of a given
+ * length form the range returned by {@link #firstIndexOfLength} and
+ * {@link #endIndexOfLength}. Next to each word the file stores its
+ * {@link MatchMode#form forms} for the non-exact match modes, computed
+ * when the dictionary is written, so that comparing typed text never needs
+ * to normalize. Dictionaries are written by {@link DictionaryWriter}.</p>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class WordDictionary {
+    /**
+     * ---------- FORMAT ----------
+     */
+    static final int MAGIC = 0x45524443;
+    static final short VERSION = 2;
+    static final int HEADER_SIZE = 12;
+    static final int BUCKET_ENTRY_SIZE = 20;
+
+    /** System property holding the path of an external dictionary file. */
+    public static final String DICTIONARY_PROPERTY = "escritura.dictionary";
+
+    private static WordDictionary shared;
+
+    /**
+     * ---------- STATE ----------
+     */
+    private final ByteBuffer buffer;
+    private final int maxLength;
+    private final int[] counts;
+    private final int[] offsetsPos;
+    private final int[] lengthIndexPos;
+    private final int[] nfcOffsetsPos;
+    private final int[] foldedOffsetsPos;
+    private final int blobPos;
+
+    private WordDictionary(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a word dictionary");
+        }
+        short version = buffer.getShort(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported dictionary version " + version
+                    + "; compile it again with DictionaryWriter");
+        }
+        int bucketCount = buffer.getShort(6);
+        if (bucketCount != Difficulty.values().length) {
+            throw new IOException("Expected " + Difficulty.values().length + " buckets, found " + bucketCount);
+        }
+        maxLength = buffer.getInt(8);
+
+        counts = new int[bucketCount];
+        offsetsPos = new int[bucketCount];
+        lengthIndexPos = new int[bucketCount];
+        nfcOffsetsPos = new int[bucketCount];
+        foldedOffsetsPos = new int[bucketCount];
+        int position = HEADER_SIZE;
+        for (int b = 0; b < bucketCount; b++) {
+            counts[b] = buffer.getInt(position);
+            offsetsPos[b] = buffer.getInt(position + 4);
+            lengthIndexPos[b] = buffer.getInt(position + 8);
+            nfcOffsetsPos[b] = buffer.getInt(position + 12);
+            foldedOffsetsPos[b] = buffer.getInt(position + 16);
+            position += BUCKET_ENTRY_SIZE;
+        }
+        blobPos = buffer.getInt(position);
+    }
+
+    /**
+     * ---------- LOADING ----------
+     */
+
+    /**
+     * Memory-maps a dictionary file.
+     *
+     * @param file the dictionary file
+     * @return the mapped dictionary
+     * @throws IOException if the file cannot be mapped or is not a dictionary
+     */
+    public static WordDictionary open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new WordDictionary(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Wraps a dictionary that is already in memory, as produced by
+     * {@link DictionaryWriter#encode()}.
+     *
+     * @param buffer the encoded dictionary
+     * @return the dictionary
+     * @throws IOException if the buffer is not a dictionary
+     */
+    public static WordDictionary wrap(ByteBuffer buffer) throws IOException {
+        return new WordDictionary(buffer);
+    }
+
+    /**
+     * Returns the dictionary used by the game: the file named by the
+     * {@code escritura.dictionary} system property if set, otherwise the
+     * built-in word lists. Loaded once and then shared.
+     *
+     * @return the shared dictionary
+     */
+    public static synchronized WordDictionary shared() {
+        if (shared == null) {
+            String path = System.getProperty(DICTIONARY_PROPERTY);
+            if (path != null) {
+                try {
+                    shared = open(Path.of(path));
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            if (shared == null) {
+                shared = builtIn();
+            }
+        }
+        return shared;
+    }
+
+    private static WordDictionary builtIn() {
+        DictionaryWriter writer = new DictionaryWriter();
+        for (Difficulty difficulty : Difficulty.values()) {
+            writer.addAll(difficulty, DefaultWords.forDifficulty(difficulty));
+        }
+        try {
+            return wrap(writer.encode());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * ---------- QUERIES ----------
+     */
+
+    /**
+     * @param difficulty the bucket to query
+     * @return number of words in the bucket
+     */
+    public int size(Difficulty difficulty) {
+        return counts[difficulty.ordinal()];
+    }
+
+    /**
+     * Decodes one word. Only this method and {@link #form} allocate.
+     *
+     * @param difficulty the bucket
+     * @param index      index of the word inside the bucket
+     * @return the word
+     */
+    public String word(Difficulty difficulty, int index) {
+        return decode(offsetsPos, difficulty, index);
+    }
+
+    /**
+     * Decodes the precomputed form of a word for a match mode.
+     *
+     * @param difficulty the bucket
+     * @param index      index of the word inside the bucket
+     * @param mode       the match mode
+     * @return the form of the word under {@code mode}; the word itself for
+     *         {@link MatchMode#EXACT}
+     */
+    public String form(Difficulty difficulty, int index, MatchMode mode) {
+        switch (mode) {
+            case NFC:
+                return decode(nfcOffsetsPos, difficulty, index);
+            case ACCENT_INSENSITIVE:
+                return decode(foldedOffsetsPos, difficulty, index);
+            default:
+                return word(difficulty, index);
+        }
+    }
+
+    private String decode(int[] tablePos, Difficulty difficulty, int index) {
+        int start = offset(tablePos, difficulty, index);
+        int length = offset(tablePos, difficulty, index + 1) - start;
+        byte[] utf8 = new byte[length];
+        buffer.get(blobPos + start, utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param difficulty the bucket
+     * @param index      index of the word inside the bucket
+     * @return size of the word in UTF-8 bytes
+     */
+    public int byteLength(Difficulty difficulty, int index) {
+        return offset(offsetsPos, difficulty, index + 1) - offset(offsetsPos, difficulty, index);
+    }
+
+    /**
+     * @param difficulty the bucket
+     * @param length     word length in chars
+     * @return index of the first word of that length or longer
+     */
+    public int firstIndexOfLength(Difficulty difficulty, int length) {
+        if (length > maxLength) {
+            return size(difficulty);
+        }
+        return buffer.getInt(lengthIndexPos[difficulty.ordinal()] + Math.max(0, length) * Integer.BYTES);
+    }
+
+    /**
+     * @param difficulty the bucket
+     * @param length     word length in chars
+     * @return index after the last word of that length
+     */
+    public int endIndexOfLength(Difficulty difficulty, int length) {
+        return firstIndexOfLength(difficulty, length + 1);
+    }
+
+    /**
+     * Finds a word by binary search inside the words of its length.
+     *
+     * @param difficulty the bucket
+     * @param word       the word to look for
+     * @return index of the word, or -1 if the bucket does not contain it
+     */
+    public int indexOf(Difficulty difficulty, String word) {
+        int low = firstIndexOfLength(difficulty, word.length());
+        int high = endIndexOfLength(difficulty, word.length()) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = word(difficulty, mid).compareTo(word);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /** @return length in chars of the longest word */
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    private int offset(int[] tablePos, Difficulty difficulty, int index) {
+        int b = difficulty.ordinal();
+        if (index < 0 || index > counts[b]) {
+            throw new IndexOutOfBoundsException("Word " + index + " of " + counts[b]);
+        }
+        return buffer.getInt(tablePos[b] + index * Integer.BYTES);
+    }
+}
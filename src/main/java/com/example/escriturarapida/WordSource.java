@@ -0,0 +1,49 @@
+package com.example.escriturarapida;
+
+/**
+ * Supplies the words the player has to type.
+ *
+ * <p>The game asks for one word per level through {@link #nextWord};
+ * implementations decide how words are picked from each difficulty.</p>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public interface WordSource {
+
+    /**
+     * Draws the next word for a difficulty.
+     *
+     * @param difficulty the difficulty of the current level
+     * @return the word to type
+     */
+    String nextWord(Difficulty difficulty);
+
+    /**
+     * Returns the form of the word last drawn from a difficulty that typed
+     * text is compared with. The default computes it; sources backed by a
+     * {@link WordDictionary} return the form stored with the word, so no
+     * normalization happens during a game.
+     *
+     * @param difficulty the bucket the word was drawn from
+     * @param word       the word last returned by {@link #nextWord} for that bucket
+     * @param mode       the match mode
+     * @return the form of the word under {@code mode}
+     */
+    default String form(Difficulty difficulty, String word, MatchMode mode) {
+        return mode.form(word);
+    }
+
+    /**
+     * Tells the source how a submission of a word went, so adaptive
+     * sources can change their weights. Does nothing by default.
+     *
+     * @param difficulty the bucket the word was drawn from
+     * @param word       the word
+     * @param ok         true if the submission was accepted
+     */
+    default void onResult(Difficulty difficulty, String word, boolean ok) {
+    }
+}
@@ -0,0 +1,495 @@
+package com.example.escriturarapida;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only lexicon stored as a succinct trie, for membership tests and
+ * prefix queries over hundreds of thousands of words.
+ *
+ * <p>The trie is encoded level by level (LOUDS). Every edge is one byte,
+ * the code of its char in a small alphabet, plus three bits:</p>
+ * <ul>
+ *   <li>{@code first}: the edge is the first one of its node;</li>
+ *   <li>{@code child}: the edge leads to a node with edges of its own;</li>
+ *   <li>{@code terminal}: the chars up to this edge spell a word.</li>
+ * </ul>
+ *
+ * <p>Nodes are numbered in the order their edges appear, the root being 0,
+ * so the node an edge leads to is the number of {@code child} bits up to
+ * that edge, and a node starts at its {@code first} bit of the same number.
+ * Rank over the bits uses a directory of one count every 512 bits, and
+ * select starts from the block of every 512th set bit. A word costs its share of the edges, about 1.4 bytes per edge, and
+ * two bytes of metadata: its {@link Difficulty} and its frequency on the
+ * Zipf scale (log10 of occurrences per billion words).</p>
+ *
+ * <p>Words are identified by the rank of their terminal edge, which is
+ * level order, not alphabetical. Every query reads the buffer in place and
+ * allocates nothing, except {@link #word(int)}. Like the
+ * {@link WordDictionary}, a trie file is memory-mapped, so opening it costs
+ * the same whatever its size. Tries are written by {@link WordTrieWriter}.</p>
+ *
+ * <p>The game loads one lexicon at start-up, from
+ * {@code -Descritura.lexicon=file} or else from the words it plays with,
+ * and the input field is marked {@code :unknown} once what has been typed
+ * is not the start of any word in it.</p>
+ *
+ * <p>File layout (big-endian):</p>
+ * <pre>
+ * int     magic 'ERTR'
+ * short   version
+ * short   alphabet size
+ * int     edge count
+ * int     word count
+ * int     maximum word length, in chars
+ * int     positions of the first, child and terminal bits, of the labels,
+ *         of the difficulties and of the frequencies
+ * char[]  alphabet, in ascending order
+ * per bit vector, 8-aligned:
+ *   long[] bits, lowest bit first
+ *   int[]  set bits before each 512-bit block, plus the total
+ *   int[]  block holding every 512th set bit, plus the block count
+ * byte[edges] label of each edge
+ * byte[words] difficulty ordinal of each word
+ * byte[words] Zipf frequency of each word, in tenths; 0 if unknown
+ * </pre>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class WordTrie {
+    /**
+     * ---------- FORMAT ----------
+     */
+    static final int MAGIC = 0x45525452;
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 44;
+    static final int BLOCK_BITS = 512;
+    static final int SELECT_SAMPLE = 512;
+
+    /** System property holding the path of a trie file written by {@link CorpusIngester}. */
+    public static final String LEXICON_PROPERTY = "escritura.lexicon";
+
+    private static volatile WordTrie shared;
+
+    /**
+     * Bit vector with rank and select, read in place from the buffer.
+     */
+    private static final class Bits {
+        private final ByteBuffer buffer;
+        private final int bitsPos;
+        private final int ranksPos;
+        private final int samplesPos;
+        private final int blocks;
+        final int ones;
+
+        Bits(ByteBuffer buffer, int position, int length) {
+            this.buffer = buffer;
+            this.bitsPos = position;
+            this.ranksPos = position + longs(length) * Long.BYTES;
+            this.blocks = (length + BLOCK_BITS - 1) / BLOCK_BITS;
+            this.ones = buffer.getInt(ranksPos + blocks * Integer.BYTES);
+            this.samplesPos = ranksPos + (blocks + 1) * Integer.BYTES;
+        }
+
+        static int longs(int length) {
+            return (length + 63) >>> 6;
+        }
+
+        boolean get(int i) {
+            return (buffer.getLong(bitsPos + (i >>> 6) * Long.BYTES) & (1L << i)) != 0;
+        }
+
+        /** Set bits before position {@code i}. */
+        int rank(int i) {
+            int block = i / BLOCK_BITS;
+            int rank = buffer.getInt(ranksPos + block * Integer.BYTES);
+            int word = block * (BLOCK_BITS / 64);
+            for (int end = i >>> 6; word < end; word++) {
+                rank += Long.bitCount(buffer.getLong(bitsPos + word * Long.BYTES));
+            }
+            if ((i & 63) != 0) {
+                rank += Long.bitCount(buffer.getLong(bitsPos + word * Long.BYTES) & ((1L << i) - 1));
+            }
+            return rank;
+        }
+
+        /** Position of the set bit of rank {@code k}, counting from 0. */
+        int select(int k) {
+            int sample = k / SELECT_SAMPLE;
+            int low = buffer.getInt(samplesPos + sample * Integer.BYTES);
+            int high = buffer.getInt(samplesPos + (sample + 1) * Integer.BYTES);
+            high = Math.min(high, blocks - 1);
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (buffer.getInt(ranksPos + mid * Integer.BYTES) <= k) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            int remaining = k - buffer.getInt(ranksPos + low * Integer.BYTES);
+            int word = low * (BLOCK_BITS / 64);
+            while (true) {
+                long bits = buffer.getLong(bitsPos + word * Long.BYTES);
+                int count = Long.bitCount(bits);
+                if (remaining < count) {
+                    for (; remaining > 0; remaining--) {
+                        bits &= bits - 1;
+                    }
+                    return (word << 6) + Long.numberOfTrailingZeros(bits);
+                }
+                remaining -= count;
+                word++;
+            }
+        }
+    }
+
+    /**
+     * ---------- STATE ----------
+     */
+    private final ByteBuffer buffer;
+    private final char[] alphabet;
+    private final int edges;
+    private final int words;
+    private final int maxLength;
+    private final Bits first;
+    private final Bits child;
+    private final Bits terminal;
+    private final int labelsPos;
+    private final int difficultiesPos;
+    private final int frequenciesPos;
+
+    private WordTrie(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a word trie");
+        }
+        short version = buffer.getShort(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported trie version " + version
+                    + "; build it again with WordTrieWriter");
+        }
+        alphabet = new char[buffer.getShort(6)];
+        edges = buffer.getInt(8);
+        words = buffer.getInt(12);
+        maxLength = buffer.getInt(16);
+        first = new Bits(buffer, buffer.getInt(20), edges);
+        child = new Bits(buffer, buffer.getInt(24), edges);
+        terminal = new Bits(buffer, buffer.getInt(28), edges);
+        labelsPos = buffer.getInt(32);
+        difficultiesPos = buffer.getInt(36);
+        frequenciesPos = buffer.getInt(40);
+        for (int i = 0; i < alphabet.length; i++) {
+            alphabet[i] = buffer.getChar(HEADER_SIZE + i * Character.BYTES);
+        }
+        if (terminal.ones != words) {
+            throw new IOException("Trie holds " + terminal.ones + " words, header says " + words);
+        }
+    }
+
+    /**
+     * ---------- LOADING ----------
+     */
+
+    /**
+     * Memory-maps a trie file.
+     *
+     * @param file the trie file
+     * @return the mapped trie
+     * @throws IOException if the file cannot be mapped or is not a trie
+     */
+    public static WordTrie open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new WordTrie(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Wraps a trie that is already in memory, as produced by
+     * {@link WordTrieWriter#encode()}.
+     *
+     * @param buffer the encoded trie
+     * @return the trie
+     * @throws IOException if the buffer is not a trie
+     */
+    public static WordTrie wrap(ByteBuffer buffer) throws IOException {
+        return new WordTrie(buffer);
+    }
+
+    /**
+     * ---------- SHARED LEXICON ----------
+     */
+
+    /**
+     * Starts loading the lexicon used by the game on its own thread: the
+     * file named by the {@code escritura.lexicon} system property if set,
+     * otherwise a trie built from the words of the
+     * {@link WordDictionary#shared() shared dictionary}.
+     */
+    public static void loadInBackground() {
+        Thread loader = new Thread(WordTrie::loadShared, "escritura-lexicon");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private static void loadShared() {
+        String path = System.getProperty(LEXICON_PROPERTY);
+        if (path != null) {
+            try {
+                shared = open(Path.of(path));
+                return;
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        try {
+            shared = wrap(new WordTrieWriter().addAll(WordDictionary.shared()).encode());
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return the lexicon loaded by {@link #loadInBackground()}, or null
+     *         while it is still loading or if it could not be loaded
+     */
+    public static WordTrie shared() {
+        return shared;
+    }
+
+    /**
+     * ---------- QUERIES ----------
+     */
+
+    /**
+     * Finds a word.
+     *
+     * @param word the word to look for
+     * @return its id, or -1 if the trie does not contain it
+     */
+    public int indexOf(CharSequence word) {
+        int length = word.length();
+        if (length == 0) {
+            return -1;
+        }
+        int edge = walk(word, length);
+        return edge >= 0 && terminal.get(edge) ? terminal.rank(edge) : -1;
+    }
+
+    /**
+     * @param word the word to look for
+     * @return true if the trie contains it
+     */
+    public boolean contains(CharSequence word) {
+        return indexOf(word) >= 0;
+    }
+
+    /**
+     * @param prefix the start of a word
+     * @return true if some word starts with {@code prefix}; true for ""
+     */
+    public boolean isPrefix(CharSequence prefix) {
+        return prefixLength(prefix) == prefix.length();
+    }
+
+    /**
+     * Measures how much of a text could still become a word, which is what
+     * a "valid prefix" hint shows while the player types.
+     *
+     * @param text the text
+     * @return length of the longest start of {@code text} that some word
+     *         starts with
+     */
+    public int prefixLength(CharSequence text) {
+        int node = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            int edge = node < 0 ? -1 : find(node, text.charAt(i));
+            if (edge < 0) {
+                return i;
+            }
+            node = child.get(edge) ? child.rank(edge + 1) : -1;
+        }
+        return text.length();
+    }
+
+    /**
+     * Lists the words that start with a prefix, in alphabetical order,
+     * until {@code ids} is full.
+     *
+     * @param prefix the prefix
+     * @param ids    receives the ids of the words
+     * @return number of ids written
+     */
+    public int complete(CharSequence prefix, int[] ids) {
+        int length = prefix.length();
+        if (length == 0) {
+            return edges == 0 ? 0 : collect(0, ids, 0);
+        }
+        int edge = walk(prefix, length);
+        if (edge < 0 || ids.length == 0) {
+            return 0;
+        }
+        int count = 0;
+        if (terminal.get(edge)) {
+            ids[count++] = terminal.rank(edge);
+        }
+        return child.get(edge) ? collect(child.rank(edge + 1), ids, count) : count;
+    }
+
+    /**
+     * Adds the words below a node, depth first in label order. Recursion is
+     * as deep as the longest word.
+     */
+    private int collect(int node, int[] ids, int count) {
+        int start = first.select(node);
+        for (int edge = start; edge < edges && count < ids.length && (edge == start || !first.get(edge)); edge++) {
+            if (terminal.get(edge)) {
+                ids[count++] = terminal.rank(edge);
+            }
+            if (child.get(edge)) {
+                count = collect(child.rank(edge + 1), ids, count);
+            }
+        }
+        return count;
+    }
+
+    /** Follows {@code text[0, length)} from the root; returns the last edge or -1. */
+    private int walk(CharSequence text, int length) {
+        int node = 0;
+        int edge = -1;
+        for (int i = 0; i < length; i++) {
+            if (node < 0 || (edge = find(node, text.charAt(i))) < 0) {
+                return -1;
+            }
+            node = child.get(edge) ? child.rank(edge + 1) : -1;
+        }
+        return edge;
+    }
+
+    /** Finds the edge of a node labelled with a char, or -1. */
+    private int find(int node, char c) {
+        int code = code(c);
+        if (code < 0 || edges == 0) {
+            return -1;
+        }
+        for (int edge = first.select(node); edge < edges; edge++) {
+            int label = buffer.get(labelsPos + edge) & 0xFF;
+            if (label >= code) {
+                return label == code ? edge : -1;
+            }
+            if (edge + 1 < edges && first.get(edge + 1)) {
+                break;
+            }
+        }
+        return -1;
+    }
+
+    private int code(char c) {
+        int low = 0;
+        int high = alphabet.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (alphabet[mid] < c) {
+                low = mid + 1;
+            } else if (alphabet[mid] > c) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * ---------- WORDS ----------
+     */
+
+    /**
+     * Writes the chars of a word, walking from its terminal edge up to the
+     * root.
+     *
+     * @param id  the word id
+     * @param out receives the word; {@link #getMaxLength()} chars are enough
+     * @return length of the word
+     */
+    public int spell(int id, char[] out) {
+        checkId(id);
+        int edge = terminal.select(id);
+        int length = 0;
+        for (int e = edge; e >= 0; e = parentEdge(e)) {
+            length++;
+        }
+        int i = length;
+        for (int e = edge; e >= 0; e = parentEdge(e)) {
+            out[--i] = alphabet[buffer.get(labelsPos + e) & 0xFF];
+        }
+        return length;
+    }
+
+    /** Edge leading to the node of an edge, or -1 for the root's edges. */
+    private int parentEdge(int edge) {
+        int node = first.rank(edge + 1) - 1;
+        return node == 0 ? -1 : child.select(node - 1);
+    }
+
+    /**
+     * Decodes one word. Only this method allocates.
+     *
+     * @param id the word id
+     * @return the word
+     */
+    public String word(int id) {
+        char[] chars = new char[maxLength];
+        return new String(chars, 0, spell(id, chars));
+    }
+
+    /**
+     * @param id the word id
+     * @return the difficulty the word was graded with
+     */
+    public Difficulty difficulty(int id) {
+        checkId(id);
+        return Difficulty.fromOrdinal(buffer.get(difficultiesPos + id));
+    }
+
+    /**
+     * @param id the word id
+     * @return frequency of the word on the Zipf scale, to a tenth; 0 if unknown
+     */
+    public double zipf(int id) {
+        checkId(id);
+        return (buffer.get(frequenciesPos + id) & 0xFF) / 10.0;
+    }
+
+    private void checkId(int id) {
+        if (id < 0 || id >= words) {
+            throw new IndexOutOfBoundsException("Word " + id + " of " + words);
+        }
+    }
+
+    /** @return number of words */
+    public int size() {
+        return words;
+    }
+
+    /** @return number of edges, one per node but the root */
+    public int getEdgeCount() {
+        return edges;
+    }
+
+    /** @return length in chars of the longest word */
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    /** @return size of the encoded trie, in bytes */
+    public int getBytes() {
+        return buffer.limit();
+    }
+}
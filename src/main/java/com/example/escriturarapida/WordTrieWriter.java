@@ -0,0 +1,283 @@
+package com.example.escriturarapida;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Builds succinct tries in the format read by {@link WordTrie}.
+ *
+ * <p>Words are collected with their difficulty and frequency, then sorted
+ * and laid out level by level: every node of the trie is a range of the
+ * sorted words sharing a prefix, and its edges are the distinct chars that
+ * follow that prefix. Building holds every word as a {@code String}; only
+ * the encoded trie is meant to be kept.</p>
+ *
+ * @author
+ *   Juan Manuel Muñoz
+ * @version
+ *   1.0
+ */
+public final class WordTrieWriter {
+
+    /** Most distinct chars, as labels are one byte. */
+    static final int MAX_ALPHABET = 256;
+
+    /**
+     * Metadata of a word.
+     */
+    private static final class Entry {
+        final Difficulty difficulty;
+        final double zipf;
+
+        Entry(Difficulty difficulty, double zipf) {
+            this.difficulty = difficulty;
+            this.zipf = zipf;
+        }
+    }
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * Adds a word. A word added twice keeps its first metadata.
+     *
+     * @param word       the word, which must not be empty
+     * @param difficulty the bucket it was graded in
+     * @param zipf       its frequency on the Zipf scale, or 0 if unknown
+     * @return this writer
+     */
+    public WordTrieWriter add(String word, Difficulty difficulty, double zipf) {
+        if (word.isEmpty()) {
+            throw new IllegalArgumentException("Empty word");
+        }
+        entries.putIfAbsent(word, new Entry(difficulty, zipf));
+        return this;
+    }
+
+    /**
+     * Adds every word of a dictionary with its difficulty and an unknown
+     * frequency.
+     *
+     * @param dictionary the dictionary
+     * @return this writer
+     */
+    public WordTrieWriter addAll(WordDictionary dictionary) {
+        for (Difficulty difficulty : Difficulty.values()) {
+            for (int i = 0, n = dictionary.size(difficulty); i < n; i++) {
+                add(dictionary.word(difficulty, i), difficulty, 0);
+            }
+        }
+        return this;
+    }
+
+    /** @return number of distinct words added */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * ---------- ENCODING ----------
+     */
+
+    /**
+     * Encodes the trie.
+     *
+     * @return a buffer positioned at 0 holding the whole trie
+     * @throws IllegalStateException if the words use more than
+     *                               {@value #MAX_ALPHABET} distinct chars
+     */
+    public ByteBuffer encode() {
+        String[] sorted = entries.keySet().toArray(new String[0]);
+        Arrays.sort(sorted);
+        TreeSet<Character> chars = new TreeSet<>();
+        int maxLength = 0;
+        for (String word : sorted) {
+            for (int i = 0; i < word.length(); i++) {
+                chars.add(word.charAt(i));
+            }
+            maxLength = Math.max(maxLength, word.length());
+        }
+        if (chars.size() > MAX_ALPHABET) {
+            throw new IllegalStateException(chars.size() + " distinct chars, at most " + MAX_ALPHABET);
+        }
+        char[] alphabet = new char[chars.size()];
+        int a = 0;
+        for (char c : chars) {
+            alphabet[a++] = c;
+        }
+
+        // Level order: every queued node is the range [from, to) of words that
+        // share their first `depth` chars and are all longer than that
+        int capacity = Math.max(64, sorted.length * 2);
+        byte[] labels = new byte[capacity];
+        long[] first = new long[Bits.longs(capacity)];
+        long[] child = new long[first.length];
+        long[] terminal = new long[first.length];
+        List<String> wordOrder = new ArrayList<>(sorted.length);
+        int[] queue = sorted.length == 0 ? new int[0] : new int[] {0, sorted.length, 0};
+        int head = 0;
+        int tail = queue.length;
+        int edges = 0;
+        while (head < tail) {
+            int from = queue[head];
+            int to = queue[head + 1];
+            int depth = queue[head + 2];
+            head += 3;
+            boolean firstEdge = true;
+            for (int i = from; i < to; ) {
+                char c = sorted[i].charAt(depth);
+                int end = i;
+                while (end < to && sorted[end].charAt(depth) == c) {
+                    end++;
+                }
+                if (edges == labels.length) {
+                    labels = Arrays.copyOf(labels, edges * 2);
+                    first = Arrays.copyOf(first, Bits.longs(edges * 2));
+                    child = Arrays.copyOf(child, first.length);
+                    terminal = Arrays.copyOf(terminal, first.length);
+                }
+                labels[edges] = (byte) Arrays.binarySearch(alphabet, c);
+                int longer = i;
+                if (sorted[i].length() == depth + 1) {
+                    Bits.set(terminal, edges);
+                    wordOrder.add(sorted[i]);
+                    longer++;
+                }
+                if (firstEdge) {
+                    Bits.set(first, edges);
+                    firstEdge = false;
+                }
+                if (longer < end) {
+                    Bits.set(child, edges);
+                    if (tail + 3 > queue.length) {
+                        queue = compact(queue, head, tail);
+                        tail -= head;
+                        head = 0;
+                    }
+                    queue[tail++] = longer;
+                    queue[tail++] = end;
+                    queue[tail++] = depth + 1;
+                }
+                edges++;
+                i = end;
+            }
+        }
+
+        int words = wordOrder.size();
+        int firstPos = align(WordTrie.HEADER_SIZE + alphabet.length * Character.BYTES);
+        int childPos = firstPos + Bits.size(first, edges);
+        int terminalPos = childPos + Bits.size(child, edges);
+        int labelsPos = terminalPos + Bits.size(terminal, edges);
+        int difficultiesPos = labelsPos + edges;
+        int frequenciesPos = difficultiesPos + words;
+        ByteBuffer buffer = ByteBuffer.allocate(frequenciesPos + words);
+
+        buffer.putInt(WordTrie.MAGIC);
+        buffer.putShort(WordTrie.VERSION);
+        buffer.putShort((short) alphabet.length);
+        buffer.putInt(edges).putInt(words).putInt(maxLength);
+        buffer.putInt(firstPos).putInt(childPos).putInt(terminalPos)
+                .putInt(labelsPos).putInt(difficultiesPos).putInt(frequenciesPos);
+        for (char c : alphabet) {
+            buffer.putChar(c);
+        }
+        Bits.put(buffer.position(firstPos), first, edges);
+        Bits.put(buffer.position(childPos), child, edges);
+        Bits.put(buffer.position(terminalPos), terminal, edges);
+        buffer.position(labelsPos).put(labels, 0, edges);
+        for (String word : wordOrder) {
+            buffer.put((byte) entries.get(word).difficulty.ordinal());
+        }
+        for (String word : wordOrder) {
+            double tenths = Math.rint(entries.get(word).zipf * 10);
+            buffer.put((byte) Math.max(0, Math.min(255, tenths)));
+        }
+        return buffer.flip();
+    }
+
+    private static int[] compact(int[] queue, int head, int tail) {
+        int[] grown = new int[Math.max(queue.length, (tail - head) * 2) + 3];
+        System.arraycopy(queue, head, grown, 0, tail - head);
+        return grown;
+    }
+
+    private static int align(int position) {
+        return (position + Long.BYTES - 1) & -Long.BYTES;
+    }
+
+    /**
+     * Bit vectors as laid out in the file.
+     */
+    private static final class Bits {
+        static int longs(int length) {
+            return (length + 63) >>> 6;
+        }
+
+        static void set(long[] bits, int i) {
+            bits[i >>> 6] |= 1L << i;
+        }
+
+        static int size(long[] bits, int length) {
+            int blocks = (length + WordTrie.BLOCK_BITS - 1) / WordTrie.BLOCK_BITS;
+            int samples = (ones(bits, length) + WordTrie.SELECT_SAMPLE - 1) / WordTrie.SELECT_SAMPLE;
+            return align(longs(length) * Long.BYTES + (blocks + 1 + samples + 1) * Integer.BYTES);
+        }
+
+        static int ones(long[] bits, int length) {
+            int ones = 0;
+            for (int i = 0, n = longs(length); i < n; i++) {
+                ones += Long.bitCount(bits[i]);
+            }
+            return ones;
+        }
+
+        static void put(ByteBuffer buffer, long[] bits, int length) {
+            int longs = longs(length);
+            for (int i = 0; i < longs; i++) {
+                buffer.putLong(bits[i]);
+            }
+            int rank = 0;
+            for (int i = 0; i < longs; i++) {
+                if (i % (WordTrie.BLOCK_BITS / 64) == 0) {
+                    buffer.putInt(rank);
+                }
+                rank += Long.bitCount(bits[i]);
+            }
+            buffer.putInt(rank);
+
+            int ones = 0;
+            int sampled = 0;
+            for (int i = 0; i < longs; i++) {
+                ones += Long.bitCount(bits[i]);
+                for (; sampled < ones; sampled += WordTrie.SELECT_SAMPLE) {
+                    buffer.putInt(i / (WordTrie.BLOCK_BITS / 64));
+                }
+            }
+            buffer.putInt((length + WordTrie.BLOCK_BITS - 1) / WordTrie.BLOCK_BITS);
+        }
+    }
+
+    /**
+     * Writes the encoded trie to a file, replacing it if it exists.
+     *
+     * @param file the destination file
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path file) throws IOException {
+        ByteBuffer buffer = encode();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
@@ -2,6 +2,8 @@ module com.example.escriturarapida {
     requires javafx.controls;
     requires javafx.fxml;
     requires java.desktop;
+    requires java.management;
+    requires jdk.httpserver;
 
 
     opens com.example.escriturarapida to javafx.fxml;
@@ -0,0 +1,83 @@
+package com.example.escriturarapida;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@link AliasTable} draws every index as often as its weight
+ * asks for, with fixed seeds.
+ */
+class AliasTableTest {
+
+    private static final int DRAWS = 2_000_000;
+
+    /**
+     * Draws from a table and checks every frequency within five standard
+     * deviations of what its weight gives.
+     */
+    private static void assertDrawsFollow(double[] weights, int from, int count, long seed) {
+        AliasTable table = AliasTable.build(weights, from, count);
+        assertEquals(count, table.size());
+        double total = 0;
+        for (int i = 0; i < count; i++) {
+            total += weights[from + i];
+        }
+        long[] drawn = new long[count];
+        Random random = new Random(seed);
+        for (int i = 0; i < DRAWS; i++) {
+            drawn[table.sample(random)]++;
+        }
+        for (int i = 0; i < count; i++) {
+            double p = weights[from + i] / total;
+            double expected = p * DRAWS;
+            double sigma = Math.sqrt(DRAWS * p * (1 - p));
+            if (p == 0) {
+                assertEquals(0, drawn[i], "index " + i + " has no weight");
+            } else {
+                assertTrue(Math.abs(drawn[i] - expected) <= 5 * sigma + 1,
+                        "index " + i + ": " + drawn[i] + " draws, expected " + expected);
+            }
+        }
+    }
+
+    @Test
+    void followsSkewedWeights() {
+        double[] weights = new double[50];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = 1.0 / (i + 1);
+        }
+        assertDrawsFollow(weights, 0, weights.length, 1);
+    }
+
+    @Test
+    void neverDrawsZeroWeights() {
+        assertDrawsFollow(new double[] {0, 3, 0, 0, 1, 0, 0.5, 0}, 0, 8, 2);
+    }
+
+    @Test
+    void usesOnlyTheGivenRange() {
+        double[] weights = {100, 100, 1, 2, 3, 4, 100};
+        assertDrawsFollow(weights, 2, 4, 3);
+    }
+
+    @Test
+    void handlesEqualAndSingleWeights() {
+        assertDrawsFollow(new double[] {2, 2, 2, 2, 2}, 0, 5, 4);
+        AliasTable single = AliasTable.build(new double[] {0.25}, 0, 1);
+        Random random = new Random(5);
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(0, single.sample(random));
+        }
+    }
+
+    @Test
+    void refusesWeightsThatAddUpToZero() {
+        assertThrows(IllegalArgumentException.class, () -> AliasTable.build(new double[] {0, 0}, 0, 2));
+        assertThrows(IllegalArgumentException.class, () -> AliasTable.build(new double[] {1}, 0, 0));
+    }
+}
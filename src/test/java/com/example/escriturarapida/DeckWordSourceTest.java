@@ -0,0 +1,84 @@
+package com.example.escriturarapida;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@link DeckWordSource} deals every word once per round and
+ * never the same word twice in a row.
+ */
+class DeckWordSourceTest {
+
+    private static final WordDictionary DICTIONARY = WordDictionary.shared();
+
+    @Test
+    void everyRoundDealsEveryWordOnce() {
+        DeckWordSource source = new DeckWordSource(DICTIONARY, 1);
+        for (Difficulty difficulty : Difficulty.values()) {
+            int size = DICTIONARY.size(difficulty);
+            assertTrue(size > 1, difficulty.toString());
+            for (int round = 0; round < 5; round++) {
+                BitSet seen = new BitSet(size);
+                for (int i = 0; i < size; i++) {
+                    int index = source.nextIndex(difficulty);
+                    assertFalse(seen.get(index), difficulty + " round " + round + ": " + index);
+                    seen.set(index);
+                }
+                assertEquals(size, seen.cardinality());
+            }
+        }
+    }
+
+    @Test
+    void neverDealsTheSameWordTwiceInARow() {
+        for (long seed = 0; seed < 50; seed++) {
+            DeckWordSource source = new DeckWordSource(DICTIONARY, seed);
+            for (Difficulty difficulty : Difficulty.values()) {
+                // Several rounds, so the draws that start a round are checked too
+                int last = -1;
+                for (int i = 0; i < 3 * DICTIONARY.size(difficulty); i++) {
+                    int index = source.nextIndex(difficulty);
+                    assertNotEquals(last, index, "seed " + seed + ", " + difficulty + ", draw " + i);
+                    last = index;
+                }
+            }
+        }
+    }
+
+    @Test
+    void sameSeedDealsTheSameWords() {
+        DeckWordSource first = new DeckWordSource(DICTIONARY, 42);
+        DeckWordSource second = new DeckWordSource(DICTIONARY, 42);
+        DeckWordSource other = new DeckWordSource(DICTIONARY, 43);
+        StringBuilder a = new StringBuilder();
+        StringBuilder b = new StringBuilder();
+        StringBuilder c = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            Difficulty difficulty = Difficulty.values()[i % 3];
+            a.append(first.nextWord(difficulty)).append(' ');
+            b.append(second.nextWord(difficulty)).append(' ');
+            c.append(other.nextWord(difficulty)).append(' ');
+        }
+        assertEquals(a.toString(), b.toString());
+        assertNotEquals(a.toString(), c.toString());
+        assertEquals(42, first.getSeed());
+    }
+
+    @Test
+    void formsComeFromTheDictionary() {
+        DeckWordSource source = new DeckWordSource(DICTIONARY, 7);
+        for (int i = 0; i < 500; i++) {
+            Difficulty difficulty = Difficulty.values()[i % 3];
+            String word = source.nextWord(difficulty);
+            for (MatchMode mode : MatchMode.values()) {
+                assertEquals(mode.form(word), source.form(difficulty, word, mode), word + " " + mode);
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.escriturarapida;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Plays {@link GameEngine} games on a fixed clock: one won, one lost by a
+ * late submission and one timed out, plus the rules that drive them.
+ */
+class GameEngineTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    /** Seven levels to win; easy up to 2, medium up to 4; 6 seconds, one less every 2 levels down to 4. */
+    private static final GameRules SHORT = new GameRules(6, 1, 2, 4, 2, 4, 7);
+
+    /** Hands out numbered words and remembers what it was asked and told. */
+    private static final class Words implements WordSource {
+        final List<Difficulty> asked = new ArrayList<>();
+        final List<String> results = new ArrayList<>();
+
+        @Override
+        public String nextWord(Difficulty difficulty) {
+            asked.add(difficulty);
+            return "palabra" + asked.size();
+        }
+
+        @Override
+        public void onResult(Difficulty difficulty, String word, boolean ok) {
+            results.add(difficulty + " " + word + " " + ok);
+        }
+    }
+
+    private static void type(GameEngine engine, String text) {
+        engine.typed("", text);
+    }
+
+    private static void clear(GameEngine engine, String text) {
+        engine.typed(text, "");
+    }
+
+    @Test
+    void timeLimitAndDifficultyFollowTheLevel() {
+        GameRules rules = GameRules.DEFAULT;
+        assertEquals(20, rules.maxTimeFor(1));
+        assertEquals(20, rules.maxTimeFor(5));
+        assertEquals(18, rules.maxTimeFor(6));
+        assertEquals(16, rules.maxTimeFor(11));
+        assertEquals(4, rules.maxTimeFor(45));
+        assertEquals(2, rules.maxTimeFor(1_000));
+        assertEquals(Difficulty.EASY, rules.difficultyFor(15));
+        assertEquals(Difficulty.MEDIUM, rules.difficultyFor(16));
+        assertEquals(Difficulty.MEDIUM, rules.difficultyFor(30));
+        assertEquals(Difficulty.HARD, rules.difficultyFor(31));
+        assertFalse(rules.isWon(45));
+        assertTrue(rules.isWon(46));
+
+        int[] expected = {6, 6, 5, 5, 4, 4, 4};
+        for (int level = 1; level <= expected.length; level++) {
+            assertEquals(expected[level - 1], SHORT.maxTimeFor(level), "level " + level);
+        }
+    }
+
+    @Test
+    void wonGameClimbsOneLevelPerWord() {
+        Words words = new Words();
+        GameEngine engine = new GameEngine(SHORT);
+        assertEquals(GameEngine.State.READY, engine.getState());
+        assertEquals(GameEngine.Submission.IGNORED, engine.submit(0));
+
+        long now = 10 * SECOND;
+        engine.start(words, now);
+        assertEquals(GameEngine.State.RUNNING, engine.getState());
+        assertEquals(now, engine.getStartedAt());
+        for (int level = 1; level <= 7; level++) {
+            assertEquals(level, engine.getLevel());
+            assertEquals(SHORT.maxTimeFor(level), engine.getMaxTime());
+            assertEquals(SHORT.difficultyFor(level), engine.getDifficulty());
+            // The countdown starts again with every word
+            assertEquals(SHORT.maxTimeFor(level) * SECOND, engine.remaining(now));
+
+            String word = engine.getCurrentWord();
+            now += SECOND;
+            type(engine, word);
+            assertTrue(engine.isWordComplete());
+            assertEquals(GameEngine.Submission.ACCEPTED, engine.submit(now));
+            clear(engine, word);
+        }
+
+        assertEquals(GameEngine.State.WON, engine.getState());
+        assertEquals(8, engine.getLevel());
+        assertEquals(7, engine.getSuccess());
+        assertEquals(0, engine.getFailure());
+        assertEquals(now, engine.getEndedAt());
+        assertEquals(List.of(Difficulty.EASY, Difficulty.EASY, Difficulty.MEDIUM, Difficulty.MEDIUM,
+                Difficulty.HARD, Difficulty.HARD, Difficulty.HARD), words.asked);
+        assertEquals("HARD palabra7 true", words.results.get(6));
+
+        // Nothing moves once the game is over
+        assertEquals(GameEngine.Submission.IGNORED, engine.submit(now + SECOND));
+        assertFalse(engine.tick(now + 100 * SECOND));
+        assertEquals(GameEngine.State.WON, engine.getState());
+        assertEquals(7, engine.getSuccess());
+    }
+
+    @Test
+    void lateSubmissionLosesTheGame() {
+        Words words = new Words();
+        GameEngine engine = new GameEngine(SHORT);
+        engine.start(words, 0);
+
+        String word = engine.getCurrentWord();
+        type(engine, word.substring(0, 3));
+        assertEquals(GameEngine.Submission.REJECTED, engine.submit(SECOND));
+        assertEquals(1, engine.getFailure());
+        assertEquals(1, engine.getLevel());
+        assertEquals("EASY palabra1 false", words.results.get(0));
+        // A wrong word keeps the word and its countdown
+        assertEquals(word, engine.getCurrentWord());
+        assertEquals(5 * SECOND, engine.remaining(SECOND));
+
+        clear(engine, word.substring(0, 3));
+        type(engine, word);
+        long deadline = 6 * SECOND;
+        assertEquals(GameEngine.Submission.IGNORED, engine.submit(deadline));
+        assertEquals(GameEngine.State.LOST, engine.getState());
+        assertEquals(deadline, engine.getEndedAt());
+        assertEquals(0, engine.getSuccess());
+        assertEquals(1, engine.getFailure());
+        assertEquals(1, words.results.size());
+        assertEquals(GameEngine.Submission.IGNORED, engine.submit(deadline + 1));
+    }
+
+    @Test
+    void unansweredWordTimesOut() {
+        GameEngine engine = new GameEngine(SHORT);
+        long start = 123 * SECOND;
+        engine.start(new Words(), start);
+        type(engine, engine.getCurrentWord());
+        assertEquals(GameEngine.Submission.ACCEPTED, engine.submit(start + SECOND));
+        type(engine, engine.getCurrentWord());
+        assertEquals(GameEngine.Submission.ACCEPTED, engine.submit(start + 2 * SECOND));
+        // Level 3 has 5 seconds, counted from the last accepted word
+        assertEquals(3, engine.getLevel());
+        long deadline = start + 7 * SECOND;
+
+        assertFalse(engine.tick(deadline - 1));
+        assertEquals(1, engine.remaining(deadline - 1));
+        assertEquals(0, engine.overrun(deadline - 1));
+        assertEquals(GameEngine.State.RUNNING, engine.getState());
+
+        assertEquals(250, engine.overrun(deadline + 250));
+        assertTrue(engine.tick(deadline + 250));
+        assertEquals(GameEngine.State.LOST, engine.getState());
+        assertEquals(deadline + 250, engine.getEndedAt());
+        assertEquals(0, engine.remaining(deadline + 250));
+        assertFalse(engine.tick(deadline + SECOND));
+        assertEquals(GameEngine.Submission.IGNORED, engine.submit(deadline + SECOND));
+        assertEquals(2, engine.getSuccess());
+    }
+
+    @Test
+    void pauseKeepsTheTimeLeftAndIgnoresInput() {
+        GameEngine engine = new GameEngine(SHORT);
+        engine.start(new Words(), 0);
+        engine.pause(2 * SECOND);
+        assertEquals(GameEngine.State.PAUSED, engine.getState());
+        type(engine, engine.getCurrentWord());
+        assertEquals(GameEngine.Submission.IGNORED, engine.submit(3 * SECOND));
+        assertFalse(engine.tick(60 * SECOND));
+        assertEquals(4 * SECOND, engine.remaining(60 * SECOND));
+
+        engine.resume(60 * SECOND);
+        assertEquals(GameEngine.State.RUNNING, engine.getState());
+        assertEquals(4 * SECOND, engine.remaining(60 * SECOND));
+        assertEquals(GameEngine.Submission.ACCEPTED, engine.submit(63 * SECOND));
+        assertEquals(2, engine.getLevel());
+
+        engine.abort();
+        assertEquals(GameEngine.State.READY, engine.getState());
+        assertEquals(GameEngine.Submission.IGNORED, engine.submit(64 * SECOND));
+        assertFalse(engine.tick(1_000 * SECOND));
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.escriturarapida;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks {@link LatencyHistogram} percentiles against the exact ones of a
+ * sorted array holding the same values.
+ */
+class LatencyHistogramTest {
+
+    private static final double[] PERCENTILES = {0, 1, 10, 25, 50, 75, 90, 99, 99.9, 100};
+
+    /** Spread over many powers of two, like latencies from microseconds to seconds. */
+    private static long randomLatency(Random random) {
+        return (long) Math.pow(2, random.nextDouble() * 40);
+    }
+
+    private static long exactPercentile(long[] sorted, double percentile) {
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * sorted.length));
+        return sorted[(int) rank - 1];
+    }
+
+    @Test
+    void percentilesStayWithinOneBucketOfTheExactOnes() {
+        Random random = new Random(1);
+        for (int n : new int[] {1, 2, 7, 100, 10_000, 200_000}) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            long[] values = new long[n];
+            for (int i = 0; i < n; i++) {
+                values[i] = randomLatency(random);
+                histogram.record(values[i]);
+            }
+            Arrays.sort(values);
+            for (double p : PERCENTILES) {
+                long exact = exactPercentile(values, p);
+                long estimate = histogram.percentile(p);
+                assertTrue(Math.abs(estimate - exact) <= exact / 64, n + " values, p" + p + ": " + estimate
+                        + " for " + exact);
+            }
+            assertEquals(values[n - 1], histogram.getMax());
+            assertTrue(histogram.percentile(100) <= values[n - 1]);
+            assertEquals(n, histogram.getCount());
+            assertEquals((double) Arrays.stream(values).sum() / n, histogram.getMean(), 1e-6);
+        }
+    }
+
+    @Test
+    void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int v = 0; v < 128; v++) {
+            histogram.record(v);
+        }
+        assertEquals(0, histogram.percentile(0));
+        assertEquals(63, histogram.percentile(50));
+        assertEquals(126, histogram.percentile(99));
+        assertEquals(127, histogram.percentile(100));
+    }
+
+    @Test
+    void bucketsCoverEveryLongInOrder() {
+        Random random = new Random(2);
+        for (int i = 0; i < 1_000_000; i++) {
+            long value = random.nextLong() >>> (1 + random.nextInt(63));
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(LatencyHistogram.lowerBoundOf(index) <= value, Long.toString(value));
+            if (value != Long.MAX_VALUE && index + 1 < 3_712) {
+                assertTrue(value < LatencyHistogram.lowerBoundOf(index + 1), Long.toString(value));
+            }
+        }
+        assertEquals(3_711, LatencyHistogram.indexOf(Long.MAX_VALUE));
+        for (int index = 1; index < 3_712; index++) {
+            long lower = LatencyHistogram.lowerBoundOf(index);
+            assertEquals(index, LatencyHistogram.indexOf(lower));
+            assertEquals(index - 1, LatencyHistogram.indexOf(lower - 1));
+        }
+    }
+
+    @Test
+    void mergesAndResets() {
+        Random random = new Random(3);
+        LatencyHistogram all = new LatencyHistogram();
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        for (int i = 0; i < 50_000; i++) {
+            long value = randomLatency(random);
+            all.record(value);
+            (i % 3 == 0 ? first : second).record(value);
+        }
+        first.add(second);
+        for (double p : PERCENTILES) {
+            assertEquals(all.percentile(p), first.percentile(p));
+        }
+        assertEquals(all.getCount(), first.getCount());
+        assertEquals(all.getMax(), first.getMax());
+        assertEquals(all.getMean(), first.getMean());
+
+        first.reset();
+        assertEquals(0, first.getCount());
+        assertEquals(0, first.percentile(50));
+        assertEquals(0, first.getMean());
+        // Negative durations, from a clock that went back, count as zero
+        first.record(-5);
+        assertEquals(0, first.percentile(100));
+        assertEquals(1, first.getCount());
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.escriturarapida;
+
+import org.junit.jupiter.api.Test;
+
+import java.text.Normalizer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the forms and tables of {@link MatchMode} against
+ * {@link Normalizer}, and that typed text in either normal form matches.
+ */
+class MatchModeTest {
+
+    /** Precomposed letters of the word lists. */
+    private static final String LETTERS = "ñçáéíóúüÁÉÑœøåǻḉ";
+    /** Base letters, and the combining marks typed after them. */
+    private static final String BASES = "aeinosucAEN";
+    private static final String MARKS = "\u0301\u0303\u0308\u0327\u0323\u030a";
+
+    private static final int TABLE_SIZE = 0x2000;
+    /** End of the Latin, Greek and Cyrillic blocks, whose letters fold to one char. */
+    private static final int CYRILLIC_END = 0x0530;
+
+    private static String nfd(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFD);
+    }
+
+    private static String withoutMarks(String text) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.getType(text.charAt(i)) != Character.NON_SPACING_MARK) {
+                out.append(text.charAt(i));
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Letters either precomposed or as a base char plus one combining
+     * mark, so no two marks of a letter need canonical reordering.
+     */
+    private static String randomWord(Random random) {
+        StringBuilder word = new StringBuilder();
+        for (int i = random.nextInt(10); i >= 0; i--) {
+            if (random.nextBoolean()) {
+                word.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+            } else {
+                word.append(BASES.charAt(random.nextInt(BASES.length())));
+                if (random.nextBoolean()) {
+                    word.append(MARKS.charAt(random.nextInt(MARKS.length())));
+                }
+            }
+        }
+        return word.toString();
+    }
+
+    private static boolean matches(MatchMode mode, String word, String typed) {
+        TypingValidator validator = new TypingValidator();
+        validator.reset(word, mode.form(word), mode);
+        validator.resync(typed);
+        return validator.isComplete();
+    }
+
+    @Test
+    void tablesAgreeWithTheNormalizer() {
+        for (char c = 0; c < TABLE_SIZE; c++) {
+            String single = String.valueOf(c);
+            String decomposed = nfd(single);
+            if (decomposed.equals(single)) {
+                assertNull(MatchMode.decompose(c), Integer.toHexString(c));
+            } else {
+                assertArrayEquals(decomposed.toCharArray(), MatchMode.decompose(c), Integer.toHexString(c));
+            }
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                assertEquals(0, MatchMode.fold(c), Integer.toHexString(c));
+            } else if (c < CYRILLIC_END) {
+                assertEquals(withoutMarks(decomposed), String.valueOf(MatchMode.fold(c)), Integer.toHexString(c));
+            }
+        }
+        // Past the tables, only combining marks are folded
+        assertEquals(0, MatchMode.fold('\u20d7'));
+        assertEquals('\u212b', MatchMode.fold('\u212b'));
+        assertNull(MatchMode.decompose('\u212b'));
+    }
+
+    @Test
+    void formsAgreeWithTheNormalizer() {
+        Random random = new Random(1);
+        for (int i = 0; i < 50_000; i++) {
+            String word = randomWord(random);
+            String composed = Normalizer.normalize(word, Normalizer.Form.NFC);
+            assertSame(word, MatchMode.EXACT.form(word));
+            assertEquals(nfd(composed), MatchMode.NFC.form(word), word);
+            assertEquals(withoutMarks(nfd(composed)), MatchMode.ACCENT_INSENSITIVE.form(word), word);
+        }
+    }
+
+    @Test
+    void typedTextMatchesInEitherNormalForm() {
+        Random random = new Random(2);
+        for (int i = 0; i < 20_000; i++) {
+            String word = randomWord(random);
+            String composed = Normalizer.normalize(word, Normalizer.Form.NFC);
+            String decomposed = nfd(word);
+            assertTrue(matches(MatchMode.NFC, word, composed), word);
+            assertTrue(matches(MatchMode.NFC, word, decomposed), word);
+            assertTrue(matches(MatchMode.ACCENT_INSENSITIVE, word, withoutMarks(decomposed)), word);
+            assertTrue(matches(MatchMode.ACCENT_INSENSITIVE, word, composed), word);
+            assertEquals(composed.equals(word), matches(MatchMode.EXACT, word, composed), word);
+        }
+        assertTrue(matches(MatchMode.ACCENT_INSENSITIVE, "televisión", "television"));
+        assertFalse(matches(MatchMode.NFC, "televisión", "television"));
+    }
+
+    @Test
+    void stackedMarksMatchInTheOrderOfTheWord() {
+        // Á with a cedilla: the normalizer puts the cedilla first, the form keeps it last
+        String word = "Á\u0327";
+        assertEquals("A\u0301\u0327", MatchMode.NFC.form(word));
+        assertEquals("A\u0327\u0301", nfd(word));
+        assertTrue(matches(MatchMode.NFC, word, word));
+        assertTrue(matches(MatchMode.NFC, word, "A\u0301\u0327"));
+        assertFalse(matches(MatchMode.NFC, word, nfd(word)));
+        assertTrue(matches(MatchMode.ACCENT_INSENSITIVE, word, "A"));
+    }
+
+    @Test
+    void parsesModeNames() {
+        assertEquals(MatchMode.ACCENT_INSENSITIVE, MatchMode.parse(" accent-insensitive "));
+        assertEquals(MatchMode.NFC, MatchMode.parse("nfc"));
+        assertEquals(MatchMode.EXACT, MatchMode.parse("Exact"));
+        assertThrows(IllegalArgumentException.class, () -> MatchMode.parse("fuzzy"));
+        for (MatchMode mode : MatchMode.values()) {
+            assertSame(mode, MatchMode.fromOrdinal(mode.ordinal()));
+        }
+    }
+}
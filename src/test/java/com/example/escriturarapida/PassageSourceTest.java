@@ -0,0 +1,171 @@
+package com.example.escriturarapida;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks {@link PassageSource} on the edges of a text: tiny, empty or
+ * blank files, byte order marks, offsets inside words, starting over at
+ * the end, and the bookmark.
+ */
+class PassageSourceTest {
+
+    private static final byte[] BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    @TempDir
+    Path dir;
+
+    private Path text(String name, byte[] prefix, String content) throws IOException {
+        byte[] body = content.getBytes(StandardCharsets.UTF_8);
+        byte[] bytes = new byte[prefix.length + body.length];
+        System.arraycopy(prefix, 0, bytes, 0, prefix.length);
+        System.arraycopy(body, 0, bytes, prefix.length, body.length);
+        return Files.write(dir.resolve(name), bytes).toAbsolutePath();
+    }
+
+    private Path text(String content) throws IOException {
+        return text("texto.txt", new byte[0], content);
+    }
+
+    private static String draw(PassageSource source, int words) {
+        StringBuilder drawn = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                drawn.append(' ');
+            }
+            drawn.append(source.nextWord(Difficulty.EASY));
+        }
+        return drawn.toString();
+    }
+
+    private static String first(Path file, long start) throws IOException {
+        try (PassageSource source = PassageSource.open(file, MatchMode.EXACT, start)) {
+            return source.nextWord(Difficulty.EASY);
+        }
+    }
+
+    @Test
+    void tinyTextsStartOverAtTheEnd() throws IOException {
+        try (PassageSource source = PassageSource.open(text("uno dos\n"), MatchMode.EXACT, 0)) {
+            // Far more words than the window holds
+            String expected = "uno dos ".repeat(3 * PassageSource.WINDOW).trim();
+            assertEquals(expected, draw(source, 6 * PassageSource.WINDOW));
+        }
+        try (PassageSource source = PassageSource.open(text("solo"), MatchMode.EXACT, 0)) {
+            assertEquals("solo solo solo", draw(source, 3));
+            assertEquals(0, source.getCurrentOffset());
+        }
+    }
+
+    @Test
+    void textsWithoutWordsAreRefused() throws IOException {
+        assertThrows(IOException.class, () -> PassageSource.open(text(""), MatchMode.EXACT, 0));
+        assertThrows(IOException.class, () -> PassageSource.open(text(" \n\t\r\n\f  "), MatchMode.EXACT, 0));
+        Path bomOnly = text("bom.txt", BOM, "");
+        assertThrows(IOException.class, () -> PassageSource.open(bomOnly, MatchMode.EXACT, 0));
+        Path bomBlank = text("bom-blanco.txt", BOM, "\n\n ");
+        assertThrows(IOException.class, () -> PassageSource.open(bomBlank, MatchMode.EXACT, 2));
+    }
+
+    @Test
+    void byteOrderMarkIsNotPartOfTheFirstWord() throws IOException {
+        Path file = text("bom.txt", BOM, "árbol casa");
+        try (PassageSource source = PassageSource.open(file, MatchMode.EXACT, 0)) {
+            assertEquals("árbol casa árbol", draw(source, 3));
+            assertEquals(3, source.getCurrentOffset());
+        }
+        // Offsets inside the mark are taken as the start of the text
+        assertEquals("árbol", first(file, 1));
+        assertEquals("casa", first(file, 5));
+    }
+
+    @Test
+    void offsetInsideAWordMovesToTheNextOne() throws IOException {
+        // alfa 0-4, beta 5-9, gamma 10-15
+        Path file = text("alfa beta gamma");
+        assertEquals("alfa", first(file, 0));
+        assertEquals("beta", first(file, 2));
+        assertEquals("beta", first(file, 4));
+        assertEquals("beta", first(file, 5));
+        assertEquals("gamma", first(file, 9));
+        // Inside the last word there is nothing after it, so the text starts over
+        assertEquals("alfa", first(file, 12));
+        assertEquals("alfa", first(file, 15));
+        assertEquals("alfa", first(file, -1));
+        assertEquals("alfa", first(file, 1_000));
+
+        try (PassageSource source = PassageSource.open(file, MatchMode.EXACT, 2)) {
+            assertEquals("beta", source.nextWord(Difficulty.HARD));
+            assertEquals(5, source.getCurrentOffset());
+            // Read when the text was opened, so already in the window
+            assertEquals("gamma", source.upcoming(1));
+            assertEquals("gamma alfa beta", draw(source, 3));
+        }
+    }
+
+    @Test
+    void skipsTokensLongerThanAWord() throws IOException {
+        String longest = "x".repeat(PassageSource.MAX_WORD_BYTES);
+        // Two bytes per ñ, so this one is one byte too long
+        String tooLong = "ñ".repeat(PassageSource.MAX_WORD_BYTES / 2) + "y";
+        try (PassageSource source = PassageSource.open(text("corta " + tooLong + " " + longest + " fin"),
+                MatchMode.EXACT, 0)) {
+            assertEquals("corta " + longest + " fin corta", draw(source, 4));
+        }
+    }
+
+    @Test
+    void formsFollowTheMatchMode() throws IOException {
+        try (PassageSource source = PassageSource.open(text("Canción, pingüino."), MatchMode.ACCENT_INSENSITIVE, 0)) {
+            String word = source.nextWord(Difficulty.MEDIUM);
+            assertEquals("Canción,", word);
+            assertEquals(MatchMode.ACCENT_INSENSITIVE.form(word),
+                    source.form(Difficulty.MEDIUM, word, MatchMode.ACCENT_INSENSITIVE));
+            assertEquals(word, source.form(Difficulty.MEDIUM, word, MatchMode.EXACT));
+        }
+    }
+
+    @Test
+    void bookmarkResumesAfterTheLastAcceptedWord() throws IOException {
+        String home = System.getProperty(AppData.HOME_PROPERTY);
+        System.setProperty(AppData.HOME_PROPERTY, dir.resolve("home").toString());
+        try {
+            Path file = text("uno dos tres cuatro");
+            assertEquals(0, PassageSource.loadBookmark(file));
+
+            try (PassageSource source = PassageSource.open(file, MatchMode.EXACT, 0)) {
+                assertEquals(0, source.getResumeOffset());
+                String word = source.nextWord(Difficulty.EASY);
+                source.onResult(Difficulty.EASY, word, true);
+                word = source.nextWord(Difficulty.EASY);
+                source.onResult(Difficulty.EASY, word, true);
+                // A rejected word does not move the bookmark
+                word = source.nextWord(Difficulty.EASY);
+                source.onResult(Difficulty.EASY, word, false);
+                assertEquals(7, source.getResumeOffset());
+                source.saveBookmark();
+            }
+            assertEquals(7, PassageSource.loadBookmark(file));
+            assertEquals("tres", first(file, PassageSource.loadBookmark(file)));
+
+            // Another text, or the same one after an edit, starts from the top
+            assertEquals(0, PassageSource.loadBookmark(text("otro.txt", new byte[0], "uno dos tres cuatro")));
+            Files.writeString(file, "uno dos tres cuatro cinco");
+            assertEquals(0, PassageSource.loadBookmark(file));
+        } finally {
+            if (home == null) {
+                System.clearProperty(AppData.HOME_PROPERTY);
+            } else {
+                System.setProperty(AppData.HOME_PROPERTY, home);
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.escriturarapida;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks {@link RankedIndex} against a sorted array of the same keys.
+ */
+class RankedIndexTest {
+
+    /** Copies the keys sorted in descending order. */
+    private static long[] descending(long[] keys, int count) {
+        long[] sorted = Arrays.copyOf(keys, count);
+        Arrays.sort(sorted);
+        for (int i = 0, j = count - 1; i < j; i++, j--) {
+            long key = sorted[i];
+            sorted[i] = sorted[j];
+            sorted[j] = key;
+        }
+        return sorted;
+    }
+
+    private static long countAbove(long[] sorted, long key) {
+        long count = 0;
+        while (count < sorted.length && sorted[(int) count] > key) {
+            count++;
+        }
+        return count;
+    }
+
+    private static void assertSameAs(long[] sorted, RankedIndex index, Random random) {
+        assertEquals(sorted.length, index.size());
+        assertArrayEquals(sorted, index.toArray());
+        for (int k : new int[] {0, 1, 10, sorted.length, sorted.length + 5}) {
+            assertArrayEquals(Arrays.copyOf(sorted, Math.min(k, sorted.length)), index.top(k));
+        }
+        for (int i = 0; i < 500; i++) {
+            int rank = random.nextInt(sorted.length);
+            assertEquals(sorted[rank], index.get(rank));
+            long key = sorted[rank] + random.nextInt(3) - 1;
+            assertEquals(countAbove(sorted, key), index.countAbove(key), "key " + key);
+        }
+        assertEquals(0, index.countAbove(Long.MAX_VALUE));
+        assertEquals(sorted.length, index.countAbove(Long.MIN_VALUE));
+    }
+
+    @Test
+    void keepsKeysInDescendingOrderAcrossSplits() {
+        Random random = new Random(1);
+        RankedIndex index = new RankedIndex();
+        // Many more keys than a block, and few distinct ones, so ties cross blocks
+        long[] keys = new long[RankedIndex.MAX_BLOCK * 12];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextInt(3_000) - 1_500;
+            index.add(keys[i]);
+        }
+        assertSameAs(descending(keys, keys.length), index, random);
+    }
+
+    @Test
+    void mergesLargeAndSmallBatches() {
+        Random random = new Random(2);
+        RankedIndex index = new RankedIndex();
+        long[] all = new long[60_000];
+        int count = 0;
+        for (int batch : new int[] {5_000, 10, 30_000, 1, 20_000}) {
+            long[] keys = new long[batch];
+            for (int i = 0; i < batch; i++) {
+                keys[i] = random.nextLong() >> 40;
+                all[count++] = keys[i];
+            }
+            index.addAll(keys, batch);
+            assertSameAs(descending(all, count), index, random);
+        }
+    }
+
+    @Test
+    void loadsSortedKeysAndGrowsFromThem() {
+        Random random = new Random(3);
+        long[] keys = new long[RankedIndex.LOAD_BLOCK * 5 + 7];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextInt(1_000);
+        }
+        RankedIndex index = new RankedIndex();
+        index.load(descending(keys, keys.length), keys.length);
+        assertSameAs(descending(keys, keys.length), index, random);
+
+        long[] more = Arrays.copyOf(keys, keys.length + 5_000);
+        for (int i = keys.length; i < more.length; i++) {
+            more[i] = random.nextInt(1_000);
+            index.add(more[i]);
+        }
+        assertSameAs(descending(more, more.length), index, random);
+    }
+
+    @Test
+    void startsEmpty() {
+        RankedIndex index = new RankedIndex();
+        assertEquals(0, index.size());
+        assertEquals(0, index.countAbove(42));
+        assertEquals(0, index.top(10).length);
+        assertThrows(IndexOutOfBoundsException.class, () -> index.get(0));
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.escriturarapida;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the replay format: the varints written by {@link ReplayRecorder},
+ * their decoding by {@link ReplayPlayer}, and that a recorded game plays
+ * back to the same outcome.
+ */
+class ReplayFormatTest {
+
+    private static final long MILLI = 1_000_000L;
+
+    /** Independent varint encoder: seven bits per byte, low bits first. */
+    private static final class Writer {
+        private byte[] bytes = new byte[64];
+        private int size;
+
+        Writer fixedInt(int value) {
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                put((byte) (value >>> shift));
+            }
+            return this;
+        }
+
+        Writer varLong(long value) {
+            do {
+                long low = value & 0x7F;
+                value >>>= 7;
+                put((byte) (value != 0 ? low | 0x80 : low));
+            } while (value != 0);
+            return this;
+        }
+
+        private void put(byte b) {
+            if (size == bytes.length) {
+                bytes = Arrays.copyOf(bytes, size * 2);
+            }
+            bytes[size++] = b;
+        }
+
+        byte[] toArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+    }
+
+    /** Independent decoder, reading what {@link Writer} writes. */
+    private static final class Reader {
+        private final byte[] bytes;
+        private int pos;
+
+        Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int fixedInt() {
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+                value = (value << 8) | (bytes[pos++] & 0xFF);
+            }
+            return value;
+        }
+
+        long varLong() {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = bytes[pos++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+        }
+    }
+
+    private static Writer header(long recordedAt, long seed, GameRules rules, MatchMode mode, int... sizes) {
+        Writer out = new Writer()
+                .fixedInt(ReplayRecorder.MAGIC)
+                .varLong(ReplayRecorder.VERSION)
+                .varLong(recordedAt)
+                .fixedInt((int) (seed >>> 32))
+                .fixedInt((int) seed)
+                .varLong(rules.getInitialTime())
+                .varLong(rules.getTimeStep())
+                .varLong(rules.getLevelsPerStep())
+                .varLong(rules.getMinTime())
+                .varLong(rules.getEasyMaxLevel())
+                .varLong(rules.getMediumMaxLevel())
+                .varLong(rules.getFinalLevel())
+                .varLong(mode.ordinal());
+        for (int size : sizes) {
+            out.varLong(size);
+        }
+        return out;
+    }
+
+    @Test
+    void varintsUseSevenBitsPerByte() {
+        assertArrayEquals(new byte[] {0}, new Writer().varLong(0).toArray());
+        assertArrayEquals(new byte[] {0x7F}, new Writer().varLong(127).toArray());
+        assertArrayEquals(new byte[] {(byte) 0x80, 0x01}, new Writer().varLong(128).toArray());
+        assertArrayEquals(new byte[] {(byte) 0xAC, 0x02}, new Writer().varLong(300).toArray());
+        assertEquals(10, new Writer().varLong(-1).toArray().length);
+        assertEquals(9, new Writer().varLong(Long.MAX_VALUE).toArray().length);
+    }
+
+    @Test
+    void playerDecodesAHandWrittenHeader() throws IOException {
+        GameRules rules = new GameRules(300, 1, 200, 100, 1_000, 20_000, 3_000_000);
+        for (long recordedAt : new long[] {0, 127, 128, 1_700_000_000_000L, Long.MAX_VALUE, -1}) {
+            long seed = recordedAt ^ 0x8000_0000_F00D_0001L;
+            byte[] data = header(recordedAt, seed, rules, MatchMode.ACCENT_INSENSITIVE, 1, 128, 70_000).toArray();
+            ReplayPlayer player = new ReplayPlayer(data);
+            assertEquals(recordedAt, player.getRecordedAt());
+            assertEquals(seed, player.getSeed());
+            assertEquals(rules.toString(), player.getRules().toString());
+            assertEquals(MatchMode.ACCENT_INSENSITIVE, player.getMatchMode());
+        }
+    }
+
+    @Test
+    void recorderWritesTheDocumentedLayout() {
+        WordDictionary dictionary = WordDictionary.shared();
+        GameRules rules = GameRules.DEFAULT;
+        GameEngine engine = new GameEngine(rules, MatchMode.NFC);
+        engine.start(new DeckWordSource(dictionary, -7), 0);
+        ReplayRecorder recorder = new ReplayRecorder();
+        long before = System.currentTimeMillis();
+        recorder.start(-7, rules, MatchMode.NFC, dictionary, 0);
+        long after = System.currentTimeMillis();
+
+        recorder.typed(250 * MILLI, "", "a");
+        recorder.typed(250 * MILLI + 5_000, "a", "aｱ");
+        recorder.typed(300 * MILLI, "aｱ", "a");
+        recorder.typed(310 * MILLI, "a", "xy");
+        recorder.pause(3_600_000 * MILLI);
+        recorder.resume(3_600_000 * MILLI);
+        recorder.submit(3_600_001 * MILLI);
+        // A clock that goes back is recorded as no time at all
+        recorder.submit(3_600_000 * MILLI);
+        byte[] replay = recorder.finish(3_600_002 * MILLI, engine);
+        assertEquals(9, recorder.getEventCount());
+
+        Reader in = new Reader(replay);
+        assertEquals(ReplayRecorder.MAGIC, in.fixedInt());
+        assertEquals(ReplayRecorder.VERSION, in.varLong());
+        long recordedAt = in.varLong();
+        assertTrue(recordedAt >= before && recordedAt <= after);
+        assertEquals(-7L, ((long) in.fixedInt() << 32) | (in.fixedInt() & 0xFFFFFFFFL));
+        assertEquals(rules.getInitialTime(), in.varLong());
+        assertEquals(rules.getTimeStep(), in.varLong());
+        assertEquals(rules.getLevelsPerStep(), in.varLong());
+        assertEquals(rules.getMinTime(), in.varLong());
+        assertEquals(rules.getEasyMaxLevel(), in.varLong());
+        assertEquals(rules.getMediumMaxLevel(), in.varLong());
+        assertEquals(rules.getFinalLevel(), in.varLong());
+        assertEquals(MatchMode.NFC.ordinal(), in.varLong());
+        for (Difficulty d : Difficulty.values()) {
+            assertEquals(dictionary.size(d), in.varLong());
+        }
+
+        long[][] events = {
+                {250_000, ReplayRecorder.APPEND, 'a'},
+                {5, ReplayRecorder.APPEND, 'ｱ'},
+                {49_995, ReplayRecorder.DELETE},
+                {10_000, ReplayRecorder.SET, 2, 'x', 'y'},
+                {3_600_000_000L - 310_000, ReplayRecorder.PAUSE},
+                {0, ReplayRecorder.RESUME},
+                {1_000, ReplayRecorder.SUBMIT},
+                {0, ReplayRecorder.SUBMIT},
+                {1_000, ReplayRecorder.END, engine.getState().ordinal(), engine.getLevel(),
+                        engine.getSuccess(), engine.getFailure()},
+        };
+        for (long[] event : events) {
+            assertEquals(event[0] << ReplayRecorder.TYPE_BITS | event[1], in.varLong());
+            for (int i = 2; i < event.length; i++) {
+                assertEquals(event[i], in.varLong());
+            }
+        }
+        assertEquals(replay.length, in.pos);
+    }
+
+    @Test
+    void recordedGamePlaysBackToTheSameOutcome() throws IOException {
+        WordDictionary dictionary = WordDictionary.shared();
+        long seed = 12345;
+        GameEngine engine = new GameEngine(GameRules.DEFAULT, MatchMode.EXACT);
+        engine.start(new DeckWordSource(dictionary, seed), 0);
+        ReplayRecorder recorder = new ReplayRecorder();
+        recorder.start(seed, GameRules.DEFAULT, MatchMode.EXACT, dictionary, 0);
+
+        long now = 0;
+        for (int word = 0; word < 12; word++) {
+            String target = engine.getCurrentWord();
+            // Every third word gets a wrong last char, either fixed in one edit or left wrong
+            String typed = word % 3 == 2 ? target.substring(0, target.length() - 1) + '#' : target;
+            String text = "";
+            for (int i = 0; i < typed.length(); i++) {
+                now += 90 * MILLI;
+                String next = text + typed.charAt(i);
+                recorder.typed(now, text, next);
+                engine.typed(text, next);
+                text = next;
+            }
+            if (word % 6 == 2) {
+                now += 90 * MILLI;
+                String next = target;
+                recorder.typed(now, text, next);
+                engine.typed(text, next);
+                text = next;
+            }
+            now += 40 * MILLI;
+            recorder.submit(now);
+            engine.submit(now);
+            recorder.typed(now, text, "");
+            engine.typed(text, "");
+        }
+        now += 10 * MILLI;
+        engine.tick(now);
+        byte[] replay = recorder.finish(now, engine);
+
+        ReplayPlayer.Result result = new ReplayPlayer(replay).play(dictionary, false);
+        assertTrue(result.matches(), result.toString());
+        assertEquals(engine.getLevel(), result.getEngine().getLevel());
+        assertEquals(engine.getSuccess(), result.getEngine().getSuccess());
+        assertEquals(engine.getFailure(), result.getEngine().getFailure());
+        assertTrue(engine.getFailure() > 0);
+    }
+
+    @Test
+    void rejectsWhatIsNotAReplay() {
+        assertThrows(IOException.class, () -> new ReplayPlayer(new byte[] {1, 2}));
+        assertThrows(IOException.class, () -> new ReplayPlayer(new Writer().fixedInt(0x12345678).toArray()));
+        byte[] future = new Writer().fixedInt(ReplayRecorder.MAGIC).varLong(ReplayRecorder.VERSION + 1).toArray();
+        assertThrows(IOException.class, () -> new ReplayPlayer(future));
+    }
+}
@@ -0,0 +1,303 @@
+package com.example.escriturarapida;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the {@link SessionRecord} checksum, that {@link SessionStore} cuts
+ * off a torn tail when it opens, and that it keeps handing out new positions
+ * when the disk fails, so the statistics and the leaderboard still get
+ * every game.
+ */
+class SessionStoreTest {
+
+    private static final int HEADER_SIZE = 16;
+
+    @TempDir
+    Path dir;
+
+    /** A file channel whose writes can be made to fail, like a full disk. */
+    private static final class FailingChannel extends FileChannel {
+        private final FileChannel file;
+        private volatile boolean failing;
+
+        FailingChannel(FileChannel file) {
+            this.file = file;
+        }
+
+        private void check() throws IOException {
+            if (failing) {
+                throw new IOException("No space left on device");
+            }
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return file.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return file.read(dsts, offset, length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            check();
+            return file.write(src);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            check();
+            return file.write(srcs, offset, length);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return file.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            file.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return file.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            check();
+            file.truncate(size);
+            return this;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            check();
+            file.force(metaData);
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return file.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            check();
+            return file.transferFrom(src, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return file.read(dst, position);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            check();
+            return file.write(src, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return file.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return file.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return file.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            file.close();
+        }
+    }
+
+    private static SessionRecord game(int level) {
+        return new SessionRecord(1_700_000_000_000L + level, 1_700_000_060_000L + level,
+                60_000_000_000L, level, level, 1, false, TypingStats.EMPTY);
+    }
+
+    private Path logOf(int games) throws IOException {
+        Path file = dir.resolve(SessionStore.FILE_NAME);
+        try (SessionStore store = SessionStore.open(file)) {
+            for (int level = 1; level <= games; level++) {
+                store.append(game(level));
+            }
+        }
+        return file;
+    }
+
+    @Test
+    void recordEndsWithTheCrc32cOfItsBytes() {
+        TypingStats typing = new TypingStats(71.5, 95_000, 310_000, 1_200_000, 4_800_000, 8_000, 21_000);
+        SessionRecord session = new SessionRecord(1_700_000_000_123L, 1_700_000_045_456L, 45_333_000_000L,
+                31, 60, 4, true, typing);
+        ByteBuffer buffer = ByteBuffer.allocate(SessionRecord.SIZE + 3);
+        buffer.position(3);
+        session.writeTo(buffer);
+        assertEquals(SessionRecord.SIZE + 3, buffer.position());
+
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), 3, SessionRecord.SIZE - 4);
+        assertEquals((int) crc.getValue(), buffer.getInt(3 + SessionRecord.SIZE - 4));
+
+        buffer.position(3);
+        SessionRecord read = SessionRecord.readFrom(buffer);
+        assertEquals(SessionRecord.SIZE + 3, buffer.position());
+        assertEquals(session.getStartedAt(), read.getStartedAt());
+        assertEquals(session.getEndedAt(), read.getEndedAt());
+        assertEquals(session.getDurationNanos(), read.getDurationNanos());
+        assertEquals(31, read.getLevel());
+        assertEquals(60, read.getSuccesses());
+        assertEquals(4, read.getFailures());
+        assertTrue(read.isWon());
+        assertEquals(71.5, read.getTyping().getWpm());
+        // Latencies are kept in whole microseconds
+        assertEquals(95_000, read.getTyping().getInterKeyP50());
+        assertEquals(8_000, read.getTyping().getKeyToRenderP50());
+
+        // Any flipped bit makes the record unreadable, and the buffer still moves past it
+        for (int i = 0; i < SessionRecord.SIZE; i++) {
+            byte[] bytes = buffer.array().clone();
+            bytes[3 + i] ^= 0x10;
+            ByteBuffer corrupt = ByteBuffer.wrap(bytes).position(3);
+            assertNull(SessionRecord.readFrom(corrupt), "byte " + i);
+            assertEquals(SessionRecord.SIZE + 3, corrupt.position());
+        }
+    }
+
+    @Test
+    void reopenedLogHasEveryGame() throws IOException {
+        Path file = logOf(40);
+        assertEquals(HEADER_SIZE + 40L * SessionRecord.SIZE, Files.size(file));
+        try (SessionStore store = SessionStore.open(file)) {
+            assertEquals(40, store.size());
+            assertEquals(40, store.getWrittenCount());
+            assertEquals(40, store.latest().getLevel());
+            for (int i = 0; i < 40; i++) {
+                assertEquals(i + 1, store.read(i).getLevel());
+            }
+            assertThrows(IndexOutOfBoundsException.class, () -> store.read(40));
+        }
+    }
+
+    @Test
+    void openingCutsOffAHalfWrittenRecord() throws IOException {
+        Path file = logOf(5);
+        byte[] bytes = Files.readAllBytes(file);
+        // A crash in the middle of the sixth record
+        Files.write(file, Arrays.copyOf(bytes, bytes.length + 30), StandardOpenOption.TRUNCATE_EXISTING);
+
+        try (SessionStore store = SessionStore.open(file)) {
+            assertEquals(5, store.size());
+            assertEquals(5, store.latest().getLevel());
+            assertEquals(5, store.append(game(6)));
+        }
+        try (SessionStore store = SessionStore.open(file)) {
+            assertEquals(6, store.size());
+            assertEquals(6, store.read(5).getLevel());
+        }
+        assertEquals(HEADER_SIZE + 6L * SessionRecord.SIZE, Files.size(file));
+    }
+
+    @Test
+    void openingCutsOffTornRecordsAtTheEnd() throws IOException {
+        Path file = logOf(5);
+        byte[] bytes = Files.readAllBytes(file);
+        // The last two records were written but never fully synced
+        bytes[HEADER_SIZE + 3 * SessionRecord.SIZE + 10] ^= 1;
+        bytes[HEADER_SIZE + 4 * SessionRecord.SIZE + 70] ^= 1;
+        Files.write(file, bytes);
+
+        try (SessionStore store = SessionStore.open(file)) {
+            assertEquals(3, store.size());
+            assertEquals(3, store.latest().getLevel());
+        }
+        assertEquals(HEADER_SIZE + 3L * SessionRecord.SIZE, Files.size(file));
+    }
+
+    @Test
+    void refusesWhatIsNotASessionLog() throws IOException {
+        Path file = dir.resolve("other.log");
+        Files.write(file, new byte[HEADER_SIZE + SessionRecord.SIZE]);
+        assertThrows(IOException.class, () -> SessionStore.open(file));
+        // Left as it was
+        assertEquals(HEADER_SIZE + SessionRecord.SIZE, Files.size(file));
+    }
+
+    @Test
+    void gamesAfterAWriteFailureStillReachStatsAndLeaderboard() throws Exception {
+        Path file = dir.resolve(SessionStore.FILE_NAME);
+        FailingChannel channel = new FailingChannel(FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE));
+        StatsAggregator stats = new StatsAggregator();
+        Leaderboard board = new Leaderboard();
+
+        try (SessionStore store = SessionStore.open(channel, file)) {
+            for (int level = 1; level <= 3; level++) {
+                SessionRecord session = game(level);
+                long index = store.append(session);
+                assertEquals(level - 1, index);
+                stats.onSession(session, index);
+                board.onSession(session, index);
+            }
+            store.flush();
+            assertEquals(3, store.getWrittenCount());
+
+            channel.failing = true;
+            for (int level = 4; level <= 6; level++) {
+                SessionRecord session = game(level);
+                long index = store.append(session);
+                assertEquals(level - 1, index);
+                stats.onSession(session, index);
+                board.onSession(session, index);
+                store.flush();
+            }
+            assertEquals(6, store.size());
+            assertEquals(3, store.getWrittenCount());
+            assertEquals(6, store.latest().getLevel());
+        }
+
+        assertEquals(6, stats.getSessions());
+        assertEquals(6, stats.getBestLevel());
+        assertEquals(6, board.size());
+        assertEquals(6, Leaderboard.levelOf(board.top(1)[0]));
+
+        // What did reach the disk is still a valid log
+        try (SessionStore reopened = SessionStore.open(file)) {
+            assertEquals(3, reopened.size());
+            assertEquals(3, reopened.read(2).getLevel());
+        }
+    }
+}
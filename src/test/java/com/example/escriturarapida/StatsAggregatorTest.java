@@ -0,0 +1,121 @@
+package com.example.escriturarapida;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that {@link StatsAggregator} rebuilt from a snapshot and the
+ * session log agrees with one that saw every game.
+ */
+class StatsAggregatorTest {
+
+    @TempDir
+    Path dir;
+
+    private static SessionRecord[] games(int count) {
+        Random random = new Random(count);
+        SessionRecord[] games = new SessionRecord[count];
+        for (int i = 0; i < count; i++) {
+            int level = 1 + random.nextInt(45);
+            games[i] = new SessionRecord(1_700_000_000_000L + i * 60_000L, 1_700_000_050_000L + i * 60_000L,
+                    (1 + random.nextInt(300)) * 1_000_000_000L, level, level - 1 + random.nextInt(3),
+                    random.nextInt(8), level == 45, TypingStats.EMPTY);
+        }
+        return games;
+    }
+
+    private Path logOf(SessionRecord[] games, int count) throws IOException {
+        Path file = dir.resolve(SessionStore.FILE_NAME);
+        try (SessionStore store = SessionStore.open(file)) {
+            for (int i = 0; i < count; i++) {
+                store.append(games[i]);
+            }
+        }
+        return file;
+    }
+
+    private static StatsAggregator played(SessionRecord[] games, int count) {
+        StatsAggregator stats = new StatsAggregator();
+        for (int i = 0; i < count; i++) {
+            stats.onSession(games[i], i);
+        }
+        return stats;
+    }
+
+    private static void assertSameGames(StatsAggregator expected, StatsAggregator actual) {
+        assertEquals(expected.getSessions(), actual.getSessions());
+        assertEquals(expected.getWins(), actual.getWins());
+        assertEquals(expected.getAverageLevel(), actual.getAverageLevel());
+        assertEquals(expected.getBestLevel(), actual.getBestLevel());
+        assertEquals(expected.getAccuracy(), actual.getAccuracy());
+        assertEquals(expected.getDurationNanos(), actual.getDurationNanos());
+        assertEquals(expected.getRecentAverageLevel(), actual.getRecentAverageLevel());
+        assertEquals(expected.getRecentBestLevel(), actual.getRecentBestLevel());
+        assertEquals(expected.getRecentAccuracy(), actual.getRecentAccuracy());
+        assertEquals(expected.getAccuracyTrend(), actual.getAccuracyTrend());
+    }
+
+    @Test
+    void catchesUpFromTheSnapshotWithTheGamesAfterIt() throws IOException {
+        SessionRecord[] games = games(3 * StatsAggregator.WINDOW + 7);
+        StatsAggregator before = played(games, StatsAggregator.WINDOW + 3);
+        before.onWord(Difficulty.EASY, "casa", true);
+        before.onWord(Difficulty.EASY, "casa", false);
+        before.onWord(Difficulty.EASY, "casa", false);
+        before.onWord(Difficulty.EASY, "mesa", true);
+        before.onWord(Difficulty.HARD, "murciélago", false);
+        TypoAnalyzer typos = new TypoAnalyzer();
+        typos.analyze("canción", "cancion");
+        before.onTypos(typos);
+        byte[] snapshot = before.encode();
+
+        StatsAggregator stats = new StatsAggregator();
+        stats.decode(snapshot);
+        try (SessionStore store = SessionStore.open(logOf(games, games.length))) {
+            stats.catchUp(store);
+        }
+
+        assertSameGames(played(games, games.length), stats);
+        // Words and typing mistakes only come from the snapshot
+        assertEquals(2, stats.getErrors("casa"));
+        assertEquals(2.0 / 3, stats.getErrorRate("casa"));
+        assertArrayEquals(new String[] {"casa", "murciélago"}, stats.getMostFailedWords());
+        assertEquals(0.5, stats.getSuccessRate(Difficulty.EASY));
+        assertEquals(1, stats.getTypos(TypoAnalyzer.Kind.ACCENT));
+        assertEquals(1, stats.getConfusions(StatsAggregator.confusion('ó', 'o')));
+
+        // Games handed over after the catch-up are only counted once
+        stats.onSession(games[games.length - 1], games.length - 1);
+        assertEquals(games.length, stats.getSessions());
+    }
+
+    @Test
+    void snapshotAheadOfTheLogStartsTheGamesAgain() throws IOException {
+        SessionRecord[] games = games(30);
+        StatsAggregator before = played(games, 30);
+        before.onWord(Difficulty.MEDIUM, "teclado", false);
+
+        StatsAggregator stats = new StatsAggregator();
+        stats.decode(before.encode());
+        try (SessionStore store = SessionStore.open(logOf(games, 12))) {
+            stats.catchUp(store);
+        }
+
+        assertSameGames(played(games, 12), stats);
+        assertEquals(1, stats.getErrors("teclado"));
+    }
+
+    @Test
+    void refusesWhatIsNotASnapshot() {
+        StatsAggregator stats = new StatsAggregator();
+        assertThrows(IOException.class, () -> stats.decode(new byte[] {1, 2, 3, 4, 0, 0, 0, 2}));
+    }
+}
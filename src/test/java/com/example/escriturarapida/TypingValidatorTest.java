@@ -0,0 +1,139 @@
+package com.example.escriturarapida;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@link TypingValidator} kept up to date one edit at a time
+ * agrees with a validator rebuilt from the whole input, and with a plain
+ * prefix check of the word.
+ */
+class TypingValidatorTest {
+
+    private static final String[] WORDS = {"casa", "canción", "pingüino", "Ñandú", "a", "anticonstitucional"};
+    /** Chars typed at random: letters of the words, accented or not, a combining accent and whitespace. */
+    private static final String KEYS = "acnoióñÑuüdá\u0301 ";
+
+    private static void assertSameState(TypingValidator expected, TypingValidator actual, String input) {
+        assertEquals(expected.getTypedLength(), actual.getTypedLength(), input);
+        assertEquals(expected.getMatchedLength(), actual.getMatchedLength(), input);
+        assertEquals(expected.getFirstErrorIndex(), actual.getFirstErrorIndex(), input);
+        assertEquals(expected.hasError(), actual.hasError(), input);
+        assertEquals(expected.isComplete(), actual.isComplete(), input);
+    }
+
+    private static TypingValidator validator(String word, MatchMode mode) {
+        TypingValidator validator = new TypingValidator();
+        validator.reset(word, mode.form(word), mode);
+        return validator;
+    }
+
+    @Test
+    void incrementalStateMatchesAFullResync() {
+        Random random = new Random(1);
+        for (MatchMode mode : MatchMode.values()) {
+            for (String word : WORDS) {
+                TypingValidator incremental = validator(word, mode);
+                StringBuilder input = new StringBuilder();
+                for (int step = 0; step < 2_000; step++) {
+                    String old = input.toString();
+                    int edit = random.nextInt(10);
+                    if (edit < 5 && input.length() < word.length()) {
+                        // Mostly the next char of the word, so inputs often match
+                        input.append(random.nextBoolean() ? word.charAt(input.length())
+                                : KEYS.charAt(random.nextInt(KEYS.length())));
+                    } else if (edit < 7 && input.length() > 0) {
+                        input.setLength(input.length() - 1);
+                    } else if (edit < 8) {
+                        input.insert(random.nextInt(input.length() + 1), KEYS.charAt(random.nextInt(KEYS.length())));
+                    } else if (edit < 9) {
+                        input.setLength(0);
+                        input.append(word, 0, random.nextInt(word.length() + 1));
+                    } else {
+                        input.append(KEYS.charAt(random.nextInt(KEYS.length())));
+                    }
+                    incremental.update(old, input);
+
+                    TypingValidator full = validator(word, mode);
+                    full.resync(input);
+                    assertSameState(full, incremental, mode + " " + word + " / " + input);
+                }
+            }
+        }
+    }
+
+    @Test
+    void exactStateIsAPrefixCheck() {
+        Random random = new Random(2);
+        TypingValidator validator = new TypingValidator();
+        for (int i = 0; i < 20_000; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            StringBuilder input = new StringBuilder(word.substring(0, random.nextInt(word.length() + 1)));
+            for (int k = random.nextInt(3); k > 0; k--) {
+                input.append("acnoióñÑuüdá".charAt(random.nextInt(12)));
+            }
+            validator.reset(word);
+            validator.resync(input);
+
+            int common = 0;
+            while (common < Math.min(word.length(), input.length()) && word.charAt(common) == input.charAt(common)) {
+                common++;
+            }
+            boolean prefix = common == input.length();
+            assertEquals(input.length(), validator.getTypedLength());
+            assertEquals(common, validator.getMatchedLength(), word + " / " + input);
+            assertEquals(prefix ? -1 : common, validator.getFirstErrorIndex(), word + " / " + input);
+            assertEquals(input.toString().equals(word), validator.isComplete(), word + " / " + input);
+        }
+    }
+
+    @Test
+    void ignoresWhitespaceAroundTheWord() {
+        TypingValidator validator = new TypingValidator();
+        validator.reset("casa");
+        validator.resync("  \tcasa  ");
+        assertTrue(validator.isComplete());
+        assertEquals(4, validator.getTypedLength());
+
+        validator.update("  \tcasa  ", "  \tcasa  x");
+        assertTrue(validator.hasError());
+        assertEquals(4, validator.getFirstErrorIndex());
+
+        validator.resync(" ca sa");
+        assertFalse(validator.isComplete());
+        assertEquals(2, validator.getFirstErrorIndex());
+        assertEquals(2, validator.getMatchedLength());
+    }
+
+    @Test
+    void comparesUnderTheMatchMode() {
+        String decomposed = "cancio\u0301n";
+        TypingValidator exact = validator("canción", MatchMode.EXACT);
+        exact.resync(decomposed);
+        assertEquals(5, exact.getFirstErrorIndex());
+
+        TypingValidator nfc = validator("canción", MatchMode.NFC);
+        nfc.resync(decomposed);
+        assertTrue(nfc.isComplete());
+        nfc.resync("canción");
+        assertTrue(nfc.isComplete());
+        nfc.resync("cancion");
+        assertTrue(nfc.hasError());
+
+        TypingValidator folded = validator("Ñandú", MatchMode.ACCENT_INSENSITIVE);
+        folded.resync("Nandu");
+        assertTrue(folded.isComplete());
+        folded.resync("N\u0303andu\u0301");
+        assertTrue(folded.isComplete());
+        folded.resync("Nanda");
+        assertEquals(4, folded.getFirstErrorIndex());
+        // Only accents are ignored, not case
+        folded.resync("ñandú");
+        assertEquals(0, folded.getFirstErrorIndex());
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.escriturarapida;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks {@link TypoAnalyzer} against the textbook optimal string alignment
+ * distance, and its alignments by rebuilding the input from them.
+ */
+class TypoAnalyzerTest {
+
+    /** Few chars, so random words share many; the last three are above U+00FF. */
+    private static final String CHARS = "asdeáénñ\u0301œ€";
+
+    /** Optimal string alignment distance, by dynamic programming. */
+    private static int osa(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    private static String randomWord(Random random, int maxLength) {
+        char[] chars = new char[random.nextInt(maxLength + 1)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = CHARS.charAt(random.nextInt(CHARS.length()));
+        }
+        return new String(chars);
+    }
+
+    /** Copies the word with a few random edits, so inputs look like typos. */
+    private static String mistype(Random random, String word) {
+        StringBuilder input = new StringBuilder(word);
+        for (int k = random.nextInt(4); k > 0; k--) {
+            int at = random.nextInt(input.length() + 1);
+            switch (random.nextInt(4)) {
+                case 0:
+                    input.insert(at, CHARS.charAt(random.nextInt(CHARS.length())));
+                    break;
+                case 1:
+                    if (at < input.length()) {
+                        input.deleteCharAt(at);
+                    }
+                    break;
+                case 2:
+                    if (at < input.length()) {
+                        input.setCharAt(at, CHARS.charAt(random.nextInt(CHARS.length())));
+                    }
+                    break;
+                default:
+                    if (at + 1 < input.length()) {
+                        char c = input.charAt(at);
+                        input.setCharAt(at, input.charAt(at + 1));
+                        input.setCharAt(at + 1, c);
+                    }
+            }
+        }
+        return input.toString();
+    }
+
+    /** Applies the edits of the last analysis to the word. */
+    private static String replay(TypoAnalyzer typos, String word) {
+        StringBuilder out = new StringBuilder();
+        int next = 0;
+        for (int e = 0; e < typos.getEditCount(); e++) {
+            int position = typos.getPosition(e);
+            assertTrue(position >= next, "edits out of order");
+            out.append(word, next, position);
+            next = position;
+            char want = typos.getExpected(e);
+            char got = typos.getTyped(e);
+            if (typos.getKind(e) == TypoAnalyzer.Kind.TRANSPOSITION) {
+                assertEquals(word.charAt(next), want);
+                assertEquals(word.charAt(next + 1), got);
+                out.append(got).append(want);
+                next += 2;
+            } else if (want == '\0') {
+                out.append(got);
+            } else {
+                assertEquals(word.charAt(next), want);
+                if (got != '\0') {
+                    out.append(got);
+                }
+                next++;
+            }
+        }
+        return out.append(word, next, word.length()).toString();
+    }
+
+    @Test
+    void distanceMatchesOptimalStringAlignment() {
+        Random random = new Random(1);
+        TypoAnalyzer typos = new TypoAnalyzer();
+        for (int i = 0; i < 50_000; i++) {
+            String word = randomWord(random, 12);
+            String input = random.nextBoolean() ? randomWord(random, 12) : mistype(random, word);
+            assertEquals(osa(word, input), typos.distance(word, input), word + " / " + input);
+        }
+    }
+
+    @Test
+    void alignmentRebuildsTheInput() {
+        Random random = new Random(2);
+        TypoAnalyzer typos = new TypoAnalyzer();
+        for (int i = 0; i < 20_000; i++) {
+            String word = randomWord(random, TypoAnalyzer.MAX_LENGTH);
+            String input = mistype(random, word);
+            if (input.length() > TypoAnalyzer.MAX_LENGTH) {
+                continue;
+            }
+            int distance = typos.analyze(word, input);
+            assertEquals(osa(word, input), distance, word + " / " + input);
+            assertEquals(distance, typos.getEditCount(), word + " / " + input);
+            assertEquals(input, replay(typos, word), word + " / " + input);
+        }
+    }
+
+    @Test
+    void namesTheKindOfEachMistake() {
+        TypoAnalyzer typos = new TypoAnalyzer();
+
+        assertEquals(1, typos.analyze("casa", "csaa"));
+        assertEquals(TypoAnalyzer.Kind.TRANSPOSITION, typos.getKind(0));
+        assertEquals(1, typos.getPosition(0));
+
+        assertEquals(1, typos.analyze("canción", "cancion"));
+        assertEquals(TypoAnalyzer.Kind.ACCENT, typos.getKind(0));
+        assertEquals('ó', typos.getExpected(0));
+        assertEquals('o', typos.getTyped(0));
+
+        assertEquals(1, typos.analyze("casa", "cada"));
+        assertEquals(TypoAnalyzer.Kind.NEIGHBOR_KEY, typos.getKind(0));
+
+        assertEquals(1, typos.analyze("casa", "capa"));
+        assertEquals(TypoAnalyzer.Kind.SUBSTITUTION, typos.getKind(0));
+
+        assertEquals(1, typos.analyze("casa", "cas"));
+        assertEquals(TypoAnalyzer.Kind.OMISSION, typos.getKind(0));
+        assertEquals('\0', typos.getTyped(0));
+
+        assertEquals(1, typos.analyze("casa", "cassa"));
+        assertEquals(TypoAnalyzer.Kind.INSERTION, typos.getKind(0));
+        assertEquals('\0', typos.getExpected(0));
+
+        assertEquals(0, typos.analyze("anticonstitucionalísimamente", "anticonstitucionalísimamente"));
+        assertEquals(0, typos.getEditCount());
+    }
+
+    @Test
+    void classifiesKeysOfASpanishKeyboard() {
+        assertTrue(TypoAnalyzer.isNeighbor('ñ', 'l'));
+        assertTrue(TypoAnalyzer.isNeighbor('g', 't'));
+        assertTrue(TypoAnalyzer.isNeighbor('g', 'v'));
+        assertTrue(TypoAnalyzer.isNeighbor('g', 'b'));
+        assertFalse(TypoAnalyzer.isNeighbor('g', 'c'));
+        assertTrue(TypoAnalyzer.isNeighbor('z', '<'));
+        assertTrue(TypoAnalyzer.isNeighbor('w', 'a'));
+        assertFalse(TypoAnalyzer.isNeighbor('q', 's'));
+        assertFalse(TypoAnalyzer.isNeighbor('g', 'g'));
+        assertFalse(TypoAnalyzer.isNeighbor('q', 'p'));
+        assertEquals(TypoAnalyzer.Kind.ACCENT, TypoAnalyzer.classify('Ñ', 'n'));
+        assertEquals(TypoAnalyzer.Kind.SUBSTITUTION, TypoAnalyzer.classify('a', 'p'));
+    }
+
+    @Test
+    void refusesWordsLongerThanALong() {
+        TypoAnalyzer typos = new TypoAnalyzer();
+        String word = "a".repeat(TypoAnalyzer.MAX_LENGTH + 1);
+        assertEquals(-1, typos.analyze(word, "a"));
+        assertEquals(0, typos.getEditCount());
+        assertEquals(TypoAnalyzer.MAX_LENGTH, typos.distance("", "b".repeat(TypoAnalyzer.MAX_LENGTH + 5)));
+    }
+
+    @Test
+    void composesSeparateAccents() {
+        String typed = "canción";
+        assertEquals("canción", TypoAnalyzer.composed(typed));
+        String plain = "cancion";
+        assertTrue(plain == TypoAnalyzer.composed(plain));
+    }
+}
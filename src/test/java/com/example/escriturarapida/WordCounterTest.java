@@ -0,0 +1,142 @@
+package com.example.escriturarapida;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks {@link WordCounter} against a {@link HashMap} fed the same words.
+ */
+class WordCounterTest {
+
+    private static String randomWord(Random random) {
+        // Skewed lengths and chars, so some words repeat a lot and some are rare
+        char[] chars = new char[1 + random.nextInt(1 + random.nextInt(8))];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = "aeiousnñá".charAt(random.nextInt(1 + random.nextInt(9)));
+        }
+        return new String(chars);
+    }
+
+    private static void add(WordCounter counter, String word, long count) {
+        // Padded, to check that offsets are honoured
+        char[] text = ("  " + word + " ").toCharArray();
+        counter.add(text, 2, word.length(), WordCounter.hash(text, 2, word.length()), count);
+    }
+
+    private static Map<String, Long> contents(WordCounter counter) {
+        Map<String, Long> words = new LinkedHashMap<>();
+        counter.forEach((chars, offset, length, count) -> words.put(new String(chars, offset, length), count));
+        return words;
+    }
+
+    @Test
+    void countsLikeAHashMap() {
+        Random random = new Random(1);
+        WordCounter counter = new WordCounter(4);
+        Map<String, Long> reference = new LinkedHashMap<>();
+        long total = 0;
+        for (int i = 0; i < 200_000; i++) {
+            String word = randomWord(random);
+            long count = 1 + random.nextInt(3);
+            add(counter, word, count);
+            reference.merge(word, count, Long::sum);
+            total += count;
+        }
+        assertEquals(reference.size(), counter.size());
+        assertEquals(total, counter.getTotal());
+        // Same words, same counts, in the order they were first counted
+        assertEquals(new ArrayList<>(reference.entrySet()), new ArrayList<>(contents(counter).entrySet()));
+    }
+
+    @Test
+    void hashDependsOnlyOnTheChars() {
+        char[] a = "xxcasa".toCharArray();
+        char[] b = "casayy".toCharArray();
+        assertEquals(WordCounter.hash(a, 2, 4), WordCounter.hash(b, 0, 4));
+        assertTrue(WordCounter.hash(a, 2, 4) != WordCounter.hash(b, 0, 3));
+    }
+
+    @Test
+    void pruneKeepsTheCommonWordsWithExactCounts() {
+        Random random = new Random(2);
+        WordCounter counter = new WordCounter(16);
+        Map<String, Long> reference = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            String word = randomWord(random);
+            add(counter, word, 1);
+            reference.merge(word, 1L, Long::sum);
+        }
+        long total = counter.getTotal();
+        int keep = 50;
+        long threshold = counter.prune(2, keep);
+
+        assertTrue(counter.size() <= keep);
+        assertTrue(threshold >= 2);
+        Map<String, Long> kept = contents(counter);
+        for (Map.Entry<String, Long> e : reference.entrySet()) {
+            if (e.getValue() >= threshold) {
+                assertEquals(e.getValue(), kept.get(e.getKey()), e.getKey());
+            } else {
+                assertTrue(!kept.containsKey(e.getKey()), e.getKey());
+            }
+        }
+        // Pruned words still count towards the total
+        assertEquals(total, counter.getTotal());
+
+        // The table still finds the words it kept
+        String common = kept.keySet().iterator().next();
+        add(counter, common, 5);
+        assertEquals(kept.get(common) + 5, contents(counter).get(common));
+        assertEquals(kept.size(), counter.size());
+    }
+
+    @Test
+    void mergesCountersIncludingPrunedOccurrences() {
+        Random random = new Random(3);
+        WordCounter first = new WordCounter(8);
+        WordCounter second = new WordCounter(8);
+        Map<String, Long> reference = new HashMap<>();
+        for (int i = 0; i < 50_000; i++) {
+            String word = randomWord(random);
+            add(i % 2 == 0 ? first : second, word, 1);
+            reference.merge(word, 1L, Long::sum);
+        }
+        first.addAll(second);
+
+        assertEquals(reference, new HashMap<>(contents(first)));
+        assertEquals(50_000, first.getTotal());
+
+        WordCounter rare = new WordCounter(8);
+        add(rare, "única", 1);
+        add(rare, "frecuente", 10);
+        rare.prune(5, 10);
+        WordCounter merged = new WordCounter(8);
+        merged.addAll(rare);
+        assertEquals(1, merged.size());
+        assertEquals(11, merged.getTotal());
+    }
+
+    @Test
+    void growsPastItsExpectedSize() {
+        WordCounter counter = new WordCounter(1);
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            words.add("palabra" + i);
+        }
+        for (String word : words) {
+            add(counter, word, 1);
+        }
+        assertEquals(words.size(), counter.size());
+        assertEquals(new ArrayList<>(words), new ArrayList<>(contents(counter).keySet()));
+        assertTrue(counter.getBytes() > 0);
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.escriturarapida;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks {@link WordTrie} against a {@link TreeMap} holding the same words.
+ */
+class WordTrieTest {
+
+    private static final String CHARS = "abcdeénñoóú";
+
+    /** Reference metadata of a word. */
+    private static final class Entry {
+        final Difficulty difficulty;
+        final double zipf;
+
+        Entry(Difficulty difficulty, double zipf) {
+            this.difficulty = difficulty;
+            this.zipf = zipf;
+        }
+    }
+
+    private static String randomWord(Random random, int maxLength) {
+        char[] chars = new char[1 + random.nextInt(maxLength)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = CHARS.charAt(random.nextInt(CHARS.length()));
+        }
+        return new String(chars);
+    }
+
+    private static TreeMap<String, Entry> randomLexicon(Random random, int words) {
+        TreeMap<String, Entry> reference = new TreeMap<>();
+        Difficulty[] difficulties = Difficulty.values();
+        while (reference.size() < words) {
+            Difficulty difficulty = difficulties[random.nextInt(difficulties.length)];
+            reference.putIfAbsent(randomWord(random, 9), new Entry(difficulty, random.nextInt(80) / 10.0));
+        }
+        return reference;
+    }
+
+    private static WordTrie build(Map<String, Entry> reference) throws IOException {
+        WordTrieWriter writer = new WordTrieWriter();
+        reference.forEach((word, entry) -> writer.add(word, entry.difficulty, entry.zipf));
+        return WordTrie.wrap(writer.encode());
+    }
+
+    private static boolean isReferencePrefix(TreeMap<String, Entry> reference, String prefix) {
+        String next = reference.ceilingKey(prefix);
+        return next != null && next.startsWith(prefix);
+    }
+
+    @Test
+    void findsEveryWordWithItsMetadata() throws IOException {
+        TreeMap<String, Entry> reference = randomLexicon(new Random(1), 5_000);
+        WordTrie trie = build(reference);
+
+        assertEquals(reference.size(), trie.size());
+        assertEquals(reference.keySet().stream().mapToInt(String::length).max().getAsInt(), trie.getMaxLength());
+        char[] out = new char[trie.getMaxLength()];
+        for (Map.Entry<String, Entry> e : reference.entrySet()) {
+            int id = trie.indexOf(e.getKey());
+            assertTrue(id >= 0, e.getKey());
+            assertEquals(e.getValue().difficulty, trie.difficulty(id), e.getKey());
+            assertEquals(e.getValue().zipf, trie.zipf(id), 1e-9, e.getKey());
+            assertEquals(e.getKey(), new String(out, 0, trie.spell(id, out)));
+        }
+    }
+
+    @Test
+    void agreesWithTreeMapOnRandomQueries() throws IOException {
+        Random random = new Random(2);
+        TreeMap<String, Entry> reference = randomLexicon(random, 3_000);
+        WordTrie trie = build(reference);
+
+        int[] ids = new int[25];
+        for (int i = 0; i < 20_000; i++) {
+            String query = randomWord(random, 7);
+            assertEquals(reference.containsKey(query), trie.contains(query), query);
+            assertEquals(isReferencePrefix(reference, query), trie.isPrefix(query), query);
+
+            int expectedLength = query.length();
+            while (expectedLength > 0 && !isReferencePrefix(reference, query.substring(0, expectedLength))) {
+                expectedLength--;
+            }
+            assertEquals(expectedLength, trie.prefixLength(query), query);
+
+            String prefix = query.substring(0, 1 + random.nextInt(Math.min(3, query.length())));
+            List<String> expected = new ArrayList<>();
+            for (String word : reference.tailMap(prefix).keySet()) {
+                if (!word.startsWith(prefix) || expected.size() == ids.length) {
+                    break;
+                }
+                expected.add(word);
+            }
+            int count = trie.complete(prefix, ids);
+            List<String> completed = new ArrayList<>();
+            for (int j = 0; j < count; j++) {
+                completed.add(trie.word(ids[j]));
+            }
+            assertEquals(expected, completed, prefix);
+        }
+    }
+
+    @Test
+    void rejectsCharsOutsideTheAlphabet() throws IOException {
+        TreeMap<String, Entry> reference = randomLexicon(new Random(3), 100);
+        WordTrie trie = build(reference);
+
+        assertFalse(trie.contains(""));
+        assertTrue(trie.isPrefix(""));
+        assertFalse(trie.contains("xyz"));
+        assertEquals(0, trie.prefixLength("xyz"));
+        assertEquals(0, trie.complete("x", new int[4]));
+    }
+
+    @Test
+    void readsTheSameTrieFromAFile() throws IOException {
+        TreeMap<String, Entry> reference = randomLexicon(new Random(4), 1_000);
+        WordTrieWriter writer = new WordTrieWriter();
+        reference.forEach((word, entry) -> writer.add(word, entry.difficulty, entry.zipf));
+        Path file = Files.createTempFile("lexicon", ".trie");
+        try {
+            writer.write(file);
+            WordTrie trie = WordTrie.open(file);
+            assertEquals(reference.size(), trie.size());
+            for (String word : reference.keySet()) {
+                assertTrue(trie.contains(word), word);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}